@@ -0,0 +1,55 @@
+package eu.telecomnancy.membershipmanagement.api.configuration;
+
+import eu.telecomnancy.membershipmanagement.api.dal.memory.journal.MembershipJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Durability of the in-memory persistence engine
+ *
+ * The content of the in-memory store is journaled only if a directory is set for the journal
+ */
+@Configuration
+@ConditionalOnProperty(
+        name = PersistenceEngineEnvironmentPostProcessor.ENGINE_PROPERTY,
+        havingValue = PersistenceEngineEnvironmentPostProcessor.IN_MEMORY_ENGINE)
+public class InMemoryPersistenceConfiguration {
+
+    /**
+     * Size of a segment of the write-ahead log
+     */
+    @Value("${persistence.in-memory.journal.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    /**
+     * Number of mutations appended to the log after which a snapshot is taken
+     */
+    @Value("${persistence.in-memory.journal.snapshot-interval:1000000}")
+    private long snapshotInterval;
+
+    /**
+     * Interval at which the log is written back to the storage device
+     */
+    @Value("${persistence.in-memory.journal.flush-interval:1s}")
+    private Duration flushInterval;
+
+    /**
+     * Bean to create the journal of the in-memory store
+     *
+     * @param directory Directory of the log segments and of the snapshots
+     * @return A journal to be recovered by the store
+     */
+    @Bean
+    @ConditionalOnProperty("persistence.in-memory.journal.directory")
+    public MembershipJournal membershipJournal(@Value("${persistence.in-memory.journal.directory}") Path directory) {
+        return new MembershipJournal(
+                directory, Math.toIntExact(segmentSize.toBytes()), snapshotInterval, flushInterval);
+    }
+
+}
@@ -0,0 +1,72 @@
+package eu.telecomnancy.membershipmanagement.api.configuration;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Select the persistence engine of the API from the {@value #ENGINE_PROPERTY} property
+ *
+ * With the default `jpa` engine, the entities are stored in Derby through Hibernate. With the
+ * {@value #IN_MEMORY_ENGINE} engine, they are held by the in-memory store and the database-related auto-configurations
+ * are excluded, so that neither Derby nor Hibernate are started
+ */
+public class PersistenceEngineEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    /**
+     * Name of the property selecting the persistence engine
+     */
+    public static final String ENGINE_PROPERTY = "persistence.engine";
+
+    /**
+     * Value of the {@value #ENGINE_PROPERTY} property selecting the in-memory store
+     */
+    public static final String IN_MEMORY_ENGINE = "in-memory";
+
+    /**
+     * Spring Boot property listing the excluded auto-configurations
+     */
+    private static final String EXCLUDE_PROPERTY = "spring.autoconfigure.exclude";
+
+    /**
+     * Auto-configurations of the database, useless with the in-memory store
+     */
+    private static final List<String> DATABASE_AUTO_CONFIGURATIONS = List.of(
+            DataSourceAutoConfiguration.class.getName(),
+            DataSourceTransactionManagerAutoConfiguration.class.getName(),
+            FlywayAutoConfiguration.class.getName(),
+            HibernateJpaAutoConfiguration.class.getName(),
+            JpaRepositoriesAutoConfiguration.class.getName());
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!IN_MEMORY_ENGINE.equals(environment.getProperty(ENGINE_PROPERTY))) {
+            return;
+        }
+
+        // Keep the auto-configurations already excluded by the user
+        List<String> excluded = new ArrayList<>(DATABASE_AUTO_CONFIGURATIONS);
+        String alreadyExcluded = environment.getProperty(EXCLUDE_PROPERTY);
+
+        if (alreadyExcluded != null && !alreadyExcluded.isBlank()) {
+            excluded.add(alreadyExcluded);
+        }
+
+        environment.getPropertySources().addFirst(new MapPropertySource(
+                "inMemoryPersistenceEngine", Map.of(EXCLUDE_PROPERTY, String.join(",", excluded))));
+    }
+
+}
@@ -2,6 +2,7 @@ package eu.telecomnancy.membershipmanagement.api.configuration;
 
 import org.springframework.amqp.core.*;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -19,6 +20,12 @@ public class RabbitMQConfiguration {
     @Value("${amqp.topic.name}")
     private String topicName;
 
+    /**
+     * RabbitMQ routing key of the invalidations of the cached entities
+     */
+    @Value("${amqp.routing-key.invalidation}")
+    private String invalidationKey;
+
     /**
      * Bean to create the RabbitMQ topic exchange
      *
@@ -29,4 +36,38 @@ public class RabbitMQConfiguration {
         return new TopicExchange(topicName);
     }
 
+    /**
+     * Bean to create the queue of the invalidations received by this instance, which is deleted along with it
+     *
+     * Only the JPA engine caches the entities, hence the queue is not created for the in-memory one
+     *
+     * @return An initialized queue
+     */
+    @Bean
+    @ConditionalOnProperty(
+            name = PersistenceEngineEnvironmentPostProcessor.ENGINE_PROPERTY,
+            havingValue = "jpa",
+            matchIfMissing = true)
+    public Queue cacheInvalidationQueue() {
+        return new AnonymousQueue();
+    }
+
+    /**
+     * Bean to bind the queue of the invalidations to the RabbitMQ topic exchange
+     *
+     * @param topicExchange The topic exchange on which the invalidations are sent
+     * @param cacheInvalidationQueue The queue of the invalidations received by this instance
+     * @return A binding between the topic exchange and the queue
+     */
+    @Bean
+    @ConditionalOnProperty(
+            name = PersistenceEngineEnvironmentPostProcessor.ENGINE_PROPERTY,
+            havingValue = "jpa",
+            matchIfMissing = true)
+    public Binding cacheInvalidationBinding(TopicExchange topicExchange, Queue cacheInvalidationQueue) {
+        return BindingBuilder.bind(cacheInvalidationQueue)
+                .to(topicExchange)
+                .with(invalidationKey);
+    }
+
 }
@@ -0,0 +1,98 @@
+package eu.telecomnancy.membershipmanagement.api.configuration;
+
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.domain.User;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Second-level cache of Hibernate, holding the {@link Team}, {@link User} and {@link Team#getMembers()} entries
+ *
+ * Each region is bounded and evicts its least recently used entries once full. The regions are held by a JCache
+ * manager dedicated to the application context, whose statistics (hits, misses, puts, evictions) are exposed as the
+ * `cache.*` metrics, Hibernate exposing its own view of the regions as the `hibernate.second.level.cache.*` metrics
+ */
+@Configuration
+@ConditionalOnProperty(
+        name = PersistenceEngineEnvironmentPostProcessor.ENGINE_PROPERTY,
+        havingValue = "jpa",
+        matchIfMissing = true)
+public class SecondLevelCacheConfiguration {
+
+    /**
+     * Regions of the second-level cache, named after the cached entities and collection
+     */
+    private static final List<String> REGIONS = List.of(
+            Team.class.getName(),
+            Team.class.getName() + ".members",
+            User.class.getName());
+
+    /**
+     * Maximum number of entries held by each region
+     */
+    @Value("${persistence.second-level-cache.max-entries:10000}")
+    private long maxEntries;
+
+    /**
+     * Bean to create the manager of the regions of the second-level cache
+     *
+     * Its URI is unique so that several application contexts do not share their regions
+     *
+     * @return A cache manager holding a bounded cache per region
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager() {
+        CacheManager cacheManager = new EhcacheCachingProvider().getCacheManager(
+                URI.create("urn:membership-management:second-level-cache:" + UUID.randomUUID()),
+                getClass().getClassLoader());
+
+        for (String region : REGIONS) {
+            cacheManager.createCache(region, Eh107Configuration.fromEhcacheCacheConfiguration(
+                    CacheConfigurationBuilder.newCacheConfigurationBuilder(
+                            Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))));
+            cacheManager.enableStatistics(region, true);
+        }
+
+        return cacheManager;
+    }
+
+    /**
+     * Bean to make Hibernate use the regions of the second-level cache manager
+     *
+     * @param secondLevelCacheManager Manager of the regions of the second-level cache
+     * @return A customizer of the Hibernate properties
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    /**
+     * Bean to expose the statistics of the regions of the second-level cache as metrics
+     *
+     * @param secondLevelCacheManager Manager of the regions of the second-level cache
+     * @return A binder of the metrics of each region
+     */
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager secondLevelCacheManager) {
+        return registry -> REGIONS.forEach(region -> JCacheMetrics.monitor(
+                registry, secondLevelCacheManager.getCache(region), Tags.of("cacheManager", "second-level")));
+    }
+
+}
@@ -1,8 +1,12 @@
 package eu.telecomnancy.membershipmanagement.api.controllers.exception;
 
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.EntityChangedException;
 import eu.telecomnancy.membershipmanagement.api.services.exceptions.MembershipManagementException;
 import eu.telecomnancy.membershipmanagement.api.services.exceptions.UnknownEntityException;
+import eu.telecomnancy.membershipmanagement.api.services.notification.PublishQueueFullException;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -10,6 +14,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -41,13 +46,15 @@ public class RestExceptionHandler {
     /**
      * Handle application custom exceptions on missing entities
      *
+     * The lookups of missing entities are already logged, at a limited rate, by the services
+     *
      * @param exception Application exception
      * @return A formatted 404 error
      */
     @ResponseBody
     @ExceptionHandler(value = UnknownEntityException.class)
     public ResponseEntity<?> handleUnknownMemberException(UnknownEntityException exception) {
-        log.error(
+        log.debug(
                 "NOT FOUND | {} : {}",
                 exception.getClass().getSimpleName(),
                 exception.getMessage());
@@ -55,6 +62,60 @@ public class RestExceptionHandler {
         return ResponseEntity.notFound().build();
     }
 
+    /**
+     * Handle the updates whose `If-Match` precondition does not match the current version of the entity
+     *
+     * @param exception Application exception
+     * @return A formatted 412 error, the client having to read the entity again before updating it
+     */
+    @ResponseBody
+    @ExceptionHandler(value = EntityChangedException.class)
+    public ResponseEntity<?> handleEntityChangedException(EntityChangedException exception) {
+        log.error(
+                "PRECONDITION FAILED | {} : {}",
+                exception.getClass().getSimpleName(),
+                exception.getMessage());
+
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(exception.getReason());
+    }
+
+    /**
+     * Handle the commands that kept conflicting with concurrent changes of the same entities
+     *
+     * @param exception Concurrency failure, raised once the attempts of the command are exhausted
+     * @return A formatted 409 error, the client being free to send the command again
+     */
+    @ResponseBody
+    @ExceptionHandler(value = OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleOptimisticLockingFailureException(OptimisticLockingFailureException exception) {
+        log.error(
+                "CONFLICT | {} : {}",
+                exception.getClass().getSimpleName(),
+                exception.getMessage());
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Collections.singletonMap("reason", "The entity has been changed concurrently, please retry"));
+    }
+
+    /**
+     * Handle the commands whose notifications can't be queued, the broker not keeping up with the API
+     *
+     * @param exception Publication failure, raised before the command is committed
+     * @return A formatted 503 error, the client being free to send the command again later
+     */
+    @ResponseBody
+    @ExceptionHandler(value = PublishQueueFullException.class)
+    public ResponseEntity<?> handlePublishQueueFullException(PublishQueueFullException exception) {
+        log.error(
+                "SERVICE UNAVAILABLE | {} : {}",
+                exception.getClass().getSimpleName(),
+                exception.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Collections.singletonMap("reason", "Too many notifications are pending, please retry later"));
+    }
+
     /**
      * Handle Hibernate validation exceptions
      * From: https://www.baeldung.com/spring-boot-bean-validation
@@ -0,0 +1,66 @@
+package eu.telecomnancy.membershipmanagement.api.controllers.snapshot;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.snapshot.ContentSnapshotDto;
+import eu.telecomnancy.membershipmanagement.api.services.snapshot.ContentSnapshotService;
+import io.swagger.annotations.Api;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * API controller for the snapshot of the content
+ * Used by the consumers of the events to start counting the teams and the users from the current counts
+ */
+@RestController
+@RequestMapping(
+        path = "/api/snapshot",
+        produces = MediaType.APPLICATION_JSON_VALUE)
+@Api(value = "Snapshot", tags = { ContentSnapshotRestController.CONTROLLER_TAG })
+public class ContentSnapshotRestController {
+
+    /**
+     * Controller-specific tag used to document the swagger endpoints
+     */
+    static final String CONTROLLER_TAG = "Snapshot";
+
+    /**
+     * Snapshot service used to read the counts
+     */
+    private final ContentSnapshotService snapshotService;
+
+    /**
+     * Default constructor
+     *
+     * @param snapshotService Snapshot service used to read the counts
+     */
+    @Autowired
+    public ContentSnapshotRestController(ContentSnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
+    /**
+     * Endpoint for: GET /snapshot
+     *
+     * Retrieve the number of teams and users, along with the position of the last event they reflect: the events of
+     * the same stream up to this position are not to be applied again by the consumer
+     *
+     * @return The snapshot of the counts
+     */
+    @GetMapping
+    @Operation(summary = "Retrieve the number of teams and users with the position of the last event they reflect",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Snapshot successfully retrieved")
+            })
+    public ResponseEntity<ContentSnapshotDto> get() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(snapshotService.getSnapshot());
+    }
+
+}
@@ -1,5 +1,9 @@
 package eu.telecomnancy.membershipmanagement.api.controllers.team;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.caching.CachedResponse;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.caching.TeamDetailsResponseCache;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.ExportTeamsQuery;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.GetTeamMembersQuery;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.GetTeamQuery;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.GetTeamsQuery;
@@ -8,18 +12,28 @@ import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamD
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.mappings.TeamMapper;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.mappings.UserMapper;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.pagination.CursorPageResponse;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.streaming.JsonArrayStreamWriter;
 import eu.telecomnancy.membershipmanagement.api.domain.Team;
 import eu.telecomnancy.membershipmanagement.api.domain.User;
+import eu.telecomnancy.membershipmanagement.api.services.pagination.CursorPage;
 import eu.telecomnancy.membershipmanagement.api.services.team.ITeamQueryService;
+import eu.telecomnancy.membershipmanagement.api.services.versioning.EntityTags;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiParam;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,23 +50,73 @@ import java.util.Optional;
 @Api(value = "Team", tags = { TeamRestController.CONTROLLER_TAG })
 public class TeamReadRestController extends TeamRestController {
 
+    /**
+     * Value of the `include` parameter asking for the members of the teams
+     */
+    public static final String INCLUDE_MEMBERS = "members";
+
     /**
      * Team service used for read-only operation
      */
     private final ITeamQueryService teamService;
 
+    /**
+     * JSON object mapper used to stream the exported teams and to serialize the team details
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Cache of the serialized details of the teams
+     */
+    private final TeamDetailsResponseCache teamDetailsCache;
+
     /**
      * Default constructor
      *
      * @param teamService Team service used for read-only operation
      * @param teamMapper TeamDto mapper utility
      * @param userMapper UserDto mapper utility
+     * @param objectMapper JSON object mapper used to stream the exported teams and to serialize the team details
+     * @param teamDetailsCache Cache of the serialized details of the teams
      */
     @Autowired
-    public TeamReadRestController(ITeamQueryService teamService, TeamMapper teamMapper, UserMapper userMapper) {
+    public TeamReadRestController(ITeamQueryService teamService, TeamMapper teamMapper, UserMapper userMapper,
+                                  ObjectMapper objectMapper, TeamDetailsResponseCache teamDetailsCache) {
         super(teamMapper, userMapper);
 
         this.teamService = teamService;
+        this.objectMapper = objectMapper;
+        this.teamDetailsCache = teamDetailsCache;
+    }
+
+    /**
+     * Endpoint for: GET /teams/export
+     *
+     * Export all teams of the system at once, ordered by their id
+     *
+     * Unlike GET /teams, the teams are not paginated: they are streamed from the database and written one by one on
+     * the response so that the memory usage of the API remains the same regardless of the number of teams
+     *
+     * @param isComplete Optional parameter to filter the teams regarding their completed attribute
+     * @param response HTTP response on which the teams are written
+     * @throws IOException If the response can not be written
+     */
+    @GetMapping(path = "/export")
+    @Operation(summary = "Export all teams of the system at once",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Teams successfully exported")
+            })
+    public void export(
+            @ApiParam(value = "Optional parameter to filter the teams regarding their completed attribute")
+            @RequestParam(required = false) Optional<Boolean> isComplete,
+            HttpServletResponse response) throws IOException {
+        ExportTeamsQuery exportTeamsQuery = new ExportTeamsQuery(isComplete);
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        try (JsonArrayStreamWriter writer = new JsonArrayStreamWriter(objectMapper, response.getOutputStream())) {
+            teamService.exportTeams(exportTeamsQuery, team -> writer.write(teamMapper.toDto(team)));
+        }
     }
 
     /**
@@ -60,24 +124,64 @@ public class TeamReadRestController extends TeamRestController {
      *
      * Retrieve a team by its id
      *
+     * The team is served with an `ETag` derived from the versions of the team and of its members. If the client
+     * already holds this version (`If-None-Match`), a 304 is returned after a lookup of these versions, without
+     * loading the team
+     *
+     * The details are written already serialized from a cache, the team being loaded and serialized only on a miss
+     *
      * @param id Id of the team to retrieve
-     * @return A JSON payload containing the team
+     * @param ifNoneMatch Optional entity tags of the versions of the team held by the client
+     * @param response HTTP response on which the details of the team are written, none if it is not modified
+     * @throws IOException If the response can not be written
      */
     @GetMapping(path = "/{id}")
     @Operation(summary = "Retrieve an existing team by its id",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Team successfully retrieved"),
+                    @ApiResponse(responseCode = "200", description = "Team successfully retrieved",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = TeamDetailsDto.class))),
+                    @ApiResponse(responseCode = "304", description = "Team not modified"),
                     @ApiResponse(responseCode = "404", description = "Team not found")
             })
-    public ResponseEntity<TeamDetailsDto> getTeam(
+    public void getTeam(
             @ApiParam(value = "Id of the team to retrieve")
-            @PathVariable long id) {
+            @PathVariable long id,
+            @ApiParam(value = "Optional entity tags of the versions of the team held by the client")
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) Optional<String> ifNoneMatch,
+            HttpServletResponse response) throws IOException {
         GetTeamQuery query = new GetTeamQuery(id);
 
-        Team team = teamService.getTeam(query);
+        if (ifNoneMatch.isPresent()) {
+            String entityTag = teamService.getTeamEntityTag(query);
 
-        return ResponseEntity.ok()
-                .body(teamMapper.toDetailsDto(team));
+            if (EntityTags.isNotModified(ifNoneMatch.get(), entityTag)) {
+                response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                response.setHeader(HttpHeaders.ETAG, entityTag);
+                return;
+            }
+        }
+
+        Optional<CachedResponse> cachedDetails = teamDetailsCache.get(id);
+        CachedResponse details;
+
+        if (cachedDetails.isPresent()) {
+            details = cachedDetails.get();
+        } else {
+            // Read the generation first, so that details made outdated by a concurrent change are not cached
+            long generation = teamDetailsCache.getGeneration();
+            Team team = teamService.getTeam(query);
+
+            details = new CachedResponse(
+                    objectMapper.writeValueAsBytes(teamMapper.toDetailsDto(team)), EntityTags.ofTeam(team));
+            teamDetailsCache.put(id, details, generation);
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(details.getBody().length);
+        response.setHeader(HttpHeaders.ETAG, details.getEntityTag());
+        response.getOutputStream().write(details.getBody());
     }
 
     /**
@@ -85,35 +189,57 @@ public class TeamReadRestController extends TeamRestController {
      *
      * Retrieve the team members by its id
      *
+     * The members are served with an `ETag` derived from their versions. If the client already holds this version
+     * (`If-None-Match`), a 304 is returned after a lookup of these versions, without loading the members
+     *
      * @param id Id of the team in which the members to retrieve are
-     * @return A JSON payload containing the team
+     * @param ifNoneMatch Optional entity tags of the versions of the members held by the client
+     * @return A JSON payload containing the team, none if the members are not modified
      */
     @GetMapping(path = "/{id}/members")
     @Operation(summary = " Retrieve the team members by its id",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Members successfully retrieved"),
+                    @ApiResponse(responseCode = "304", description = "Members not modified"),
                     @ApiResponse(responseCode = "404", description = "Team not found")
             })
     public ResponseEntity<List<UserDto>> getTeamMembers(
             @ApiParam(value = "Id of the team in which the members to retrieve are")
-            @PathVariable long id) {
+            @PathVariable long id,
+            @ApiParam(value = "Optional entity tags of the versions of the members held by the client")
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) Optional<String> ifNoneMatch) {
         GetTeamMembersQuery query = new GetTeamMembersQuery(id);
 
+        if (ifNoneMatch.isPresent()) {
+            String entityTag = teamService.getTeamMembersEntityTag(query);
+
+            if (EntityTags.isNotModified(ifNoneMatch.get(), entityTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).build();
+            }
+        }
+
         List<User> members = teamService.getTeamMembers(query);
 
         return ResponseEntity.ok()
+                        .eTag(EntityTags.ofMembers(EntityTags.versionsOf(members)))
                         .body(userMapper.toDtoList(members));
     }
 
     /**
      * Endpoint for: GET /teams
      *
-     * Retrieve all teams of the system
+     * Retrieve a page of the teams of the system, ordered by their id
+     *
+     * The teams are paginated using a cursor: the cursor of the next page, if any, is provided in the
+     * `X-Next-Cursor` header and should be passed on as the `after` parameter to retrieve it
+     *
+     * With `include=members`, the members of each team of the page are retrieved along with it, all the rosters being
+     * read in a single query. Any other value is ignored
      *
      * Note: the `required = false`, even if not necessary thanks to the Optional type, is necessary for the swagger UI
      * If not present, Swagger will consider this parameter as mandatory
      *
-     * @return A JSON payload containing all the teams
+     * @return A JSON payload containing the teams of the page
      */
     @GetMapping
     @Operation(summary = "Retrieve all teams of the system",
@@ -122,13 +248,22 @@ public class TeamReadRestController extends TeamRestController {
             })
     public ResponseEntity<List<TeamDto>> get(
             @ApiParam(value = "Optional parameter to filter the teams regarding their completed attribute")
-            @RequestParam(required = false) Optional<Boolean> isComplete) {
-        GetTeamsQuery getTeamsQuery = new GetTeamsQuery(isComplete);
+            @RequestParam(required = false) Optional<Boolean> isComplete,
+            @ApiParam(value = "Optional cursor of the page, only the teams with a greater id will be retrieved")
+            @RequestParam(required = false) Optional<Long> after,
+            @ApiParam(value = "Optional maximum number of teams to retrieve (default: 100, max: 1000)")
+            @RequestParam(required = false) Optional<Integer> limit,
+            @ApiParam(value = "Optional `members` value to retrieve the members of the teams along with them")
+            @RequestParam(required = false) Optional<String> include) {
+        GetTeamsQuery getTeamsQuery = new GetTeamsQuery(
+                isComplete,
+                after.orElse(0L),
+                limit.orElse(CursorPage.DEFAULT_LIMIT),
+                include.filter(INCLUDE_MEMBERS::equals).isPresent());
 
-        List<Team> teams = teamService.getTeams(getTeamsQuery);
+        CursorPage<TeamDto> teams = teamService.getTeams(getTeamsQuery);
 
-        return ResponseEntity.ok()
-                .body(teamMapper.toDtoList(teams));
+        return CursorPageResponse.ok(teams, teams.getContent());
     }
 
 }
@@ -6,12 +6,16 @@ import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserD
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.mappings.TeamMapper;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.mappings.UserMapper;
 import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.domain.User;
 import eu.telecomnancy.membershipmanagement.api.services.team.ITeamCommandService;
+import eu.telecomnancy.membershipmanagement.api.services.versioning.EntityTags;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiParam;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -20,6 +24,7 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import javax.validation.Valid;
 import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * API controller for the Team resource
@@ -118,6 +123,9 @@ public class TeamWriteRestController extends TeamRestController {
      *
      * see: https://tools.ietf.org/html/rfc5789
      *
+     * With `If-Match`, the team is only updated if it is still at one of the listed versions, as served in the `ETag`
+     * of GET /teams/:id, so that a concurrent update is not silently overwritten
+     *
      * @return The JSON of the updated team as {@link TeamDto}
      */
     @PatchMapping("/{id}")
@@ -129,15 +137,20 @@ public class TeamWriteRestController extends TeamRestController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "Team successfully updated"),
                     @ApiResponse(responseCode = "400", description = "Malformed body"),
-                    @ApiResponse(responseCode = "404", description = "Team not found")
+                    @ApiResponse(responseCode = "404", description = "Team not found"),
+                    @ApiResponse(responseCode = "412", description = "Team changed since the expected version")
             })
     public ResponseEntity<TeamDto> patch(
             @ApiParam(value = "Id of the targeted team")
             @PathVariable long id,
+            @ApiParam(value = "Optional entity tags of the versions of the team that can be updated")
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) Optional<String> ifMatch,
             @ApiParam(value = "Payload from which the team details will be replaced")
             @Valid @RequestBody PatchTeamCommand patchTeamCommand) {
-        Team team = teamService.patchTeam(id, patchTeamCommand);
-        return ResponseEntity.ok(teamMapper.toDto(team));
+        Team team = teamService.patchTeam(id, patchTeamCommand, ifMatch);
+        return ResponseEntity.ok()
+                .eTag(EntityTags.ofTeam(team))
+                .body(teamMapper.toDto(team));
     }
 
     /**
@@ -171,6 +184,32 @@ public class TeamWriteRestController extends TeamRestController {
                 .body(teamMapper.toDto(created));
     }
 
+    /**
+     * Endpoint for: POST /teams/batch
+     *
+     * Create several new teams with no member at once
+     *
+     * @param createTeamsCommand A JSON array containing the new teams' data
+     * @return A JSON payload containing the created teams, in the order of the payload
+     */
+    @PostMapping("/batch")
+    @Operation(summary = "Create several new teams with no user at once",
+            description = """
+                Up to 1000 teams can be created at once, either all of them are created or none
+            """,
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Teams successfully created"),
+                    @ApiResponse(responseCode = "400", description = "Malformed body")
+            })
+    public ResponseEntity<List<TeamDto>> postBatch(
+            @ApiParam(value = "Payloads from which creating the teams")
+            @Valid @RequestBody CreateTeamsCommand createTeamsCommand) {
+        List<Team> created = teamService.createTeams(createTeamsCommand);
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(teamMapper.toDtoList(created));
+    }
+
     /**
      * Endpoint for: POST /teams/:id/members
      *
@@ -205,4 +244,34 @@ public class TeamWriteRestController extends TeamRestController {
                 .body(userMapper.toDtoList(team.getMembers()));
     }
 
+    /**
+     * Endpoint for: PUT /teams/:id/members
+     *
+     * Replace all the members of the team at once
+     *
+     * @param id Id of the team whose members are replaced
+     * @param replaceTeamMembersCommand A JSON array containing the ids of the new members
+     * @return The JSON of the new members of the team as {@link UserDto}
+     */
+    @PutMapping("/{id}/members")
+    @Operation(summary = "Replace all the members of the team at once",
+            description = """
+                Either all the members are replaced or none, the users not in the payload leave the team
+            """,
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Members successfully replaced"),
+                    @ApiResponse(responseCode = "400",
+                            description = "Malformed body, too many members or user already in another team"),
+                    @ApiResponse(responseCode = "404", description = "Team or user not found")
+            })
+    public ResponseEntity<List<UserDto>> putMembers(
+            @ApiParam(value = "Id of the team whose members are replaced")
+            @PathVariable long id,
+            @ApiParam(value = "Ids of the users that will be the members of the team")
+            @Valid @RequestBody ReplaceTeamMembersCommand replaceTeamMembersCommand) {
+        List<User> members = teamService.replaceTeamMembers(id, replaceTeamMembersCommand);
+
+        return ResponseEntity.ok(userMapper.toDtoList(members));
+    }
+
 }
@@ -1,12 +1,18 @@
 package eu.telecomnancy.membershipmanagement.api.controllers.user;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.ExportUsersQuery;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.GetUserQuery;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.GetUsersQuery;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDetailsDto;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.mappings.UserMapper;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.pagination.CursorPageResponse;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.streaming.JsonArrayStreamWriter;
 import eu.telecomnancy.membershipmanagement.api.domain.User;
+import eu.telecomnancy.membershipmanagement.api.services.pagination.CursorPage;
 import eu.telecomnancy.membershipmanagement.api.services.user.IUserQueryService;
+import eu.telecomnancy.membershipmanagement.api.services.versioning.EntityTags;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiParam;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,10 +20,14 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,28 +49,68 @@ public class UserReadRestController extends UserRestController {
      */
     private final IUserQueryService userService;
 
+    /**
+     * JSON object mapper used to stream the exported users
+     */
+    private final ObjectMapper objectMapper;
+
     /**
      * Default constructor
      *
      * @param userService User service used for read-only operation
      * @param mapper UserDto mapper utility
+     * @param objectMapper JSON object mapper used to stream the exported users
      */
     @Autowired
-    public UserReadRestController(IUserQueryService userService, UserMapper mapper) {
+    public UserReadRestController(IUserQueryService userService, UserMapper mapper, ObjectMapper objectMapper) {
         super(mapper);
 
         this.userService = userService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Endpoint for: GET /users/export
+     *
+     * Export all users of the system at once, ordered by their id
+     *
+     * Unlike GET /users, the users are not paginated: they are streamed from the database and written one by one on
+     * the response so that the memory usage of the API remains the same regardless of the number of users
+     *
+     * @param hasTeam Optional parameter to filter the users regarding their belonging to a team
+     * @param response HTTP response on which the users are written
+     * @throws IOException If the response can not be written
+     */
+    @GetMapping(path = "/export")
+    @Operation(summary = "Export all users tracked by the system at once",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Users successfully exported")
+            })
+    public void export(
+            @ApiParam(value = "Optional parameter to filter the users regarding their belonging to a team")
+            @RequestParam(required = false) Optional<Boolean> hasTeam,
+            HttpServletResponse response) throws IOException {
+        ExportUsersQuery exportUsersQuery = new ExportUsersQuery(hasTeam);
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        try (JsonArrayStreamWriter writer = new JsonArrayStreamWriter(objectMapper, response.getOutputStream())) {
+            userService.exportUsers(exportUsersQuery, user -> writer.write(mapper.toDto(user)));
+        }
     }
 
     /**
      * Endpoint for: GET /users
      *
-     * Retrieve all users of the system
+     * Retrieve a page of the users of the system, ordered by their id
+     *
+     * The users are paginated using a cursor: the cursor of the next page, if any, is provided in the
+     * `X-Next-Cursor` header and should be passed on as the `after` parameter to retrieve it
      *
      * Note: the `required = false`, even if not necessary thanks to the Optional type, is necessary for the swagger UI
      * If not present, Swagger will consider this parameter as mandatory
      *
-     * @return A JSON payload containing all the users
+     * @return A JSON payload containing the users of the page
      */
     @GetMapping
     @Operation(summary = "Retrieve all users tracked by the system",
@@ -69,13 +119,19 @@ public class UserReadRestController extends UserRestController {
              })
     public ResponseEntity<List<UserDto>> get(
             @ApiParam(value = "Optional parameter to filter the users regarding their belonging to a team")
-            @RequestParam(required = false) Optional<Boolean> hasTeam) {
-        GetUsersQuery getUsersQuery = new GetUsersQuery(hasTeam);
+            @RequestParam(required = false) Optional<Boolean> hasTeam,
+            @ApiParam(value = "Optional cursor of the page, only the users with a greater id will be retrieved")
+            @RequestParam(required = false) Optional<Long> after,
+            @ApiParam(value = "Optional maximum number of users to retrieve (default: 100, max: 1000)")
+            @RequestParam(required = false) Optional<Integer> limit) {
+        GetUsersQuery getUsersQuery = new GetUsersQuery(
+                hasTeam,
+                after.orElse(0L),
+                limit.orElse(CursorPage.DEFAULT_LIMIT));
 
-        List<User> users = userService.getUsers(getUsersQuery);
+        CursorPage<UserDto> users = userService.getUsers(getUsersQuery);
 
-        return ResponseEntity.ok()
-                .body(mapper.toDtoList(users));
+        return CursorPageResponse.ok(users, users.getContent());
     }
 
     /**
@@ -83,23 +139,40 @@ public class UserReadRestController extends UserRestController {
      *
      * Retrieve an existing user by its id
      *
+     * The user is served with an `ETag` derived from the versions of the user and of his team. If the client already
+     * holds this version (`If-None-Match`), a 304 is returned after a lookup of these versions, without loading the
+     * user
+     *
      * @param id Id of the user to retrieve
-     * @return A JSON payload containing the user
+     * @param ifNoneMatch Optional entity tags of the versions of the user held by the client
+     * @return A JSON payload containing the user, none if he is not modified
      */
     @GetMapping(path = "/{id}")
     @Operation(summary = "Retrieve an existing user by its id",
             responses = {
                     @ApiResponse(responseCode = "200", description = "User successfully retrieved"),
+                    @ApiResponse(responseCode = "304", description = "User not modified"),
                     @ApiResponse(responseCode = "404", description = "User not found")
             })
     public ResponseEntity<UserDetailsDto> getUser(
             @ApiParam(value = "Id of the user to retrieve")
-            @PathVariable long id) {
+            @PathVariable long id,
+            @ApiParam(value = "Optional entity tags of the versions of the user held by the client")
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) Optional<String> ifNoneMatch) {
         GetUserQuery query = new GetUserQuery(id);
 
+        if (ifNoneMatch.isPresent()) {
+            String entityTag = userService.getUserEntityTag(query);
+
+            if (EntityTags.isNotModified(ifNoneMatch.get(), entityTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).build();
+            }
+        }
+
         User user = userService.getUser(query);
 
         return ResponseEntity.ok()
+                .eTag(EntityTags.ofUser(user))
                 .body(mapper.toDetailsDto(user));
     }
 
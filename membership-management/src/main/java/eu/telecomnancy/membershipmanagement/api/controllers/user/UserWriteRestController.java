@@ -1,6 +1,7 @@
 package eu.telecomnancy.membershipmanagement.api.controllers.user;
 
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUsersCommand;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.DeleteUserCommand;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.PatchUserCommand;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.UpdateUserCommand;
@@ -8,6 +9,7 @@ import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserD
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.mappings.UserMapper;
 import eu.telecomnancy.membershipmanagement.api.domain.User;
 import eu.telecomnancy.membershipmanagement.api.services.user.IUserCommandService;
+import eu.telecomnancy.membershipmanagement.api.services.versioning.EntityTags;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiParam;
 import io.swagger.v3.oas.annotations.Operation;
@@ -15,6 +17,8 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -22,6 +26,8 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
 import java.net.URI;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * API controller for the User resource
@@ -85,6 +91,9 @@ public class UserWriteRestController extends UserRestController {
      *
      * Partially update a user with the specified identifier if it exists
      *
+     * With `If-Match`, the user is only updated if he is still at one of the listed versions, as served in the `ETag`
+     * of GET /users/:id, so that a concurrent update is not silently overwritten
+     *
      * @return The JSON of the updated user as {@link UserDto}
      */
     @PatchMapping("/{id}")
@@ -96,18 +105,23 @@ public class UserWriteRestController extends UserRestController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "User successfully patched"),
                     @ApiResponse(responseCode = "400", description = "Malformed patch"),
-                    @ApiResponse(responseCode = "404", description = "User not found")
+                    @ApiResponse(responseCode = "404", description = "User not found"),
+                    @ApiResponse(responseCode = "412", description = "User changed since the expected version")
             })
     public ResponseEntity<UserDto> patch(
             @ApiParam(value = "Id of the targeted user")
             @PathVariable long id,
+            @ApiParam(value = "Optional entity tags of the versions of the user that can be updated")
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) Optional<String> ifMatch,
             @ApiParam(value = "Fields to update")
             @Valid @RequestBody PatchUserCommand patchUserCommand) {
         // Retrieve the new user and its creation status
-        User user = userService.patchUser(id, patchUserCommand);
+        User user = userService.patchUser(id, patchUserCommand, ifMatch);
 
-        // Return HTTP 200 OK if the user has been updated
-        return ResponseEntity.ok(mapper.toDto(user));
+        // Return HTTP 200 OK if the user has been updated, along with the tag of his new version
+        return ResponseEntity.ok()
+                .eTag(EntityTags.ofUser(user))
+                .body(mapper.toDto(user));
     }
 
     /**
@@ -145,6 +159,33 @@ public class UserWriteRestController extends UserRestController {
                 .body(mapper.toDto(created));
     }
 
+    /**
+     * Endpoint for: POST /users/batch
+     *
+     * Create several new users with no team at once
+     *
+     * @param createUsersCommand A JSON array containing the new users' data
+     * @return A JSON payload containing the created users, in the order of the payload
+     */
+    @PostMapping("/batch")
+    @Operation(summary = "Create several new users with no team at once",
+            description = """
+                    Each user must meet the same requirements as the ones of POST /api/users.
+                    Up to 1000 users can be created at once, either all of them are created or none.
+                    """,
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Users successfully created"),
+                    @ApiResponse(responseCode = "400", description = "Malformed body")
+            })
+    public ResponseEntity<List<UserDto>> postBatch(
+            @ApiParam(value = "Payloads from which creating the users")
+            @Valid @RequestBody CreateUsersCommand createUsersCommand) {
+        List<User> created = userService.createUsers(createUsersCommand);
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(mapper.toDtoList(created));
+    }
+
     /**
      * Endpoint for: PUT /users/:id
      *
@@ -0,0 +1,30 @@
+package eu.telecomnancy.membershipmanagement.api.controllers.utils.caching;
+
+import lombok.Value;
+
+/**
+ * Response of the API already serialized, held by a cache so that it can be written as is on the next requests
+ */
+@Value
+public class CachedResponse {
+
+    /**
+     * Serialized JSON payload of the response
+     */
+    byte[] body;
+
+    /**
+     * Entity tag of the version of the entity the payload is made of
+     */
+    String entityTag;
+
+    /**
+     * Get the memory taken by the response
+     *
+     * @return The size of the payload and of the tag, in bytes
+     */
+    public long getSize() {
+        return body.length + entityTag.length();
+    }
+
+}
@@ -0,0 +1,243 @@
+package eu.telecomnancy.membershipmanagement.api.controllers.utils.caching;
+
+import eu.telecomnancy.membershipmanagement.api.services.notification.CacheInvalidation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded cache of the serialized details of the teams, served by GET /teams/:id without mapping nor serializing the
+ * team again
+ *
+ * The cache is bounded by the total size of its responses, and evicts its least recently used ones once full. A
+ * response is invalidated as soon as a change of its team, or of one of its members, is committed: either locally or
+ * by another instance of the API (see {@link CacheInvalidation}). Its hits, misses, evictions and memory footprint are
+ * exposed as the `cache.*` metrics of the `teamDetails` cache
+ */
+@Log4j2
+@Component
+public class TeamDetailsResponseCache {
+
+    /**
+     * Name of the cache, tagging its metrics
+     */
+    private static final String CACHE_NAME = "teamDetails";
+
+    /**
+     * Maximum total size of the cached responses
+     */
+    @Value("${response-cache.team-details.max-size:16MB}")
+    private DataSize maxSize;
+
+    /**
+     * Cached responses by team id, from the least to the most recently used
+     */
+    private final Map<Long, CachedResponse> responses = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Total size of the cached responses, in bytes
+     */
+    private long usedBytes;
+
+    /**
+     * Number of invalidations performed so far, so that a response read before the last one is not cached
+     */
+    private long generation;
+
+    /**
+     * Number of requests served from the cache
+     */
+    private final Counter hits;
+
+    /**
+     * Number of requests for which the response was not cached
+     */
+    private final Counter misses;
+
+    /**
+     * Number of responses added to the cache
+     */
+    private final Counter puts;
+
+    /**
+     * Number of responses evicted to keep the cache under its maximum size
+     */
+    private final Counter evictions;
+
+    /**
+     * Number of responses removed because their team changed
+     */
+    private final Counter removals;
+
+    /**
+     * Create the cache and register its metrics
+     *
+     * @param meterRegistry Registry of the metrics of the cache
+     */
+    @Autowired
+    public TeamDetailsResponseCache(MeterRegistry meterRegistry) {
+        Tags tags = Tags.of("cache", CACHE_NAME, "cacheManager", "response");
+
+        this.hits = meterRegistry.counter("cache.gets", tags.and("result", "hit"));
+        this.misses = meterRegistry.counter("cache.gets", tags.and("result", "miss"));
+        this.puts = meterRegistry.counter("cache.puts", tags);
+        this.evictions = meterRegistry.counter("cache.evictions", tags);
+        this.removals = meterRegistry.counter("cache.removals", tags);
+
+        Gauge.builder("cache.size", this, TeamDetailsResponseCache::size)
+                .tags(tags)
+                .description("The number of cached responses")
+                .register(meterRegistry);
+        Gauge.builder("cache.memory.used", this, TeamDetailsResponseCache::usedBytes)
+                .tags(tags)
+                .baseUnit(BaseUnits.BYTES)
+                .description("The total size of the cached responses")
+                .register(meterRegistry);
+        Gauge.builder("cache.hit.ratio", this, TeamDetailsResponseCache::hitRatio)
+                .tags(tags)
+                .description("The ratio of the requests served from the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Retrieve the cached details of a team
+     *
+     * @param teamId Id of the team
+     * @return The serialized details of the team, if cached
+     */
+    public synchronized Optional<CachedResponse> get(long teamId) {
+        CachedResponse response = responses.get(teamId);
+
+        (response == null ? misses : hits).increment();
+
+        return Optional.ofNullable(response);
+    }
+
+    /**
+     * Get the current generation of the cache, to be read before loading a team whose details are to be cached
+     *
+     * @return The number of invalidations performed so far
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Cache the details of a team, unless an invalidation happened since they were read: they may then be outdated
+     *
+     * @param teamId Id of the team
+     * @param response Serialized details of the team
+     * @param readGeneration Generation of the cache before the team was read
+     */
+    public synchronized void put(long teamId, CachedResponse response, long readGeneration) {
+        if (readGeneration != generation || response.getSize() > maxSize.toBytes()) {
+            return;
+        }
+
+        CachedResponse previous = responses.put(teamId, response);
+        usedBytes += response.getSize() - (previous == null ? 0 : previous.getSize());
+        puts.increment();
+
+        // Evict the least recently used responses until the cache fits its maximum size again
+        Iterator<CachedResponse> leastRecentlyUsed = responses.values().iterator();
+
+        while (usedBytes > maxSize.toBytes()) {
+            usedBytes -= leastRecentlyUsed.next().getSize();
+            leastRecentlyUsed.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Remove the details of a team from the cache
+     *
+     * @param teamId Id of the team that changed
+     */
+    public synchronized void invalidate(long teamId) {
+        generation++;
+
+        CachedResponse removed = responses.remove(teamId);
+
+        if (removed != null) {
+            usedBytes -= removed.getSize();
+            removals.increment();
+        }
+    }
+
+    /**
+     * Remove the details of all the teams from the cache
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+
+        removals.increment(responses.size());
+        responses.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * Invalidate the details of the teams that changed
+     *
+     * The invalidations of the users are left out: a change of a user is always sent along with the invalidation of
+     * its team, if any
+     *
+     * @param invalidation The entities that changed
+     */
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidation invalidation) {
+        if (invalidation.getEntityType() != CacheInvalidation.EntityType.TEAM) {
+            return;
+        }
+
+        if (invalidation.getId() == null) {
+            invalidateAll();
+        } else {
+            invalidate(invalidation.getId());
+        }
+
+        log.debug("Cached details invalidated: {}", invalidation);
+    }
+
+    /**
+     * Get the number of cached responses
+     *
+     * @return The number of cached responses
+     */
+    private synchronized double size() {
+        return responses.size();
+    }
+
+    /**
+     * Get the total size of the cached responses
+     *
+     * @return The total size of the cached responses, in bytes
+     */
+    private synchronized double usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Get the ratio of the requests served from the cache
+     *
+     * @return The ratio of hits among all the requests, 0 if none has been made yet
+     */
+    private double hitRatio() {
+        double requests = hits.count() + misses.count();
+
+        return requests == 0 ? 0 : hits.count() / requests;
+    }
+
+}
@@ -0,0 +1,61 @@
+package eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.Command;
+import eu.telecomnancy.membershipmanagement.api.services.team.ITeamCommandService;
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command to create several new teams at once
+ *
+ * The command is received as a plain JSON array of {@link CreateTeamCommand}
+ * When dispatched as a notification, only the number of teams created is provided
+ *
+ * @see ITeamCommandService
+ */
+@Data
+@NoArgsConstructor
+@ToString(onlyExplicitlyIncluded = true)
+public class CreateTeamsCommand implements Command {
+
+    /**
+     * Maximum number of teams that can be created at once
+     */
+    public static final int MAX_TEAMS = 1000;
+
+    /**
+     * Commands of the teams to create
+     */
+    @JsonValue
+    @NotEmpty
+    @Size(max = MAX_TEAMS)
+    private List<@Valid CreateTeamCommand> teams = new ArrayList<>();
+
+    /**
+     * Create the command from the commands of the teams to create
+     *
+     * @param teams Commands of the teams to create
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public CreateTeamsCommand(List<CreateTeamCommand> teams) {
+        this.teams = teams;
+    }
+
+    /**
+     * Number of teams to create
+     *
+     * @return The number of teams held by the command
+     */
+    @ToString.Include(name = "count")
+    public int count() {
+        return teams.size();
+    }
+
+}
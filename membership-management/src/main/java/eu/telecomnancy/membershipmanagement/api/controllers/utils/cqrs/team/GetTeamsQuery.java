@@ -1,6 +1,7 @@
 package eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team;
 
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.Query;
+import eu.telecomnancy.membershipmanagement.api.services.pagination.CursorPage;
 import eu.telecomnancy.membershipmanagement.api.services.team.ITeamQueryService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -11,6 +12,8 @@ import java.util.Optional;
 /**
  * Query to get all teams and optionally filter them to retrieve only the complete or not complete ones
  *
+ * The teams are paginated by their id, see {@link CursorPage}
+ *
  * @see ITeamQueryService
  */
 @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
@@ -23,6 +26,41 @@ public class GetTeamsQuery implements Query {
      * Additional parameter to query only completed teams, not completed teams or not to perform any
      * filtering if the parameter is not provided
      */
-    private Optional<Boolean> isComplete;
+    private Optional<Boolean> isComplete = Optional.empty();
+
+    /**
+     * Cursor of the page: only the teams with an id strictly greater than this one will be retrieved
+     */
+    private long after = 0;
+
+    /**
+     * Maximum number of teams to retrieve
+     */
+    private int limit = CursorPage.DEFAULT_LIMIT;
+
+    /**
+     * Whether the members of the teams should be retrieved along with the teams or not
+     */
+    private boolean includeMembers = false;
+
+    /**
+     * Create the query for the first page of teams
+     *
+     * @param isComplete Optional filter on the completeness of the teams
+     */
+    public GetTeamsQuery(Optional<Boolean> isComplete) {
+        this.isComplete = isComplete;
+    }
+
+    /**
+     * Create the query for a page of teams, without their members
+     *
+     * @param isComplete Optional filter on the completeness of the teams
+     * @param after Cursor of the page
+     * @param limit Maximum number of teams to retrieve
+     */
+    public GetTeamsQuery(Optional<Boolean> isComplete, long after, int limit) {
+        this(isComplete, after, limit, false);
+    }
 
 }
@@ -0,0 +1,45 @@
+package eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.Command;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.domain.User;
+import eu.telecomnancy.membershipmanagement.api.services.team.ITeamCommandService;
+import lombok.*;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Command to replace all the members of an existing team at once
+ *
+ * The command is received as a plain JSON array of the ids of the {@link User} that should compose the {@link Team}
+ *
+ * @see ITeamCommandService
+ */
+@Data
+@NoArgsConstructor
+public class ReplaceTeamMembersCommand implements Command {
+
+    /**
+     * Ids of the users that should be the members of the team once the command is applied
+     */
+    @JsonValue
+    @NotNull
+    @Size(max = Team.MAX_MEMBERS)
+    private Set<Long> memberIds = new HashSet<>();
+
+    /**
+     * Create the command from the ids of the desired members
+     *
+     * @param memberIds Ids of the users that should be the members of the team
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public ReplaceTeamMembersCommand(Set<Long> memberIds) {
+        this.memberIds = memberIds;
+    }
+
+}
@@ -0,0 +1,61 @@
+package eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.Command;
+import eu.telecomnancy.membershipmanagement.api.services.user.IUserCommandService;
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command to create several new users at once
+ *
+ * The command is received as a plain JSON array of {@link CreateUserCommand}
+ * When dispatched as a notification, only the number of users created is provided
+ *
+ * @see IUserCommandService
+ */
+@Data
+@NoArgsConstructor
+@ToString(onlyExplicitlyIncluded = true)
+public class CreateUsersCommand implements Command {
+
+    /**
+     * Maximum number of users that can be created at once
+     */
+    public static final int MAX_USERS = 1000;
+
+    /**
+     * Commands of the users to create
+     */
+    @JsonValue
+    @NotEmpty
+    @Size(max = MAX_USERS)
+    private List<@Valid CreateUserCommand> users = new ArrayList<>();
+
+    /**
+     * Create the command from the commands of the users to create
+     *
+     * @param users Commands of the users to create
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public CreateUsersCommand(List<CreateUserCommand> users) {
+        this.users = users;
+    }
+
+    /**
+     * Number of users to create
+     *
+     * @return The number of users held by the command
+     */
+    @ToString.Include(name = "count")
+    public int count() {
+        return users.size();
+    }
+
+}
@@ -1,6 +1,7 @@
 package eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user;
 
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.Query;
+import eu.telecomnancy.membershipmanagement.api.services.pagination.CursorPage;
 import eu.telecomnancy.membershipmanagement.api.services.user.IUserQueryService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -12,6 +13,8 @@ import java.util.Optional;
  * Query to get all users and optionally filter them to retrieve only the users that belong to a team or the ones
  * who don't belong to a team
  *
+ * The users are paginated by their id, see {@link CursorPage}
+ *
  * @see IUserQueryService
  */
 
@@ -25,6 +28,25 @@ public class GetUsersQuery implements Query {
      * Additional parameter to query only users who belong to a team, who don't belong to a team or not to perform any
      * filtering if the parameter is not provided
      */
-    private Optional<Boolean> hasTeam;
+    private Optional<Boolean> hasTeam = Optional.empty();
+
+    /**
+     * Cursor of the page: only the users with an id strictly greater than this one will be retrieved
+     */
+    private long after = 0;
+
+    /**
+     * Maximum number of users to retrieve
+     */
+    private int limit = CursorPage.DEFAULT_LIMIT;
+
+    /**
+     * Create the query for the first page of users
+     *
+     * @param hasTeam Optional filter on the belonging of the users to a team
+     */
+    public GetUsersQuery(Optional<Boolean> hasTeam) {
+        this.hasTeam = hasTeam;
+    }
 
 }
@@ -0,0 +1,35 @@
+package eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.snapshot;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Snapshot Data Transfer Object to be served by the API
+ *
+ * The counts reflect the events of the stream up to the position, and none of the later ones
+ */
+@Data @AllArgsConstructor @NoArgsConstructor
+public class ContentSnapshotDto {
+
+    /**
+     * Number of teams
+     */
+    private long teamCount;
+
+    /**
+     * Number of users
+     */
+    private long userCount;
+
+    /**
+     * Id of the stream of the positions of the events
+     */
+    private String stream;
+
+    /**
+     * Position of the last event reflected by the counts, within its stream
+     */
+    private long position;
+
+}
@@ -1,37 +1,21 @@
 package eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team;
 
-import java.time.Instant;
-
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.util.List;
 
 /**
- * User Data Transfer Object to be served and received by the API
+ * Team Data Transfer Object to be served by the API, along with the members of the team
+ *
+ * It extends the {@link TeamDto} so that the pages of teams can hold the teams along with their members when asked to
  */
 @Data
-public class TeamDetailsDto {
-
-    /**
-     * Creation date of the team, represented as UTC
-     */
-    private Instant creationDate;
-
-    /**
-     * Id of the team
-     */
-    private Long id;
-
-    /**
-     * Name of the team
-     */
-    private String name;
-
-    /**
-     * Whether the team is full or not
-     */
-    private boolean isComplete;
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class TeamDetailsDto extends TeamDto {
 
     /**
      * Members of the team
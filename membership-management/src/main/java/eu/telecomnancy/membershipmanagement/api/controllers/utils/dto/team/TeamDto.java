@@ -2,12 +2,16 @@ package eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team;
 
 import java.time.Instant;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
  * User Data Transfer Object to be served and received by the API
+ *
+ * The constructor with all the fields is the one used by the JPQL projections of the read path
  */
-@Data
+@Data @AllArgsConstructor @NoArgsConstructor
 public class TeamDto {
 
     /**
@@ -30,4 +34,9 @@ public class TeamDto {
      */
     private boolean isComplete;
 
+    /**
+     * Number of members of the team
+     */
+    private int memberCount;
+
 }
@@ -1,11 +1,15 @@
 package eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
  * User Data Transfer Object to be served and received by the API
+ *
+ * The constructor with all the fields is the one used by the JPQL projections of the read path
  */
-@Data
+@Data @AllArgsConstructor @NoArgsConstructor
 public class UserDto {
 
     /**
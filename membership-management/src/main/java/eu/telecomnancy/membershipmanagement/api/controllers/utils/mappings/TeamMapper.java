@@ -41,6 +41,14 @@ public interface TeamMapper {
      */
     List<TeamDto> toDtoList(List<Team> teams);
 
+    /**
+     * Convert {@link Team} entities to a list of {@link TeamDetailsDto}
+     *
+     * @param teams Entities to be converted, with their members loaded
+     * @return A list containing the associated DTOs
+     */
+    List<TeamDetailsDto> toDetailsDtoList(List<Team> teams);
+
     /**
      * Convert a {@link CreateTeamCommand} to a {@link Team}
      *
@@ -49,6 +57,14 @@ public interface TeamMapper {
      */
     Team toTeam(CreateTeamCommand command);
 
+    /**
+     * Convert {@link CreateTeamCommand} commands to a list of {@link Team}
+     *
+     * @param commands Commands to be converted
+     * @return A list containing the associated Teams
+     */
+    List<Team> toTeams(List<CreateTeamCommand> commands);
+
     /**
      * Replace the content of a {@link Team} by the values held by the {@link PatchTeamCommand}
      *
@@ -64,6 +64,14 @@ public interface UserMapper {
      */
     User toUser(CreateUserCommand command);
 
+    /**
+     * Convert {@link CreateUserCommand} commands to a list of {@link User}
+     *
+     * @param commands Commands to be converted
+     * @return A list containing the associated Users
+     */
+    List<User> toUsers(List<CreateUserCommand> commands);
+
     /**
      * Convert a {@link PatchUserCommand} to a {@link User}
      * Optional.Empty fields will be converted to null
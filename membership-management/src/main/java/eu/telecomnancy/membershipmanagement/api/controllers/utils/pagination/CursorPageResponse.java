@@ -0,0 +1,52 @@
+package eu.telecomnancy.membershipmanagement.api.controllers.utils.pagination;
+
+import eu.telecomnancy.membershipmanagement.api.services.pagination.CursorPage;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+
+/**
+ * Utility to build the responses of the paginated endpoints
+ *
+ * The body remains the list of the DTOs of the page while the cursor of the next page is provided in the headers,
+ * both as a raw value and as a ready-to-follow link (see: https://tools.ietf.org/html/rfc8288)
+ */
+public final class CursorPageResponse {
+
+    /**
+     * Header holding the cursor from which the next page can be retrieved
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Utility class, not meant to be instantiated
+     */
+    private CursorPageResponse() { }
+
+    /**
+     * Build the HTTP 200 OK response for a page
+     *
+     * @param page Page retrieved by the service
+     * @param body DTOs of the entities of the page
+     * @param <T> Type of the DTOs
+     * @return The response with the next cursor headers if there is a next page
+     */
+    public static <T> ResponseEntity<List<T>> ok(CursorPage<?> page, List<T> body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+
+        page.getNextCursor().ifPresent(nextCursor -> {
+            String nextPageUri = ServletUriComponentsBuilder
+                    .fromCurrentRequest()
+                    .replaceQueryParam("after", nextCursor)
+                    .toUriString();
+
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(nextCursor));
+            response.header(HttpHeaders.LINK, String.format("<%s>; rel=\"next\"", nextPageUri));
+        });
+
+        return response.body(body);
+    }
+
+}
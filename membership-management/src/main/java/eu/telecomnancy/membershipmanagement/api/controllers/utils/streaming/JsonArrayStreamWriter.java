@@ -0,0 +1,62 @@
+package eu.telecomnancy.membershipmanagement.api.controllers.utils.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Write a JSON array element by element on an output stream
+ *
+ * Each element is serialized as soon as it is provided, so that only the current element is held in memory, no
+ * matter how many elements are written. When used on a servlet output stream without content length, the response
+ * is sent to the client using a chunked transfer encoding.
+ */
+public class JsonArrayStreamWriter implements AutoCloseable {
+
+    /**
+     * JSON generator writing on the output stream
+     */
+    private final JsonGenerator generator;
+
+    /**
+     * Create the writer and open the JSON array
+     *
+     * @param objectMapper Object mapper used to serialize the elements
+     * @param outputStream Stream on which the array is written
+     * @throws IOException If the array can not be opened on the stream
+     */
+    public JsonArrayStreamWriter(ObjectMapper objectMapper, OutputStream outputStream)
+            throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(outputStream);
+        this.generator.writeStartArray();
+    }
+
+    /**
+     * Serialize an element of the array
+     *
+     * @param element Element to write
+     * @throws UncheckedIOException If the element can not be written on the stream
+     */
+    public void write(Object element) {
+        try {
+            generator.writeObject(element);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Close the JSON array and flush the remaining content
+     *
+     * @throws IOException If the array can not be closed on the stream
+     */
+    @Override
+    public void close() throws IOException {
+        generator.writeEndArray();
+        generator.close();
+    }
+
+}
@@ -0,0 +1,143 @@
+package eu.telecomnancy.membershipmanagement.api.dal.memory;
+
+import eu.telecomnancy.membershipmanagement.api.configuration.PersistenceEngineEnvironmentPostProcessor;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.ITeamRepository;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Repository to access the {@link Team} entities held by the {@link MembershipStore}
+ */
+@Repository
+@ConditionalOnProperty(
+        name = PersistenceEngineEnvironmentPostProcessor.ENGINE_PROPERTY,
+        havingValue = PersistenceEngineEnvironmentPostProcessor.IN_MEMORY_ENGINE)
+public class InMemoryTeamRepository implements ITeamRepository {
+
+    /**
+     * Store holding the teams
+     */
+    private final MembershipStore store;
+
+    /**
+     * Create the repository on top of the store
+     *
+     * @param store Store holding the teams
+     */
+    @Autowired
+    public InMemoryTeamRepository(MembershipStore store) {
+        this.store = store;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long count() {
+        return store.countTeams();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int deleteTeamById(long teamId) {
+        return store.deleteTeam(teamId);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The teams are materialized on each read, hence there is nothing to detach
+     */
+    @Override
+    public void detachAll() { }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Team> findById(Long id) {
+        return store.findTeam(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Long> findVersionById(long teamId) {
+        return store.findTeamVersion(teamId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Team> findWithMembersByIdIn(Collection<Long> teamIds) {
+        return store.findTeams(new TreeSet<>(teamIds));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<TeamDto> findDtosByIdGreaterThan(long after, Pageable pageable) {
+        return store.findTeamDtos(Optional.empty(), after, pageable.getPageSize());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<TeamDto> findDtosByIsCompleteAndIdGreaterThan(boolean isComplete, long after, Pageable pageable) {
+        return store.findTeamDtos(Optional.of(isComplete), after, pageable.getPageSize());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <S extends Team> S save(S team) {
+        store.saveTeam(team);
+        return team;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <S extends Team> List<S> saveAll(Iterable<S> teams) {
+        List<S> saved = new ArrayList<>();
+        teams.forEach(saved::add);
+        store.saveTeams(saved);
+        return saved;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<Team> streamAllByOrderByIdAsc() {
+        return store.streamTeams(Optional.empty());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<Team> streamByIsCompleteOrderByIdAsc(boolean isComplete) {
+        return store.streamTeams(Optional.of(isComplete));
+    }
+
+}
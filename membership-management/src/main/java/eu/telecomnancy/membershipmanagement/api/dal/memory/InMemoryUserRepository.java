@@ -0,0 +1,193 @@
+package eu.telecomnancy.membershipmanagement.api.dal.memory;
+
+import eu.telecomnancy.membershipmanagement.api.configuration.PersistenceEngineEnvironmentPostProcessor;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.IUserRepository;
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.MemberVersion;
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.UserVersion;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.domain.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Repository to access the {@link User} entities held by the {@link MembershipStore}
+ */
+@Repository
+@ConditionalOnProperty(
+        name = PersistenceEngineEnvironmentPostProcessor.ENGINE_PROPERTY,
+        havingValue = PersistenceEngineEnvironmentPostProcessor.IN_MEMORY_ENGINE)
+public class InMemoryUserRepository implements IUserRepository {
+
+    /**
+     * Store holding the users
+     */
+    private final MembershipStore store;
+
+    /**
+     * Create the repository on top of the store
+     *
+     * @param store Store holding the users
+     */
+    @Autowired
+    public InMemoryUserRepository(MembershipStore store) {
+        this.store = store;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long count() {
+        return store.countUsers();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(User user) {
+        store.deleteUser(user.getId());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The users are materialized on each read, hence there is nothing to detach
+     */
+    @Override
+    public void detachAll() { }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<User> findAllById(Iterable<Long> ids) {
+        return store.findUsers(ids);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<User> findById(Long id) {
+        return store.findUser(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<MemberVersion> findMemberVersionsByTeamId(long teamId) {
+        return store.findMemberVersions(teamId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<UserVersion> findVersionById(long userId) {
+        return store.findUserVersion(userId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<UserDto> findDtosByIdGreaterThan(long after, Pageable pageable) {
+        return store.findUserDtos(Optional.empty(), after, pageable.getPageSize());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<UserDto> findDtosByTeamNotNullAndIdGreaterThan(long after, Pageable pageable) {
+        return store.findUserDtos(Optional.of(true), after, pageable.getPageSize());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<UserDto> findDtosByTeamNullAndIdGreaterThan(long after, Pageable pageable) {
+        return store.findUserDtos(Optional.of(false), after, pageable.getPageSize());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int joinTeam(Team team, Collection<Long> userIds) {
+        return store.joinTeam(team.getId(), userIds);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int releaseMembersOfTeam(long teamId) {
+        return store.releaseAllMembers(teamId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int releaseMembersOfTeam(long teamId, Collection<Long> userIds) {
+        return store.releaseMembers(teamId, userIds);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <S extends User> S save(S user) {
+        store.saveUser(user);
+        return user;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <S extends User> List<S> saveAll(Iterable<S> users) {
+        List<S> saved = new ArrayList<>();
+        users.forEach(saved::add);
+        store.saveUsers(saved);
+        return saved;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<User> streamAll() {
+        return store.streamUsers(Optional.empty());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<User> streamByTeamNull() {
+        return store.streamUsers(Optional.of(false));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<User> streamByTeamNotNull() {
+        return store.streamUsers(Optional.of(true));
+    }
+
+}
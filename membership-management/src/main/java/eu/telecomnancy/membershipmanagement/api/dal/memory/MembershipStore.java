@@ -0,0 +1,1253 @@
+package eu.telecomnancy.membershipmanagement.api.dal.memory;
+
+import eu.telecomnancy.membershipmanagement.api.configuration.PersistenceEngineEnvironmentPostProcessor;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.dal.memory.journal.MembershipJournal;
+import eu.telecomnancy.membershipmanagement.api.dal.memory.journal.MembershipMutations;
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.MemberVersion;
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.StreamingHints;
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.UserVersion;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.domain.User;
+import eu.telecomnancy.membershipmanagement.api.services.notification.events.EventSequencer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * In-memory storage engine of the users, the teams and their membership
+ *
+ * The records are held in {@link RecordTable}s, and the filters of the queries are answered by {@link BitSet}s of
+ * ids, which also give the records in the order of their ids for the keyset pagination. Every read returns new
+ * {@link User} and {@link Team} instances, like a fresh persistence context would, and every operation is atomic.
+ *
+ * There is no transaction spanning several operations: a service operation failing halfway is not rolled back.
+ *
+ * When a {@link MembershipJournal} is configured, each mutation is journaled under the write lock, and the content of
+ * the store is restored from it on startup; otherwise the content is lost on shutdown. A snapshot only copies the
+ * records under the lock, they are written afterwards.
+ *
+ * Each change of a record gives it the next value of a change sequence as its version. The sequence starts from the
+ * current time in nanoseconds on startup, so that the versions handed out after a restart are greater than the ones
+ * handed out before, even though the records are restored with new versions.
+ *
+ * A change of the number of teams or users reserves the sequence of the event notifying it within its write, so that
+ * the counts read under the lock along with the last reserved sequence reflect exactly the events up to it.
+ */
+@Component
+@ConditionalOnProperty(
+        name = PersistenceEngineEnvironmentPostProcessor.ENGINE_PROPERTY,
+        havingValue = PersistenceEngineEnvironmentPostProcessor.IN_MEMORY_ENGINE)
+public class MembershipStore {
+
+    /**
+     * Lock guarding all the records and indexes, membership operations spanning both users and teams
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Stored users
+     */
+    private final RecordTable<UserRecord> users = new RecordTable<>();
+
+    /**
+     * Stored teams
+     */
+    private final RecordTable<TeamRecord> teams = new RecordTable<>();
+
+    /**
+     * Ids of all the users
+     */
+    private final BitSet userIds = new BitSet();
+
+    /**
+     * Ids of the users belonging to a team
+     */
+    private final BitSet userIdsWithTeam = new BitSet();
+
+    /**
+     * Ids of the users without team
+     */
+    private final BitSet userIdsWithoutTeam = new BitSet();
+
+    /**
+     * Ids of all the teams
+     */
+    private final BitSet teamIds = new BitSet();
+
+    /**
+     * Ids of the teams saved as complete
+     */
+    private final BitSet completeTeamIds = new BitSet();
+
+    /**
+     * Ids of the teams saved as incomplete
+     */
+    private final BitSet incompleteTeamIds = new BitSet();
+
+    /**
+     * Last id handed out to a user
+     */
+    private long lastUserId;
+
+    /**
+     * Last id handed out to a team
+     */
+    private long lastTeamId;
+
+    /**
+     * Last value of the change sequence, given as version to the last changed record
+     */
+    private long lastChangeSequence = System.currentTimeMillis() * 1_000_000L;
+
+    /**
+     * Journal of the mutations, if the content of the store is durable
+     */
+    private final Optional<MembershipJournal> journal;
+
+    /**
+     * Sequencer of the events, if the changes of the counts are notified
+     */
+    private final Optional<EventSequencer> sequencer;
+
+    /**
+     * Create a store whose content is lost on shutdown
+     */
+    public MembershipStore() {
+        this(Optional.empty());
+    }
+
+    /**
+     * Create a store whose changes are not notified, restoring its content from the journal if any
+     *
+     * @param journal Journal of the mutations, if the content of the store is durable
+     */
+    public MembershipStore(Optional<MembershipJournal> journal) {
+        this(journal, Optional.empty());
+    }
+
+    /**
+     * Create a store, restoring its content from the journal if any
+     *
+     * @param journal Journal of the mutations, if the content of the store is durable
+     * @param sequencer Sequencer of the events, if the changes of the counts are notified
+     */
+    @Autowired
+    public MembershipStore(Optional<MembershipJournal> journal, Optional<EventSequencer> sequencer) {
+        this.journal = journal;
+        this.sequencer = sequencer;
+
+        journal.ifPresent(presentJournal -> presentJournal.recover(new Recovery(), this::takeSnapshot));
+    }
+
+    /**
+     * Take a last snapshot on shutdown, so that the next startup does not have to replay the log
+     */
+    @PreDestroy
+    public void close() {
+        if (journal.isPresent()) {
+            takeSnapshot();
+        }
+    }
+
+    /**
+     * Count the teams
+     *
+     * @return The number of teams
+     */
+    public long countTeams() {
+        return read(() -> (long) teamIds.cardinality());
+    }
+
+    /**
+     * Count the users
+     *
+     * @return The number of users
+     */
+    public long countUsers() {
+        return read(() -> (long) userIds.cardinality());
+    }
+
+    /**
+     * Count the teams and the users at once, along with the state read by a function under the same lock, such as the
+     * last sequence of the events
+     *
+     * @param counts Function of the number of teams and of the number of users, called under the lock
+     * @param <T> Type of the result
+     * @return The result of the function
+     */
+    public <T> T readCounts(BiFunction<Long, Long, T> counts) {
+        return read(() -> counts.apply((long) teamIds.cardinality(), (long) userIds.cardinality()));
+    }
+
+    /**
+     * Delete a team without member
+     *
+     * @param teamId Id of the team to delete
+     * @return The number of deleted teams, 0 if there is no team for this id
+     * @throws DataIntegrityViolationException If the team still has members
+     */
+    public int deleteTeam(long teamId) {
+        return write(() -> {
+            TeamRecord record = teams.get(teamId);
+
+            if (record == null) {
+                return 0;
+            }
+
+            if (record.memberCount > 0) {
+                throw new DataIntegrityViolationException(
+                        String.format("The team of id %d can't be deleted while it has members", teamId));
+            }
+
+            applyDeleteTeam(teamId);
+            journal.ifPresent(changes -> changes.deleteTeam(teamId));
+            reserveEventSequence();
+
+            return 1;
+        });
+    }
+
+    /**
+     * Delete a user, removing it from its team
+     *
+     * @param userId Id of the user to delete
+     */
+    public void deleteUser(long userId) {
+        write(() -> {
+            if (users.get(userId) != null) {
+                applyDeleteUser(userId);
+                journal.ifPresent(changes -> changes.deleteUser(userId));
+                reserveEventSequence();
+            }
+
+            return null;
+        });
+    }
+
+    /**
+     * Retrieve a team by its id
+     *
+     * @param teamId Id of the team to retrieve
+     * @return The team with its members if it exists
+     */
+    public Optional<Team> findTeam(long teamId) {
+        return read(() -> Optional.ofNullable(teams.get(teamId)).map(this::toTeam));
+    }
+
+    /**
+     * Retrieve the version of a team
+     *
+     * @param teamId Id of the team
+     * @return The version of the team if it exists
+     */
+    public Optional<Long> findTeamVersion(long teamId) {
+        return read(() -> Optional.ofNullable(teams.get(teamId)).map(record -> record.version));
+    }
+
+    /**
+     * Retrieve the versions of the members of a team
+     *
+     * @param teamId Id of the team
+     * @return The versions of the members of the team, ordered by id, none if the team does not exist
+     */
+    public List<MemberVersion> findMemberVersions(long teamId) {
+        return read(() -> {
+            TeamRecord record = teams.get(teamId);
+            List<MemberVersion> versions = new ArrayList<>();
+
+            for (int index = 0; record != null && index < record.memberCount; ++index) {
+                UserRecord member = users.get(record.memberIds[index]);
+                versions.add(new MemberVersion(member.id, member.version));
+            }
+
+            return versions;
+        });
+    }
+
+    /**
+     * Retrieve the version of a user and of his team
+     *
+     * @param userId Id of the user
+     * @return The versions of the user and of his team if he exists
+     */
+    public Optional<UserVersion> findUserVersion(long userId) {
+        return read(() -> Optional.ofNullable(users.get(userId)).map(record -> new UserVersion(
+                record.version,
+                record.teamId == UserRecord.NO_TEAM ? null : teams.get(record.teamId).version)));
+    }
+
+    /**
+     * Retrieve several teams along with their members
+     *
+     * @param retrievedTeamIds Ids of the teams to retrieve
+     * @return The existing teams among the provided ids, in the same order
+     */
+    public List<Team> findTeams(Iterable<Long> retrievedTeamIds) {
+        return read(() -> {
+            List<Team> found = new ArrayList<>();
+
+            for (long teamId : retrievedTeamIds) {
+                TeamRecord record = teams.get(teamId);
+
+                if (record != null) {
+                    found.add(toTeam(record));
+                }
+            }
+
+            return found;
+        });
+    }
+
+    /**
+     * Retrieve a page of teams as DTOs, ordered by id, without materializing the teams and their members
+     *
+     * @param isComplete Optional filter on the completeness of the teams
+     * @param after Cursor from which retrieving the teams
+     * @param limit Maximum number of teams to retrieve
+     * @return The DTOs of the teams whose id is greater than the cursor
+     */
+    public List<TeamDto> findTeamDtos(Optional<Boolean> isComplete, long after, int limit) {
+        BitSet index = isComplete.map(filterValue -> filterValue ? completeTeamIds : incompleteTeamIds)
+                .orElse(teamIds);
+
+        return read(() -> collectPage(index, after, limit, id -> {
+            TeamRecord record = teams.get(id);
+            return new TeamDto(record.creationDate, record.id, record.name, record.isComplete, record.memberCount);
+        }));
+    }
+
+    /**
+     * Retrieve a page of teams, ordered by id
+     *
+     * @param isComplete Optional filter on the completeness of the teams
+     * @param after Cursor from which retrieving the teams
+     * @param limit Maximum number of teams to retrieve
+     * @return The teams whose id is greater than the cursor
+     */
+    public List<Team> findTeams(Optional<Boolean> isComplete, long after, int limit) {
+        BitSet index = isComplete.map(filterValue -> filterValue ? completeTeamIds : incompleteTeamIds)
+                .orElse(teamIds);
+
+        return read(() -> collectPage(index, after, limit, id -> toTeam(teams.get(id))));
+    }
+
+    /**
+     * Retrieve a user by its id
+     *
+     * @param userId Id of the user to retrieve
+     * @return The user with its team if it exists
+     */
+    public Optional<User> findUser(long userId) {
+        return read(() -> Optional.ofNullable(users.get(userId)).map(this::toUser));
+    }
+
+    /**
+     * Retrieve several users by their ids
+     *
+     * @param retrievedUserIds Ids of the users to retrieve
+     * @return The users found, the unknown ids being ignored
+     */
+    public List<User> findUsers(Iterable<Long> retrievedUserIds) {
+        return read(() -> {
+            List<User> found = new ArrayList<>();
+
+            for (long userId : retrievedUserIds) {
+                UserRecord record = users.get(userId);
+
+                if (record != null) {
+                    found.add(toUser(record));
+                }
+            }
+
+            return found;
+        });
+    }
+
+    /**
+     * Retrieve a page of users as DTOs, ordered by id, without materializing the users and their team
+     *
+     * @param hasTeam Optional filter on the belonging of the users to a team
+     * @param after Cursor from which retrieving the users
+     * @param limit Maximum number of users to retrieve
+     * @return The DTOs of the users whose id is greater than the cursor
+     */
+    public List<UserDto> findUserDtos(Optional<Boolean> hasTeam, long after, int limit) {
+        BitSet index = hasTeam.map(filterValue -> filterValue ? userIdsWithTeam : userIdsWithoutTeam)
+                .orElse(userIds);
+
+        return read(() -> collectPage(index, after, limit, id -> {
+            UserRecord record = users.get(id);
+            return new UserDto(record.id, record.age, record.firstname, record.name);
+        }));
+    }
+
+    /**
+     * Retrieve a page of users, ordered by id
+     *
+     * @param hasTeam Optional filter on the belonging of the users to a team
+     * @param after Cursor from which retrieving the users
+     * @param limit Maximum number of users to retrieve
+     * @return The users whose id is greater than the cursor
+     */
+    public List<User> findUsers(Optional<Boolean> hasTeam, long after, int limit) {
+        BitSet index = hasTeam.map(filterValue -> filterValue ? userIdsWithTeam : userIdsWithoutTeam)
+                .orElse(userIds);
+
+        return read(() -> collectPage(index, after, limit, id -> toUser(users.get(id))));
+    }
+
+    /**
+     * Make some users without team join a team
+     *
+     * @param teamId Id of the team to join
+     * @param joiningUserIds Ids of the users joining the team
+     * @return The number of users that joined the team
+     * @throws DataIntegrityViolationException If there is no team for this id
+     */
+    public int joinTeam(long teamId, Collection<Long> joiningUserIds) {
+        return write(() -> {
+            TeamRecord team = retrieveTeamRecord(teamId);
+            long[] joinedUserIds = new long[joiningUserIds.size()];
+            int joinedCount = 0;
+
+            for (long userId : new LinkedHashSet<>(joiningUserIds)) {
+                UserRecord record = users.get(userId);
+
+                boolean hasRoomLeft = team.memberCount + joinedCount < Team.MAX_MEMBERS;
+
+                if (record != null && record.teamId == UserRecord.NO_TEAM && hasRoomLeft) {
+                    joinedUserIds[joinedCount++] = userId;
+                }
+            }
+
+            changeMembership(teamId, joinedUserIds, joinedCount);
+
+            return joinedCount;
+        });
+    }
+
+    /**
+     * Remove all the members of a team from it
+     *
+     * @param teamId Id of the team whose members are released
+     * @return The number of users that left the team
+     */
+    public int releaseAllMembers(long teamId) {
+        return write(() -> {
+            TeamRecord team = teams.get(teamId);
+
+            if (team == null) {
+                return 0;
+            }
+
+            int releasedCount = team.memberCount;
+            changeMembership(UserRecord.NO_TEAM, Arrays.copyOf(team.memberIds, releasedCount), releasedCount);
+
+            return releasedCount;
+        });
+    }
+
+    /**
+     * Remove some of the members of a team from it
+     *
+     * @param teamId Id of the team whose members are released
+     * @param releasedUserIds Ids of the members to release
+     * @return The number of users that left the team
+     */
+    public int releaseMembers(long teamId, Collection<Long> releasedUserIds) {
+        return write(() -> {
+            long[] membersToRelease = new long[releasedUserIds.size()];
+            int releasedCount = 0;
+
+            for (long userId : new LinkedHashSet<>(releasedUserIds)) {
+                UserRecord record = users.get(userId);
+
+                if (record != null && record.teamId == teamId) {
+                    membersToRelease[releasedCount++] = userId;
+                }
+            }
+
+            changeMembership(UserRecord.NO_TEAM, membersToRelease, releasedCount);
+
+            return releasedCount;
+        });
+    }
+
+    /**
+     * Store a new team or the new state of an existing one, an id being given to the new ones
+     *
+     * The members of the team are ignored, the membership being saved along with the users. Likewise, its completeness
+     * is derived from the stored members rather than from a team that may have been read before a concurrent change
+     *
+     * @param team Team to store
+     */
+    public void saveTeam(Team team) {
+        write(() -> {
+            if (storeTeam(team)) {
+                reserveEventSequence();
+            }
+
+            return null;
+        });
+    }
+
+    /**
+     * Store new teams or the new states of existing ones at once, the creations being notified by a single event
+     *
+     * @param teams Teams to store
+     * @see #saveTeam(Team)
+     */
+    public void saveTeams(Iterable<? extends Team> teams) {
+        write(() -> {
+            boolean isCreated = false;
+
+            for (Team team : teams) {
+                isCreated |= storeTeam(team);
+            }
+
+            if (isCreated) {
+                reserveEventSequence();
+            }
+
+            return null;
+        });
+    }
+
+    /**
+     * Store a new user or the new state of an existing one, an id being given to the new ones
+     *
+     * If the user joined a team, he is also added to the members of the provided {@link Team} instance, as reloading
+     * it would show
+     *
+     * As the stores of the other engines would on a concurrent update, the save fails if the user joins a team that
+     * has been filled or if he joined another team since he was read
+     *
+     * @param user User to store
+     * @throws DataIntegrityViolationException If the team of the user is not stored
+     * @throws OptimisticLockingFailureException If the team of the user has no room left or he already has another one
+     */
+    public void saveUser(User user) {
+        write(() -> {
+            if (storeUser(user)) {
+                reserveEventSequence();
+            }
+
+            return null;
+        });
+    }
+
+    /**
+     * Store new users or the new states of existing ones at once, the creations being notified by a single event
+     *
+     * @param users Users to store
+     * @throws DataIntegrityViolationException If the team of a user is not stored
+     * @throws OptimisticLockingFailureException If the team of a user has no room left or he already has another one
+     * @see #saveUser(User)
+     */
+    public void saveUsers(Iterable<? extends User> users) {
+        write(() -> {
+            boolean isCreated = false;
+
+            for (User user : users) {
+                isCreated |= storeUser(user);
+            }
+
+            if (isCreated) {
+                reserveEventSequence();
+            }
+
+            return null;
+        });
+    }
+
+    /**
+     * Stream teams by pages of {@link StreamingHints#BATCH_SIZE}, ordered by id
+     *
+     * @param isComplete Optional filter on the completeness of the teams
+     * @return A stream of the teams
+     */
+    public Stream<Team> streamTeams(Optional<Boolean> isComplete) {
+        return streamByPages(after -> findTeams(isComplete, after, StreamingHints.BATCH_SIZE), Team::getId);
+    }
+
+    /**
+     * Stream users by pages of {@link StreamingHints#BATCH_SIZE}, ordered by id
+     *
+     * @param hasTeam Optional filter on the belonging of the users to a team
+     * @return A stream of the users
+     */
+    public Stream<User> streamUsers(Optional<Boolean> hasTeam) {
+        return streamByPages(after -> findUsers(hasTeam, after, StreamingHints.BATCH_SIZE), User::getId);
+    }
+
+    /**
+     * Collect the records of an index whose id is greater than the cursor
+     *
+     * @param index Index of the ids of the records to collect
+     * @param after Cursor from which collecting the records
+     * @param limit Maximum number of records to collect
+     * @param toEntity Materialization of a record from its id
+     * @param <T> Type of the entities
+     * @return At most limit entities, ordered by id
+     */
+    private <T> List<T> collectPage(BitSet index, long after, int limit, IntFunction<T> toEntity) {
+        List<T> page = new ArrayList<>(Math.min(limit, StreamingHints.BATCH_SIZE));
+
+        if (after >= RecordTable.MAX_ID) {
+            return page;
+        }
+
+        for (int id = index.nextSetBit((int) Math.max(after + 1, 0));
+             id >= 0 && page.size() < limit;
+             id = id == Integer.MAX_VALUE ? -1 : index.nextSetBit(id + 1)) {
+            page.add(toEntity.apply(id));
+        }
+
+        return page;
+    }
+
+    /**
+     * Move some users to a team
+     *
+     * @param teamId Id of the team joined by the users, {@link UserRecord#NO_TEAM} to leave their team
+     * @param userIds Ids of the users changing their team
+     * @param count Number of ids to read from userIds
+     */
+    private void applyChangeMembership(long teamId, long[] userIds, int count) {
+        TeamRecord team = teamId == UserRecord.NO_TEAM ? null : teams.get(teamId);
+
+        for (int index = 0; index < count; ++index) {
+            UserRecord user = users.get(userIds[index]);
+
+            if (user.teamId != UserRecord.NO_TEAM) {
+                TeamRecord previousTeam = teams.get(user.teamId);
+                previousTeam.removeMember(user.id);
+                previousTeam.version = ++lastChangeSequence;
+                setCompleteness(previousTeam, previousTeam.isFull());
+            }
+
+            if (team != null) {
+                team.addMember(user.id);
+            }
+
+            user.teamId = teamId;
+            user.version = ++lastChangeSequence;
+
+            userIdsWithTeam.set((int) user.id, team != null);
+            userIdsWithoutTeam.set((int) user.id, team == null);
+        }
+
+        if (team != null) {
+            team.version = ++lastChangeSequence;
+            setCompleteness(team, team.isFull());
+        }
+    }
+
+    /**
+     * Delete a team
+     *
+     * @param teamId Id of the team
+     */
+    private void applyDeleteTeam(long teamId) {
+        teams.remove(teamId);
+        setIndexes((int) teamId, false, teamIds, completeTeamIds, incompleteTeamIds);
+    }
+
+    /**
+     * Delete a user, removing it from its team
+     *
+     * @param userId Id of the user
+     */
+    private void applyDeleteUser(long userId) {
+        UserRecord record = users.remove(userId);
+
+        if (record.teamId != UserRecord.NO_TEAM) {
+            TeamRecord team = teams.get(record.teamId);
+            team.removeMember(userId);
+            team.version = ++lastChangeSequence;
+            setCompleteness(team, team.isFull());
+        }
+
+        setIndexes((int) userId, false, userIds, userIdsWithTeam, userIdsWithoutTeam);
+    }
+
+    /**
+     * Create or update a team
+     *
+     * @param teamId Id of the team
+     * @param creationDate Creation date of the team
+     * @param isComplete Whether the team is complete or not
+     * @param name Name of the team
+     */
+    private void applySaveTeam(long teamId, Instant creationDate, boolean isComplete, String name) {
+        TeamRecord record = teams.get(teamId);
+
+        if (record == null) {
+            record = new TeamRecord(teamId);
+            teams.put(teamId, record);
+            teamIds.set((int) teamId);
+            lastTeamId = Math.max(lastTeamId, teamId);
+        }
+
+        record.creationDate = creationDate;
+        record.name = name;
+        record.version = ++lastChangeSequence;
+
+        setCompleteness(record, isComplete);
+    }
+
+    /**
+     * Create or update a user
+     *
+     * @param userId Id of the user
+     * @param age Age of the user
+     * @param firstname Firstname of the user
+     * @param name Name of the user
+     * @param teamId Id of the team of the user, {@link UserRecord#NO_TEAM} if he has none
+     */
+    private void applySaveUser(long userId, Integer age, String firstname, String name, long teamId) {
+        UserRecord record = users.get(userId);
+
+        if (record == null) {
+            record = new UserRecord(userId);
+            users.put(userId, record);
+            setIndexes((int) userId, true, userIds, userIdsWithoutTeam);
+            lastUserId = Math.max(lastUserId, userId);
+        }
+
+        if (record.teamId != teamId) {
+            applyChangeMembership(teamId, new long[] { userId }, 1);
+        }
+
+        record.age = age;
+        record.firstname = firstname;
+        record.name = name;
+        record.version = ++lastChangeSequence;
+    }
+
+    /**
+     * Move some users to a team and journal it
+     *
+     * @param teamId Id of the team joined by the users, {@link UserRecord#NO_TEAM} to leave their team
+     * @param userIds Ids of the users changing their team
+     * @param count Number of ids to read from userIds
+     */
+    private void changeMembership(long teamId, long[] userIds, int count) {
+        if (count == 0) {
+            return;
+        }
+
+        applyChangeMembership(teamId, userIds, count);
+        journal.ifPresent(changes -> changes.changeMembership(teamId, userIds, count));
+    }
+
+    /**
+     * Copy the whole state of the store, to be written as mutations once the lock is released
+     *
+     * @return The copy of the state
+     */
+    private StateCopy copyState() {
+        StateCopy copy = new StateCopy(lastUserId, lastTeamId, teamIds.cardinality(), userIds.cardinality());
+
+        teamIds.stream()
+                .mapToObj(teams::get)
+                .forEach(copy::addTeam);
+
+        userIds.stream()
+                .mapToObj(users::get)
+                .forEach(copy::addUser);
+
+        return copy;
+    }
+
+    /**
+     * Perform a read operation under the read lock
+     *
+     * @param operation Operation to perform
+     * @param <T> Type of the result
+     * @return The result of the operation
+     */
+    private <T> T read(Supplier<T> operation) {
+        return withLock(lock.readLock(), operation);
+    }
+
+    /**
+     * Retrieve the record of a team referenced by a user
+     *
+     * @param teamId Id of the team
+     * @return The record of the team
+     * @throws DataIntegrityViolationException If there is no team for this id
+     */
+    private TeamRecord retrieveTeamRecord(Long teamId) {
+        TeamRecord record = teamId == null ? null : teams.get(teamId);
+
+        if (record == null) {
+            throw new DataIntegrityViolationException(String.format("There is no team of id %d", teamId));
+        }
+
+        return record;
+    }
+
+    /**
+     * Write a snapshot of the content of the store to the journal, mutations only waiting for the copy of the records
+     */
+    private void takeSnapshot() {
+        MembershipJournal presentJournal = journal.orElseThrow();
+
+        presentJournal.writeSnapshot(() -> read(() -> presentJournal.capture(copyState())));
+    }
+
+    /**
+     * Set the completeness of a team and index it accordingly
+     *
+     * It is derived from the number of members whenever the membership of the team changes
+     *
+     * @param team Record of the team
+     * @param isComplete Whether the team is complete or not
+     */
+    private void setCompleteness(TeamRecord team, boolean isComplete) {
+        team.isComplete = isComplete;
+
+        completeTeamIds.set((int) team.id, isComplete);
+        incompleteTeamIds.set((int) team.id, !isComplete);
+    }
+
+    /**
+     * Set or clear an id in several indexes
+     *
+     * @param id Id to set or clear
+     * @param value true to set the id; false to clear it
+     * @param indexes Indexes to update
+     */
+    private static void setIndexes(int id, boolean value, BitSet... indexes) {
+        for (BitSet index : indexes) {
+            index.set(id, value);
+        }
+    }
+
+    /**
+     * Stream entities by fetching them page by page, each page being read under the lock on its own
+     *
+     * @param pageAfter Retrieval of the page of entities after the provided cursor
+     * @param idOf Id of an entity, used as the cursor of the next page
+     * @param <T> Type of the entities
+     * @return A lazy stream of the entities
+     */
+    private static <T> Stream<T> streamByPages(
+            LongFunction<List<T>> pageAfter, ToLongFunction<T> idOf) {
+        Iterator<T> iterator = new Iterator<>() {
+
+            private Iterator<T> page = Collections.emptyIterator();
+
+            private long after = 0;
+
+            private boolean isLastPage = false;
+
+            @Override
+            public boolean hasNext() {
+                if (!page.hasNext() && !isLastPage) {
+                    List<T> entities = pageAfter.apply(after);
+
+                    isLastPage = entities.size() < StreamingHints.BATCH_SIZE;
+                    after = entities.isEmpty() ? after : idOf.applyAsLong(entities.get(entities.size() - 1));
+                    page = entities.iterator();
+                }
+
+                return page.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return page.next();
+            }
+
+        };
+
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Materialize a team and its members from its record
+     *
+     * @param record Record of the team
+     * @return A new instance of the team
+     */
+    private Team toTeam(TeamRecord record) {
+        Team team = new Team(record.name);
+        team.setId(record.id);
+        team.setCreationDate(record.creationDate);
+        team.setMemberCount(record.memberCount);
+        team.setVersion(record.version);
+
+        for (int index = 0; index < record.memberCount; ++index) {
+            User member = toUserWithoutTeam(users.get(record.memberIds[index]));
+            member.setTeam(team);
+            team.getMembers().add(member);
+        }
+
+        return team;
+    }
+
+    /**
+     * Materialize a user and his team from its record
+     *
+     * @param record Record of the user
+     * @return A new instance of the user, being one of the members of his team if he has one
+     */
+    private User toUser(UserRecord record) {
+        if (record.teamId == UserRecord.NO_TEAM) {
+            return toUserWithoutTeam(record);
+        }
+
+        return toTeam(teams.get(record.teamId)).getMembers()
+                .stream()
+                .filter(member -> member.getId() == record.id)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /**
+     * Materialize a user from its record, ignoring his team
+     *
+     * @param record Record of the user
+     * @return A new instance of the user
+     */
+    private static User toUserWithoutTeam(UserRecord record) {
+        User user = new User();
+        user.setId(record.id);
+        user.setAge(record.age);
+        user.setFirstname(record.firstname);
+        user.setName(record.name);
+        user.setVersion(record.version);
+
+        return user;
+    }
+
+    /**
+     * Perform an operation under the provided lock
+     *
+     * @param heldLock Lock to hold during the operation
+     * @param operation Operation to perform
+     * @param <T> Type of the result
+     * @return The result of the operation
+     */
+    private static <T> T withLock(Lock heldLock, Supplier<T> operation) {
+        heldLock.lock();
+
+        try {
+            return operation.get();
+        } finally {
+            heldLock.unlock();
+        }
+    }
+
+    /**
+     * Store a team under the write lock
+     *
+     * @param team Team to store
+     * @return True if the team is created, false if it already existed
+     */
+    private boolean storeTeam(Team team) {
+        long teamId = team.getId() == null ? ++lastTeamId : team.getId();
+        TeamRecord record = teams.get(teamId);
+        boolean isComplete = record != null && record.isFull();
+
+        applySaveTeam(teamId, team.getCreationDate(), isComplete, team.getName());
+        journal.ifPresent(changes
+                -> changes.saveTeam(teamId, team.getCreationDate(), isComplete, team.getName()));
+
+        team.setId(teamId);
+        team.setVersion(teams.get(teamId).version);
+
+        return record == null;
+    }
+
+    /**
+     * Store a user under the write lock
+     *
+     * @param user User to store
+     * @return True if the user is created, false if it already existed
+     * @throws DataIntegrityViolationException If the team of the user is not stored
+     * @throws OptimisticLockingFailureException If the team of the user has no room left or he already has another one
+     */
+    private boolean storeUser(User user) {
+        // Check the team first, so that a failing save does not change anything
+        Team team = user.getTeam();
+        TeamRecord teamRecord = team == null ? null : retrieveTeamRecord(team.getId());
+
+        long userId = user.getId() == null ? ++lastUserId : user.getId();
+        UserRecord record = users.get(userId);
+
+        long currentTeamId = record == null ? UserRecord.NO_TEAM : record.teamId;
+        long teamId = teamRecord == null ? UserRecord.NO_TEAM : teamRecord.id;
+
+        if (teamId != currentTeamId && teamRecord != null && teamRecord.isFull()) {
+            throw new OptimisticLockingFailureException(
+                    String.format("The team of id %d has no room left", teamId));
+        }
+
+        if (teamId != currentTeamId && teamRecord != null && currentTeamId != UserRecord.NO_TEAM) {
+            throw new OptimisticLockingFailureException(
+                    String.format("The user of id %d already joined the team of id %d", userId, currentTeamId));
+        }
+
+        applySaveUser(userId, user.getAge(), user.getFirstname(), user.getName(), teamId);
+        journal.ifPresent(changes
+                -> changes.saveUser(userId, user.getAge(), user.getFirstname(), user.getName(), teamId));
+
+        user.setId(userId);
+        user.setVersion(users.get(userId).version);
+
+        boolean isListedInTeam = team == null || team.getMembers()
+                .stream()
+                .anyMatch(member -> Long.valueOf(userId).equals(member.getId()));
+
+        if (!isListedInTeam) {
+            team.getMembers().add(user);
+        }
+
+        return record == null;
+    }
+
+    /**
+     * Reserve the sequence of the event notifying a change of the counts, under the write lock of the change
+     */
+    private void reserveEventSequence() {
+        sequencer.ifPresent(EventSequencer::reserveForChange);
+    }
+
+    /**
+     * Perform a write operation under the write lock
+     *
+     * @param operation Operation to perform
+     * @param <T> Type of the result
+     * @return The result of the operation
+     */
+    private <T> T write(Supplier<T> operation) {
+        return withLock(lock.writeLock(), operation);
+    }
+
+    /**
+     * Application of the journaled mutations to the store while it is recovered
+     */
+    private final class Recovery implements MembershipMutations {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void changeMembership(long teamId, long[] userIds, int count) {
+            applyChangeMembership(teamId, userIds, count);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void deleteTeam(long teamId) {
+            applyDeleteTeam(teamId);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void deleteUser(long userId) {
+            applyDeleteUser(userId);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void restoreIdCounters(long restoredLastUserId, long restoredLastTeamId) {
+            lastUserId = Math.max(lastUserId, restoredLastUserId);
+            lastTeamId = Math.max(lastTeamId, restoredLastTeamId);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void saveTeam(long teamId, Instant creationDate, boolean isComplete, String name) {
+            applySaveTeam(teamId, creationDate, isComplete, name);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void saveUser(long userId, Integer age, String firstname, String name, long teamId) {
+            applySaveUser(userId, age, firstname, name, teamId);
+        }
+
+    }
+
+    /**
+     * Copy of the records of the store, held in arrays so that copying them is quick
+     *
+     * The teams are written before the users, so that the membership of the users can be applied back
+     */
+    private static final class StateCopy implements Consumer<MembershipMutations> {
+
+        /**
+         * Last id handed out to a user
+         */
+        private final long lastUserId;
+
+        /**
+         * Last id handed out to a team
+         */
+        private final long lastTeamId;
+
+        /**
+         * Ids of the teams
+         */
+        private final long[] teamIds;
+
+        /**
+         * Creation dates of the teams
+         */
+        private final Instant[] creationDates;
+
+        /**
+         * Completeness of the teams
+         */
+        private final boolean[] completeness;
+
+        /**
+         * Names of the teams
+         */
+        private final String[] teamNames;
+
+        /**
+         * Number of teams copied
+         */
+        private int teamCount;
+
+        /**
+         * Ids of the users
+         */
+        private final long[] userIds;
+
+        /**
+         * Ages of the users
+         */
+        private final Integer[] ages;
+
+        /**
+         * Firstnames of the users
+         */
+        private final String[] firstnames;
+
+        /**
+         * Names of the users
+         */
+        private final String[] userNames;
+
+        /**
+         * Ids of the teams of the users, {@link UserRecord#NO_TEAM} for the ones without team
+         */
+        private final long[] userTeamIds;
+
+        /**
+         * Number of users copied
+         */
+        private int userCount;
+
+        /**
+         * Create an empty copy
+         *
+         * @param lastUserId Last id handed out to a user
+         * @param lastTeamId Last id handed out to a team
+         * @param teamCapacity Number of teams to copy
+         * @param userCapacity Number of users to copy
+         */
+        private StateCopy(long lastUserId, long lastTeamId, int teamCapacity, int userCapacity) {
+            this.lastUserId = lastUserId;
+            this.lastTeamId = lastTeamId;
+
+            teamIds = new long[teamCapacity];
+            creationDates = new Instant[teamCapacity];
+            completeness = new boolean[teamCapacity];
+            teamNames = new String[teamCapacity];
+
+            userIds = new long[userCapacity];
+            ages = new Integer[userCapacity];
+            firstnames = new String[userCapacity];
+            userNames = new String[userCapacity];
+            userTeamIds = new long[userCapacity];
+        }
+
+        /**
+         * Copy the journaled fields of a team
+         *
+         * @param record Record of the team
+         */
+        private void addTeam(TeamRecord record) {
+            teamIds[teamCount] = record.id;
+            creationDates[teamCount] = record.creationDate;
+            completeness[teamCount] = record.isComplete;
+            teamNames[teamCount] = record.name;
+            ++teamCount;
+        }
+
+        /**
+         * Copy the journaled fields of a user
+         *
+         * @param record Record of the user
+         */
+        private void addUser(UserRecord record) {
+            userIds[userCount] = record.id;
+            ages[userCount] = record.age;
+            firstnames[userCount] = record.firstname;
+            userNames[userCount] = record.name;
+            userTeamIds[userCount] = record.teamId;
+            ++userCount;
+        }
+
+        /**
+         * Write the copied state as mutations
+         *
+         * @param target Target of the mutations
+         */
+        @Override
+        public void accept(MembershipMutations target) {
+            target.restoreIdCounters(lastUserId, lastTeamId);
+
+            for (int index = 0; index < teamCount; ++index) {
+                target.saveTeam(teamIds[index], creationDates[index], completeness[index], teamNames[index]);
+            }
+
+            for (int index = 0; index < userCount; ++index) {
+                target.saveUser(userIds[index], ages[index], firstnames[index], userNames[index], userTeamIds[index]);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,104 @@
+package eu.telecomnancy.membershipmanagement.api.dal.memory;
+
+import java.util.Arrays;
+
+/**
+ * Table of records keyed by a primitive long id
+ *
+ * The ids are handed out sequentially by the {@link MembershipStore}, so the records are stored at the index of their
+ * id in fixed-size chunks: a lookup is two array accesses, without hashing nor boxing, and the table only grows by
+ * allocating new chunks
+ *
+ * The table is not thread-safe, the store guards it with its lock
+ *
+ * @param <R> Type of the stored records
+ */
+final class RecordTable<R> {
+
+    /**
+     * Greatest id that can be stored, ids being indexes of the chunks
+     */
+    static final long MAX_ID = Integer.MAX_VALUE;
+
+    /**
+     * Number of bits of an id addressing a record within its chunk
+     */
+    private static final int CHUNK_BITS = 12;
+
+    /**
+     * Number of records of a chunk
+     */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /**
+     * Mask extracting the index of a record within its chunk from its id
+     */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * Chunks of records, allocated on the first record stored in them
+     */
+    private Object[][] chunks = new Object[16][];
+
+    /**
+     * Retrieve a record by its id
+     *
+     * @param id Id of the record
+     * @return The record, or null if there is none for this id
+     */
+    @SuppressWarnings("unchecked")
+    R get(long id) {
+        if (id <= 0 || id > MAX_ID) {
+            return null;
+        }
+
+        int chunkIndex = (int) (id >>> CHUNK_BITS);
+
+        if (chunkIndex >= chunks.length || chunks[chunkIndex] == null) {
+            return null;
+        }
+
+        return (R) chunks[chunkIndex][(int) id & CHUNK_MASK];
+    }
+
+    /**
+     * Store a record, replacing the one with the same id if any
+     *
+     * @param id Id of the record
+     * @param record Record to store
+     */
+    void put(long id, R record) {
+        if (id <= 0 || id > MAX_ID) {
+            throw new IllegalArgumentException(String.format("The id %d can't be stored in memory", id));
+        }
+
+        int chunkIndex = (int) (id >>> CHUNK_BITS);
+
+        if (chunkIndex >= chunks.length) {
+            chunks = Arrays.copyOf(chunks, Math.max(chunks.length * 2, chunkIndex + 1));
+        }
+
+        if (chunks[chunkIndex] == null) {
+            chunks[chunkIndex] = new Object[CHUNK_SIZE];
+        }
+
+        chunks[chunkIndex][(int) id & CHUNK_MASK] = record;
+    }
+
+    /**
+     * Remove a record by its id
+     *
+     * @param id Id of the record
+     * @return The removed record, or null if there was none for this id
+     */
+    R remove(long id) {
+        R record = get(id);
+
+        if (record != null) {
+            chunks[(int) (id >>> CHUNK_BITS)][(int) id & CHUNK_MASK] = null;
+        }
+
+        return record;
+    }
+
+}
@@ -0,0 +1,102 @@
+package eu.telecomnancy.membershipmanagement.api.dal.memory;
+
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+
+import java.time.Instant;
+
+/**
+ * Stored state of a {@link Team}, its members being held as a compact array of ids
+ */
+final class TeamRecord {
+
+    /**
+     * Id of the team
+     */
+    final long id;
+
+    /**
+     * Creation date of the team
+     */
+    Instant creationDate;
+
+    /**
+     * Indicate whether or not the team is complete, as last saved or derived from its members
+     */
+    boolean isComplete;
+
+    /**
+     * Name of the team
+     */
+    String name;
+
+    /**
+     * Ids of the members, ordered, in the {@link #memberCount} first cells
+     */
+    final long[] memberIds = new long[Team.MAX_MEMBERS];
+
+    /**
+     * Number of members of the team
+     */
+    int memberCount;
+
+    /**
+     * Version of the team, being the change sequence of its last change or of the last change of its membership
+     */
+    long version;
+
+    /**
+     * Create the record of a team without member
+     *
+     * @param id Id of the team
+     */
+    TeamRecord(long id) {
+        this.id = id;
+    }
+
+    /**
+     * Add a member to the team, keeping the ids ordered
+     *
+     * @param userId Id of the new member
+     * @throws IllegalStateException If the team already has {@link Team#MAX_MEMBERS} members
+     */
+    void addMember(long userId) {
+        if (isFull()) {
+            throw new IllegalStateException(String.format("The team of id %d has no room left", id));
+        }
+
+        int index = memberCount;
+
+        while (index > 0 && memberIds[index - 1] > userId) {
+            memberIds[index] = memberIds[index - 1];
+            --index;
+        }
+
+        memberIds[index] = userId;
+        ++memberCount;
+    }
+
+    /**
+     * Check whether the team can't welcome any other member
+     *
+     * @return true if the team has {@link Team#MAX_MEMBERS} members; false otherwise
+     */
+    boolean isFull() {
+        return memberCount == memberIds.length;
+    }
+
+    /**
+     * Remove a member from the team, keeping the ids ordered
+     *
+     * @param userId Id of the member to remove
+     */
+    void removeMember(long userId) {
+        for (int index = 0; index < memberCount; ++index) {
+            if (memberIds[index] == userId) {
+                System.arraycopy(memberIds, index + 1, memberIds, index, memberCount - index - 1);
+                --memberCount;
+                return;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package eu.telecomnancy.membershipmanagement.api.dal.memory;
+
+import eu.telecomnancy.membershipmanagement.api.dal.memory.journal.MembershipMutations;
+import eu.telecomnancy.membershipmanagement.api.domain.User;
+
+/**
+ * Stored state of a {@link User}, its team being referenced by id
+ */
+final class UserRecord {
+
+    /**
+     * Value of {@link #teamId} for a user without team
+     */
+    static final long NO_TEAM = MembershipMutations.NO_TEAM;
+
+    /**
+     * Id of the user
+     */
+    final long id;
+
+    /**
+     * Age of the user
+     */
+    Integer age;
+
+    /**
+     * Firstname of the user
+     */
+    String firstname;
+
+    /**
+     * Name of the user
+     */
+    String name;
+
+    /**
+     * Id of the team of the user, {@link #NO_TEAM} if he has none
+     */
+    long teamId = NO_TEAM;
+
+    /**
+     * Version of the user, being the change sequence of its last change
+     */
+    long version;
+
+    /**
+     * Create the record of a user without team
+     *
+     * @param id Id of the user
+     */
+    UserRecord(long id) {
+        this.id = id;
+    }
+
+}
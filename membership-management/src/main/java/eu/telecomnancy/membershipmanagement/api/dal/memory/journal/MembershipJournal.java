@@ -0,0 +1,454 @@
+package eu.telecomnancy.membershipmanagement.api.dal.memory.journal;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Durability of the in-memory store: a {@link WriteAheadLog} of its mutations and periodic snapshots of its state
+ *
+ * Each mutation is appended to the log before the store operation returns, without waiting for the storage device:
+ * the log is written back periodically. Once enough mutations were appended, a snapshot of the whole state is written
+ * in the background and the log segments it covers are deleted. On startup, the latest snapshot is loaded and only
+ * the tail of the log is replayed.
+ *
+ * The state is captured under the lock of the store, then written without holding it. The snapshots are written one
+ * at a time, each to its own temporary file.
+ */
+@Log4j2
+public class MembershipJournal implements MembershipMutations, Closeable {
+
+    /**
+     * Magic number at the start of a snapshot file
+     */
+    private static final int SNAPSHOT_MAGIC = 0x4D4D534E;
+
+    /**
+     * Version of the encoding of the snapshots and of the log
+     */
+    private static final byte ENCODING_VERSION = 1;
+
+    /**
+     * Size of the header of a snapshot file: magic number, version and sequence number
+     */
+    private static final int SNAPSHOT_HEADER_SIZE = Integer.BYTES + Byte.BYTES + Long.BYTES;
+
+    /**
+     * Prefix of the names of the snapshot files
+     */
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+    /**
+     * Suffix of the names of the snapshot files
+     */
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    /**
+     * Suffix of the names of the snapshot files being written
+     */
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /**
+     * Maximum duration waited on close for the background tasks to complete, a snapshot being written included
+     */
+    private static final Duration CLOSE_TIMEOUT = Duration.ofMinutes(1);
+
+    /**
+     * Directory of the log segments and of the snapshots
+     */
+    private final Path directory;
+
+    /**
+     * Number of mutations appended after which a snapshot is taken
+     */
+    private final long snapshotInterval;
+
+    /**
+     * Interval at which the log is written back to the storage device
+     */
+    private final Duration flushInterval;
+
+    /**
+     * Log of the mutations
+     */
+    private final WriteAheadLog writeAheadLog;
+
+    /**
+     * Encoder of the mutations appended to the log
+     */
+    private final MutationCodec encoder = new MutationCodec();
+
+    /**
+     * Thread writing the log back and taking the snapshots
+     */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "membership-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Indicate whether a snapshot is scheduled or being taken
+     */
+    private final AtomicBoolean isSnapshotPending = new AtomicBoolean();
+
+    /**
+     * Lock serializing the snapshots, whether taken in the background or on shutdown
+     */
+    private final Lock snapshotLock = new ReentrantLock();
+
+    /**
+     * Number of mutations appended since the state was last captured for a snapshot
+     */
+    private long appendedSinceSnapshot;
+
+    /**
+     * Action taking a snapshot, provided by the store so that its state is captured under its lock
+     */
+    private Runnable snapshotTrigger;
+
+    /**
+     * Create the journal, which has to be recovered before use
+     *
+     * @param directory Directory of the log segments and of the snapshots
+     * @param segmentSize Size of a log segment, in bytes
+     * @param snapshotInterval Number of mutations appended after which a snapshot is taken
+     * @param flushInterval Interval at which the log is written back to the storage device
+     */
+    public MembershipJournal(Path directory, int segmentSize, long snapshotInterval, Duration flushInterval) {
+        this.directory = directory;
+        this.snapshotInterval = snapshotInterval;
+        this.flushInterval = flushInterval;
+        this.writeAheadLog = new WriteAheadLog(directory, segmentSize);
+    }
+
+    /**
+     * Restore the state of the store from the latest snapshot and the tail of the log, then start journaling
+     *
+     * @param target Store to which the mutations are applied
+     * @param snapshotTrigger Action taking a snapshot through {@link #writeSnapshot}
+     */
+    public void recover(MembershipMutations target, Runnable snapshotTrigger) {
+        long start = System.nanoTime();
+
+        long snapshotSequence = loadLatestSnapshot(target);
+        long replayedCount = writeAheadLog.open(snapshotSequence, payload -> {
+            while (payload.hasRemaining()) {
+                MutationCodec.decode(payload, target);
+            }
+        });
+
+        log.info("Membership store recovered up to the record {} in {} ms ({} records replayed after the snapshot)",
+                writeAheadLog.lastSequence(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), replayedCount);
+
+        this.snapshotTrigger = snapshotTrigger;
+        this.appendedSinceSnapshot = replayedCount;
+
+        long flushIntervalMillis = flushInterval.toMillis();
+        executor.scheduleWithFixedDelay(
+                writeAheadLog::force, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Capture the state of the store for a snapshot, along with the sequence number of the last record it reflects
+     *
+     * The caller must prevent any mutation during the capture, which is therefore expected to copy the state only
+     *
+     * @param state Writer of a copy of the whole state of the store as mutations
+     * @return The captured state, to be written by {@link #writeSnapshot}
+     */
+    public CapturedState capture(Consumer<MembershipMutations> state) {
+        appendedSinceSnapshot = 0;
+
+        return new CapturedState(writeAheadLog.lastSequence(), state);
+    }
+
+    /**
+     * Write a snapshot of the state of the store, then delete the older snapshots and the log segments it covers
+     *
+     * The state is captured once the previous snapshots are written, so that the snapshots are written in order. The
+     * mutations can go on while it is written
+     *
+     * @param capture Capture of the state of the store through {@link #capture}, under the lock of the store
+     */
+    public void writeSnapshot(Supplier<CapturedState> capture) {
+        snapshotLock.lock();
+
+        try {
+            CapturedState captured = capture.get();
+            long sequence = captured.sequence;
+
+            Path temporary = Files.createTempFile(directory, SNAPSHOT_PREFIX, TEMPORARY_SUFFIX);
+
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MutationCodec snapshotEncoder = new MutationCodec(channel);
+
+                snapshotEncoder.putHeader(ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE)
+                        .putInt(SNAPSHOT_MAGIC)
+                        .put(ENCODING_VERSION)
+                        .putLong(sequence)
+                        .flip());
+                captured.state.accept(snapshotEncoder);
+                snapshotEncoder.finish();
+
+                channel.force(true);
+            }
+
+            // The snapshot only becomes visible once complete
+            Files.move(temporary, snapshotPath(sequence), StandardCopyOption.ATOMIC_MOVE);
+
+            for (Path snapshot : listSnapshots()) {
+                if (sequenceOf(snapshot) < sequence) {
+                    Files.delete(snapshot);
+                }
+            }
+
+            writeAheadLog.deleteSegmentsUpTo(sequence);
+
+            log.info("Snapshot of the membership store written up to the record {}", sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void changeMembership(long teamId, long[] userIds, int count) {
+        encoder.changeMembership(teamId, userIds, count);
+        append();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Stop the background tasks, waiting for a snapshot being written if any, and write the log back
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("The background tasks of the membership journal did not complete within {}", CLOSE_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        writeAheadLog.close();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteTeam(long teamId) {
+        encoder.deleteTeam(teamId);
+        append();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteUser(long userId) {
+        encoder.deleteUser(userId);
+        append();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreIdCounters(long lastUserId, long lastTeamId) {
+        encoder.restoreIdCounters(lastUserId, lastTeamId);
+        append();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveTeam(long teamId, Instant creationDate, boolean isComplete, String name) {
+        encoder.saveTeam(teamId, creationDate, isComplete, name);
+        append();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveUser(long userId, Integer age, String firstname, String name, long teamId) {
+        encoder.saveUser(userId, age, firstname, name, teamId);
+        append();
+    }
+
+    /**
+     * Append the encoded mutation to the log, and schedule a snapshot if enough mutations were appended
+     */
+    private void append() {
+        writeAheadLog.append(encoder.take());
+
+        if (++appendedSinceSnapshot >= snapshotInterval && isSnapshotPending.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    snapshotTrigger.run();
+                } catch (RuntimeException e) {
+                    log.error("Unable to write a snapshot of the membership store", e);
+                } finally {
+                    isSnapshotPending.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Delete the snapshot files left incomplete by a previous run
+     *
+     * @throws IOException If the directory can't be listed or a file can't be deleted
+     */
+    private void deleteTemporarySnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String fileName = file.getFileName().toString();
+
+                if (fileName.startsWith(SNAPSHOT_PREFIX) && fileName.endsWith(TEMPORARY_SUFFIX)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * List the snapshot files
+     *
+     * @return The complete snapshot files, ordered by sequence number
+     * @throws IOException If the directory can't be listed
+     */
+    private List<Path> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(SNAPSHOT_PREFIX)
+                            && file.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Apply the latest snapshot to the store, if any
+     *
+     * @param target Store to which the mutations are applied
+     * @return The sequence number of the last record covered by the snapshot, 0 if there is none
+     */
+    private long loadLatestSnapshot(MembershipMutations target) {
+        try {
+            Files.createDirectories(directory);
+            deleteTemporarySnapshots();
+
+            Optional<Path> latest = listSnapshots().stream().reduce((first, second) -> second);
+
+            if (latest.isEmpty()) {
+                return 0;
+            }
+
+            try (FileChannel channel = FileChannel.open(latest.get(), StandardOpenOption.READ)) {
+                MappedByteBuffer snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+                if (snapshot.getInt() != SNAPSHOT_MAGIC || snapshot.get() != ENCODING_VERSION) {
+                    throw new IllegalStateException(
+                            String.format("%s is not a snapshot of this version", latest.get()));
+                }
+
+                long sequence = snapshot.getLong();
+
+                while (MutationCodec.decode(snapshot, target)) {
+                    // Each mutation is applied while decoding
+                }
+
+                return sequence;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the path of a snapshot file
+     *
+     * @param sequence Sequence number of the last record covered by the snapshot
+     * @return The path of the snapshot file
+     */
+    private Path snapshotPath(long sequence) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+    }
+
+    /**
+     * Get the sequence number of the last record covered by a snapshot file from its name
+     *
+     * @param snapshot Path of the snapshot file
+     * @return The sequence number
+     */
+    private static long sequenceOf(Path snapshot) {
+        String fileName = snapshot.getFileName().toString();
+
+        return Long.parseLong(
+                fileName.substring(SNAPSHOT_PREFIX.length(), fileName.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    /**
+     * State of the store captured for a snapshot, not written yet
+     */
+    public static final class CapturedState {
+
+        /**
+         * Sequence number of the last record reflected by the state
+         */
+        private final long sequence;
+
+        /**
+         * Writer of the captured state as mutations
+         */
+        private final Consumer<MembershipMutations> state;
+
+        /**
+         * Create the captured state
+         *
+         * @param sequence Sequence number of the last record reflected by the state
+         * @param state Writer of the captured state as mutations
+         */
+        private CapturedState(long sequence, Consumer<MembershipMutations> state) {
+            this.sequence = sequence;
+            this.state = state;
+        }
+
+    }
+
+}
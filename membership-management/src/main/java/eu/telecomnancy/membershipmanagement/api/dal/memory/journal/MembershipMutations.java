@@ -0,0 +1,70 @@
+package eu.telecomnancy.membershipmanagement.api.dal.memory.journal;
+
+import java.time.Instant;
+
+/**
+ * Elementary changes of the state of the in-memory store
+ *
+ * Every operation of the store boils down to those changes, which are appended to the write-ahead log, written in the
+ * snapshots and applied back to the store on recovery
+ */
+public interface MembershipMutations {
+
+    /**
+     * Value of a team id meaning "no team"
+     */
+    long NO_TEAM = 0;
+
+    /**
+     * Move some users to a team
+     *
+     * @param teamId Id of the team joined by the users, {@link #NO_TEAM} for the users to leave their team
+     * @param userIds Ids of the users changing their team
+     * @param count Number of ids to read from userIds
+     */
+    void changeMembership(long teamId, long[] userIds, int count);
+
+    /**
+     * Delete a team without member
+     *
+     * @param teamId Id of the team
+     */
+    void deleteTeam(long teamId);
+
+    /**
+     * Delete a user
+     *
+     * @param userId Id of the user
+     */
+    void deleteUser(long userId);
+
+    /**
+     * Restore the last ids handed out, so that the deleted ids are never handed out again
+     *
+     * @param lastUserId Last id handed out to a user
+     * @param lastTeamId Last id handed out to a team
+     */
+    void restoreIdCounters(long lastUserId, long lastTeamId);
+
+    /**
+     * Create or update a team
+     *
+     * @param teamId Id of the team
+     * @param creationDate Creation date of the team
+     * @param isComplete Whether the team is complete or not
+     * @param name Name of the team
+     */
+    void saveTeam(long teamId, Instant creationDate, boolean isComplete, String name);
+
+    /**
+     * Create or update a user
+     *
+     * @param userId Id of the user
+     * @param age Age of the user
+     * @param firstname Firstname of the user
+     * @param name Name of the user
+     * @param teamId Id of the team of the user, {@link #NO_TEAM} if he has none
+     */
+    void saveUser(long userId, Integer age, String firstname, String name, long teamId);
+
+}
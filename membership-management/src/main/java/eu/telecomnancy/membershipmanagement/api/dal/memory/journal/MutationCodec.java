@@ -0,0 +1,364 @@
+package eu.telecomnancy.membershipmanagement.api.dal.memory.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Compact binary encoding of the {@link MembershipMutations}
+ *
+ * Each mutation is written as a one-byte operation code followed by its fixed-size fields, the strings being prefixed
+ * by their length in bytes. The encoder accumulates the mutations in a buffer, which is either taken as a whole for a
+ * log record, or drained to a channel as it fills for a snapshot.
+ */
+final class MutationCodec implements MembershipMutations {
+
+    /**
+     * Operation code marking the end of a snapshot
+     */
+    static final byte END = 0;
+
+    /**
+     * Operation code of {@link #changeMembership}
+     */
+    private static final byte CHANGE_MEMBERSHIP = 1;
+
+    /**
+     * Operation code of {@link #deleteTeam}
+     */
+    private static final byte DELETE_TEAM = 2;
+
+    /**
+     * Operation code of {@link #deleteUser}
+     */
+    private static final byte DELETE_USER = 3;
+
+    /**
+     * Operation code of {@link #restoreIdCounters}
+     */
+    private static final byte RESTORE_ID_COUNTERS = 4;
+
+    /**
+     * Operation code of {@link #saveTeam}
+     */
+    private static final byte SAVE_TEAM = 5;
+
+    /**
+     * Operation code of {@link #saveUser}
+     */
+    private static final byte SAVE_USER = 6;
+
+    /**
+     * Length written for a null string
+     */
+    private static final short NULL_STRING = -1;
+
+    /**
+     * Age written for a user without age
+     */
+    private static final int NULL_AGE = Integer.MIN_VALUE;
+
+    /**
+     * Epoch second written for a team without creation date
+     */
+    private static final long NULL_INSTANT = Long.MIN_VALUE;
+
+    /**
+     * Size of the buffer above which it is drained to the channel
+     */
+    private static final int DRAIN_THRESHOLD = 1 << 20;
+
+    /**
+     * Channel to which the buffer is drained, null if the buffer is taken by the caller
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * Buffer of the encoded mutations, grown as needed
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate(256);
+
+    /**
+     * Create an encoder whose buffer is taken by the caller
+     */
+    MutationCodec() {
+        this(null);
+    }
+
+    /**
+     * Create an encoder draining its buffer to a channel
+     *
+     * @param channel Channel to which the encoded mutations are written
+     */
+    MutationCodec(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void changeMembership(long teamId, long[] userIds, int count) {
+        ensureRemaining(Byte.BYTES + Long.BYTES + Integer.BYTES + count * Long.BYTES);
+
+        buffer.put(CHANGE_MEMBERSHIP).putLong(teamId).putInt(count);
+
+        for (int index = 0; index < count; ++index) {
+            buffer.putLong(userIds[index]);
+        }
+
+        drainIfFull();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteTeam(long teamId) {
+        ensureRemaining(Byte.BYTES + Long.BYTES);
+        buffer.put(DELETE_TEAM).putLong(teamId);
+        drainIfFull();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteUser(long userId) {
+        ensureRemaining(Byte.BYTES + Long.BYTES);
+        buffer.put(DELETE_USER).putLong(userId);
+        drainIfFull();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void restoreIdCounters(long lastUserId, long lastTeamId) {
+        ensureRemaining(Byte.BYTES + 2 * Long.BYTES);
+        buffer.put(RESTORE_ID_COUNTERS).putLong(lastUserId).putLong(lastTeamId);
+        drainIfFull();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveTeam(long teamId, Instant creationDate, boolean isComplete, String name) {
+        byte[] encodedName = encode(name);
+
+        ensureRemaining(Byte.BYTES + 2 * Long.BYTES + Integer.BYTES + 2 * Byte.BYTES + sizeOf(encodedName));
+
+        buffer.put(SAVE_TEAM)
+                .putLong(teamId)
+                .putLong(creationDate == null ? NULL_INSTANT : creationDate.getEpochSecond())
+                .putInt(creationDate == null ? 0 : creationDate.getNano())
+                .put((byte) (isComplete ? 1 : 0));
+        putString(encodedName);
+
+        drainIfFull();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveUser(long userId, Integer age, String firstname, String name, long teamId) {
+        byte[] encodedFirstname = encode(firstname);
+        byte[] encodedName = encode(name);
+
+        ensureRemaining(Byte.BYTES + 2 * Long.BYTES + Integer.BYTES + sizeOf(encodedFirstname) + sizeOf(encodedName));
+
+        buffer.put(SAVE_USER)
+                .putLong(userId)
+                .putInt(age == null ? NULL_AGE : age);
+        putString(encodedFirstname);
+        putString(encodedName);
+        buffer.putLong(teamId);
+
+        drainIfFull();
+    }
+
+    /**
+     * Write the end marker of a snapshot and drain the buffer to the channel
+     *
+     * @throws IOException If the channel can't be written
+     */
+    void finish() throws IOException {
+        ensureRemaining(Byte.BYTES);
+        buffer.put(END);
+        drain();
+    }
+
+    /**
+     * Write raw values, used for the headers
+     *
+     * @param header Bytes to write
+     */
+    void putHeader(ByteBuffer header) {
+        ensureRemaining(header.remaining());
+        buffer.put(header);
+    }
+
+    /**
+     * Take the mutations encoded so far, the buffer being reused by the next mutations
+     *
+     * @return A buffer ready to be read, valid until the next mutation
+     */
+    ByteBuffer take() {
+        buffer.flip();
+        ByteBuffer taken = buffer.slice();
+        buffer.clear();
+        return taken;
+    }
+
+    /**
+     * Decode one mutation and apply it to the target
+     *
+     * @param source Buffer positioned on the operation code of the mutation
+     * @param target Target of the decoded mutation
+     * @return false if the end marker of a snapshot was read; true otherwise
+     * @throws IllegalStateException If the operation code is unknown
+     */
+    static boolean decode(ByteBuffer source, MembershipMutations target) {
+        byte operation = source.get();
+
+        switch (operation) {
+            case END -> {
+                return false;
+            }
+            case CHANGE_MEMBERSHIP -> {
+                long teamId = source.getLong();
+                int count = source.getInt();
+                long[] userIds = new long[count];
+
+                for (int index = 0; index < count; ++index) {
+                    userIds[index] = source.getLong();
+                }
+
+                target.changeMembership(teamId, userIds, count);
+            }
+            case DELETE_TEAM -> target.deleteTeam(source.getLong());
+            case DELETE_USER -> target.deleteUser(source.getLong());
+            case RESTORE_ID_COUNTERS -> target.restoreIdCounters(source.getLong(), source.getLong());
+            case SAVE_TEAM -> {
+                long teamId = source.getLong();
+                long epochSecond = source.getLong();
+                int nano = source.getInt();
+                boolean isComplete = source.get() != 0;
+
+                target.saveTeam(teamId, epochSecond == NULL_INSTANT ? null : Instant.ofEpochSecond(epochSecond, nano),
+                        isComplete, getString(source));
+            }
+            case SAVE_USER -> {
+                long userId = source.getLong();
+                int age = source.getInt();
+                String firstname = getString(source);
+                String name = getString(source);
+
+                target.saveUser(userId, age == NULL_AGE ? null : age, firstname, name, source.getLong());
+            }
+            default -> throw new IllegalStateException(String.format("Unknown operation code %d", operation));
+        }
+
+        return true;
+    }
+
+    /**
+     * Drain the buffer to the channel
+     *
+     * @throws IOException If the channel can't be written
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * Drain the buffer to the channel if there is one and the buffer is large enough
+     */
+    private void drainIfFull() {
+        if (channel != null && buffer.position() >= DRAIN_THRESHOLD) {
+            try {
+                drain();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Grow the buffer if it can't hold the provided number of bytes
+     *
+     * @param size Number of bytes about to be written
+     */
+    private void ensureRemaining(int size) {
+        if (buffer.remaining() < size) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+    }
+
+    /**
+     * Write an encoded string
+     *
+     * @param encoded UTF-8 bytes of the string, null for a null string
+     */
+    private void putString(byte[] encoded) {
+        if (encoded == null) {
+            buffer.putShort(NULL_STRING);
+        } else {
+            buffer.putShort((short) encoded.length).put(encoded);
+        }
+    }
+
+    /**
+     * Encode a string in UTF-8
+     *
+     * @param value String to encode
+     * @return The bytes of the string, null for a null string
+     */
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read an encoded string
+     *
+     * @param source Buffer positioned on the length of the string
+     * @return The decoded string
+     */
+    private static String getString(ByteBuffer source) {
+        short length = source.getShort();
+
+        if (length == NULL_STRING) {
+            return null;
+        }
+
+        byte[] encoded = new byte[length];
+        source.get(encoded);
+
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compute the encoded size of a string
+     *
+     * @param encoded UTF-8 bytes of the string, null for a null string
+     * @return The number of bytes written for the string
+     */
+    private static int sizeOf(byte[] encoded) {
+        return Short.BYTES + (encoded == null ? 0 : encoded.length);
+    }
+
+}
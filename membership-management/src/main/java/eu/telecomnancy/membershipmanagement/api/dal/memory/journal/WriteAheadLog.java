@@ -0,0 +1,357 @@
+package eu.telecomnancy.membershipmanagement.api.dal.memory.journal;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of records, split in memory-mapped segments of a fixed size
+ *
+ * A record is written as its payload length, its sequence number, its payload and a CRC32C of the sequence number and
+ * the payload. Appending is a copy into the mapped segment: the pages are written back by the operating system, or
+ * when {@link #force()} is called, rather than synchronously for each record. A segment is named after the sequence
+ * number of its first record, and a new one is mapped when a record does not fit in the current one.
+ *
+ * On opening, the records are read back until the first one that is not followed by a valid record: a zero length,
+ * a checksum mismatch or a sequence gap marks the end of the log, any torn write after it being erased.
+ *
+ * The log is not thread-safe, except for {@link #force()} and {@link #deleteSegmentsUpTo}, which never touch the
+ * current segment: appends are serialized by the lock of the store
+ */
+@Log4j2
+final class WriteAheadLog implements Closeable {
+
+    /**
+     * Size of the fields written before the payload of a record: its length and its sequence number
+     */
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    /**
+     * Size of the checksum written after the payload of a record
+     */
+    private static final int TRAILER_SIZE = Integer.BYTES;
+
+    /**
+     * Prefix of the names of the segment files
+     */
+    private static final String SEGMENT_PREFIX = "wal-";
+
+    /**
+     * Suffix of the names of the segment files
+     */
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * Directory of the segment files
+     */
+    private final Path directory;
+
+    /**
+     * Size of a segment file, in bytes
+     */
+    private final int segmentSize;
+
+    /**
+     * Checksum computer, reused for each record
+     */
+    private final CRC32C checksum = new CRC32C();
+
+    /**
+     * Segment in which the records are appended
+     */
+    private volatile MappedByteBuffer segment;
+
+    /**
+     * Sequence number of the last record appended
+     */
+    private long lastSequence;
+
+    /**
+     * Create the log, which has to be opened before appending
+     *
+     * @param directory Directory of the segment files
+     * @param segmentSize Size of a segment file, in bytes
+     */
+    WriteAheadLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Read all the records of the log, then get ready to append the next ones
+     *
+     * @param afterSequence Sequence number up to which the records are already known, they are skipped
+     * @param consumer Consumer of the payloads of the records after afterSequence, in order
+     * @return The number of records consumed
+     */
+    long open(long afterSequence, Consumer<ByteBuffer> consumer) {
+        long consumedCount = 0;
+        lastSequence = afterSequence;
+
+        try {
+            Files.createDirectories(directory);
+
+            MappedByteBuffer lastSegment = null;
+            long nextSequenceOfLastSegment = 0;
+
+            for (Path segmentFile : listSegments()) {
+                MappedByteBuffer mapped = map(segmentFile);
+                long sequence = firstSequenceOf(segmentFile);
+                ByteBuffer payload;
+
+                // The records up to afterSequence are skipped, the following ones must be contiguous
+                while ((payload = readRecord(mapped, sequence)) != null) {
+                    if (sequence > afterSequence) {
+                        if (sequence != lastSequence + 1) {
+                            throw new IllegalStateException(String.format(
+                                    "The records %d to %d are missing from the write-ahead log",
+                                    lastSequence + 1, sequence - 1));
+                        }
+
+                        consumer.accept(payload);
+                        ++consumedCount;
+                        lastSequence = sequence;
+                    }
+
+                    ++sequence;
+                }
+
+                lastSegment = mapped;
+                nextSequenceOfLastSegment = sequence;
+            }
+
+            // Keep appending to the last segment, unless its tail was lost while the snapshot was written
+            if (lastSegment != null && nextSequenceOfLastSegment == lastSequence + 1) {
+                segment = lastSegment;
+            } else {
+                segment = map(segmentPath(lastSequence + 1));
+            }
+
+            erase(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return consumedCount;
+    }
+
+    /**
+     * Append a record to the log
+     *
+     * @param payload Payload of the record
+     * @return The sequence number of the record
+     * @throws IllegalArgumentException If the payload can't fit in a segment
+     */
+    long append(ByteBuffer payload) {
+        int recordSize = HEADER_SIZE + payload.remaining() + TRAILER_SIZE;
+
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException(String.format(
+                    "A record of %d bytes can't fit in a segment of %d bytes", recordSize, segmentSize));
+        }
+
+        long sequence = lastSequence + 1;
+
+        if (segment.remaining() < recordSize) {
+            roll(sequence);
+        }
+
+        MappedByteBuffer current = segment;
+        int start = current.position();
+
+        checksum.reset();
+        checksum.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+        checksum.update(payload.duplicate());
+
+        // The length is written last, so that a record is never visible before being complete
+        current.position(start + Integer.BYTES);
+        current.putLong(sequence).put(payload).putInt((int) checksum.getValue());
+        current.putInt(start, recordSize - HEADER_SIZE - TRAILER_SIZE);
+
+        lastSequence = sequence;
+
+        return sequence;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Write back the current segment, the log can't be used afterwards
+     */
+    @Override
+    public void close() {
+        force();
+    }
+
+    /**
+     * Delete the segments whose records all have a sequence number lower or equal to the provided one
+     *
+     * @param sequence Sequence number up to which the records are no longer needed
+     */
+    void deleteSegmentsUpTo(long sequence) {
+        try {
+            List<Path> segments = listSegments();
+
+            // A segment only holds records older than the first record of the next segment
+            for (int index = 0; index < segments.size() - 1; ++index) {
+                if (firstSequenceOf(segments.get(index + 1)) <= sequence + 1) {
+                    Files.delete(segments.get(index));
+                }
+            }
+        } catch (IOException e) {
+            log.error("Unable to delete the segments of the write-ahead log up to {}", sequence, e);
+        }
+    }
+
+    /**
+     * Write back the current segment to the storage device
+     */
+    void force() {
+        MappedByteBuffer current = segment;
+
+        if (current != null) {
+            current.force();
+        }
+    }
+
+    /**
+     * Erase the bytes of a segment after its position, so that a torn write is never mistaken for a record
+     *
+     * @param mapped Segment to erase, positioned after its last valid record
+     */
+    private static void erase(MappedByteBuffer mapped) {
+        for (int position = mapped.position(); position < mapped.limit(); ++position) {
+            if (mapped.get(position) != 0) {
+                mapped.put(position, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Get the sequence number of the last record appended
+     *
+     * @return The sequence number of the last record, or the one up to which the records were known when opened
+     */
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * List the segment files of the log
+     *
+     * @return The segment files, ordered by the sequence number of their first record
+     * @throws IOException If the directory can't be listed
+     */
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Map a segment file, creating it if needed
+     *
+     * @param segmentFile Path of the segment file
+     * @return The mapped segment, positioned at its start
+     * @throws IOException If the file can't be mapped
+     */
+    private MappedByteBuffer map(Path segmentFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    /**
+     * Read the record at the position of a segment, moving past it if it is valid
+     *
+     * @param mapped Segment to read
+     * @param expectedSequence Sequence number that the record must have
+     * @return The payload of the record, or null if there is no valid record at this position
+     */
+    private ByteBuffer readRecord(MappedByteBuffer mapped, long expectedSequence) {
+        int start = mapped.position();
+
+        if (mapped.remaining() < HEADER_SIZE + TRAILER_SIZE) {
+            return null;
+        }
+
+        int length = mapped.getInt(start);
+
+        if (length <= 0 || length > mapped.remaining() - HEADER_SIZE - TRAILER_SIZE
+                || mapped.getLong(start + Integer.BYTES) != expectedSequence) {
+            return null;
+        }
+
+        ByteBuffer payload = mapped.slice(start + HEADER_SIZE, length);
+
+        checksum.reset();
+        checksum.update(mapped.slice(start + Integer.BYTES, Long.BYTES + length));
+
+        if ((int) checksum.getValue() != mapped.getInt(start + HEADER_SIZE + length)) {
+            log.warn("Checksum mismatch of the record {} of the write-ahead log, it is considered as its end",
+                    expectedSequence);
+            return null;
+        }
+
+        mapped.position(start + HEADER_SIZE + length + TRAILER_SIZE);
+
+        return payload;
+    }
+
+    /**
+     * Write back the current segment and map a new one
+     *
+     * @param firstSequence Sequence number of the first record of the new segment
+     */
+    private void roll(long firstSequence) {
+        force();
+
+        try {
+            segment = map(segmentPath(firstSequence));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.info("New segment of the write-ahead log from the record {}", firstSequence);
+    }
+
+    /**
+     * Get the path of a segment file
+     *
+     * @param firstSequence Sequence number of the first record of the segment
+     * @return The path of the segment file
+     */
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Get the sequence number of the first record of a segment file from its name
+     *
+     * @param segmentFile Path of the segment file
+     * @return The sequence number of its first record
+     */
+    private static long firstSequenceOf(Path segmentFile) {
+        String fileName = segmentFile.getFileName().toString();
+
+        return Long.parseLong(
+                fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+}
@@ -0,0 +1,38 @@
+package eu.telecomnancy.membershipmanagement.api.dal.outbox;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Message of the outbox awaiting its publication
+ */
+@Value
+public class OutboxMessage {
+
+    /**
+     * Id of the message, increasing with its creation
+     */
+    long id;
+
+    /**
+     * Position of the message in the outbox, assigned once committed and kept when it is published again
+     */
+    long position;
+
+    /**
+     * Routing key with which the message is published
+     */
+    String routingKey;
+
+    /**
+     * Body of the message
+     */
+    String payload;
+
+    /**
+     * Time at which the message has been written, along with the change it notifies
+     */
+    Instant createdAt;
+
+}
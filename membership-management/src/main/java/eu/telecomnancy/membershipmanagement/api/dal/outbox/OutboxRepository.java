@@ -0,0 +1,240 @@
+package eu.telecomnancy.membershipmanagement.api.dal.outbox;
+
+import eu.telecomnancy.membershipmanagement.api.configuration.PersistenceEngineEnvironmentPostProcessor;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.snapshot.ContentSnapshotDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository to access the messages of the outbox, stored in the database along with the entities
+ *
+ * The messages are accessed through plain JDBC rather than Hibernate: they are never read back as entities, and their
+ * statements are then left out of the persistence context and of its statistics. Writing a message within a
+ * transaction makes it part of this transaction
+ *
+ * Each message records the changes of the number of teams and users it notifies. Once committed, the messages are
+ * positioned by the relay, and their changes are added to the content snapshot in the same transaction: the snapshot
+ * holds the counts up to the last position assigned, and a message positioned later has a higher position. The writers
+ * of the messages never access the snapshot, only the relays wait for each other while positioning messages, so that a
+ * message is positioned once. A message keeps its position when it is published again, the positions then
+ * identifying the events
+ */
+@Repository
+@ConditionalOnProperty(
+        name = PersistenceEngineEnvironmentPostProcessor.ENGINE_PROPERTY,
+        havingValue = "jpa",
+        matchIfMissing = true)
+public class OutboxRepository {
+
+    /**
+     * Template used to issue the statements, sharing the connection of the current transaction if any
+     */
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Id of the stream of the positions in the outbox, read once
+     */
+    private volatile String streamId;
+
+    /**
+     * Create the repository
+     *
+     * @param jdbcTemplate Template used to issue the statements
+     */
+    @Autowired
+    public OutboxRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Write a message to the outbox
+     *
+     * @param routingKey Routing key with which the message is to be published
+     * @param payload Body of the message
+     * @param teamCountDelta Change of the number of teams notified by the message
+     * @param userCountDelta Change of the number of users notified by the message
+     */
+    public void append(String routingKey, String payload, int teamCountDelta, int userCountDelta) {
+        jdbcTemplate.update(
+                "INSERT INTO outbox_message (routing_key, payload, created_at, team_count_delta, user_count_delta) "
+                        + "VALUES (:routingKey, :payload, :createdAt, :teamCountDelta, :userCountDelta)",
+                new MapSqlParameterSource()
+                        .addValue("routingKey", routingKey)
+                        .addValue("payload", payload)
+                        .addValue("createdAt", Timestamp.from(Instant.now()))
+                        .addValue("teamCountDelta", teamCountDelta)
+                        .addValue("userCountDelta", userCountDelta));
+    }
+
+    /**
+     * Retrieve the snapshot of the counts
+     *
+     * @return The counts of the teams and of the users, with the position of the last message they reflect
+     */
+    public ContentSnapshotDto findSnapshot() {
+        return jdbcTemplate.queryForObject(
+                "SELECT team_count, user_count, stream_id, last_position FROM content_snapshot",
+                new MapSqlParameterSource(),
+                (resultSet, rowNumber) -> new ContentSnapshotDto(
+                        resultSet.getLong("team_count"),
+                        resultSet.getLong("user_count"),
+                        resultSet.getString("stream_id"),
+                        resultSet.getLong("last_position")));
+    }
+
+    /**
+     * Position the oldest committed messages not positioned yet after the last position of the snapshot, and add the
+     * changes of the counts they carry to the snapshot
+     *
+     * Must be called within a transaction, which holds the snapshot until its end. The snapshot is only held while
+     * the messages are positioned, not while waiting for the messages being written
+     *
+     * @param limit Maximum number of messages to position
+     * @return The number of positioned messages
+     */
+    public int assignPositions(int limit) {
+        // Read before locking the snapshot, the messages being written holding back the reading until their commit
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM outbox_message WHERE stream_position IS NULL ORDER BY id FETCH FIRST :limit ROWS ONLY",
+                new MapSqlParameterSource("limit", limit),
+                Long.class);
+
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // Held until the commit, a concurrent relay then sees the messages it positions
+        jdbcTemplate.update(
+                "UPDATE content_snapshot SET last_position = last_position", new MapSqlParameterSource());
+
+        Long lastPosition = jdbcTemplate.queryForObject(
+                "SELECT last_position FROM content_snapshot", new MapSqlParameterSource(), Long.class);
+        long position = lastPosition == null ? 0 : lastPosition;
+
+        MapSqlParameterSource[] positions = new MapSqlParameterSource[ids.size()];
+
+        for (int i = 0; i < positions.length; ++i) {
+            positions[i] = new MapSqlParameterSource()
+                    .addValue("id", ids.get(i))
+                    .addValue("position", ++position);
+        }
+
+        // The messages positioned by a concurrent relay in the meantime are skipped, leaving their positions unused
+        int[] updateCounts = jdbcTemplate.batchUpdate(
+                "UPDATE outbox_message SET stream_position = :position "
+                        + "WHERE id = :id AND stream_position IS NULL",
+                positions);
+        jdbcTemplate.update(
+                "UPDATE content_snapshot s SET "
+                        + "team_count = team_count + (SELECT COALESCE(SUM(m.team_count_delta), 0) "
+                        + "FROM outbox_message m "
+                        + "WHERE m.stream_position > s.last_position AND m.stream_position <= :lastPosition), "
+                        + "user_count = user_count + (SELECT COALESCE(SUM(m.user_count_delta), 0) "
+                        + "FROM outbox_message m "
+                        + "WHERE m.stream_position > s.last_position AND m.stream_position <= :lastPosition), "
+                        + "last_position = :lastPosition",
+                new MapSqlParameterSource("lastPosition", position));
+
+        return (int) Arrays.stream(updateCounts).filter(count -> count != 0).count();
+    }
+
+    /**
+     * Retrieve the id of the stream of the positions in the outbox, which identifies the database
+     *
+     * @return The id of the stream
+     */
+    public String getStreamId() {
+        String id = streamId;
+
+        if (id == null) {
+            id = jdbcTemplate.queryForObject(
+                    "SELECT stream_id FROM content_snapshot", new MapSqlParameterSource(), String.class);
+            streamId = id;
+        }
+
+        return id;
+    }
+
+    /**
+     * Retrieve the positioned messages not sent yet
+     *
+     * @param limit Maximum number of messages to retrieve
+     * @return The unsent messages, ordered by position
+     */
+    public List<OutboxMessage> findUnsent(int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, stream_position, routing_key, payload, created_at FROM outbox_message "
+                        + "WHERE sent_at IS NULL AND stream_position IS NOT NULL "
+                        + "ORDER BY stream_position FETCH FIRST :limit ROWS ONLY",
+                new MapSqlParameterSource("limit", limit),
+                (resultSet, rowNumber) -> new OutboxMessage(
+                        resultSet.getLong("id"),
+                        resultSet.getLong("stream_position"),
+                        resultSet.getString("routing_key"),
+                        resultSet.getString("payload"),
+                        resultSet.getTimestamp("created_at").toInstant()));
+    }
+
+    /**
+     * Mark messages as sent, unless they already are
+     *
+     * @param ids Ids of the sent messages
+     * @param sentAt Time at which the messages have been sent
+     * @return The number of messages marked as sent, lower than the number of ids if some of them were already sent
+     */
+    public int markSent(Collection<Long> ids, Instant sentAt) {
+        return jdbcTemplate.update(
+                "UPDATE outbox_message SET sent_at = :sentAt WHERE id IN (:ids) AND sent_at IS NULL",
+                new MapSqlParameterSource()
+                        .addValue("sentAt", Timestamp.from(sentAt))
+                        .addValue("ids", ids));
+    }
+
+    /**
+     * Mark a message as unsent, so that it is published again
+     *
+     * @param id Id of the message
+     */
+    public void markUnsent(long id) {
+        jdbcTemplate.update(
+                "UPDATE outbox_message SET sent_at = NULL WHERE id = :id",
+                new MapSqlParameterSource("id", id));
+    }
+
+    /**
+     * Delete the messages sent before a given time, whose changes of the counts are in the snapshot since they were
+     * positioned
+     *
+     * @param threshold Time before which the sent messages are deleted
+     * @return The number of deleted messages
+     */
+    public int deleteSentBefore(Instant threshold) {
+        return jdbcTemplate.update(
+                "DELETE FROM outbox_message WHERE sent_at < :threshold",
+                new MapSqlParameterSource("threshold", Timestamp.from(threshold)));
+    }
+
+    /**
+     * Count the messages not sent yet
+     *
+     * @return The number of unsent messages
+     */
+    public long countUnsent() {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_message WHERE sent_at IS NULL",
+                new MapSqlParameterSource(),
+                Long.class);
+
+        return count == null ? 0 : count;
+    }
+
+}
@@ -0,0 +1,15 @@
+package eu.telecomnancy.membershipmanagement.api.dal.repositories;
+
+/**
+ * Repository fragment for the consumers of a {@link java.util.stream.Stream} over a whole table
+ *
+ * @see StreamingHints
+ */
+public interface DetachingRepository {
+
+    /**
+     * Detach all the entities loaded so far, so that the already consumed ones can be garbage collected
+     */
+    void detachAll();
+
+}
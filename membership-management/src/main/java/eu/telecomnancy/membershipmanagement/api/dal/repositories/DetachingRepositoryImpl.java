@@ -0,0 +1,27 @@
+package eu.telecomnancy.membershipmanagement.api.dal.repositories;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * JPA implementation of the {@link DetachingRepository} fragment, picked up by Spring Data from its name
+ */
+public class DetachingRepositoryImpl implements DetachingRepository {
+
+    /**
+     * Entity manager of the current persistence context
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * {@inheritDoc}
+     *
+     * Clear the current persistence context
+     */
+    @Override
+    public void detachAll() {
+        entityManager.clear();
+    }
+
+}
@@ -0,0 +1,121 @@
+package eu.telecomnancy.membershipmanagement.api.dal.repositories;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Port through which the services access the stored {@link Team} entities
+ *
+ * The signatures match the ones of Spring Data, so that the JPA repository implements it as is
+ *
+ * @see TeamRepository
+ */
+public interface ITeamRepository extends DetachingRepository {
+
+    /**
+     * Count the teams
+     *
+     * @return The number of teams
+     */
+    long count();
+
+    /**
+     * Delete a team by its id, without loading it first
+     *
+     * The team must not have any member left
+     *
+     * @param teamId Id of the team to delete
+     * @return The number of deleted teams, 0 if there is no team for this id
+     */
+    int deleteTeamById(long teamId);
+
+    /**
+     * Retrieve a team by its id
+     *
+     * @param id Id of the team to retrieve
+     * @return The team if it exists
+     */
+    Optional<Team> findById(Long id);
+
+    /**
+     * Retrieve the version of a team without loading it
+     *
+     * @param teamId Id of the team
+     * @return The version of the team if it exists
+     */
+    Optional<Long> findVersionById(long teamId);
+
+    /**
+     * Retrieve several teams along with their members, ordered by id
+     *
+     * @param teamIds Ids of the teams to retrieve
+     * @return The existing teams among the provided ids, with their members loaded
+     */
+    List<Team> findWithMembersByIdIn(Collection<Long> teamIds);
+
+    /**
+     * Retrieve a page of teams whose id is greater than the provided cursor, ordered by id
+     *
+     * Only the columns of the DTO are read, without the members of the teams
+     *
+     * @param after Cursor from which retrieving the teams
+     * @param pageable Page size (the page number is expected to always be 0)
+     * @return A list of at most pageable.size teams
+     */
+    List<TeamDto> findDtosByIdGreaterThan(long after, Pageable pageable);
+
+    /**
+     * Retrieve a page of teams with their complete attribute matching the filter and whose id is greater than the
+     * provided cursor, ordered by id
+     *
+     * Only the columns of the DTO are read, without the members of the teams
+     *
+     * @param isComplete Whether the team should be complete or not
+     * @param after Cursor from which retrieving the teams
+     * @param pageable Page size (the page number is expected to always be 0)
+     * @return A list of at most pageable.size teams matching the isComplete filter
+     */
+    List<TeamDto> findDtosByIsCompleteAndIdGreaterThan(boolean isComplete, long after, Pageable pageable);
+
+    /**
+     * Store a new team or the new state of an existing one
+     *
+     * The members of the team are not stored, the membership being held by the users
+     *
+     * @param team Team to store
+     * @param <S> Type of the team
+     * @return The stored team
+     */
+    <S extends Team> S save(S team);
+
+    /**
+     * Store several new teams or the new state of existing ones
+     *
+     * @param teams Teams to store
+     * @param <S> Type of the teams
+     * @return The stored teams, in the same order
+     */
+    <S extends Team> List<S> saveAll(Iterable<S> teams);
+
+    /**
+     * Stream all teams, ordered by id
+     *
+     * @return A stream of all teams, to be closed once consumed
+     */
+    Stream<Team> streamAllByOrderByIdAsc();
+
+    /**
+     * Stream all teams with their complete attribute matching the filter, ordered by id
+     *
+     * @param isComplete Whether the team should be complete or not
+     * @return A stream of the teams matching the isComplete filter, to be closed once consumed
+     */
+    Stream<Team> streamByIsCompleteOrderByIdAsc(boolean isComplete);
+
+}
@@ -0,0 +1,167 @@
+package eu.telecomnancy.membershipmanagement.api.dal.repositories;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.domain.User;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Port through which the services access the stored {@link User} entities
+ *
+ * The signatures match the ones of Spring Data, so that the JPA repository implements it as is
+ *
+ * @see UserRepository
+ */
+public interface IUserRepository extends DetachingRepository {
+
+    /**
+     * Count the users
+     *
+     * @return The number of users
+     */
+    long count();
+
+    /**
+     * Delete a user
+     *
+     * @param user User to delete
+     */
+    void delete(User user);
+
+    /**
+     * Retrieve several users by their ids
+     *
+     * @param ids Ids of the users to retrieve
+     * @return The users found, the unknown ids being ignored
+     */
+    List<User> findAllById(Iterable<Long> ids);
+
+    /**
+     * Retrieve a user by its id
+     *
+     * @param id Id of the user to retrieve
+     * @return The user if it exists
+     */
+    Optional<User> findById(Long id);
+
+    /**
+     * Retrieve the versions of the members of a team without loading them
+     *
+     * @param teamId Id of the team
+     * @return The versions of the members of the team, ordered by id
+     */
+    List<MemberVersion> findMemberVersionsByTeamId(long teamId);
+
+    /**
+     * Retrieve the version of a user and of his team without loading them
+     *
+     * @param userId Id of the user
+     * @return The versions of the user and of his team if he exists
+     */
+    Optional<UserVersion> findVersionById(long userId);
+
+    /**
+     * Retrieve a page of users whose id is greater than the provided cursor, ordered by id
+     *
+     * Only the columns of the DTO are read, without the team of the users
+     *
+     * @param after Cursor from which retrieving the users
+     * @param pageable Page size (the page number is expected to always be 0)
+     * @return A list of at most pageable.size users
+     */
+    List<UserDto> findDtosByIdGreaterThan(long after, Pageable pageable);
+
+    /**
+     * Retrieve a page of users that belong to a team and whose id is greater than the provided cursor, ordered by id
+     *
+     * Only the columns of the DTO are read, without the team of the users
+     *
+     * @param after Cursor from which retrieving the users
+     * @param pageable Page size (the page number is expected to always be 0)
+     * @return A list of at most pageable.size users that belongs to a team
+     */
+    List<UserDto> findDtosByTeamNotNullAndIdGreaterThan(long after, Pageable pageable);
+
+    /**
+     * Retrieve a page of users that don't belong to a team and whose id is greater than the provided cursor,
+     * ordered by id
+     *
+     * Only the columns of the DTO are read
+     *
+     * @param after Cursor from which retrieving the users
+     * @param pageable Page size (the page number is expected to always be 0)
+     * @return A list of at most pageable.size users that doesn't belong to a team
+     */
+    List<UserDto> findDtosByTeamNullAndIdGreaterThan(long after, Pageable pageable);
+
+    /**
+     * Make some users without team join a team
+     *
+     * @param team Team to join
+     * @param userIds Ids of the users joining the team, must not be empty
+     * @return The number of users that joined the team
+     */
+    int joinTeam(Team team, Collection<Long> userIds);
+
+    /**
+     * Remove all the members of a team from it
+     *
+     * @param teamId Id of the team whose members are released
+     * @return The number of users that left the team
+     */
+    int releaseMembersOfTeam(long teamId);
+
+    /**
+     * Remove some of the members of a team from it
+     *
+     * @param teamId Id of the team whose members are released
+     * @param userIds Ids of the members to release, must not be empty
+     * @return The number of users that left the team
+     */
+    int releaseMembersOfTeam(long teamId, Collection<Long> userIds);
+
+    /**
+     * Store a new user or the new state of an existing one
+     *
+     * @param user User to store
+     * @param <S> Type of the user
+     * @return The stored user
+     */
+    <S extends User> S save(S user);
+
+    /**
+     * Store several new users or the new state of existing ones
+     *
+     * @param users Users to store
+     * @param <S> Type of the users
+     * @return The stored users, in the same order
+     */
+    <S extends User> List<S> saveAll(Iterable<S> users);
+
+    /**
+     * Stream all users, ordered by id
+     *
+     * @return A stream of all users, to be closed once consumed
+     */
+    Stream<User> streamAll();
+
+    /**
+     * Stream all users that don't belong to a team, ordered by id
+     *
+     * @return A stream of the users that don't belong to a team, to be closed once consumed
+     */
+    Stream<User> streamByTeamNull();
+
+    /**
+     * Stream all users that belong to a team, ordered by id
+     *
+     * @return A stream of the users that belong to a team, to be closed once consumed
+     */
+    Stream<User> streamByTeamNotNull();
+
+}
@@ -0,0 +1,22 @@
+package eu.telecomnancy.membershipmanagement.api.dal.repositories;
+
+import eu.telecomnancy.membershipmanagement.api.domain.User;
+import lombok.Value;
+
+/**
+ * Version of a member of a team, read without loading the {@link User} entity
+ */
+@Value
+public class MemberVersion {
+
+    /**
+     * Id of the member
+     */
+    long id;
+
+    /**
+     * Version of the member
+     */
+    long version;
+
+}
@@ -0,0 +1,34 @@
+package eu.telecomnancy.membershipmanagement.api.dal.repositories;
+
+/**
+ * Values of the JPA query hints used by the repository methods returning a {@link java.util.stream.Stream}
+ *
+ * Those methods are meant to iterate over whole tables: the rows are fetched from the database by batches of
+ * {@link #BATCH_SIZE} through a server-side cursor, instead of materializing the whole result set in memory
+ */
+public final class StreamingHints {
+
+    /**
+     * Number of rows fetched from the database at once while streaming
+     *
+     * It is also the number of entities after which the consumer of the stream should detach them, see
+     * {@link DetachingRepository}
+     */
+    public static final int BATCH_SIZE = 500;
+
+    /**
+     * {@link #BATCH_SIZE} as a query hint value
+     */
+    public static final String FETCH_SIZE = "" + BATCH_SIZE;
+
+    /**
+     * Streamed entities are never modified, hence Hibernate does not need to keep their snapshot for dirty-checking
+     */
+    public static final String READ_ONLY = "true";
+
+    /**
+     * Utility class, not meant to be instantiated
+     */
+    private StreamingHints() { }
+
+}
@@ -1,16 +1,38 @@
 package eu.telecomnancy.membershipmanagement.api.dal.repositories;
 
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
 import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
  * Repository to access the persisted {@link Team} entities
+ *
+ * The {@link DetachingRepository} fragment is declared here as well: Spring Data only looks for the implementations
+ * of the fragments among the interfaces a repository extends directly
  */
 @Repository
-public interface TeamRepository extends JpaRepository<Team, Long> {
+public interface TeamRepository extends JpaRepository<Team, Long>, ITeamRepository, DetachingRepository {
+
+    /**
+     * Fully qualified name of the DTO built by the projections, as required by the JPQL constructor expressions
+     */
+    String TEAM_DTO = "eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto";
 
     /**
      * Retrieve all teams with their complete attribute matching the filter
@@ -20,4 +42,90 @@ public interface TeamRepository extends JpaRepository<Team, Long> {
      */
     List<Team> getTeamByIsComplete(boolean isComplete);
 
+    /**
+     * Retrieve the version of a team without loading it
+     *
+     * @param teamId Id of the team
+     * @return The version of the team if it exists
+     */
+    @Query("SELECT t.version FROM Team t WHERE t.id = :teamId")
+    Optional<Long> findVersionById(@Param("teamId") long teamId);
+
+    /**
+     * Retrieve several teams along with their members, ordered by id
+     *
+     * The rosters of all the teams are read in a single joined query, whatever the number of teams. The distinct
+     * keyword only removes the duplicated teams from the result and is not passed on to the SQL query
+     *
+     * @param teamIds Ids of the teams to retrieve
+     * @return The existing teams among the provided ids, with their members loaded
+     */
+    @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    @Query("SELECT DISTINCT t FROM Team t LEFT JOIN FETCH t.members WHERE t.id IN :teamIds ORDER BY t.id")
+    List<Team> findWithMembersByIdIn(@Param("teamIds") Collection<Long> teamIds);
+
+    /**
+     * Retrieve a page of teams whose id is greater than the provided cursor, ordered by id
+     *
+     * Only the columns of the DTO are read, without the members of the teams
+     *
+     * @param after Cursor from which retrieving the teams
+     * @param pageable Page size (the page number is expected to always be 0)
+     * @return A list of at most pageable.size teams
+     */
+    @Query("SELECT new " + TEAM_DTO + "(t.creationDate, t.id, t.name, t.isComplete, t.memberCount) FROM Team t "
+            + "WHERE t.id > :after ORDER BY t.id")
+    List<TeamDto> findDtosByIdGreaterThan(@Param("after") long after, Pageable pageable);
+
+    /**
+     * Retrieve a page of teams with their complete attribute matching the filter and whose id is greater than the
+     * provided cursor, ordered by id
+     *
+     * Only the columns of the DTO are read, without the members of the teams
+     *
+     * @param isComplete Whether the team should be complete or not
+     * @param after Cursor from which retrieving the teams
+     * @param pageable Page size (the page number is expected to always be 0)
+     * @return A list of at most pageable.size teams matching the isComplete filter
+     */
+    @Query("SELECT new " + TEAM_DTO + "(t.creationDate, t.id, t.name, t.isComplete, t.memberCount) FROM Team t "
+            + "WHERE t.isComplete = :isComplete AND t.id > :after ORDER BY t.id")
+    List<TeamDto> findDtosByIsCompleteAndIdGreaterThan(
+            @Param("isComplete") boolean isComplete, @Param("after") long after, Pageable pageable);
+
+    /**
+     * Stream all teams, ordered by id
+     *
+     * The stream has to be consumed within a transaction
+     *
+     * @return A stream of all teams
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = StreamingHints.FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = StreamingHints.READ_ONLY) })
+    Stream<Team> streamAllByOrderByIdAsc();
+
+    /**
+     * Stream all teams with their complete attribute matching the filter, ordered by id
+     *
+     * The stream has to be consumed within a transaction
+     *
+     * @param isComplete Whether the team should be complete or not
+     * @return A stream of the teams matching the isComplete filter
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = StreamingHints.FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = StreamingHints.READ_ONLY) })
+    Stream<Team> streamByIsCompleteOrderByIdAsc(boolean isComplete);
+
+    /**
+     * Delete a team by its id, in a single statement and without loading it first
+     *
+     * @param teamId Id of the team to delete
+     * @return The number of deleted teams, 0 if there is no team for this id
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Team t WHERE t.id = :teamId")
+    int deleteTeamById(@Param("teamId") long teamId);
+
 }
@@ -1,16 +1,48 @@
 package eu.telecomnancy.membershipmanagement.api.dal.repositories;
 
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
 import eu.telecomnancy.membershipmanagement.api.domain.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
  * Repository to access the persisted {@link User} entities
+ *
+ * The {@link DetachingRepository} fragment is declared here as well: Spring Data only looks for the implementations
+ * of the fragments among the interfaces a repository extends directly
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, IUserRepository, DetachingRepository {
+
+    /**
+     * Fully qualified name of the DTO built by the projections, as required by the JPQL constructor expressions
+     */
+    String USER_DTO = "eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto";
+
+    /**
+     * Fully qualified name of the version of a member of a team, as required by the JPQL constructor expressions
+     */
+    String MEMBER_VERSION = "eu.telecomnancy.membershipmanagement.api.dal.repositories.MemberVersion";
+
+    /**
+     * Fully qualified name of the version of a user, as required by the JPQL constructor expressions
+     */
+    String USER_VERSION = "eu.telecomnancy.membershipmanagement.api.dal.repositories.UserVersion";
 
     /**
      * Retrieve all users if they don't belong to a team
@@ -26,4 +58,140 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     List<User> findByTeamNotNull();
 
+    /**
+     * Retrieve the versions of the members of a team without loading them
+     *
+     * @param teamId Id of the team
+     * @return The versions of the members of the team, ordered by id
+     */
+    @Query("SELECT new " + MEMBER_VERSION + "(u.id, u.version) FROM users u WHERE u.team.id = :teamId ORDER BY u.id")
+    List<MemberVersion> findMemberVersionsByTeamId(@Param("teamId") long teamId);
+
+    /**
+     * Retrieve the version of a user and of his team without loading them
+     *
+     * @param userId Id of the user
+     * @return The versions of the user and of his team if he exists
+     */
+    @Query("SELECT new " + USER_VERSION + "(u.version, t.version) FROM users u LEFT JOIN u.team t "
+            + "WHERE u.id = :userId")
+    Optional<UserVersion> findVersionById(@Param("userId") long userId);
+
+    /**
+     * Retrieve a page of users whose id is greater than the provided cursor, ordered by id
+     *
+     * Only the columns of the DTO are read, without the team of the users
+     *
+     * @param after Cursor from which retrieving the users
+     * @param pageable Page size (the page number is expected to always be 0)
+     * @return A list of at most pageable.size users
+     */
+    @Query("SELECT new " + USER_DTO + "(u.id, u.age, u.firstname, u.name) FROM users u "
+            + "WHERE u.id > :after ORDER BY u.id")
+    List<UserDto> findDtosByIdGreaterThan(@Param("after") long after, Pageable pageable);
+
+    /**
+     * Retrieve a page of users that belong to a team and whose id is greater than the provided cursor, ordered by id
+     *
+     * Only the columns of the DTO are read, without the team of the users
+     *
+     * @param after Cursor from which retrieving the users
+     * @param pageable Page size (the page number is expected to always be 0)
+     * @return A list of at most pageable.size users that belongs to a team
+     */
+    @Query("SELECT new " + USER_DTO + "(u.id, u.age, u.firstname, u.name) FROM users u "
+            + "WHERE u.team IS NOT NULL AND u.id > :after ORDER BY u.id")
+    List<UserDto> findDtosByTeamNotNullAndIdGreaterThan(@Param("after") long after, Pageable pageable);
+
+    /**
+     * Retrieve a page of users that don't belong to a team and whose id is greater than the provided cursor,
+     * ordered by id
+     *
+     * Only the columns of the DTO are read
+     *
+     * @param after Cursor from which retrieving the users
+     * @param pageable Page size (the page number is expected to always be 0)
+     * @return A list of at most pageable.size users that doesn't belong to a team
+     */
+    @Query("SELECT new " + USER_DTO + "(u.id, u.age, u.firstname, u.name) FROM users u "
+            + "WHERE u.team IS NULL AND u.id > :after ORDER BY u.id")
+    List<UserDto> findDtosByTeamNullAndIdGreaterThan(@Param("after") long after, Pageable pageable);
+
+    /**
+     * Stream all users, ordered by id
+     *
+     * The team of the users is not fetched, as the export does not read it. The stream has to be consumed within a
+     * transaction
+     *
+     * @return A stream of all users
+     */
+    @Query("SELECT u FROM users u ORDER BY u.id")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = StreamingHints.FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = StreamingHints.READ_ONLY) })
+    Stream<User> streamAll();
+
+    /**
+     * Stream all users that don't belong to a team, ordered by id
+     *
+     * The stream has to be consumed within a transaction
+     *
+     * @return A stream of the users that don't belong to a team
+     */
+    @Query("SELECT u FROM users u WHERE u.team IS NULL ORDER BY u.id")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = StreamingHints.FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = StreamingHints.READ_ONLY) })
+    Stream<User> streamByTeamNull();
+
+    /**
+     * Stream all users that belong to a team, ordered by id
+     *
+     * Only the team column is checked, the team itself is not fetched. The stream has to be consumed within a
+     * transaction
+     *
+     * @return A stream of the users that belong to a team
+     */
+    @Query("SELECT u FROM users u WHERE u.team IS NOT NULL ORDER BY u.id")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = StreamingHints.FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = StreamingHints.READ_ONLY) })
+    Stream<User> streamByTeamNotNull();
+
+    /**
+     * Remove all the members of a team from it, in a single statement
+     *
+     * @param teamId Id of the team whose members are released
+     * @return The number of users that left the team
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE users u SET u.team = NULL, u.version = u.version + 1 WHERE u.team.id = :teamId")
+    int releaseMembersOfTeam(@Param("teamId") long teamId);
+
+    /**
+     * Remove some of the members of a team from it, in a single statement
+     *
+     * @param teamId Id of the team whose members are released
+     * @param userIds Ids of the members to release, must not be empty
+     * @return The number of users that left the team
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE users u SET u.team = NULL, u.version = u.version + 1 "
+            + "WHERE u.team.id = :teamId AND u.id IN :userIds")
+    int releaseMembersOfTeam(@Param("teamId") long teamId, @Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Make some users join a team, in a single statement
+     *
+     * Only the users without team are affected, so that a user can never be stolen from another team
+     *
+     * @param team Team to join
+     * @param userIds Ids of the users joining the team, must not be empty
+     * @return The number of users that joined the team
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE users u SET u.team = :team, u.version = u.version + 1 "
+            + "WHERE u.team IS NULL AND u.id IN :userIds")
+    int joinTeam(@Param("team") Team team, @Param("userIds") Collection<Long> userIds);
+
 }
@@ -0,0 +1,24 @@
+package eu.telecomnancy.membershipmanagement.api.dal.repositories;
+
+import eu.telecomnancy.membershipmanagement.api.domain.User;
+import lombok.Value;
+
+/**
+ * Version of a user and of his team, read without loading the {@link User} entity
+ *
+ * The team is served along with the user, hence a change of the team is a change of the user as well
+ */
+@Value
+public class UserVersion {
+
+    /**
+     * Version of the user
+     */
+    long version;
+
+    /**
+     * Version of the team of the user, null if he has none
+     */
+    Long teamVersion;
+
+}
@@ -1,7 +1,11 @@
 package eu.telecomnancy.membershipmanagement.api.domain;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.time.Instant;
@@ -12,9 +16,15 @@ import java.util.List;
  * Represent a team in the system
  */
 @Entity
+@Cacheable @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data @NoArgsConstructor
 public class Team {
 
+    /**
+     * Number of ids reserved at once from the database sequence
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     /**
      * Maximum number of members in the team
      */
@@ -39,10 +49,13 @@ public class Team {
 
     /**
      * Team id used for the persistence
+     *
+     * Like the users' ones, it comes from a pooled sequence to allow the batching of the inserts
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    @Column(name = "team_id", insertable = false, nullable = false)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_id_generator")
+    @SequenceGenerator(name = "team_id_generator", sequenceName = "team_seq", allocationSize = ID_ALLOCATION_SIZE)
+    @Column(name = "team_id", nullable = false)
     private Long id;
 
     /**
@@ -50,13 +63,28 @@ public class Team {
      *
      * This column has been added in v2.0 because of the various queries regarding the filtering of the teams
      * on this attribute. This allow to ease the query without joining any columns and perform in-place checks
+     *
+     * It is derived from the number of members, see {@link #setMemberCount(int)}
      */
     private boolean isComplete;
 
+    /**
+     * Number of members of the team
+     *
+     * Stored along with the team and updated by each change of its membership, so that its completeness is known
+     * without loading its members
+     */
+    private int memberCount;
+
     /**
      * Members of the team
+     *
+     * Excluded from the string representation and the comparisons, so that logging a team does not load its members
      */
     @OneToMany(mappedBy = "team")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private List<User> members = new ArrayList<>();
 
     /**
@@ -64,6 +92,15 @@ public class Team {
      */
     private String name;
 
+    /**
+     * Version of the team, incremented by each update
+     *
+     * An update based on a former version fails, so that two concurrent additions of members can't both see the team
+     * with room left and exceed its capacity
+     */
+    @Version
+    private Long version;
+
     /**
      * Create a team from its information
      *
@@ -74,12 +111,13 @@ public class Team {
     }
 
     /**
-     * Check whether or not the team is complete
+     * Set the number of members of the team, and its completeness accordingly
      *
-     * @return true if the team is complete; false otherwise
+     * @param memberCount New number of members of the team
      */
-    public boolean isTeamComplete() {
-        return members.size() == MAX_MEMBERS;
+    public void setMemberCount(int memberCount) {
+        this.memberCount = memberCount;
+        this.isComplete = memberCount == MAX_MEMBERS;
     }
 
 }
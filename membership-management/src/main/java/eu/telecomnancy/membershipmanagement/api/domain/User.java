@@ -4,6 +4,8 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -12,9 +14,15 @@ import java.io.Serializable;
  * Represent a user in the system
  */
 @Entity(name = "users")
+@Cacheable @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data @NoArgsConstructor
 public class User implements Serializable {
 
+    /**
+     * Number of ids reserved at once from the database sequence
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     /**
      * Maximum age of the user accepted by the system
      */
@@ -37,10 +45,14 @@ public class User implements Serializable {
 
     /**
      * User id used for the persistence
+     *
+     * Ids are drawn from a pooled sequence rather than an identity column so that Hibernate knows them before
+     * inserting and can batch the inserts of several users
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    @Column(insertable = false, nullable = false)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_generator")
+    @SequenceGenerator(name = "users_id_generator", sequenceName = "users_seq", allocationSize = ID_ALLOCATION_SIZE)
+    @Column(nullable = false)
     private Long id;
 
     /**
@@ -60,13 +72,24 @@ public class User implements Serializable {
 
     /**
      * User's team
+     *
+     * Lazily loaded, so that reading users does not read their team as well: the read use cases needing it fetch it
+     * explicitly, and its id is available from the proxy without any query
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     @EqualsAndHashCode.Exclude
     @ToString.Exclude
     private Team team;
 
+    /**
+     * Version of the user, incremented by each update
+     *
+     * An update based on a former version fails, so that two teams can't both claim the user at the same time
+     */
+    @Version
+    private Long version;
+
     /**
      * Create a user from its information
      *
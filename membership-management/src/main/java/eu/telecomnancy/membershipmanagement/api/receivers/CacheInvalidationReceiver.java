@@ -0,0 +1,158 @@
+package eu.telecomnancy.membershipmanagement.api.receivers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.telecomnancy.membershipmanagement.api.configuration.PersistenceEngineEnvironmentPostProcessor;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.domain.User;
+import eu.telecomnancy.membershipmanagement.api.services.notification.CacheInvalidation;
+import eu.telecomnancy.membershipmanagement.api.services.notification.MessagingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+
+/**
+ * Custom service listening to the invalidations sent by the other instances of the API, in order to evict the
+ * entities they changed from the second-level cache of this one
+ *
+ * The invalidations sent by this instance are received as well, and ignored: its own caches are already up to date.
+ * The other ones are published to the other caches of this instance once the second-level cache is evicted, the ids
+ * found unknown included
+ */
+@Log4j2
+@Service
+@ConditionalOnProperty(
+        name = PersistenceEngineEnvironmentPostProcessor.ENGINE_PROPERTY,
+        havingValue = "jpa",
+        matchIfMissing = true)
+public class CacheInvalidationReceiver {
+
+    /**
+     * Role of the collection of the members of a team, naming its region of the second-level cache
+     */
+    private static final String TEAM_MEMBERS_ROLE = Team.class.getName() + ".members";
+
+    /**
+     * Name of the metric counting the received invalidations
+     */
+    private static final String INVALIDATIONS_METRIC = "cache.invalidations";
+
+    /**
+     * Messaging service sending the invalidations of this instance
+     */
+    private final MessagingService messagingService;
+
+    /**
+     * JSON mapper used to deserialize the invalidations
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Second-level cache of Hibernate
+     */
+    private final Cache cache;
+
+    /**
+     * Publisher of the invalidations to the other caches of this instance
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Number of invalidations sent by the other instances, and applied
+     */
+    private final Counter appliedInvalidations;
+
+    /**
+     * Number of invalidations sent by this instance, and ignored
+     */
+    private final Counter ignoredInvalidations;
+
+    /**
+     * Create the queue listener
+     *
+     * @param messagingService Messaging service sending the invalidations of this instance
+     * @param objectMapper JSON mapper used to deserialize the invalidations
+     * @param entityManagerFactory Factory holding the second-level cache
+     * @param eventPublisher Publisher of the invalidations to the other caches of this instance
+     * @param meterRegistry Registry of the metrics counting the received invalidations
+     */
+    @Autowired
+    public CacheInvalidationReceiver(MessagingService messagingService, ObjectMapper objectMapper,
+                                     EntityManagerFactory entityManagerFactory,
+                                     ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        this.messagingService = messagingService;
+        this.objectMapper = objectMapper;
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.eventPublisher = eventPublisher;
+        this.appliedInvalidations = meterRegistry.counter(INVALIDATIONS_METRIC, "outcome", "applied");
+        this.ignoredInvalidations = meterRegistry.counter(INVALIDATIONS_METRIC, "outcome", "ignored");
+    }
+
+    /**
+     * Entry point to all received invalidations from the RabbitMQ queue
+     *
+     * @param message The message extracted from the queue
+     */
+    @RabbitListener(queues = "#{cacheInvalidationQueue.name}")
+    public void receive(Message message) {
+        if (messagingService.getInstanceId().equals(message.getMessageProperties().getAppId())) {
+            ignoredInvalidations.increment();
+            return;
+        }
+
+        CacheInvalidation invalidation;
+
+        try {
+            invalidation = objectMapper.readValue(message.getBody(), CacheInvalidation.class);
+        } catch (IOException e) {
+            log.error("Unable to read the invalidation {}", message, e);
+            return;
+        }
+
+        // Evict the entities first, so that the other caches are not filled again from the former entities
+        evict(invalidation);
+        eventPublisher.publishEvent(invalidation);
+        appliedInvalidations.increment();
+
+        log.debug("Invalidation applied: {}", invalidation);
+    }
+
+    /**
+     * Evict the entries of the entities that changed from the second-level cache
+     *
+     * @param invalidation The entities that changed
+     */
+    private void evict(CacheInvalidation invalidation) {
+        Long id = invalidation.getId();
+
+        switch (invalidation.getEntityType()) {
+            case TEAM -> {
+                if (id == null) {
+                    cache.evictEntityData(Team.class);
+                    cache.evictCollectionData(TEAM_MEMBERS_ROLE);
+                } else {
+                    cache.evictEntityData(Team.class, id);
+                    cache.evictCollectionData(TEAM_MEMBERS_ROLE, id);
+                }
+            }
+            case USER -> {
+                if (id == null) {
+                    cache.evictEntityData(User.class);
+                } else {
+                    cache.evictEntityData(User.class, id);
+                }
+            }
+        }
+    }
+
+}
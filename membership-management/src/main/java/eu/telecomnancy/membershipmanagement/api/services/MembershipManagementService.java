@@ -1,19 +1,51 @@
 package eu.telecomnancy.membershipmanagement.api.services;
 
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.EntityChangedException;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.UnknownEntityException;
+import eu.telecomnancy.membershipmanagement.api.services.logging.RateLimitedLogger;
+import eu.telecomnancy.membershipmanagement.api.services.lookup.UnknownIdCache;
+import eu.telecomnancy.membershipmanagement.api.services.notification.CacheInvalidation;
 import eu.telecomnancy.membershipmanagement.api.services.notification.MessagingService;
+import eu.telecomnancy.membershipmanagement.api.services.versioning.EntityTags;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.LongFunction;
 
 /**
  * Abstract class to be extended by the services of the API implementing its business logic
  *
  * It provides a {@link MessagingService} to dispatch notifications on a messaging broker
  */
+@Log4j2
 public abstract class MembershipManagementService {
 
+    /**
+     * Maximum number of ids found unknown held by each service
+     */
+    protected static final int UNKNOWN_IDS_MAX_ENTRIES = 10_000;
+
     /**
      * RabbitMQ message dispatcher
      */
     protected final MessagingService messagingService;
 
+    /**
+     * Time during which an id found unknown is answered as such without being looked up again
+     */
+    @Value("${persistence.unknown-ids.time-to-live:2s}")
+    protected Duration unknownIdTimeToLive = Duration.ofSeconds(2);
+
+    /**
+     * Logger of the lookups of unknown ids, limited to a few messages per second
+     */
+    private final RateLimitedLogger unknownIdLog
+            = new RateLimitedLogger(LogManager.getLogger(getClass()), Level.WARN, 10, Duration.ofSeconds(1));
+
     /**
      * Create the Membership Management core service
      *
@@ -23,4 +55,77 @@ public abstract class MembershipManagementService {
         this.messagingService = messagingService;
     }
 
+    /**
+     * Look up an entity by its id, answering the ids recently found unknown without looking them up again
+     *
+     * @param unknownIds Ids of this type of entity recently found unknown
+     * @param id Id of the entity
+     * @param finder Lookup of the entity, or of any of its attributes
+     * @param unknownEntity Creation of the exception thrown if there is no entity for the id
+     * @param <T> Type of the result of the lookup
+     * @param <E> Type of the exception thrown if there is no entity for the id
+     * @return The result of the lookup
+     * @throws E If there is no entity for the provided id
+     */
+    protected <T, E extends UnknownEntityException> T lookUp(UnknownIdCache unknownIds, long id,
+                                                             LongFunction<Optional<T>> finder,
+                                                             LongFunction<E> unknownEntity)
+            throws E {
+        if (unknownIds.contains(id)) {
+            E exception = unknownEntity.apply(id);
+            unknownIdLog.log("{} (recently looked up)", exception.getMessage());
+            throw exception;
+        }
+
+        Optional<T> result = finder.apply(id);
+
+        if (result.isEmpty()) {
+            unknownIds.add(id, unknownIdTimeToLive);
+
+            E exception = unknownEntity.apply(id);
+            unknownIdLog.log(exception.getMessage());
+            throw exception;
+        }
+
+        return result.get();
+    }
+
+    /**
+     * Forget the ids found unknown of the entities that changed, as they may just have been created
+     *
+     * The invalidations are published once the changes are committed, so that a lookup in the meantime can't find the
+     * id unknown again
+     *
+     * @param unknownIds Ids of this type of entity recently found unknown
+     * @param entityType Type of the entities whose ids are held
+     * @param invalidation The entities that changed
+     */
+    protected void forgetUnknownIds(UnknownIdCache unknownIds, CacheInvalidation.EntityType entityType,
+                                    CacheInvalidation invalidation) {
+        if (invalidation.getEntityType() != entityType) {
+            return;
+        }
+
+        if (invalidation.getId() == null) {
+            unknownIds.clear();
+        } else {
+            unknownIds.remove(invalidation.getId());
+        }
+    }
+
+    /**
+     * Check that an entity about to be updated is still at one of the versions expected by the client
+     *
+     * @param ifMatch Value of the `If-Match` header, listing the entity tags of the expected versions
+     * @param entityTag Entity tag of the current version of the entity
+     * @throws EntityChangedException If the entity is no longer at any of the expected versions
+     */
+    protected void checkEntityTag(String ifMatch, String entityTag)
+            throws EntityChangedException {
+        if (!EntityTags.matches(ifMatch, entityTag)) {
+            log.error("The entity is now at version {} rather than {}", entityTag, ifMatch);
+            throw new EntityChangedException(ifMatch, entityTag);
+        }
+    }
+
 }
@@ -0,0 +1,18 @@
+package eu.telecomnancy.membershipmanagement.api.services.exceptions;
+
+/**
+ * Custom exception occurring when attempting to update an entity that changed since the version the client expects
+ */
+public class EntityChangedException extends MembershipManagementException {
+
+    /**
+     * Create the exception from the versions of the entity
+     *
+     * @param expectedEntityTag Entity tags of the versions expected by the client
+     * @param currentEntityTag Entity tag of the current version of the entity
+     */
+    public EntityChangedException(String expectedEntityTag, String currentEntityTag) {
+        super(String.format("The entity is now at version %s rather than %s", currentEntityTag, expectedEntityTag));
+    }
+
+}
@@ -5,16 +5,19 @@ import java.util.Map;
 
 /**
  * Generic exception for the Membership Management API
+ *
+ * These exceptions report expected business failures, answered with a client error: they are created without any
+ * stack trace, whose capture would be the main cost of a request for a missing entity
  */
 public abstract class MembershipManagementException extends RuntimeException {
 
     /**
-     * Create the exception
+     * Create the exception, without any stack trace nor suppressed exception
      *
      * @param message Reason of the exception
      */
     public MembershipManagementException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     /**
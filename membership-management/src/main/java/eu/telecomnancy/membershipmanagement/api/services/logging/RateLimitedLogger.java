@@ -0,0 +1,105 @@
+package eu.telecomnancy.membershipmanagement.api.services.logging;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+
+/**
+ * Logger writing at most a given number of messages per interval, so that a burst of identical events (such as a
+ * client requesting missing entities in a loop) does not flood the logs
+ *
+ * The messages dropped during an interval are counted, and their number is logged along with the first message of
+ * the next interval
+ */
+public class RateLimitedLogger {
+
+    /**
+     * Logger to which the messages are written
+     */
+    private final Logger logger;
+
+    /**
+     * Level of the messages
+     */
+    private final Level level;
+
+    /**
+     * Maximum number of messages written per interval
+     */
+    private final int maxMessagesPerInterval;
+
+    /**
+     * Length of an interval, in nanoseconds
+     */
+    private final long intervalNanos;
+
+    /**
+     * Start of the current interval, in nanoseconds
+     */
+    private long intervalStart = System.nanoTime();
+
+    /**
+     * Number of messages written during the current interval
+     */
+    private int writtenMessages;
+
+    /**
+     * Number of messages dropped since the last written one
+     */
+    private long droppedMessages;
+
+    /**
+     * Create a rate-limited logger
+     *
+     * @param logger Logger to which the messages are written
+     * @param level Level of the messages
+     * @param maxMessagesPerInterval Maximum number of messages written per interval
+     * @param interval Length of an interval
+     */
+    public RateLimitedLogger(Logger logger, Level level, int maxMessagesPerInterval, Duration interval) {
+        this.logger = logger;
+        this.level = level;
+        this.maxMessagesPerInterval = maxMessagesPerInterval;
+        this.intervalNanos = interval.toNanos();
+    }
+
+    /**
+     * Write a message, unless too many have already been written during the current interval
+     *
+     * @param message Message to write, with its `{}` placeholders
+     * @param parameters Parameters of the message
+     */
+    public void log(String message, Object... parameters) {
+        if (!logger.isEnabled(level)) {
+            return;
+        }
+
+        long droppedBefore;
+
+        synchronized (this) {
+            long now = System.nanoTime();
+
+            if (now - intervalStart >= intervalNanos) {
+                intervalStart = now;
+                writtenMessages = 0;
+            }
+
+            if (writtenMessages >= maxMessagesPerInterval) {
+                droppedMessages++;
+                return;
+            }
+
+            writtenMessages++;
+            droppedBefore = droppedMessages;
+            droppedMessages = 0;
+        }
+
+        if (droppedBefore > 0) {
+            logger.log(level, "{} similar messages dropped", droppedBefore);
+        }
+
+        logger.log(level, message, parameters);
+    }
+
+}
@@ -0,0 +1,91 @@
+package eu.telecomnancy.membershipmanagement.api.services.lookup;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the ids recently found unknown, so that the clients repeatedly requesting missing entities are
+ * answered without looking them up again
+ *
+ * An id is forgotten once an entity of this id is committed, as told by the cache invalidations of this instance and
+ * of the other ones. It is held for a short time only anyway, in case an invalidation is lost. The oldest ids are
+ * dropped first once the cache is full
+ */
+public class UnknownIdCache {
+
+    /**
+     * Maximum number of ids held by the cache
+     */
+    private final int maxEntries;
+
+    /**
+     * Expiration time of each id, from the oldest to the most recently added one
+     */
+    private final Map<Long, Long> expirations;
+
+    /**
+     * Create an empty cache
+     *
+     * @param maxEntries Maximum number of ids held by the cache
+     */
+    public UnknownIdCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.expirations = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > UnknownIdCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Check whether an id has recently been found unknown
+     *
+     * @param id Id to check
+     * @return True if the id is known to be unknown, false if it has to be looked up
+     */
+    public synchronized boolean contains(long id) {
+        Long expiration = expirations.get(id);
+
+        if (expiration == null) {
+            return false;
+        }
+
+        if (System.nanoTime() - expiration >= 0) {
+            expirations.remove(id);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Remember that an id has been found unknown
+     *
+     * @param id Id found unknown
+     * @param timeToLive Time during which the id is known to be unknown
+     */
+    public synchronized void add(long id, Duration timeToLive) {
+        // Remove the id first so that it is moved to the end of the expiration order
+        expirations.remove(id);
+        expirations.put(id, System.nanoTime() + timeToLive.toNanos());
+    }
+
+    /**
+     * Forget an id, which is now the one of an existing entity
+     *
+     * @param id Id of the created entity, ignored if null
+     */
+    public synchronized void remove(Long id) {
+        expirations.remove(id);
+    }
+
+    /**
+     * Forget all the ids, when any entity may have been created
+     */
+    public synchronized void clear() {
+        expirations.clear();
+    }
+
+}
@@ -0,0 +1,23 @@
+package eu.telecomnancy.membershipmanagement.api.services.notification;
+
+/**
+ * Behavior of the {@link PublishQueue} when a message is sent while it is full
+ */
+public enum BackpressureStrategy {
+
+    /**
+     * Wait for the publisher to make room, up to a maximum duration after which the message is rejected
+     */
+    BLOCK,
+
+    /**
+     * Drop the oldest queued message to make room for the new one
+     */
+    DROP_OLDEST,
+
+    /**
+     * Reject the new message at once
+     */
+    FAIL_FAST
+
+}
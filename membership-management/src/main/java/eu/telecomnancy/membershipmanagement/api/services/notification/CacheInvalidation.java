@@ -0,0 +1,73 @@
+package eu.telecomnancy.membershipmanagement.api.services.notification;
+
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.domain.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Message telling the other instances of the API that an entity changed, so that they evict it from their caches
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidation {
+
+    /**
+     * Types of the cached entities
+     */
+    public enum EntityType {
+
+        /**
+         * A {@link Team}, along with its members
+         */
+        TEAM,
+
+        /**
+         * A {@link User}
+         */
+        USER
+
+    }
+
+    /**
+     * Type of the entity that changed
+     */
+    private EntityType entityType;
+
+    /**
+     * Id of the entity that changed, null when all the entities of its type may have changed
+     */
+    private Long id;
+
+    /**
+     * Create the invalidation of a team, along with its members
+     *
+     * @param teamId Id of the team that changed
+     * @return The invalidation of the team
+     */
+    public static CacheInvalidation ofTeam(long teamId) {
+        return new CacheInvalidation(EntityType.TEAM, teamId);
+    }
+
+    /**
+     * Create the invalidation of a user
+     *
+     * @param userId Id of the user that changed
+     * @return The invalidation of the user
+     */
+    public static CacheInvalidation ofUser(long userId) {
+        return new CacheInvalidation(EntityType.USER, userId);
+    }
+
+    /**
+     * Create the invalidation of all the users, when they changed through a bulk update
+     *
+     * @return The invalidation of all the users
+     */
+    public static CacheInvalidation ofAllUsers() {
+        return new CacheInvalidation(EntityType.USER, null);
+    }
+
+}
@@ -1,79 +1,253 @@
 package eu.telecomnancy.membershipmanagement.api.services.notification;
 
-import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.CqrsOperation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.telecomnancy.membershipmanagement.api.dal.outbox.OutboxRepository;
+import eu.telecomnancy.membershipmanagement.api.services.notification.events.EventSequencer;
+import eu.telecomnancy.membershipmanagement.api.services.notification.events.MembershipEvent;
+import lombok.Getter;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.core.TopicExchange;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Notification service, dispatching messages on RabbitMQ queues
+ *
+ * The events notifying a change are published with the name of their type as routing key, so that the consumers bind
+ * to the types they need. They are written to the outbox within the transaction of the change, and published by the
+ * {@link OutboxRelay} once committed: they are sent if and only if the change is, whatever the availability of the
+ * broker. The invalidations, and all the messages with the in-memory engine, are handed over to the
+ * {@link PublishQueue}, which publishes them off the thread of the command
  */
 @Log4j2
 @Service
 public class MessagingService {
 
     /**
-     * Rabbit route key used to notify of an event relative to the content of the API such as
-     * the creation of a user or of a team
+     * Name of the header carrying the sequence of an event among the ones published by its instance
+     */
+    public static final String SEQUENCE_HEADER = "x-sequence";
+
+    /**
+     * Name of the header carrying the id of the stream of the position of an event
+     */
+    public static final String STREAM_HEADER = "x-stream";
+
+    /**
+     * Name of the header carrying the position of an event within its stream, compared to the one of a snapshot
+     */
+    public static final String POSITION_HEADER = "x-position";
+
+    /**
+     * Rabbit route key used to notify the other instances of the API that an entity changed
+     */
+    @Value("${amqp.routing-key.invalidation}")
+    private String invalidationRouteKey;
+
+    /**
+     * Id of this instance of the API, sent along with its invalidations so that it can ignore its own ones, and with
+     * its events as the source of their sequence
+     */
+    @Getter
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * Queue of the messages awaiting publication
+     */
+    private final PublishQueue publishQueue;
+
+    /**
+     * Sequencer of the events published by this instance
      */
-    @Value("${amqp.routing-key.content}")
-    private String contentRouteKey;
+    private final EventSequencer sequencer;
 
     /**
-     * RabbitMQ template used to dispatch messages
+     * Outbox of the events, absent with the in-memory engine
      */
-    private final RabbitTemplate template;
+    private final Optional<OutboxRepository> outbox;
 
     /**
      * Topic exchange used as a route to propagate messages
      */
     private final TopicExchange topic;
 
+    /**
+     * JSON mapper used to serialize the events and the invalidations
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Publisher of the invalidations to the caches of this instance
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * Default constructor used to create a messaging service that will dispatch messages on RabbitMQ queues
      *
-     * @param template RabbitMQ template used to dispatch messages
+     * @param publishQueue Queue of the messages awaiting publication
+     * @param sequencer Sequencer of the events published by this instance
+     * @param outbox Outbox of the events, absent with the in-memory engine
      * @param topic Topic exchange used as a route to propagate messages
+     * @param objectMapper JSON mapper used to serialize the events and the invalidations
+     * @param eventPublisher Publisher of the invalidations to the caches of this instance
      */
     @Autowired
-    public MessagingService(RabbitTemplate template, TopicExchange topic) {
-        this.template = template;
+    public MessagingService(PublishQueue publishQueue, EventSequencer sequencer, Optional<OutboxRepository> outbox,
+                            TopicExchange topic, ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher) {
+        this.publishQueue = publishQueue;
+        this.sequencer = sequencer;
+        this.outbox = outbox;
         this.topic = topic;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * Send a message to RabbitMQ with the appropriate route key
+     * Publish an event notifying a change of the content of the API, with its type as routing key
+     *
+     * Within a transaction, the event is written to the outbox and only published once the transaction commits.
+     * Otherwise, it is queued for its publication right away
      *
-     * @param message Message to send
-     * @param routeKey Route key to be used
+     * @param event The event to publish
+     * @throws PublishQueueFullException If the event can't be queued
      */
-    private void send(String message, String routeKey) {
-        template.convertAndSend(topic.getName(), routeKey, message);
+    public void publishEvent(MembershipEvent event)
+            throws PublishQueueFullException {
+        String routingKey = event.getType().getRoutingKey();
+        String payload;
+
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.error("Unable to serialize the event {}", event, e);
+            return;
+        }
+
+        if (outbox.isPresent() && TransactionSynchronizationManager.isActualTransactionActive()) {
+            outbox.get().append(routingKey, payload, event.getTeamCountDelta(), event.getUserCountDelta());
+
+            log.debug("Write event to the outbox (on key '{}'): {}", routingKey, payload);
+            return;
+        }
+
+        // The sequence of a change of the counts may have been reserved along with the change, by the in-memory store
+        long sequence = event.getTeamCountDelta() != 0 || event.getUserCountDelta() != 0
+                ? sequencer.takeReservedForChange().orElseGet(() -> sequencer.reserve(1))
+                : sequencer.reserve(1);
 
-        log.info(
-                String.format("Send message (on key '%s'): %s", routeKey, message));
+        try {
+            publishQueue.publish(topic.getName(), routingKey, createEventMessage(
+                    routingKey, payload, sequence, instanceId + ":" + sequence, Instant.now(), instanceId, sequence));
+        } catch (PublishQueueFullException e) {
+            sequencer.release(sequence, 1);
+            throw e;
+        }
+
+        log.debug("Send event (on key '{}'): {}", routingKey, payload);
     }
 
     /**
-     * Send a message containing a CQRS operation that has occurred in the application to the RabbitMQ broker
+     * Create the AMQP message of an event
+     *
+     * The type of the event is carried as the AMQP type, this instance as the application id, and the sequence of the
+     * event among the ones of this instance as a header. The position of the event is carried as headers too: the
+     * position in the outbox, or the sequence of this instance when there is no outbox
      *
-     * @param operation The CQRS notification
+     * @param type Type of the event, which is also its routing key
+     * @param payload Serialized event
+     * @param sequence Sequence of the event among the ones published by this instance
+     * @param messageId Id of the message, kept when the message is published again
+     * @param timestamp Time at which the change has been made
+     * @param stream Id of the stream of the position of the event
+     * @param position Position of the event within its stream
+     * @return The message of the event
      */
-    public void sendOperationInfoMessage(CqrsOperation operation) {
-        // The message is sent with no specific route key so that all RabbitMQ listeners can listen to it
-        send(operation.toString(), "");
+    public Message createEventMessage(String type, String payload, long sequence, String messageId,
+                                      Instant timestamp, String stream, long position) {
+        MessageProperties properties = new MessageProperties();
+        properties.setType(type);
+        properties.setAppId(instanceId);
+        properties.setMessageId(messageId);
+        properties.setTimestamp(Date.from(timestamp));
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        properties.setHeader(SEQUENCE_HEADER, sequence);
+        properties.setHeader(STREAM_HEADER, stream);
+        properties.setHeader(POSITION_HEADER, position);
+
+        return new Message(payload.getBytes(StandardCharsets.UTF_8), properties);
     }
 
     /**
-     * Send a message related to an update of the application's content to the RabbitMQ broker
+     * Tell the caches of this instance and the other instances of the API that an entity changed, once the current
+     * transaction is committed
      *
-     * @param operation The CQRS notification
+     * Sending it beforehand would let a cache reload the former state of the entity before the commit. Nothing is
+     * sent if the transaction is rolled back. The second-level cache of this instance is kept up to date by Hibernate,
+     * the other caches of this instance receive the invalidation as an application event
+     *
+     * @param invalidation The entity that changed
      */
-    public void sendContentUpdatedMessage(CqrsOperation operation) {
-        send(operation.toString(), contentRouteKey);
+    public void sendCacheInvalidationMessage(CacheInvalidation invalidation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishCacheInvalidation(invalidation);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                publishCacheInvalidation(invalidation);
+            }
+        });
+    }
+
+    /**
+     * Publish an invalidation to the caches of this instance, then send it to the other instances
+     *
+     * @param invalidation The entity that changed
+     */
+    private void publishCacheInvalidation(CacheInvalidation invalidation) {
+        eventPublisher.publishEvent(invalidation);
+        sendCacheInvalidation(invalidation);
+    }
+
+    /**
+     * Send an invalidation as a JSON message tagged with the id of this instance
+     *
+     * @param invalidation The entity that changed
+     */
+    private void sendCacheInvalidation(CacheInvalidation invalidation) {
+        MessageProperties properties = new MessageProperties();
+        properties.setAppId(instanceId);
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+
+        try {
+            publishQueue.publish(topic.getName(), invalidationRouteKey,
+                    new Message(objectMapper.writeValueAsBytes(invalidation), properties));
+        } catch (JsonProcessingException e) {
+            log.error("Unable to serialize the invalidation {}", invalidation, e);
+            return;
+        } catch (PublishQueueFullException e) {
+            // The change is already committed: the other instances will only see it once their entries are evicted
+            log.error("Unable to send the invalidation {}", invalidation, e);
+            return;
+        }
+
+        log.debug("Send invalidation (on key '{}'): {}", invalidationRouteKey, invalidation);
     }
 
 }
@@ -0,0 +1,407 @@
+package eu.telecomnancy.membershipmanagement.api.services.notification;
+
+import eu.telecomnancy.membershipmanagement.api.configuration.PersistenceEngineEnvironmentPostProcessor;
+import eu.telecomnancy.membershipmanagement.api.dal.outbox.OutboxMessage;
+import eu.telecomnancy.membershipmanagement.api.dal.outbox.OutboxRepository;
+import eu.telecomnancy.membershipmanagement.api.services.notification.events.EventSequencer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Relay of the outbox, publishing on RabbitMQ the events written along with the changes they notify
+ *
+ * The committed messages are first positioned, in a short transaction of their own which adds their changes of the
+ * counts to the content snapshot, then the unsent messages are polled by batches, in their order of position. The
+ * positions are therefore kept when the publication fails. A batch is claimed by marking its messages as sent,
+ * published, and committed within a single transaction: a failed publication leaves the batch unsent for a later
+ * attempt, and the relays of the other instances of the API wait for the claimed messages instead of sending them
+ * twice. A message may still be published twice if its batch fails after its publication, or if the commit fails: its
+ * id in the outbox is sent as the id of the message, and its position as a header, which are kept across the
+ * publications, so that the listeners can tell. The events are sequenced in their order of publication by this
+ * instance. The confirms are handled asynchronously by the {@link PublisherConfirmTracker}: a message the broker did
+ * not take after its last attempt is marked unsent again, to be relayed by a later batch
+ *
+ * The size of the batches adapts to the backlog: it doubles while the batches are full, so that a backlog is drained
+ * quickly after an outage of the broker, and halves back while they are less than half full. The polling backs off
+ * exponentially while the broker is unavailable. The messages sent for longer than the retention are deleted, their
+ * changes of the counts being in the snapshot since they were positioned
+ *
+ * The backlog, the lag between the writing and the publication of the messages, the size of the batches and the
+ * outcome of the messages are exposed as the `outbox.*` metrics
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(
+        name = PersistenceEngineEnvironmentPostProcessor.ENGINE_PROPERTY,
+        havingValue = "jpa",
+        matchIfMissing = true)
+public class OutboxRelay {
+
+    /**
+     * Name of the metric counting the relayed messages by outcome
+     */
+    private static final String MESSAGES_METRIC = "outbox.relay.messages";
+
+    /**
+     * Maximum duration waited on shutdown for the batch being published
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    /**
+     * Interval between two polls of the outbox when the last batch was not full
+     */
+    @Value("${amqp.outbox.poll-interval:100ms}")
+    private Duration pollInterval;
+
+    /**
+     * Minimum number of messages polled at once
+     */
+    @Value("${amqp.outbox.min-batch-size:10}")
+    private int minBatchSize;
+
+    /**
+     * Maximum number of messages polled at once
+     */
+    @Value("${amqp.outbox.max-batch-size:500}")
+    private int maxBatchSize;
+
+    /**
+     * Maximum interval between two polls of the outbox while the broker is unavailable
+     */
+    @Value("${amqp.outbox.max-backoff:5s}")
+    private Duration maxBackoff;
+
+    /**
+     * Duration for which the sent messages are kept in the outbox
+     */
+    @Value("${amqp.outbox.retention:1h}")
+    private Duration retention;
+
+    /**
+     * Interval between two deletions of the messages whose retention is over
+     */
+    @Value("${amqp.outbox.cleanup-interval:1m}")
+    private Duration cleanupInterval;
+
+    /**
+     * Outbox of the messages awaiting publication
+     */
+    private final OutboxRepository outbox;
+
+    /**
+     * RabbitMQ template used to publish the messages
+     */
+    private final RabbitTemplate template;
+
+    /**
+     * Tracker of the confirms of the published messages
+     */
+    private final PublisherConfirmTracker confirms;
+
+    /**
+     * Messaging service creating the messages of the events
+     */
+    private final MessagingService messagingService;
+
+    /**
+     * Sequencer of the events published by this instance
+     */
+    private final EventSequencer sequencer;
+
+    /**
+     * Topic exchange on which the messages are published
+     */
+    private final TopicExchange topic;
+
+    /**
+     * Template of the transactions claiming the batches
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Thread polling the outbox and deleting the sent messages
+     */
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Number of messages polled at once, only accessed by the relay thread
+     */
+    private int batchSize;
+
+    /**
+     * Interval before the next poll while the broker is unavailable, only accessed by the relay thread
+     */
+    private Duration backoff;
+
+    /**
+     * Lag between the writing and the publication of the messages
+     */
+    private final Timer relayLag;
+
+    /**
+     * Number of messages published by batch
+     */
+    private final DistributionSummary relayedBatchSize;
+
+    /**
+     * Number of messages published
+     */
+    private final Counter publishedMessages;
+
+    /**
+     * Number of messages whose publication failed, and is to be attempted again
+     */
+    private final Counter failedMessages;
+
+    /**
+     * Create the relay, which is started once configured
+     *
+     * @param outbox Outbox of the messages awaiting publication
+     * @param template RabbitMQ template used to publish the messages
+     * @param confirms Tracker of the confirms of the published messages
+     * @param messagingService Messaging service creating the messages of the events
+     * @param sequencer Sequencer of the events published by this instance
+     * @param topic Topic exchange on which the messages are published
+     * @param transactionManager Manager of the transactions claiming the batches
+     * @param meterRegistry Registry of the metrics of the relay
+     */
+    @Autowired
+    public OutboxRelay(OutboxRepository outbox, RabbitTemplate template, PublisherConfirmTracker confirms,
+                       MessagingService messagingService, EventSequencer sequencer, TopicExchange topic,
+                       PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.outbox = outbox;
+        this.template = template;
+        this.confirms = confirms;
+        this.messagingService = messagingService;
+        this.sequencer = sequencer;
+        this.topic = topic;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.relayLag = Timer.builder("outbox.relay.lag")
+                .description("Time elapsed between the writing of the messages and their publication")
+                .register(meterRegistry);
+        this.relayedBatchSize = DistributionSummary.builder("outbox.relay.batch.size")
+                .description("Number of messages of the outbox published at once")
+                .register(meterRegistry);
+        this.publishedMessages = meterRegistry.counter(MESSAGES_METRIC, "outcome", "published");
+        this.failedMessages = meterRegistry.counter(MESSAGES_METRIC, "outcome", "failed");
+
+        Gauge.builder("outbox.pending", outbox, OutboxRepository::countUnsent)
+                .description("Number of messages of the outbox awaiting publication")
+                .register(meterRegistry);
+
+        // The pending polls are dropped on shutdown, their messages are published after the next start
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Start polling the outbox and deleting the sent messages
+     */
+    @PostConstruct
+    public void start() {
+        batchSize = minBatchSize;
+        backoff = pollInterval;
+
+        long cleanupIntervalMillis = cleanupInterval.toMillis();
+
+        executor.execute(this::relay);
+        executor.scheduleWithFixedDelay(
+                this::deleteSentMessages, cleanupIntervalMillis, cleanupIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop polling the outbox, waiting for the batch being published
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting for the relay
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+
+        if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.error("The relay of the outbox did not stop in time");
+        }
+    }
+
+    /**
+     * Publish a batch of messages, then schedule the next poll
+     */
+    private void relay() {
+        Duration delay;
+
+        try {
+            int relayedCount = relayBatch();
+
+            // A full batch is likely followed by more messages: poll them right away with larger batches
+            if (relayedCount == batchSize) {
+                batchSize = Math.min(batchSize * 2, maxBatchSize);
+                delay = Duration.ZERO;
+            } else {
+                if (relayedCount < batchSize / 2) {
+                    batchSize = Math.max(batchSize / 2, minBatchSize);
+                }
+
+                delay = pollInterval;
+            }
+
+            backoff = pollInterval;
+        } catch (AmqpException | DataAccessException e) {
+            log.error("Unable to relay the messages of the outbox, next attempt in {} ms", backoff.toMillis(), e);
+
+            delay = backoff;
+            backoff = backoff.multipliedBy(2).compareTo(maxBackoff) < 0 ? backoff.multipliedBy(2) : maxBackoff;
+        }
+
+        try {
+            executor.schedule(this::relay, delay.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Relay of the outbox stopped");
+        }
+    }
+
+    /**
+     * Position the committed messages, then claim, publish and mark as sent the oldest unsent messages within a
+     * single transaction
+     *
+     * @return The number of published messages
+     * @throws AmqpException If the messages can't be published, in which case they are left unsent
+     * @throws DataAccessException If the outbox can't be accessed
+     */
+    private int relayBatch()
+            throws AmqpException, DataAccessException {
+        String streamId = outbox.getStreamId();
+
+        // Committed on its own, so that the positions are kept whatever the outcome of the publication
+        transactionTemplate.execute(status -> outbox.assignPositions(batchSize));
+
+        Integer relayedCount = transactionTemplate.execute(status -> {
+            List<OutboxMessage> batch = outbox.findUnsent(batchSize);
+
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            // Claiming the messages locks them until the commit, the other relays then see them sent
+            List<Long> ids = batch.stream().map(OutboxMessage::getId).collect(Collectors.toList());
+
+            if (outbox.markSent(ids, Instant.now()) < ids.size()) {
+                // Part of the batch has been claimed by another relay in the meantime: poll again later
+                status.setRollbackOnly();
+                return 0;
+            }
+
+            List<CorrelationData> correlations = new ArrayList<>(batch.size());
+            long firstSequence = sequencer.reserve(batch.size());
+
+            try {
+                template.invoke(operations -> {
+                    batch.forEach(message -> {
+                        Message amqpMessage = toMessage(message, firstSequence + correlations.size(), streamId);
+                        CorrelationData correlationData = confirms.track(topic.getName(), message.getRoutingKey(),
+                                amqpMessage, () -> markUnsent(message));
+                        correlations.add(correlationData);
+
+                        operations.send(topic.getName(), message.getRoutingKey(), amqpMessage, correlationData);
+                    });
+
+                    return null;
+                });
+            } catch (AmqpException e) {
+                // The whole batch is left unsent by the rollback, and published later under new sequences, the
+                // listeners telling the messages which reached the broker from their position. The sequences are
+                // released unless part of the batch may have reached the broker under them
+                if (correlations.isEmpty()) {
+                    sequencer.release(firstSequence, batch.size());
+                }
+
+                correlations.forEach(confirms::untrack);
+                failedMessages.increment(batch.size());
+                throw e;
+            }
+
+            Instant now = Instant.now();
+            batch.forEach(message -> relayLag.record(Duration.between(message.getCreatedAt(), now)));
+
+            return batch.size();
+        });
+
+        if (relayedCount != null && relayedCount > 0) {
+            relayedBatchSize.record(relayedCount);
+            publishedMessages.increment(relayedCount);
+        }
+
+        return relayedCount == null ? 0 : relayedCount;
+    }
+
+    /**
+     * Create the AMQP message of an event of the outbox, identified by its id and positioned by its position in the
+     * outbox
+     *
+     * @param message Event of the outbox
+     * @param sequence Sequence of the event among the ones published by this instance
+     * @param streamId Id of the stream of the positions in the outbox
+     * @return The message to publish
+     */
+    private Message toMessage(OutboxMessage message, long sequence, String streamId) {
+        return messagingService.createEventMessage(message.getRoutingKey(), message.getPayload(), sequence,
+                String.valueOf(message.getId()), message.getCreatedAt(), streamId, message.getPosition());
+    }
+
+    /**
+     * Mark a message the broker did not take as unsent, so that it is relayed again
+     *
+     * @param message Message of the outbox
+     */
+    private void markUnsent(OutboxMessage message) {
+        try {
+            outbox.markUnsent(message.getId());
+        } catch (DataAccessException e) {
+            log.error("Unable to mark the message {} of the outbox as unsent, it is lost", message.getId(), e);
+        }
+    }
+
+    /**
+     * Delete the messages sent for longer than the retention
+     */
+    private void deleteSentMessages() {
+        try {
+            int deletedCount = outbox.deleteSentBefore(Instant.now().minus(retention));
+
+            log.debug("{} sent messages deleted from the outbox", deletedCount);
+        } catch (DataAccessException e) {
+            log.error("Unable to delete the sent messages of the outbox", e);
+        }
+    }
+
+}
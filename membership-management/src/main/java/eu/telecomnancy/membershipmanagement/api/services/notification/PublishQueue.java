@@ -0,0 +1,447 @@
+package eu.telecomnancy.membershipmanagement.api.services.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded queue of the messages awaiting publication on RabbitMQ, drained by a dedicated publisher thread so that the
+ * latency of the broker is not added to the one of the commands of the API
+ *
+ * The queue is lock-free: its depth is reserved with a compare-and-set before a message is appended. The publisher
+ * sends the queued messages by batches, each batch on a single channel, without waiting for their confirms which are
+ * handled by the {@link PublisherConfirmTracker}. When the queue is full, the configured {@link BackpressureStrategy}
+ * applies. The queue is drained on shutdown
+ *
+ * A batch whose publication fails is kept at the head of the queue and published again after an exponential backoff,
+ * so that the messages are only lost under the configured {@link BackpressureStrategy}, or when the broker is still
+ * unreachable once the shutdown timeout is over. The messages of the batch already sent before the failure are then
+ * published twice, which the consumers recognize from their sequence
+ *
+ * Its depth, the lag between the queuing and the publication of the messages, the size of the batches and the
+ * outcome of the messages are exposed as the `amqp.publish.*` metrics
+ */
+@Log4j2
+@Component
+public class PublishQueue {
+
+    /**
+     * Name of the metric counting the queued messages by outcome
+     */
+    private static final String MESSAGES_METRIC = "amqp.publish.messages";
+
+    /**
+     * Duration waited by the publisher when the queue is empty, unless woken up by a new message
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * Duration waited between two attempts to queue a message when blocked by a full queue
+     */
+    private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * Message awaiting publication
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class PendingMessage {
+
+        /**
+         * Name of the exchange on which the message is published
+         */
+        private final String exchange;
+
+        /**
+         * Routing key of the message
+         */
+        private final String routingKey;
+
+        /**
+         * Message to publish
+         */
+        private final Message message;
+
+        /**
+         * Time at which the message has been queued, in nanoseconds
+         */
+        private final long queuedAt;
+
+    }
+
+    /**
+     * Maximum number of queued messages
+     */
+    @Value("${amqp.publisher.queue-capacity:10000}")
+    private int capacity;
+
+    /**
+     * Maximum number of messages published on a channel at once
+     */
+    @Value("${amqp.publisher.max-batch-size:100}")
+    private int maxBatchSize;
+
+    /**
+     * Behavior when a message is sent while the queue is full
+     */
+    @Value("${amqp.publisher.backpressure:block}")
+    private BackpressureStrategy backpressure;
+
+    /**
+     * Maximum duration waited for room in the queue by the {@link BackpressureStrategy#BLOCK} strategy
+     */
+    @Value("${amqp.publisher.max-block:1s}")
+    private Duration maxBlock;
+
+    /**
+     * Maximum duration waited on shutdown for the queued messages to be published
+     */
+    @Value("${amqp.publisher.shutdown-timeout:10s}")
+    private Duration shutdownTimeout;
+
+    /**
+     * Duration waited before publishing again a batch whose publication failed, doubled for each attempt
+     */
+    @Value("${amqp.publisher.retry-backoff:200ms}")
+    private Duration retryBackoff;
+
+    /**
+     * Maximum duration waited between two attempts to publish a batch
+     */
+    @Value("${amqp.publisher.max-retry-backoff:30s}")
+    private Duration maxRetryBackoff;
+
+    /**
+     * RabbitMQ template used to publish the messages
+     */
+    private final RabbitTemplate template;
+
+    /**
+     * Tracker of the confirms of the published messages
+     */
+    private final PublisherConfirmTracker confirms;
+
+    /**
+     * Queued messages, from the oldest to the newest
+     */
+    private final Deque<PendingMessage> messages = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Number of queued messages, reserved before a message is appended and released once it is removed
+     */
+    private final AtomicInteger depth = new AtomicInteger();
+
+    /**
+     * Thread publishing the queued messages
+     */
+    private final Thread publisher = new Thread(this::publishUntilStopped, "amqp-publisher");
+
+    /**
+     * Indicate whether the queue accepts messages, until its shutdown
+     */
+    private volatile boolean isRunning = true;
+
+    /**
+     * Time after which a batch whose publication fails is dropped rather than kept, once the queue is shut down, in
+     * nanoseconds
+     */
+    private volatile long shutdownDeadline;
+
+    /**
+     * Lag between the queuing and the publication of the messages
+     */
+    private final Timer publishLag;
+
+    /**
+     * Number of messages published by batch
+     */
+    private final DistributionSummary batchSize;
+
+    /**
+     * Number of messages published
+     */
+    private final Counter publishedMessages;
+
+    /**
+     * Number of messages dropped to make room for newer ones
+     */
+    private final Counter droppedMessages;
+
+    /**
+     * Number of messages rejected because the queue was full
+     */
+    private final Counter rejectedMessages;
+
+    /**
+     * Number of messages whose publication still failed once the shutdown timeout is over
+     */
+    private final Counter failedMessages;
+
+    /**
+     * Create the queue, whose publisher is started once the queue is configured
+     *
+     * @param template RabbitMQ template used to publish the messages
+     * @param confirms Tracker of the confirms of the published messages
+     * @param meterRegistry Registry of the metrics of the queue
+     */
+    @Autowired
+    public PublishQueue(RabbitTemplate template, PublisherConfirmTracker confirms, MeterRegistry meterRegistry) {
+        this.template = template;
+        this.confirms = confirms;
+
+        this.publishLag = Timer.builder("amqp.publish.lag")
+                .description("Time spent by the messages in the queue before being published")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("amqp.publish.batch.size")
+                .description("Number of messages published at once on a channel")
+                .register(meterRegistry);
+        this.publishedMessages = meterRegistry.counter(MESSAGES_METRIC, "outcome", "published");
+        this.droppedMessages = meterRegistry.counter(MESSAGES_METRIC, "outcome", "dropped");
+        this.rejectedMessages = meterRegistry.counter(MESSAGES_METRIC, "outcome", "rejected");
+        this.failedMessages = meterRegistry.counter(MESSAGES_METRIC, "outcome", "failed");
+
+        Gauge.builder("amqp.publish.queue.depth", depth, AtomicInteger::get)
+                .description("Number of messages awaiting publication")
+                .register(meterRegistry);
+
+        publisher.setDaemon(true);
+    }
+
+    /**
+     * Start the publisher thread
+     */
+    @PostConstruct
+    public void start() {
+        publisher.start();
+    }
+
+    /**
+     * Stop accepting messages, and wait for the queued ones to be published
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting for the publisher
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        shutdownDeadline = System.nanoTime() + shutdownTimeout.toNanos();
+        isRunning = false;
+        LockSupport.unpark(publisher);
+
+        publisher.join(shutdownTimeout.toMillis());
+
+        if (publisher.isAlive()) {
+            log.error("{} messages not published before the shutdown", depth.get());
+        }
+    }
+
+    /**
+     * Queue a message for its publication
+     *
+     * @param exchange Name of the exchange on which the message is published
+     * @param routingKey Routing key of the message
+     * @param message Message to publish
+     * @throws PublishQueueFullException If the queue is full and the message is rejected, or if it is shut down
+     */
+    public void publish(String exchange, String routingKey, Message message)
+            throws PublishQueueFullException {
+        if (!isRunning) {
+            rejectedMessages.increment();
+            throw new PublishQueueFullException(capacity);
+        }
+
+        if (!reserve()) {
+            makeRoom();
+        }
+
+        messages.offer(new PendingMessage(exchange, routingKey, message, System.nanoTime()));
+        LockSupport.unpark(publisher);
+    }
+
+    /**
+     * Get the number of messages awaiting publication
+     *
+     * @return The number of queued messages
+     */
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * Reserve room for a message in the queue
+     *
+     * @return True if the room is reserved, false if the queue is full
+     */
+    private boolean reserve() {
+        int currentDepth;
+
+        do {
+            currentDepth = depth.get();
+
+            if (currentDepth >= capacity) {
+                return false;
+            }
+        } while (!depth.compareAndSet(currentDepth, currentDepth + 1));
+
+        return true;
+    }
+
+    /**
+     * Reserve room for a message in a full queue, according to the backpressure strategy
+     *
+     * @throws PublishQueueFullException If no room can be made for the message
+     */
+    private void makeRoom()
+            throws PublishQueueFullException {
+        switch (backpressure) {
+            case BLOCK -> {
+                long deadline = System.nanoTime() + maxBlock.toNanos();
+
+                while (!reserve()) {
+                    if (System.nanoTime() - deadline >= 0) {
+                        rejectedMessages.increment();
+                        throw new PublishQueueFullException(capacity);
+                    }
+
+                    LockSupport.parkNanos(this, BLOCKED_PARK_NANOS);
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!reserve()) {
+                    // The room of the dropped message is handed over to the new one
+                    if (messages.poll() != null) {
+                        droppedMessages.increment();
+                        return;
+                    }
+
+                    // All the messages are being published: wait for the publisher to release their room
+                    LockSupport.parkNanos(this, BLOCKED_PARK_NANOS);
+                }
+            }
+            case FAIL_FAST -> {
+                rejectedMessages.increment();
+                throw new PublishQueueFullException(capacity);
+            }
+        }
+    }
+
+    /**
+     * Publish the queued messages by batches, until the queue is shut down and drained
+     */
+    private void publishUntilStopped() {
+        List<PendingMessage> batch = new ArrayList<>(maxBatchSize);
+        int failedAttempts = 0;
+        long retryAt = 0;
+
+        while (isRunning || depth.get() > 0) {
+            // The publisher is woken up by the new messages: wait for the end of the backoff of the failed batch
+            long backoff = retryAt - System.nanoTime();
+
+            if (failedAttempts > 0 && backoff > 0) {
+                LockSupport.parkNanos(this, backoff);
+                continue;
+            }
+
+            PendingMessage message;
+
+            while (batch.size() < maxBatchSize && (message = messages.poll()) != null) {
+                batch.add(message);
+            }
+
+            if (batch.isEmpty()) {
+                // A message may have been reserved but not appended yet: wait for it rather than for the next one
+                LockSupport.parkNanos(this, depth.get() > 0 ? BLOCKED_PARK_NANOS : IDLE_PARK_NANOS);
+                continue;
+            }
+
+            if (publishBatch(batch)) {
+                failedAttempts = 0;
+                depth.addAndGet(-batch.size());
+            } else if (!isRunning && System.nanoTime() - shutdownDeadline >= 0) {
+                log.error("{} messages dropped after the shutdown timeout", batch.size());
+                failedMessages.increment(batch.size());
+                depth.addAndGet(-batch.size());
+            } else {
+                // The room of the batch is kept: the backpressure strategy applies to its messages as to the others
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    messages.offerFirst(batch.get(i));
+                }
+
+                failedAttempts++;
+                retryAt = System.nanoTime() + backoffOf(failedAttempts);
+            }
+
+            batch.clear();
+        }
+    }
+
+    /**
+     * Compute the duration waited before publishing again a batch whose publication failed
+     *
+     * @param failedAttempts Number of attempts to publish the batch which failed
+     * @return The duration to wait, in nanoseconds
+     */
+    private long backoffOf(int failedAttempts) {
+        long backoff = retryBackoff.toNanos() << Math.min(failedAttempts - 1, 30);
+
+        return Math.min(backoff, maxRetryBackoff.toNanos());
+    }
+
+    /**
+     * Publish a batch of messages on a single channel
+     *
+     * @param batch Messages to publish
+     * @return True if the batch is published, false if its publication failed and it should be published again
+     */
+    private boolean publishBatch(List<PendingMessage> batch) {
+        List<CorrelationData> correlations = new ArrayList<>(batch.size());
+
+        try {
+            template.invoke(operations -> {
+                batch.forEach(pending -> {
+                    CorrelationData correlationData = confirms.track(
+                            pending.getExchange(), pending.getRoutingKey(), pending.getMessage(), null);
+                    correlations.add(correlationData);
+
+                    operations.send(pending.getExchange(), pending.getRoutingKey(), pending.getMessage(),
+                            correlationData);
+                });
+
+                return null;
+            });
+        } catch (AmqpException e) {
+            log.error("Unable to publish a batch of {} messages", batch.size(), e);
+            correlations.forEach(confirms::untrack);
+            return false;
+        }
+
+        long now = System.nanoTime();
+        batch.forEach(pending -> publishLag.record(now - pending.getQueuedAt(), TimeUnit.NANOSECONDS));
+        batchSize.record(batch.size());
+        publishedMessages.increment(batch.size());
+
+        return true;
+    }
+
+}
@@ -0,0 +1,17 @@
+package eu.telecomnancy.membershipmanagement.api.services.notification;
+
+/**
+ * Exception occurring when a message can't be queued for publication, the broker not keeping up with the API
+ */
+public class PublishQueueFullException extends RuntimeException {
+
+    /**
+     * Create the exception
+     *
+     * @param capacity Maximum number of queued messages
+     */
+    public PublishQueueFullException(int capacity) {
+        super(String.format("The %d messages awaiting publication are already queued", capacity));
+    }
+
+}
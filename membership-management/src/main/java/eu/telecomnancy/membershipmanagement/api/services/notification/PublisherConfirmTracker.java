@@ -0,0 +1,422 @@
+package eu.telecomnancy.membershipmanagement.api.services.notification;
+
+import eu.telecomnancy.membershipmanagement.api.services.logging.RateLimitedLogger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.connection.PublisherCallbackChannel;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracker of the publisher confirms of the messages published on RabbitMQ
+ *
+ * Each published message is tracked under the id of its correlation data until the broker confirms it. The confirms
+ * and the returns are handled asynchronously on the threads of the connection, which never wait: a message nacked by
+ * the broker is published again after a backoff from a bounded retry buffer. A message still failing after the last
+ * attempt, or finding the buffer full, is abandoned
+ *
+ * A message returned because no queue is bound to its routing key is only counted: the events are routed by type, so
+ * that an event no consumer is interested in is the normal case, and publishing it again would be returned again
+ *
+ * The in-flight messages, the latency of the confirms and their outcome are exposed as the `amqp.publish.confirms.*`
+ * metrics
+ */
+@Log4j2
+@Component
+public class PublisherConfirmTracker {
+
+    /**
+     * Name of the metric counting the confirms by outcome
+     */
+    private static final String CONFIRMS_METRIC = "amqp.publish.confirms";
+
+    /**
+     * Maximum number of characters of the body of a message written to the logs
+     */
+    private static final int MAX_LOGGED_BODY_LENGTH = 200;
+
+    /**
+     * Message awaiting its confirm
+     */
+    @Getter
+    @RequiredArgsConstructor
+    private static class TrackedMessage {
+
+        /**
+         * Name of the exchange on which the message is published
+         */
+        private final String exchange;
+
+        /**
+         * Routing key of the message
+         */
+        private final String routingKey;
+
+        /**
+         * Message published, whose body is the serialized `MembershipEvent` envelope or `CacheInvalidation`
+         */
+        private final Message message;
+
+        /**
+         * Action run when the message is abandoned because the broker did not take it, if any
+         */
+        private final Runnable onAbandon;
+
+        /**
+         * Number of times the message has been published
+         */
+        @Setter
+        private int attempts = 1;
+
+        /**
+         * Time at which the message has been published for the last time, in nanoseconds
+         */
+        @Setter
+        private long publishedAt = System.nanoTime();
+
+        /**
+         * Reason for which the broker returned the message, null unless it did
+         */
+        @Setter
+        private volatile String returnReason;
+
+    }
+
+    /**
+     * Maximum number of times a message is published
+     */
+    @Value("${amqp.publisher.confirms.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * Maximum number of messages awaiting their next attempt
+     */
+    @Value("${amqp.publisher.confirms.retry-capacity:1000}")
+    private int retryCapacity;
+
+    /**
+     * Duration waited before the second attempt of a message, doubled for each following one
+     */
+    @Value("${amqp.publisher.confirms.retry-backoff:200ms}")
+    private Duration retryBackoff;
+
+    /**
+     * RabbitMQ template publishing the messages, whose confirms are tracked
+     */
+    private final RabbitTemplate template;
+
+    /**
+     * Messages awaiting their confirm, by id of correlation data
+     */
+    private final Map<String, TrackedMessage> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Last id of correlation data given to a message
+     */
+    private final AtomicLong lastCorrelationId = new AtomicLong();
+
+    /**
+     * Number of messages awaiting their next attempt
+     */
+    private final AtomicInteger pendingRetries = new AtomicInteger();
+
+    /**
+     * Thread publishing the messages again, and running the actions of the abandoned ones
+     */
+    private final ScheduledThreadPoolExecutor retryExecutor = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "amqp-confirm-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Logger of the nacked messages, which may come by bursts when the broker is under pressure
+     */
+    private final RateLimitedLogger failureLog = new RateLimitedLogger(
+            LogManager.getLogger(PublisherConfirmTracker.class), Level.WARN, 10, Duration.ofSeconds(1));
+
+    /**
+     * Latency between the publication of the messages and their confirm
+     */
+    private final Timer confirmLatency;
+
+    /**
+     * Number of messages acked by the broker
+     */
+    private final Counter ackedMessages;
+
+    /**
+     * Number of messages nacked by the broker
+     */
+    private final Counter nackedMessages;
+
+    /**
+     * Number of messages returned by the broker because no queue is bound to their routing key
+     */
+    private final Counter returnedMessages;
+
+    /**
+     * Number of messages abandoned after their last attempt, or for lack of room in the retry buffer
+     */
+    private final Counter abandonedMessages;
+
+    /**
+     * Create the tracker, handling the confirms and the returns of the template
+     *
+     * @param template RabbitMQ template publishing the messages, whose confirms are tracked
+     * @param meterRegistry Registry of the metrics of the confirms
+     */
+    @Autowired
+    public PublisherConfirmTracker(RabbitTemplate template, MeterRegistry meterRegistry) {
+        this.template = template;
+
+        this.confirmLatency = Timer.builder("amqp.publish.confirms.latency")
+                .description("Time elapsed between the publication of the messages and their confirm by the broker")
+                .register(meterRegistry);
+        this.ackedMessages = meterRegistry.counter(CONFIRMS_METRIC, "outcome", "acked");
+        this.nackedMessages = meterRegistry.counter(CONFIRMS_METRIC, "outcome", "nacked");
+        this.returnedMessages = meterRegistry.counter(CONFIRMS_METRIC, "outcome", "returned");
+        this.abandonedMessages = meterRegistry.counter(CONFIRMS_METRIC, "outcome", "abandoned");
+
+        Gauge.builder("amqp.publish.confirms.in-flight", inFlight, Map::size)
+                .description("Number of published messages not confirmed yet")
+                .register(meterRegistry);
+
+        template.setConfirmCallback(this::confirm);
+        template.setReturnCallback(this::returned);
+    }
+
+    /**
+     * Stop publishing the messages again, the pending attempts being abandoned
+     */
+    @PreDestroy
+    public void stop() {
+        retryExecutor.shutdownNow();
+
+        if (!inFlight.isEmpty()) {
+            log.warn("{} messages not confirmed before the shutdown", inFlight.size());
+        }
+    }
+
+    /**
+     * Track a message about to be published
+     *
+     * @param exchange Name of the exchange on which the message is published
+     * @param routingKey Routing key of the message
+     * @param message Message to publish
+     * @param onAbandon Action run if the message is abandoned because the broker did not take it, null if none. It is
+     *                  not run for a message returned because it could not be routed, which is not published again
+     * @return The correlation data to publish the message with
+     */
+    public CorrelationData track(String exchange, String routingKey, Message message, Runnable onAbandon) {
+        return track(new TrackedMessage(exchange, routingKey, message, onAbandon));
+    }
+
+    /**
+     * Stop tracking a message whose publication failed, so that no confirm is expected for it
+     *
+     * @param correlationData Correlation data of the message
+     */
+    public void untrack(CorrelationData correlationData) {
+        inFlight.remove(correlationData.getId());
+    }
+
+    /**
+     * Get the number of published messages not confirmed yet
+     *
+     * @return The number of in-flight messages
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Track a message under a new id of correlation data
+     *
+     * @param tracked Message about to be published
+     * @return The correlation data to publish the message with
+     */
+    private CorrelationData track(TrackedMessage tracked) {
+        String correlationId = String.valueOf(lastCorrelationId.incrementAndGet());
+
+        tracked.setPublishedAt(System.nanoTime());
+        inFlight.put(correlationId, tracked);
+
+        return new CorrelationData(correlationId);
+    }
+
+    /**
+     * Handle the confirm of a message, received on a thread of the connection
+     *
+     * A returned message is acked by the broker right after being returned
+     *
+     * @param correlationData Correlation data of the message
+     * @param ack True if the broker acked the message, false if it nacked it
+     * @param cause Reason of the nack, if any
+     */
+    public void confirm(CorrelationData correlationData, boolean ack, String cause) {
+        TrackedMessage tracked = correlationData == null ? null : inFlight.remove(correlationData.getId());
+
+        if (tracked == null) {
+            return;
+        }
+
+        confirmLatency.record(System.nanoTime() - tracked.getPublishedAt(), TimeUnit.NANOSECONDS);
+
+        if (!ack) {
+            nackedMessages.increment();
+            retry(tracked, "nacked: " + cause);
+        } else if (tracked.getReturnReason() != null) {
+            // Taken by the broker, but bound to no queue: no consumer is interested in it
+            returnedMessages.increment();
+            log.debug("Message on key '{}' returned ({}): {}", tracked.getRoutingKey(), tracked.getReturnReason(),
+                    describe(tracked.getMessage()));
+        } else {
+            ackedMessages.increment();
+        }
+    }
+
+    /**
+     * Handle the return of a message which could not be routed, received on a thread of the connection before its
+     * confirm
+     *
+     * @param message Returned message
+     * @param replyCode Code of the reason of the return
+     * @param replyText Reason of the return
+     * @param exchange Name of the exchange on which the message was published
+     * @param routingKey Routing key of the message
+     */
+    public void returned(Message message, int replyCode, String replyText, String exchange, String routingKey) {
+        String correlationId = message.getMessageProperties()
+                .getHeader(PublisherCallbackChannel.RETURNED_MESSAGE_CORRELATION_KEY);
+        TrackedMessage tracked = correlationId == null ? null : inFlight.get(correlationId);
+
+        if (tracked != null) {
+            tracked.setReturnReason(replyCode + " " + replyText);
+        }
+    }
+
+    /**
+     * Schedule the next attempt of a failed message, or abandon it
+     *
+     * @param tracked Failed message
+     * @param reason Reason of the failure
+     */
+    private void retry(TrackedMessage tracked, String reason) {
+        if (tracked.getAttempts() >= maxAttempts || !reserveRetry()) {
+            abandon(tracked, reason);
+            return;
+        }
+
+        failureLog.log("Message on key '{}' {}, attempt {} of {}: {}", tracked.getRoutingKey(), reason,
+                tracked.getAttempts(), maxAttempts, describe(tracked.getMessage()));
+
+        long backoffMillis = retryBackoff.toMillis() << (tracked.getAttempts() - 1);
+
+        try {
+            retryExecutor.schedule(() -> publishAgain(tracked), backoffMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            pendingRetries.decrementAndGet();
+            abandon(tracked, "shut down");
+        }
+    }
+
+    /**
+     * Reserve room for a message in the retry buffer
+     *
+     * @return True if the room is reserved, false if the buffer is full
+     */
+    private boolean reserveRetry() {
+        int currentRetries;
+
+        do {
+            currentRetries = pendingRetries.get();
+
+            if (currentRetries >= retryCapacity) {
+                return false;
+            }
+        } while (!pendingRetries.compareAndSet(currentRetries, currentRetries + 1));
+
+        return true;
+    }
+
+    /**
+     * Publish a failed message again
+     *
+     * @param tracked Failed message
+     */
+    private void publishAgain(TrackedMessage tracked) {
+        pendingRetries.decrementAndGet();
+
+        tracked.setAttempts(tracked.getAttempts() + 1);
+        tracked.setReturnReason(null);
+
+        CorrelationData correlationData = track(tracked);
+
+        try {
+            template.send(tracked.getExchange(), tracked.getRoutingKey(), tracked.getMessage(), correlationData);
+        } catch (AmqpException e) {
+            inFlight.remove(correlationData.getId());
+            retry(tracked, "not published: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Give up on a failed message, running its action off the thread of the connection
+     *
+     * @param tracked Failed message
+     * @param reason Reason of the last failure
+     */
+    private void abandon(TrackedMessage tracked, String reason) {
+        abandonedMessages.increment();
+
+        log.error("Message on key '{}' abandoned after {} attempts ({}): {}", tracked.getRoutingKey(),
+                tracked.getAttempts(), reason, describe(tracked.getMessage()));
+
+        if (tracked.getOnAbandon() != null) {
+            try {
+                retryExecutor.execute(tracked.getOnAbandon());
+            } catch (RejectedExecutionException e) {
+                log.error("Unable to run the action of the abandoned message on key '{}'", tracked.getRoutingKey());
+            }
+        }
+    }
+
+    /**
+     * Describe a message by the beginning of its body, the serialized `MembershipEvent` envelope or
+     * `CacheInvalidation`
+     *
+     * @param message Message to describe
+     * @return The description of the message
+     */
+    private static String describe(Message message) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+
+        return body.length() <= MAX_LOGGED_BODY_LENGTH ? body : body.substring(0, MAX_LOGGED_BODY_LENGTH) + "...";
+    }
+
+}
@@ -0,0 +1,80 @@
+package eu.telecomnancy.membershipmanagement.api.services.notification.events;
+
+import org.springframework.stereotype.Component;
+
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sequencer of the events published by this instance of the API
+ *
+ * The sequences are reserved when the events are handed over to the broker, and released when their publication
+ * fails before any newer sequence is reserved, so that a consumer only sees a gap when events are actually lost
+ *
+ * With the in-memory engine, the sequence of an event changing the counts is reserved by the store within the write
+ * of the change, and handed over to the event published next by the same thread
+ */
+@Component
+public class EventSequencer {
+
+    /**
+     * Last reserved sequence, the first event having the sequence 1
+     */
+    private final AtomicLong lastSequence = new AtomicLong();
+
+    /**
+     * Sequence reserved by the last change of the counts made by the current thread, until its event is published
+     */
+    private final ThreadLocal<Long> changeSequence = new ThreadLocal<>();
+
+    /**
+     * Get the last reserved sequence
+     *
+     * @return The last reserved sequence, 0 before the first event
+     */
+    public long getLastSequence() {
+        return lastSequence.get();
+    }
+
+    /**
+     * Reserve consecutive sequences
+     *
+     * @param count Number of sequences to reserve
+     * @return The first reserved sequence
+     */
+    public long reserve(int count) {
+        return lastSequence.getAndAdd(count) + 1;
+    }
+
+    /**
+     * Reserve the sequence of the event notifying a change of the counts made by the current thread, replacing the
+     * one of a former change whose event has not been published, which is then seen as lost
+     */
+    public void reserveForChange() {
+        changeSequence.set(reserve(1));
+    }
+
+    /**
+     * Take the sequence reserved by the last change of the counts made by the current thread
+     *
+     * @return The reserved sequence, if any
+     */
+    public OptionalLong takeReservedForChange() {
+        Long sequence = changeSequence.get();
+        changeSequence.remove();
+
+        return sequence == null ? OptionalLong.empty() : OptionalLong.of(sequence);
+    }
+
+    /**
+     * Release sequences whose events could not be published, unless newer sequences have been reserved since
+     *
+     * @param first First sequence to release
+     * @param count Number of sequences to release
+     * @return True if the sequences are released, false if they are left as a gap
+     */
+    public boolean release(long first, int count) {
+        return lastSequence.compareAndSet(first + count - 1, first - 1);
+    }
+
+}
@@ -0,0 +1,213 @@
+package eu.telecomnancy.membershipmanagement.api.services.notification.events;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Event notifying a change of the content of the API
+ *
+ * Only the ids of the changed entities and the number of entities of a batch are serialized, in a lean JSON omitting
+ * the absent fields, along with the version of the format. The type of the event, its sequence and its timestamp are
+ * carried by the properties of the AMQP message
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MembershipEvent {
+
+    /**
+     * Current version of the format of the events
+     */
+    public static final int CURRENT_VERSION = 1;
+
+    /**
+     * Version of the format of the event
+     */
+    @JsonProperty("v")
+    private int version = CURRENT_VERSION;
+
+    /**
+     * Type of the event, carried as the AMQP type and as the routing key of the message
+     */
+    @JsonIgnore
+    private MembershipEventType type;
+
+    /**
+     * Id of the team concerned by the event, if any
+     */
+    private Long teamId;
+
+    /**
+     * Id of the user concerned by the event, if any
+     */
+    private Long userId;
+
+    /**
+     * Number of entities concerned by a batch event
+     */
+    private Integer count;
+
+    /**
+     * Get the change of the number of teams made by the event
+     *
+     * @return The number of created teams, negative for the deleted ones
+     */
+    @JsonIgnore
+    public int getTeamCountDelta() {
+        return switch (type) {
+            case TEAM_CREATED -> 1;
+            case TEAMS_CREATED -> count;
+            case TEAM_DELETED -> -1;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Get the change of the number of users made by the event
+     *
+     * @return The number of created users, negative for the deleted ones
+     */
+    @JsonIgnore
+    public int getUserCountDelta() {
+        return switch (type) {
+            case USER_CREATED -> 1;
+            case USERS_CREATED -> count;
+            case USER_DELETED -> -1;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Create an event of the current version
+     *
+     * @param type Type of the event
+     * @param teamId Id of the team concerned by the event, if any
+     * @param userId Id of the user concerned by the event, if any
+     * @param count Number of entities concerned by a batch event
+     * @return The event
+     */
+    private static MembershipEvent of(MembershipEventType type, Long teamId, Long userId, Integer count) {
+        return new MembershipEvent(CURRENT_VERSION, type, teamId, userId, count);
+    }
+
+    /**
+     * Create the event of the creation of a team
+     *
+     * @param teamId Id of the created team
+     * @return The event
+     */
+    public static MembershipEvent teamCreated(Long teamId) {
+        return of(MembershipEventType.TEAM_CREATED, teamId, null, null);
+    }
+
+    /**
+     * Create the event of the creation of several teams at once
+     *
+     * @param count Number of created teams
+     * @return The event
+     */
+    public static MembershipEvent teamsCreated(int count) {
+        return of(MembershipEventType.TEAMS_CREATED, null, null, count);
+    }
+
+    /**
+     * Create the event of the update of a team
+     *
+     * @param teamId Id of the updated team
+     * @return The event
+     */
+    public static MembershipEvent teamUpdated(Long teamId) {
+        return of(MembershipEventType.TEAM_UPDATED, teamId, null, null);
+    }
+
+    /**
+     * Create the event of the deletion of a team
+     *
+     * @param teamId Id of the deleted team
+     * @return The event
+     */
+    public static MembershipEvent teamDeleted(Long teamId) {
+        return of(MembershipEventType.TEAM_DELETED, teamId, null, null);
+    }
+
+    /**
+     * Create the event of a user joining a team
+     *
+     * @param teamId Id of the team
+     * @param userId Id of the user
+     * @return The event
+     */
+    public static MembershipEvent teamMemberAdded(Long teamId, Long userId) {
+        return of(MembershipEventType.TEAM_MEMBER_ADDED, teamId, userId, null);
+    }
+
+    /**
+     * Create the event of a user leaving a team
+     *
+     * @param teamId Id of the team
+     * @param userId Id of the user
+     * @return The event
+     */
+    public static MembershipEvent teamMemberRemoved(Long teamId, Long userId) {
+        return of(MembershipEventType.TEAM_MEMBER_REMOVED, teamId, userId, null);
+    }
+
+    /**
+     * Create the event of the replacement of all the members of a team
+     *
+     * @param teamId Id of the team
+     * @param count Number of members of the team once replaced
+     * @return The event
+     */
+    public static MembershipEvent teamMembersReplaced(Long teamId, int count) {
+        return of(MembershipEventType.TEAM_MEMBERS_REPLACED, teamId, null, count);
+    }
+
+    /**
+     * Create the event of the creation of a user
+     *
+     * @param userId Id of the created user
+     * @return The event
+     */
+    public static MembershipEvent userCreated(Long userId) {
+        return of(MembershipEventType.USER_CREATED, null, userId, null);
+    }
+
+    /**
+     * Create the event of the creation of several users at once
+     *
+     * @param count Number of created users
+     * @return The event
+     */
+    public static MembershipEvent usersCreated(int count) {
+        return of(MembershipEventType.USERS_CREATED, null, null, count);
+    }
+
+    /**
+     * Create the event of the update of a user
+     *
+     * @param userId Id of the updated user
+     * @param teamId Id of the team of the user, null if it is not a member of any
+     * @return The event
+     */
+    public static MembershipEvent userUpdated(Long userId, Long teamId) {
+        return of(MembershipEventType.USER_UPDATED, teamId, userId, null);
+    }
+
+    /**
+     * Create the event of the deletion of a user
+     *
+     * @param userId Id of the deleted user
+     * @param teamId Id of the former team of the user, null if it was not a member of any
+     * @return The event
+     */
+    public static MembershipEvent userDeleted(Long userId, Long teamId) {
+        return of(MembershipEventType.USER_DELETED, teamId, userId, null);
+    }
+
+}
@@ -0,0 +1,83 @@
+package eu.telecomnancy.membershipmanagement.api.services.notification.events;
+
+import lombok.Getter;
+
+/**
+ * Types of the events notifying the changes of the content of the API
+ *
+ * The name of a type is also the routing key of its events, so that a consumer binds its queue to the types it needs
+ * only. The types of the batches extend the ones of the single changes, a `team.created.#` binding receiving both
+ */
+public enum MembershipEventType {
+
+    /**
+     * A team has been created
+     */
+    TEAM_CREATED("team.created"),
+
+    /**
+     * Several teams have been created at once
+     */
+    TEAMS_CREATED("team.created.batch"),
+
+    /**
+     * The attributes of a team have been updated
+     */
+    TEAM_UPDATED("team.updated"),
+
+    /**
+     * A team has been deleted, its members being released
+     */
+    TEAM_DELETED("team.deleted"),
+
+    /**
+     * A user joined a team
+     */
+    TEAM_MEMBER_ADDED("team.member.added"),
+
+    /**
+     * A user left a team
+     */
+    TEAM_MEMBER_REMOVED("team.member.removed"),
+
+    /**
+     * All the members of a team have been replaced at once
+     */
+    TEAM_MEMBERS_REPLACED("team.members.replaced"),
+
+    /**
+     * A user has been created
+     */
+    USER_CREATED("user.created"),
+
+    /**
+     * Several users have been created at once
+     */
+    USERS_CREATED("user.created.batch"),
+
+    /**
+     * The attributes of a user have been updated
+     */
+    USER_UPDATED("user.updated"),
+
+    /**
+     * A user has been deleted, leaving its team if any
+     */
+    USER_DELETED("user.deleted");
+
+    /**
+     * Name of the type, used as the AMQP type and as the routing key of its events
+     */
+    @Getter
+    private final String routingKey;
+
+    /**
+     * Create a type of event
+     *
+     * @param routingKey Name of the type, used as the AMQP type and as the routing key of its events
+     */
+    MembershipEventType(String routingKey) {
+        this.routingKey = routingKey;
+    }
+
+}
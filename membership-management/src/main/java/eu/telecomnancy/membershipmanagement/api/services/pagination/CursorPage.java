@@ -0,0 +1,75 @@
+package eu.telecomnancy.membershipmanagement.api.services.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+
+/**
+ * Page of entities retrieved using keyset (cursor) pagination
+ *
+ * The entities are ordered by their id and the cursor is the id of the last entity of the page, so that the next page
+ * can be fetched with a range query on the id regardless of how deep the client has already scrolled
+ *
+ * @param <T> Type of the paginated entities
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    /**
+     * Default number of entities returned in a page when the client does not specify any
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * Maximum number of entities that can be returned in a single page
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    /**
+     * Entities of the page, ordered by their id
+     */
+    private final List<T> content;
+
+    /**
+     * Cursor from which the next page can be retrieved, empty if this page is the last one
+     */
+    private final Optional<Long> nextCursor;
+
+    /**
+     * Clamp the limit requested by a client between 1 and {@link #MAX_LIMIT}
+     *
+     * @param limit Limit requested
+     * @return The limit to be used for the query
+     */
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Build a page from the rows fetched from the database
+     *
+     * The rows are expected to have been fetched with a limit of (limit + 1) so that the presence of an additional row
+     * tells whether or not there is a next page, without any additional count query
+     *
+     * @param rows Rows fetched from the database, ordered by id
+     * @param limit Maximum number of entities of the page
+     * @param idExtractor Function retrieving the id of an entity, used as the cursor
+     * @param <T> Type of the paginated entities
+     * @return The associated page
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, ToLongFunction<T> idExtractor) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, Optional.empty());
+        }
+
+        List<T> content = rows.subList(0, limit);
+        long nextCursor = idExtractor.applyAsLong(content.get(limit - 1));
+
+        return new CursorPage<>(content, Optional.of(nextCursor));
+    }
+
+}
@@ -0,0 +1,77 @@
+package eu.telecomnancy.membershipmanagement.api.services.snapshot;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.snapshot.ContentSnapshotDto;
+import eu.telecomnancy.membershipmanagement.api.dal.memory.MembershipStore;
+import eu.telecomnancy.membershipmanagement.api.dal.outbox.OutboxRepository;
+import eu.telecomnancy.membershipmanagement.api.services.notification.MessagingService;
+import eu.telecomnancy.membershipmanagement.api.services.notification.events.EventSequencer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Service providing the snapshot of the number of teams and users, from which the consumers of the events start
+ * counting
+ *
+ * With the outbox, the snapshot is maintained by the relay as it positions the committed messages of the outbox, and is
+ * read without holding back the writers. With the in-memory engine, it is positioned by the sequences of this instance:
+ * the counts and the last sequence are read under the lock of the store, whose changes of the counts reserve the
+ * sequence of their event within their write
+ */
+@Service
+public class ContentSnapshotService {
+
+    /**
+     * Outbox of the events holding the snapshot, absent with the in-memory engine
+     */
+    private final Optional<OutboxRepository> outbox;
+
+    /**
+     * In-memory store of the teams and users, absent with the outbox
+     */
+    private final Optional<MembershipStore> store;
+
+    /**
+     * Messaging service whose instance id is the stream of the sequences with the in-memory engine
+     */
+    private final MessagingService messagingService;
+
+    /**
+     * Sequencer of the events of this instance, positioning the snapshot with the in-memory engine
+     */
+    private final EventSequencer sequencer;
+
+    /**
+     * Create the service
+     *
+     * @param outbox Outbox of the events holding the snapshot, absent with the in-memory engine
+     * @param store In-memory store of the teams and users, absent with the outbox
+     * @param messagingService Messaging service whose instance id is the stream of the sequences
+     * @param sequencer Sequencer of the events of this instance
+     */
+    @Autowired
+    public ContentSnapshotService(Optional<OutboxRepository> outbox, Optional<MembershipStore> store,
+                                  MessagingService messagingService, EventSequencer sequencer) {
+        this.outbox = outbox;
+        this.store = store;
+        this.messagingService = messagingService;
+        this.sequencer = sequencer;
+    }
+
+    /**
+     * Retrieve the current snapshot of the counts
+     *
+     * @return The number of teams and users, with the position of the last event they reflect
+     */
+    public ContentSnapshotDto getSnapshot() {
+        if (outbox.isPresent()) {
+            return outbox.get().findSnapshot();
+        }
+
+        // No change of the counts is made meanwhile, nor is the sequence of its event reserved
+        return store.get().readCounts((teamCount, userCount) -> new ContentSnapshotDto(
+                teamCount, userCount, messagingService.getInstanceId(), sequencer.getLastSequence()));
+    }
+
+}
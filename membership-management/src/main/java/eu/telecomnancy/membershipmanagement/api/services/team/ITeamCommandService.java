@@ -3,8 +3,13 @@ package eu.telecomnancy.membershipmanagement.api.services.team;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.*;
 import eu.telecomnancy.membershipmanagement.api.domain.Team;
 import eu.telecomnancy.membershipmanagement.api.domain.User;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.EntityChangedException;
 import eu.telecomnancy.membershipmanagement.api.services.exceptions.team.UnknownTeamException;
 import eu.telecomnancy.membershipmanagement.api.services.exceptions.user.UnknownUserException;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.user.UserAlreadyInATeamException;
+
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Command part of the TeamService
@@ -40,6 +45,14 @@ public interface ITeamCommandService {
      */
     Team createTeam(CreateTeamCommand command);
 
+    /**
+     * Store several new {@link Team} in the database at once from the provided command
+     *
+     * @param command Payload holding the teams to create
+     * @return The teams newly created, in the order of the command
+     */
+    List<Team> createTeams(CreateTeamsCommand command);
+
     /**
      * Delete a team by its id
      *
@@ -59,6 +72,19 @@ public interface ITeamCommandService {
     void removeMemberFromTeam(DeleteTeamMemberCommand command)
             throws UnknownTeamException, UnknownUserException;
 
+    /**
+     * Replace all the members of a team at once
+     *
+     * @param teamId Id of the team whose members are replaced
+     * @param command Payload holding the ids of the users that should be the members of the team
+     * @return The new members of the team, ordered by id
+     * @throws UnknownTeamException If the given id does not correspond to any stored {@link Team}
+     * @throws UnknownUserException If one of the given ids does not correspond to any stored {@link User}
+     * @throws UserAlreadyInATeamException If one of the users already belongs to another team
+     */
+    List<User> replaceTeamMembers(long teamId, ReplaceTeamMembersCommand command)
+            throws UnknownTeamException, UnknownUserException, UserAlreadyInATeamException;
+
     /**
      * Given his id, rename an existing {@link Team}
      *
@@ -67,7 +93,22 @@ public interface ITeamCommandService {
      * @return The team with the updated values
      * @throws UnknownTeamException If the given id does not correspond to any stored {@link Team}
      */
-    Team patchTeam(long teamId, PatchTeamCommand command)
-            throws UnknownTeamException;
+    default Team patchTeam(long teamId, PatchTeamCommand command)
+            throws UnknownTeamException {
+        return patchTeam(teamId, command, Optional.empty());
+    }
+
+    /**
+     * Given his id, rename an existing {@link Team} if it is still at one of the versions expected by the client
+     *
+     * @param teamId Id of the targeted team
+     * @param command Payload holding the team's new name
+     * @param ifMatch Optional value of the `If-Match` header, listing the entity tags of the expected versions
+     * @return The team with the updated values
+     * @throws UnknownTeamException If the given id does not correspond to any stored {@link Team}
+     * @throws EntityChangedException If the team is no longer at any of the expected versions
+     */
+    Team patchTeam(long teamId, PatchTeamCommand command, Optional<String> ifMatch)
+            throws UnknownTeamException, EntityChangedException;
 
 }
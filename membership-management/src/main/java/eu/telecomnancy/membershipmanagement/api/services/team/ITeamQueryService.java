@@ -1,14 +1,18 @@
 package eu.telecomnancy.membershipmanagement.api.services.team;
 
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.ExportTeamsQuery;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.GetTeamMembersQuery;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.GetTeamQuery;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.GetTeamsQuery;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDetailsDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
 import eu.telecomnancy.membershipmanagement.api.domain.Team;
 import eu.telecomnancy.membershipmanagement.api.domain.User;
 import eu.telecomnancy.membershipmanagement.api.services.exceptions.team.UnknownTeamException;
+import eu.telecomnancy.membershipmanagement.api.services.pagination.CursorPage;
 
 import java.util.List;
-import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Query part of the TeamService
@@ -21,6 +25,16 @@ import java.util.Optional;
  */
 public interface ITeamQueryService {
 
+    /**
+     * Export all teams of the application, one by one, without loading all of them in memory at once
+     *
+     * Given the query, a filter might be applied to export only the teams which are completed or aren't
+     *
+     * @param exportTeamsQuery Payload holding the filter to apply
+     * @param consumer Consumer to which each exported team is provided, ordered by id
+     */
+    void exportTeams(ExportTeamsQuery exportTeamsQuery, Consumer<Team> consumer);
+
     /**
      * Retrieve a team by its id
      *
@@ -31,6 +45,16 @@ public interface ITeamQueryService {
     Team getTeam(GetTeamQuery getTeamQuery)
             throws UnknownTeamException;
 
+    /**
+     * Compute the entity tag of a team along with its members, from their versions only
+     *
+     * @param getTeamQuery Payload holding the id of the team
+     * @return The entity tag of the team
+     * @throws UnknownTeamException If the given id does not correspond to any stored {@link Team}
+     */
+    String getTeamEntityTag(GetTeamQuery getTeamQuery)
+            throws UnknownTeamException;
+
     /**
      * Given its id, retrieve the members of a team
      *
@@ -42,12 +66,26 @@ public interface ITeamQueryService {
             throws UnknownTeamException;
 
     /**
-     * Retrieve all teams of the application
+     * Compute the entity tag of the members of a team, from their versions only
+     *
+     * @param getTeamMembersQuery Payload holding the id of the team
+     * @return The entity tag of the members of the team
+     * @throws UnknownTeamException If the given id does not correspond to any stored {@link Team}
+     */
+    String getTeamMembersEntityTag(GetTeamMembersQuery getTeamMembersQuery)
+            throws UnknownTeamException;
+
+    /**
+     * Retrieve a page of the teams of the application, ordered by their id
      *
      * Given the query, a filter might be applied to retrieve only the teams which are completed or aren't
      *
-     * @return A list containing all of the teams
+     * The teams are directly read as DTOs, without loading the entities nor their members. If the query asks for the
+     * members, the teams of the page are returned as {@link TeamDetailsDto}, all of their rosters being read at once
+     *
+     * @param getTeamsQuery Payload holding the filter and the cursor of the page to retrieve
+     * @return A page containing the teams and the cursor of the next page
      */
-    List<Team> getTeams(GetTeamsQuery getTeamsQuery);
+    CursorPage<TeamDto> getTeams(GetTeamsQuery getTeamsQuery);
 
 }
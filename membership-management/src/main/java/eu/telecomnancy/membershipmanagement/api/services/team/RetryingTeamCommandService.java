@@ -0,0 +1,191 @@
+package eu.telecomnancy.membershipmanagement.api.services.team;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.*;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.domain.User;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.team.UnknownTeamException;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.user.UnknownUserException;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.user.UserAlreadyInATeamException;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Command part of the TeamService retrying the commands that failed because of a concurrent change
+ *
+ * The teams and the users are versioned: a command based on a team or a user changed in the meantime fails when its
+ * transaction is committed, and is rolled back as a whole. It is then performed again from scratch, in a new
+ * transaction, after a randomized exponential backoff spreading the competing commands. Once the attempts are
+ * exhausted, the failure is passed on to the caller
+ *
+ * @see TeamService
+ */
+@Log4j2
+@Primary
+@Service
+public class RetryingTeamCommandService implements ITeamCommandService {
+
+    /**
+     * Number of times the backoff is doubled at most, so that its computation can't overflow
+     */
+    private static final int MAX_BACKOFF_DOUBLINGS = 20;
+
+    /**
+     * Service performing the commands, each of them in its own transaction
+     */
+    private final TeamService teamService;
+
+    /**
+     * Maximum number of attempts of a command
+     */
+    @Value("${persistence.optimistic-locking.max-attempts:10}")
+    private int maxAttempts;
+
+    /**
+     * Backoff before the first retry, doubled by each following one
+     */
+    @Value("${persistence.optimistic-locking.initial-backoff:5ms}")
+    private Duration initialBackoff;
+
+    /**
+     * Upper bound of the backoff before a retry
+     */
+    @Value("${persistence.optimistic-locking.max-backoff:100ms}")
+    private Duration maxBackoff;
+
+    /**
+     * Create the service on top of the one performing the commands
+     *
+     * @param teamService Service performing the commands, each of them in its own transaction
+     */
+    @Autowired
+    public RetryingTeamCommandService(TeamService teamService) {
+        this.teamService = teamService;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Team addTeamMember(long teamId, CreateTeamMemberCommand command)
+            throws UnknownTeamException, UnknownUserException {
+        return retryOnConflict(() -> teamService.addTeamMember(teamId, command));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * A new team can't conflict with any other change, hence it is not retried
+     */
+    @Override
+    public Team createTeam(CreateTeamCommand command) {
+        return teamService.createTeam(command);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * New teams can't conflict with any other change, hence they are not retried
+     */
+    @Override
+    public List<Team> createTeams(CreateTeamsCommand command) {
+        return teamService.createTeams(command);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteTeam(DeleteTeamCommand command)
+            throws UnknownTeamException {
+        retryOnConflict(() -> {
+            teamService.deleteTeam(command);
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeMemberFromTeam(DeleteTeamMemberCommand command)
+            throws UnknownTeamException, UnknownUserException {
+        retryOnConflict(() -> {
+            teamService.removeMemberFromTeam(command);
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<User> replaceTeamMembers(long teamId, ReplaceTeamMembersCommand command)
+            throws UnknownTeamException, UnknownUserException, UserAlreadyInATeamException {
+        return retryOnConflict(() -> teamService.replaceTeamMembers(teamId, command));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Team patchTeam(long teamId, PatchTeamCommand command, Optional<String> ifMatch)
+            throws UnknownTeamException {
+        return retryOnConflict(() -> teamService.patchTeam(teamId, command, ifMatch));
+    }
+
+    /**
+     * Perform a command, again as long as it fails because of a concurrent change and attempts are left
+     *
+     * @param command Command to perform in its own transaction
+     * @param <T> Type of the result of the command
+     * @return The result of the command
+     * @throws OptimisticLockingFailureException If the last attempt failed because of a concurrent change
+     */
+    private <T> T retryOnConflict(Supplier<T> command) {
+        for (int attempt = 1; ; ++attempt) {
+            try {
+                return command.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("Command still conflicting with concurrent changes after {} attempts", attempt);
+                    throw e;
+                }
+
+                log.debug("Command conflicting with a concurrent change, attempt {} of {}", attempt, maxAttempts);
+
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    /**
+     * Wait a random duration, bounded by a limit growing exponentially with the number of attempts
+     *
+     * @param attempt Number of the attempt that failed
+     * @param failure Failure of the attempt, passed on if the thread is interrupted while waiting
+     */
+    private void backOff(int attempt, OptimisticLockingFailureException failure) {
+        long boundNanos = Math.min(
+                initialBackoff.toNanos() << Math.min(attempt - 1, MAX_BACKOFF_DOUBLINGS),
+                maxBackoff.toNanos());
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(boundNanos + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+    }
+
+}
@@ -1,23 +1,38 @@
 package eu.telecomnancy.membershipmanagement.api.services.team;
 
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.*;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.mappings.TeamMapper;
-import eu.telecomnancy.membershipmanagement.api.dal.repositories.TeamRepository;
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.ITeamRepository;
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.StreamingHints;
 import eu.telecomnancy.membershipmanagement.api.domain.Team;
 import eu.telecomnancy.membershipmanagement.api.domain.User;
 import eu.telecomnancy.membershipmanagement.api.services.MembershipManagementService;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.EntityChangedException;
 import eu.telecomnancy.membershipmanagement.api.services.exceptions.team.TeamAlreadyCompleteException;
 import eu.telecomnancy.membershipmanagement.api.services.exceptions.team.UnknownTeamException;
 import eu.telecomnancy.membershipmanagement.api.services.exceptions.team.UserNotAMemberOfTheTeamException;
 import eu.telecomnancy.membershipmanagement.api.services.exceptions.user.UnknownUserException;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.user.UserAlreadyInATeamException;
+import eu.telecomnancy.membershipmanagement.api.services.lookup.UnknownIdCache;
+import eu.telecomnancy.membershipmanagement.api.services.notification.CacheInvalidation;
 import eu.telecomnancy.membershipmanagement.api.services.notification.MessagingService;
+import eu.telecomnancy.membershipmanagement.api.services.notification.events.MembershipEvent;
+import eu.telecomnancy.membershipmanagement.api.services.pagination.CursorPage;
 import eu.telecomnancy.membershipmanagement.api.services.user.UserService;
+import eu.telecomnancy.membershipmanagement.api.services.versioning.EntityTags;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service to handle {@link Team}-related operations
@@ -32,25 +47,30 @@ public class TeamService extends MembershipManagementService implements ITeamCom
     protected final TeamMapper mapper;
 
     /**
-     * Repository to access the {@link Team} entity in the database
+     * Repository to access the {@link Team} entities, whatever the persistence engine
      */
-    private final TeamRepository teamRepository;
+    private final ITeamRepository teamRepository;
 
     /**
      * Injected UserService used to update the membership of the users
      */
     private final UserService userService;
 
+    /**
+     * Ids of the teams recently found unknown
+     */
+    private final UnknownIdCache unknownTeamIds = new UnknownIdCache(UNKNOWN_IDS_MAX_ENTRIES);
+
     /**
      * Create a new instance of the TeamService
      *
      * @param messagingService RabbitMQ message dispatcher
-     * @param teamRepository Repository to access the {@link Team} entity in the database
+     * @param teamRepository Repository to access the {@link Team} entities, whatever the persistence engine
      * @param userService Injected UserService used to update the membership of the users
      * @param mapper TeamDto mapper utility
      */
     @Autowired
-    public TeamService(MessagingService messagingService, TeamRepository teamRepository, UserService userService,
+    public TeamService(MessagingService messagingService, ITeamRepository teamRepository, UserService userService,
                        TeamMapper mapper) {
         super(messagingService);
 
@@ -61,8 +81,12 @@ public class TeamService extends MembershipManagementService implements ITeamCom
 
     /**
      * {@inheritDoc}
+     *
+     * The completeness of the team is checked and updated through its number of members, so that the other members
+     * are never loaded, and in the same transaction as the membership of the user
      */
     @Override
+    @Transactional
     public Team addTeamMember(long teamId, CreateTeamMemberCommand createTeamMemberCommand)
             throws UnknownTeamException, UnknownUserException {
         // Check if the team can have a new member
@@ -77,14 +101,18 @@ public class TeamService extends MembershipManagementService implements ITeamCom
         User user = userService.addToTeam(
                 createTeamMemberCommand.getMemberToAddId(), team);
 
-        // Update the completeness of the team with this new member
-        team.setComplete(team.isTeamComplete());
+        // Count the new member, which updates the completeness of the team
+        team.setMemberCount(team.getMemberCount() + 1);
         teamRepository.save(team);
 
         log.info("User {} successfully added to the members of the team {}", user, team);
 
-        // Notify other client that an operation has been made on the API
-        messagingService.sendOperationInfoMessage(createTeamMemberCommand);
+        // Notify other client that the user joined the team
+        messagingService.publishEvent(MembershipEvent.teamMemberAdded(teamId, user.getId()));
+
+        // Notify the other instances that the team and the user changed
+        messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofTeam(teamId));
+        messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofUser(user.getId()));
 
         // Return the result
         return team;
@@ -94,6 +122,7 @@ public class TeamService extends MembershipManagementService implements ITeamCom
      * {@inheritDoc}
      */
     @Override
+    @Transactional
     public Team createTeam(CreateTeamCommand createTeamCommand) {
          Team created = teamRepository.save(
                  mapper.toTeam(createTeamCommand));
@@ -101,44 +130,106 @@ public class TeamService extends MembershipManagementService implements ITeamCom
          log.info("New team created {}", created);
 
         // Notify other client that the content of the application changed
-        messagingService.sendContentUpdatedMessage(createTeamCommand);
+        messagingService.publishEvent(MembershipEvent.teamCreated(created.getId()));
+
+        // Forget the id if it was found unknown, by this instance and the other ones, once committed
+        messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofTeam(created.getId()));
 
          return created;
     }
 
     /**
      * {@inheritDoc}
+     *
+     * All teams are inserted in the same transaction so that their inserts are sent as JDBC batches, and a single
+     * notification is dispatched for the whole command
+     */
+    @Override
+    @Transactional
+    public List<Team> createTeams(CreateTeamsCommand createTeamsCommand) {
+        List<Team> created = teamRepository.saveAll(
+                mapper.toTeams(createTeamsCommand.getTeams()));
+
+        log.info("{} new teams created", created.size());
+
+        // Notify other client that the content of the application changed
+        messagingService.publishEvent(MembershipEvent.teamsCreated(created.size()));
+
+        // Forget the ids if they were found unknown, by this instance and the other ones, once committed
+        created.forEach(team -> messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofTeam(team.getId())));
+
+        return created;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The membership of all of its members is released in bulk before the deletion, so that the number of statements
+     * issued does not depend on the number of members
      */
     @Override
+    @Transactional
     public void deleteTeam(DeleteTeamCommand deleteTeamCommand)
             throws UnknownTeamException {
-        // Retrieve the team to delete
-        Team toDelete = retrieveTeamById(
-                deleteTeamCommand.getTeamId());
+        long teamId = deleteTeamCommand.getTeamId();
 
         // Delete the membership of all of its members
-        toDelete.getMembers()
-                .stream()
-                .map(User::getId)
-                .forEach(userService::leaveTeam);
+        userService.releaseTeamMembers(teamId);
 
-        // Clean the team's members
-        toDelete.setMembers(null);
-        teamRepository.save(toDelete);
-
-        // Perform the deletion
-        teamRepository.delete(toDelete);
+        // Perform the deletion, rolling back the release of the members if the team does not exist
+        if (teamRepository.deleteTeamById(teamId) == 0) {
+            log.error("Unknown team of id {}", teamId);
+            throw new UnknownTeamException(teamId);
+        }
 
         // Notify other client that the content of the application changed
-        messagingService.sendContentUpdatedMessage(deleteTeamCommand);
-        
-        log.info("Successfully deleted team {}", toDelete);
+        messagingService.publishEvent(MembershipEvent.teamDeleted(teamId));
+
+        // Notify the other instances that the team and its former members, released in bulk, changed
+        messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofTeam(teamId));
+        messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofAllUsers());
+
+        log.info("Successfully deleted team of id {}", teamId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportTeams(ExportTeamsQuery exportTeamsQuery, Consumer<Team> consumer) {
+        Optional<Boolean> isCompleteTeamFilter = exportTeamsQuery.getIsComplete();
+
+        isCompleteTeamFilter.ifPresent(filterValue
+                -> log.info("Exporting all teams such that team.isComplete = {}", filterValue));
+
+        long exported = 0;
+
+        try (Stream<Team> teams = isCompleteTeamFilter.isPresent()
+                ? teamRepository.streamByIsCompleteOrderByIdAsc(isCompleteTeamFilter.get())
+                : teamRepository.streamAllByOrderByIdAsc()) {
+            Iterator<Team> iterator = teams.iterator();
+
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+
+                // Evict the already exported teams so that the persistence context does not grow with the table
+                if (++exported % StreamingHints.BATCH_SIZE == 0) {
+                    teamRepository.detachAll();
+                }
+            }
+        }
+
+        log.info("Exported {} teams", exported);
     }
 
     /**
      * {@inheritDoc}
+     *
+     * The number of members of the team is updated in the same transaction as the membership of the user
      */
     @Override
+    @Transactional
     public void removeMemberFromTeam(DeleteTeamMemberCommand deleteTeamMemberCommand)
             throws UnknownTeamException, UnknownUserException {
         // Retrieve the team and its members
@@ -160,16 +251,82 @@ public class TeamService extends MembershipManagementService implements ITeamCom
         // Perform the removal
         userService.leaveTeam(memberId);
 
-        // If the team was complete, then it is no longer so
-        if (team.isComplete()) {
-            team.setComplete(false);
-            teamRepository.save(team);
-        }
+        // The team has one member less, hence it is no longer complete
+        team.setMemberCount(team.getMemberCount() - 1);
+        teamRepository.save(team);
 
         log.info("The user of id {} has successfully been removed from the team {}", memberId, team);
 
-        // Notify other client that an operation has been made on the API
-        messagingService.sendOperationInfoMessage(deleteTeamMemberCommand);
+        // Notify other client that the user left the team
+        messagingService.publishEvent(MembershipEvent.teamMemberRemoved(team.getId(), memberId));
+
+        // Notify the other instances that the team and its former member changed
+        messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofTeam(team.getId()));
+        messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofUser(memberId));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The difference between the current and the desired rosters is computed in memory, then applied with at most two
+     * set-based updates in the same transaction, so that either the whole roster is replaced or nothing changes
+     */
+    @Override
+    @Transactional
+    public List<User> replaceTeamMembers(long teamId, ReplaceTeamMembersCommand replaceTeamMembersCommand)
+            throws UnknownTeamException, UnknownUserException {
+        Set<Long> desiredMemberIds = replaceTeamMembersCommand.getMemberIds();
+
+        // Check that the desired roster fits in a team
+        if (desiredMemberIds.size() > Team.MAX_MEMBERS) {
+            log.error("A team can't have the {} members {}", desiredMemberIds.size(), desiredMemberIds);
+            throw new TeamAlreadyCompleteException();
+        }
+
+        // Retrieve the team and all of its future members at once
+        Team team = retrieveTeamById(teamId);
+        List<User> desiredMembers = userService.retrieveUsersByIds(desiredMemberIds);
+
+        // Check that none of the future members already belongs to another team
+        Optional<User> memberOfAnotherTeam = desiredMembers.stream()
+                .filter(user -> user.getTeam() != null && !user.getTeam().getId().equals(team.getId()))
+                .findFirst();
+
+        if (memberOfAnotherTeam.isPresent()) {
+            log.error("The user {} already has a team and can't join the team {}", memberOfAnotherTeam.get(), team);
+            throw new UserAlreadyInATeamException(memberOfAnotherTeam.get(), team);
+        }
+
+        // Compute the difference between the current roster and the desired one
+        Set<Long> membersToRelease = team.getMembers()
+                .stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        Set<Long> usersToAdd = new HashSet<>(desiredMemberIds);
+
+        usersToAdd.removeAll(membersToRelease);
+        membersToRelease.removeAll(desiredMemberIds);
+
+        // Update the number of members of the team beforehand, it is flushed along with the membership updates
+        team.setMemberCount(desiredMemberIds.size());
+        teamRepository.save(team);
+
+        // Perform the replacement
+        userService.releaseTeamMembers(teamId, membersToRelease);
+        userService.addAllToTeam(usersToAdd, team);
+
+        log.info("The members of the team {} have successfully been replaced by the users of ids {}",
+                team, desiredMemberIds);
+
+        // Notify other client that the members of the team changed
+        messagingService.publishEvent(MembershipEvent.teamMembersReplaced(teamId, desiredMemberIds.size()));
+
+        // Notify the other instances that the team and the users joining or leaving it changed
+        messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofTeam(teamId));
+        Stream.concat(membersToRelease.stream(), usersToAdd.stream())
+                .forEach(userId -> messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofUser(userId)));
+
+        return desiredMembers;
     }
 
     /**
@@ -177,6 +334,7 @@ public class TeamService extends MembershipManagementService implements ITeamCom
      * @return
      */
     @Override
+    @Transactional(readOnly = true)
     public Team getTeam(GetTeamQuery getTeamQuery) {
         Team team = retrieveTeamById(getTeamQuery.getId());
 
@@ -185,11 +343,23 @@ public class TeamService extends MembershipManagementService implements ITeamCom
         return team;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getTeamEntityTag(GetTeamQuery getTeamQuery)
+            throws UnknownTeamException {
+        long teamId = getTeamQuery.getId();
+
+        return EntityTags.ofTeam(retrieveTeamVersionById(teamId), userService.retrieveMemberVersions(teamId));
+    }
+
     /**
      * {@inheritDoc}
      * @return
      */
     @Override
+    @Transactional(readOnly = true)
     public List<User> getTeamMembers(GetTeamMembersQuery getTeamMembersQuery)
             throws UnknownTeamException {
         Team team = retrieveTeamById(getTeamMembersQuery.getId());
@@ -200,19 +370,63 @@ public class TeamService extends MembershipManagementService implements ITeamCom
      * {@inheritDoc}
      */
     @Override
-    public List<Team> getTeams(GetTeamsQuery getTeamsQuery) {
+    public String getTeamMembersEntityTag(GetTeamMembersQuery getTeamMembersQuery)
+            throws UnknownTeamException {
+        long teamId = getTeamMembersQuery.getId();
+
+        // Only check that the team exists, its version not being part of the tag
+        retrieveTeamVersionById(teamId);
+
+        return EntityTags.ofMembers(userService.retrieveMemberVersions(teamId));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<TeamDto> getTeams(GetTeamsQuery getTeamsQuery) {
         Optional<Boolean> isCompleteTeamFilter = getTeamsQuery.getIsComplete();
 
         isCompleteTeamFilter.ifPresent(filterValue
                 -> log.info("Retrieving all teams such that team.isComplete = {}", filterValue));
 
-        List<Team> teams = isCompleteTeamFilter.isPresent()
-                ? teamRepository.getTeamByIsComplete(isCompleteTeamFilter.get())
-                : teamRepository.findAll();
+        // Fetch one more team than requested to know whether there is a next page
+        int limit = CursorPage.clampLimit(getTeamsQuery.getLimit());
+        long after = getTeamsQuery.getAfter();
+        Pageable pageable = PageRequest.of(0, limit + 1);
+
+        List<TeamDto> teams = isCompleteTeamFilter.isPresent()
+                ? teamRepository.findDtosByIsCompleteAndIdGreaterThan(isCompleteTeamFilter.get(), after, pageable)
+                : teamRepository.findDtosByIdGreaterThan(after, pageable);
+
+        CursorPage<TeamDto> page = CursorPage.of(teams, limit, TeamDto::getId);
+
+        // Load the rosters of the whole page at once rather than the members of each team one after the other
+        if (getTeamsQuery.isIncludeMembers() && !page.getContent().isEmpty()) {
+            List<Long> teamIds = page.getContent().stream()
+                    .map(TeamDto::getId)
+                    .collect(Collectors.toList());
 
-        log.info("Retrieved {} teams", teams.size());
+            List<TeamDto> teamsWithMembers = new ArrayList<>(
+                    mapper.toDetailsDtoList(teamRepository.findWithMembersByIdIn(teamIds)));
 
-        return teams;
+            page = new CursorPage<>(teamsWithMembers, page.getNextCursor());
+        }
+
+        log.info("Retrieved {} teams after the id {}", page.getContent().size(), after);
+
+        return page;
+    }
+
+    /**
+     * Forget the team ids found unknown once teams of these ids are committed, by this instance or another one
+     *
+     * @param invalidation The entities that changed
+     */
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidation invalidation) {
+        forgetUnknownIds(unknownTeamIds, CacheInvalidation.EntityType.TEAM, invalidation);
     }
 
     /**
@@ -223,22 +437,35 @@ public class TeamService extends MembershipManagementService implements ITeamCom
      */
     public Team retrieveTeamById(long teamId)
             throws UnknownTeamException {
-        return teamRepository.findById(teamId)
-                .orElseThrow(() -> {
-                    log.error("Unknown team of id {}", teamId);
-                    return new UnknownTeamException(teamId);
-                });
+        return lookUp(unknownTeamIds, teamId, teamRepository::findById, UnknownTeamException::new);
+    }
+
+    /**
+     * Try to retrieve the version of a team by its id, without loading it
+     *
+     * @param teamId Id of the team
+     * @return The version of the team
+     * @throws UnknownTeamException If there is no team for the provided id
+     */
+    private long retrieveTeamVersionById(long teamId)
+            throws UnknownTeamException {
+        return lookUp(unknownTeamIds, teamId, teamRepository::findVersionById, UnknownTeamException::new);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public Team patchTeam(long teamId, PatchTeamCommand patchTeamCommand)
-            throws UnknownTeamException {
-        // Retrieve the team to update
+    @Transactional
+    public Team patchTeam(long teamId, PatchTeamCommand patchTeamCommand, Optional<String> ifMatch)
+            throws UnknownTeamException, EntityChangedException {
+        // Retrieve the team to update, and check that it is still the version known by the client
         Team target = retrieveTeamById(teamId);
 
+        if (ifMatch.isPresent()) {
+            checkEntityTag(ifMatch.get(), EntityTags.ofTeam(target));
+        }
+
         // Perform the update
         log.info("Update the team {} to {}", target, patchTeamCommand);
 
@@ -246,11 +473,16 @@ public class TeamService extends MembershipManagementService implements ITeamCom
 
         log.info("Updated team: {}", target);
 
-        // Notify other client that an operation has been made on the API
-        messagingService.sendOperationInfoMessage(patchTeamCommand);
+        // Save the instance, then notify other client that the team changed
+        Team saved = teamRepository.save(target);
+
+        messagingService.publishEvent(MembershipEvent.teamUpdated(teamId));
+
+        // Notify the other instances that the team changed
+        messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofTeam(teamId));
 
         // Return the saved instance
-        return teamRepository.save(target);
+        return saved;
     }
 
 }
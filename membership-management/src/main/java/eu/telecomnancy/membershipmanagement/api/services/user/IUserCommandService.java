@@ -1,12 +1,17 @@
 package eu.telecomnancy.membershipmanagement.api.services.user;
 
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUsersCommand;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.DeleteUserCommand;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.PatchUserCommand;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.UpdateUserCommand;
 import eu.telecomnancy.membershipmanagement.api.domain.User;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.EntityChangedException;
 import eu.telecomnancy.membershipmanagement.api.services.exceptions.user.UnknownUserException;
 
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Command part of the UserService
  * Specify the write-only commands
@@ -39,8 +44,25 @@ public interface IUserCommandService {
      * @return The user with the updated values
      * @throws UnknownUserException If the given id does not correspond to any stored {@link User}
      */
-    User patchUser(long userId, PatchUserCommand command)
-            throws UnknownUserException;
+    default User patchUser(long userId, PatchUserCommand command)
+            throws UnknownUserException {
+        return patchUser(userId, command, Optional.empty());
+    }
+
+    /**
+     * Partially update a {@link User} given a specific payload, if he is still at one of the versions expected by the
+     * client
+     * All concrete values containing data will be used for replacement and empty ones will be noop
+     *
+     * @param userId Id of the targeted user
+     * @param command Payload holding the data to perform the patch
+     * @param ifMatch Optional value of the `If-Match` header, listing the entity tags of the expected versions
+     * @return The user with the updated values
+     * @throws UnknownUserException If the given id does not correspond to any stored {@link User}
+     * @throws EntityChangedException If the user is no longer at any of the expected versions
+     */
+    User patchUser(long userId, PatchUserCommand command, Optional<String> ifMatch)
+            throws UnknownUserException, EntityChangedException;
 
     /**
      * Store a new {@link User} in the database from the provided command
@@ -50,6 +72,14 @@ public interface IUserCommandService {
      */
     User createUser(CreateUserCommand command);
 
+    /**
+     * Store several new {@link User} in the database at once from the provided command
+     *
+     * @param command Payload holding the users to create
+     * @return The users newly created, in the order of the command
+     */
+    List<User> createUsers(CreateUsersCommand command);
+
     /**
      * Given his id, replace the details of an existing {@link User}
      *
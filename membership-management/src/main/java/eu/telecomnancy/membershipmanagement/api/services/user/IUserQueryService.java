@@ -1,10 +1,14 @@
 package eu.telecomnancy.membershipmanagement.api.services.user;
 
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.ExportUsersQuery;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.GetUserQuery;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.GetUsersQuery;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
 import eu.telecomnancy.membershipmanagement.api.domain.User;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.user.UnknownUserException;
+import eu.telecomnancy.membershipmanagement.api.services.pagination.CursorPage;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Query part of the UserService
@@ -17,6 +21,16 @@ import java.util.List;
  */
 public interface IUserQueryService {
 
+    /**
+     * Export all users of the application, one by one, without loading all of them in memory at once
+     *
+     * Given the query, a filter might be applied to export only the users that belong or not belong to a team
+     *
+     * @param exportUsersQuery Payload holding the filter to apply
+     * @param consumer Consumer to which each exported user is provided, ordered by id
+     */
+    void exportUsers(ExportUsersQuery exportUsersQuery, Consumer<User> consumer);
+
     /**
      * Retrieve an user by its id
      *
@@ -26,12 +40,25 @@ public interface IUserQueryService {
     User getUser(GetUserQuery getUserQuery);
 
     /**
-     * Retrieve all users of the application
+     * Compute the entity tag of a user along with his team, from their versions only
+     *
+     * @param getUserQuery Payload holding the id of the user
+     * @return The entity tag of the user
+     * @throws UnknownUserException If the given id does not correspond to any stored {@link User}
+     */
+    String getUserEntityTag(GetUserQuery getUserQuery)
+            throws UnknownUserException;
+
+    /**
+     * Retrieve a page of the users of the application, ordered by their id
      *
      * Given the query, a filter might be applied to retrieve only the users that belong or not belong to a team
      *
-     * @return A list containing all of the users
+     * The users are directly read as DTOs, without loading the entities nor their team
+     *
+     * @param getUsersQuery Payload holding the filter and the cursor of the page to retrieve
+     * @return A page containing the users and the cursor of the next page
      */
-    List<User> getUsers(GetUsersQuery getUsersQuery);
+    CursorPage<UserDto> getUsers(GetUsersQuery getUsersQuery);
 
 }
@@ -1,20 +1,35 @@
 package eu.telecomnancy.membershipmanagement.api.services.user;
 
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.*;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.mappings.UserMapper;
-import eu.telecomnancy.membershipmanagement.api.dal.repositories.UserRepository;
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.IUserRepository;
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.MemberVersion;
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.StreamingHints;
 import eu.telecomnancy.membershipmanagement.api.domain.Team;
 import eu.telecomnancy.membershipmanagement.api.domain.User;
 import eu.telecomnancy.membershipmanagement.api.services.MembershipManagementService;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.EntityChangedException;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.team.TeamAlreadyCompleteException;
 import eu.telecomnancy.membershipmanagement.api.services.exceptions.user.UnknownUserException;
 import eu.telecomnancy.membershipmanagement.api.services.exceptions.user.UserAlreadyInATeamException;
+import eu.telecomnancy.membershipmanagement.api.services.lookup.UnknownIdCache;
+import eu.telecomnancy.membershipmanagement.api.services.notification.CacheInvalidation;
 import eu.telecomnancy.membershipmanagement.api.services.notification.MessagingService;
+import eu.telecomnancy.membershipmanagement.api.services.notification.events.MembershipEvent;
+import eu.telecomnancy.membershipmanagement.api.services.pagination.CursorPage;
+import eu.telecomnancy.membershipmanagement.api.services.versioning.EntityTags;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service to handle {@link User}-related operations
@@ -29,19 +44,24 @@ public class UserService extends MembershipManagementService implements IUserCom
     protected final UserMapper mapper;
 
     /**
-     * Repository to access the {@link User} entity in the database
+     * Repository to access the {@link User} entities, whatever the persistence engine
      */
-    private final UserRepository userRepository;
+    private final IUserRepository userRepository;
+
+    /**
+     * Ids of the users recently found unknown
+     */
+    private final UnknownIdCache unknownUserIds = new UnknownIdCache(UNKNOWN_IDS_MAX_ENTRIES);
 
     /**
      * Create a new instance of the UserService
      *
      * @param messagingService RabbitMQ message dispatcher
-     * @param userRepository Repository to access the {@link User} entity in the database
+     * @param userRepository Repository to access the {@link User} entities, whatever the persistence engine
      * @param mapper UserDto mapper utility
      */
     @Autowired
-    public UserService(MessagingService messagingService, UserRepository userRepository, UserMapper mapper) {
+    public UserService(MessagingService messagingService, IUserRepository userRepository, UserMapper mapper) {
         super(messagingService);
 
         this.mapper = mapper;
@@ -72,10 +92,61 @@ public class UserService extends MembershipManagementService implements IUserCom
         return userRepository.save(user);
     }
 
+    /**
+     * Add several users without team to a team at once
+     *
+     * @param userIds Ids of the users to add to the team
+     * @param team Team that will welcome the new users
+     * @throws UnknownUserException If one of the users has been deleted in the meantime
+     * @throws UserAlreadyInATeamException If one of the users already belongs to another team
+     * @throws TeamAlreadyCompleteException If the team is full before all the users could join it
+     */
+    public void addAllToTeam(Set<Long> userIds, Team team)
+            throws UnknownUserException, UserAlreadyInATeamException, TeamAlreadyCompleteException {
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        int joinedCount = userRepository.joinTeam(team, userIds);
+
+        // Some users could not join the team, the caller's transaction has to be rolled back
+        if (joinedCount != userIds.size()) {
+            List<User> users = userRepository.findAllById(userIds);
+
+            // A user has been deleted in the meantime
+            if (users.size() != userIds.size()) {
+                Set<Long> missingIds = new HashSet<>(userIds);
+                users.forEach(user -> missingIds.remove(user.getId()));
+
+                long unknownId = missingIds.iterator().next();
+
+                log.error("The user of id {} does not exist and can't join the team {}", unknownId, team);
+                throw new UnknownUserException(unknownId);
+            }
+
+            // A user joined another team in the meantime
+            Optional<User> alreadyInATeam = users.stream()
+                    .filter(user -> user.getTeam() != null && !team.getId().equals(user.getTeam().getId()))
+                    .findFirst();
+
+            if (alreadyInATeam.isPresent()) {
+                log.error("The user {} already has a team and can't join the team {}", alreadyInATeam.get(), team);
+                throw new UserAlreadyInATeamException(alreadyInATeam.get(), team);
+            }
+
+            // Every user is free or already a member: the team was full before all of them could join it
+            log.error("The team {} is full and can't welcome all the users of ids {}", team, userIds);
+            throw new TeamAlreadyCompleteException();
+        }
+
+        log.info("The users of ids {} successfully joined the team {}", userIds, team);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
+    @Transactional
     public User createUser(CreateUserCommand createUserCommand) {
         User created = userRepository.save(
                 mapper.toUser(createUserCommand));
@@ -83,37 +154,125 @@ public class UserService extends MembershipManagementService implements IUserCom
         log.info("New user created {}", created);
 
         // Notify other client that the content of the application changed
-        messagingService.sendContentUpdatedMessage(createUserCommand);
+        messagingService.publishEvent(MembershipEvent.userCreated(created.getId()));
+
+        // Forget the id if it was found unknown, by this instance and the other ones, once committed
+        messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofUser(created.getId()));
+
+        return created;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * All users are inserted in the same transaction so that their inserts are sent as JDBC batches, and a single
+     * notification is dispatched for the whole command
+     */
+    @Override
+    @Transactional
+    public List<User> createUsers(CreateUsersCommand createUsersCommand) {
+        List<User> created = userRepository.saveAll(
+                mapper.toUsers(createUsersCommand.getUsers()));
+
+        log.info("{} new users created", created.size());
+
+        // Notify other client that the content of the application changed
+        messagingService.publishEvent(MembershipEvent.usersCreated(created.size()));
+
+        // Forget the ids if they were found unknown, by this instance and the other ones, once committed
+        created.forEach(user -> messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofUser(user.getId())));
 
         return created;
     }
 
     /**
      * {@inheritDoc}
+     *
+     * If the user was a member of a team, the number of members of the team is updated in the same transaction
      */
+    @Transactional
     public void deleteUser(DeleteUserCommand deleteUserCommand)
             throws UnknownUserException {
         User toDelete = retrieveUserById(deleteUserCommand.getId());
+        Team team = toDelete.getTeam();
 
         userRepository.delete(toDelete);
 
+        // The former team of the user has one member less
+        if (team != null) {
+            team.setMemberCount(team.getMemberCount() - 1);
+        }
+
         log.info("User of id {} successfully deleted", toDelete.getId());
 
         // Notify other client that the content of the application changed
-        messagingService.sendContentUpdatedMessage(deleteUserCommand);
+        messagingService.publishEvent(MembershipEvent.userDeleted(toDelete.getId(), teamIdOf(toDelete)));
+
+        // Notify the other instances that the user and its former team changed
+        messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofUser(toDelete.getId()));
+
+        if (team != null) {
+            messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofTeam(team.getId()));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUsers(ExportUsersQuery exportUsersQuery, Consumer<User> consumer) {
+        Optional<Boolean> hasTeamFilter = exportUsersQuery.getHasTeam();
+
+        hasTeamFilter.ifPresent(filterValue
+                -> log.info("Exporting all users such that (user.team != null) = {}", filterValue));
+
+        long exported = 0;
+
+        try (Stream<User> users = hasTeamFilter.isEmpty()
+                ? userRepository.streamAll()
+                : streamUsersByHasTeam(hasTeamFilter.get())) {
+            Iterator<User> iterator = users.iterator();
+
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+
+                // Evict the already exported users so that the persistence context does not grow with the table
+                if (++exported % StreamingHints.BATCH_SIZE == 0) {
+                    userRepository.detachAll();
+                }
+            }
+        }
+
+        log.info("Exported {} users", exported);
     }
 
     /**
-     * Retrieve users depending of their belonging to a team
+     * Retrieve a page of users depending of their belonging to a team
      *
      * @param hasTeam True if we want to retrieve the users that belong to a team
      *                False if we want the ones that does not belong to a team
+     * @param after Cursor from which retrieving the users
+     * @param pageable Page size
      * @return The filter list of users
      */
-    private List<User> getUserByHasTeam(boolean hasTeam) {
+    private List<UserDto> getUserByHasTeam(boolean hasTeam, long after, Pageable pageable) {
+        return hasTeam
+            ? userRepository.findDtosByTeamNotNullAndIdGreaterThan(after, pageable)
+            : userRepository.findDtosByTeamNullAndIdGreaterThan(after, pageable);
+    }
+
+    /**
+     * Stream users depending of their belonging to a team
+     *
+     * @param hasTeam True if we want to stream the users that belong to a team
+     *                False if we want the ones that does not belong to a team
+     * @return The filtered stream of users
+     */
+    private Stream<User> streamUsersByHasTeam(boolean hasTeam) {
         return hasTeam
-            ? userRepository.findByTeamNotNull()
-            : userRepository.findByTeamNull();
+            ? userRepository.streamByTeamNotNull()
+            : userRepository.streamByTeamNull();
     }
 
     /**
@@ -121,6 +280,7 @@ public class UserService extends MembershipManagementService implements IUserCom
      * @return
      */
     @Override
+    @Transactional(readOnly = true)
     public User getUser(GetUserQuery getUserQuery) {
         User user = retrieveUserById(getUserQuery.getId());
 
@@ -133,19 +293,39 @@ public class UserService extends MembershipManagementService implements IUserCom
      * {@inheritDoc}
      */
     @Override
-    public List<User> getUsers(GetUsersQuery getUsersQuery) {
+    public String getUserEntityTag(GetUserQuery getUserQuery)
+            throws UnknownUserException {
+        long userId = getUserQuery.getId();
+
+        return EntityTags.ofUser(
+                lookUp(unknownUserIds, userId, userRepository::findVersionById, UnknownUserException::new));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserDto> getUsers(GetUsersQuery getUsersQuery) {
         Optional<Boolean> hasTeamFilter = getUsersQuery.getHasTeam();
 
         hasTeamFilter.ifPresent(filterValue
                 -> log.info("Retrieving all users such that (user.team != null) = {}",filterValue));
 
-        List<User> users = hasTeamFilter.isEmpty()
-            ? userRepository.findAll()
-            : getUserByHasTeam(hasTeamFilter.get());
+        // Fetch one more user than requested to know whether there is a next page
+        int limit = CursorPage.clampLimit(getUsersQuery.getLimit());
+        long after = getUsersQuery.getAfter();
+        Pageable pageable = PageRequest.of(0, limit + 1);
 
-        log.info("Retrieved {} users", users.size());
+        List<UserDto> users = hasTeamFilter.isEmpty()
+            ? userRepository.findDtosByIdGreaterThan(after, pageable)
+            : getUserByHasTeam(hasTeamFilter.get(), after, pageable);
 
-        return users;
+        CursorPage<UserDto> page = CursorPage.of(users, limit, UserDto::getId);
+
+        log.info("Retrieved {} users after the id {}", page.getContent().size(), after);
+
+        return page;
     }
 
     /**
@@ -165,15 +345,50 @@ public class UserService extends MembershipManagementService implements IUserCom
         log.info("The user {} successfully left his team", user);
     }
 
+    /**
+     * Remove all the members of a team from it at once
+     *
+     * @param teamId Id of the team whose members will leave it
+     * @return The number of users that left the team
+     */
+    public int releaseTeamMembers(long teamId) {
+        int releasedMembersCount = userRepository.releaseMembersOfTeam(teamId);
+
+        log.info("{} users successfully left the team of id {}", releasedMembersCount, teamId);
+
+        return releasedMembersCount;
+    }
+
+    /**
+     * Remove some of the members of a team from it at once
+     *
+     * @param teamId Id of the team that the users will leave
+     * @param userIds Ids of the members that will leave the team
+     */
+    public void releaseTeamMembers(long teamId, Set<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        int releasedMembersCount = userRepository.releaseMembersOfTeam(teamId, userIds);
+
+        log.info("{} users successfully left the team of id {}", releasedMembersCount, teamId);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
-    public User patchUser(long userId, PatchUserCommand patchUserCommand)
-            throws UnknownUserException {
-        // Retrieve the user to update
+    @Transactional
+    public User patchUser(long userId, PatchUserCommand patchUserCommand, Optional<String> ifMatch)
+            throws UnknownUserException, EntityChangedException {
+        // Retrieve the user to update, and check that it is still the version known by the client
         User target = retrieveUserById(userId);
 
+        if (ifMatch.isPresent()) {
+            checkEntityTag(ifMatch.get(), EntityTags.ofUser(target));
+        }
+
         // Perform the update
         log.info("Patch the user {} with {}", target, patchUserCommand);
 
@@ -182,11 +397,60 @@ public class UserService extends MembershipManagementService implements IUserCom
 
         log.info("Patched user: {}", target);
 
-        // Notify other client that an operation has been made on the API
-        messagingService.sendOperationInfoMessage(patchUserCommand);
+        // Save the instance, then notify other client that the user changed
+        User saved = userRepository.save(target);
+
+        messagingService.publishEvent(MembershipEvent.userUpdated(userId, teamIdOf(target)));
+
+        // Notify the caches that the user and the details of its team changed
+        sendUserInvalidationMessages(userId, target.getTeam());
 
         // Return the saved instance
-        return userRepository.save(target);
+        return saved;
+    }
+
+    /**
+     * Notify the caches that a user changed, along with the details of its team if it is a member of one
+     *
+     * @param userId Id of the user that changed
+     * @param team Team of the user, null if it is not a member of any
+     */
+    private void sendUserInvalidationMessages(long userId, Team team) {
+        messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofUser(userId));
+
+        if (team != null) {
+            messagingService.sendCacheInvalidationMessage(CacheInvalidation.ofTeam(team.getId()));
+        }
+    }
+
+    /**
+     * Get the id of the team of a user
+     *
+     * @param user The user
+     * @return The id of the team of the user, null if it is not a member of any
+     */
+    private static Long teamIdOf(User user) {
+        return user.getTeam() == null ? null : user.getTeam().getId();
+    }
+
+    /**
+     * Retrieve the versions of the members of a team, without loading them
+     *
+     * @param teamId Id of the team
+     * @return The versions of the members of the team, ordered by id
+     */
+    public List<MemberVersion> retrieveMemberVersions(long teamId) {
+        return userRepository.findMemberVersionsByTeamId(teamId);
+    }
+
+    /**
+     * Forget the user ids found unknown once users of these ids are committed, by this instance or another one
+     *
+     * @param invalidation The entities that changed
+     */
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidation invalidation) {
+        forgetUnknownIds(unknownUserIds, CacheInvalidation.EntityType.USER, invalidation);
     }
 
     /**
@@ -197,17 +461,41 @@ public class UserService extends MembershipManagementService implements IUserCom
      */
     public User retrieveUserById(long userId)
             throws UnknownUserException {
-        return userRepository.findById(userId)
-                .orElseThrow(() -> {
-                    log.error("Unknown user of id {}", userId);
-                    return new UnknownUserException(userId);
-                });
+        return lookUp(unknownUserIds, userId, userRepository::findById, UnknownUserException::new);
+    }
+
+    /**
+     * Try to retrieve several users by their ids, in a single query
+     *
+     * @param userIds Ids of the users to retrieve
+     * @return The users, ordered by id
+     * @throws UnknownUserException If there is no user for one of the provided ids
+     */
+    public List<User> retrieveUsersByIds(Set<Long> userIds)
+            throws UnknownUserException {
+        List<User> users = userRepository.findAllById(userIds);
+
+        if (users.size() != userIds.size()) {
+            Set<Long> missingIds = new HashSet<>(userIds);
+            users.stream()
+                    .map(User::getId)
+                    .forEach(missingIds::remove);
+
+            long missingId = missingIds.iterator().next();
+            log.error("Unknown user of id {}", missingId);
+            throw new UnknownUserException(missingId);
+        }
+
+        users.sort(Comparator.comparing(User::getId));
+
+        return users;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
+    @Transactional
     public User updateUser(long userId, UpdateUserCommand updateUserCommand)
             throws UnknownUserException {
         // Retrieve the user to update
@@ -220,11 +508,16 @@ public class UserService extends MembershipManagementService implements IUserCom
 
         log.info("Updated user: {}", target);
 
-        // Notify other client that an operation has been made on the API
-        messagingService.sendOperationInfoMessage(updateUserCommand);
+        // Save the instance, then notify other client that the user changed
+        User saved = userRepository.save(target);
+
+        messagingService.publishEvent(MembershipEvent.userUpdated(userId, teamIdOf(target)));
+
+        // Notify the caches that the user and the details of its team changed
+        sendUserInvalidationMessages(userId, target.getTeam());
 
         // Return the saved instance
-        return userRepository.save(target);
+        return saved;
     }
 
 }
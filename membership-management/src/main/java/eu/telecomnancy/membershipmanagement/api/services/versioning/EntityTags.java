@@ -0,0 +1,166 @@
+package eu.telecomnancy.membershipmanagement.api.services.versioning;
+
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.MemberVersion;
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.UserVersion;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.domain.User;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Strong entity tags of the representations of the users and of the teams, derived from the versions of the entities
+ * they are made of
+ *
+ * A representation changes only if one of these versions changes, hence its tag can be computed from the versions
+ * alone, without loading the entities. The tags computed from the versions and from the loaded entities are the same
+ */
+public final class EntityTags {
+
+    /**
+     * Value of `If-Match` matching any current version of the entity
+     */
+    private static final String ANY = "*";
+
+    /**
+     * Prefix of the weak entity tags
+     */
+    private static final String WEAK_PREFIX = "W/";
+
+    /**
+     * Prevent the instantiation of this utility class
+     */
+    private EntityTags() { }
+
+    /**
+     * Compute the tag of the members of a team
+     *
+     * The version of the team itself is left out, its attributes not being part of the representation
+     *
+     * @param memberVersions Versions of the members of the team, ordered by id
+     * @return The tag of the members
+     */
+    public static String ofMembers(List<MemberVersion> memberVersions) {
+        return tagOf("members:" + join(memberVersions));
+    }
+
+    /**
+     * Compute the tag of a team, along with its members
+     *
+     * Any change of the membership changes the number of members of the team, and so its version, unless members are
+     * swapped: the members are then told apart by their ids
+     *
+     * @param version Version of the team
+     * @param memberVersions Versions of the members of the team, ordered by id
+     * @return The tag of the team
+     */
+    public static String ofTeam(long version, List<MemberVersion> memberVersions) {
+        return tagOf("team:" + version + ":" + join(memberVersions));
+    }
+
+    /**
+     * Compute the tag of a loaded team, along with its members
+     *
+     * @param team Team with its members
+     * @return The tag of the team
+     */
+    public static String ofTeam(Team team) {
+        return ofTeam(team.getVersion(), versionsOf(team.getMembers()));
+    }
+
+    /**
+     * Compute the tag of a user, along with his team
+     *
+     * @param version Versions of the user and of his team
+     * @return The tag of the user
+     */
+    public static String ofUser(UserVersion version) {
+        return tagOf("user:" + version.getVersion() + ":" + version.getTeamVersion());
+    }
+
+    /**
+     * Compute the tag of a loaded user, along with his team
+     *
+     * @param user User with his team
+     * @return The tag of the user
+     */
+    public static String ofUser(User user) {
+        Team team = user.getTeam();
+
+        return ofUser(new UserVersion(user.getVersion(), team == null ? null : team.getVersion()));
+    }
+
+    /**
+     * Check whether the value of an `If-None-Match` header matches the current tag of an entity
+     *
+     * The comparison is weak, as required for this header: the tags weakened by an intermediary still match
+     *
+     * @param ifNoneMatch Value of the header, either `*` or a list of tags
+     * @param entityTag Current tag of the entity
+     * @return True if the client already holds the current version of the entity
+     */
+    public static boolean isNotModified(String ifNoneMatch, String entityTag) {
+        return matches(ifNoneMatch.replace(WEAK_PREFIX, ""), entityTag);
+    }
+
+    /**
+     * Check whether the value of an `If-Match` header matches the current tag of an entity
+     *
+     * The comparison is strong: weak tags never match
+     *
+     * @param ifMatch Value of the header, either `*` or a list of tags
+     * @param entityTag Current tag of the entity
+     * @return True if the update of the entity can be performed
+     */
+    public static boolean matches(String ifMatch, String entityTag) {
+        for (String expectedTag : ifMatch.split(",")) {
+            String trimmedTag = expectedTag.trim();
+
+            if (trimmedTag.equals(ANY) || trimmedTag.equals(entityTag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Read the versions of loaded members of a team
+     *
+     * @param members Members of the team
+     * @return The versions of the members, ordered by id
+     */
+    public static List<MemberVersion> versionsOf(Collection<User> members) {
+        return members.stream()
+                .sorted(Comparator.comparing(User::getId))
+                .map(member -> new MemberVersion(member.getId(), member.getVersion()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Join the versions of the members of a team
+     *
+     * @param memberVersions Versions of the members of the team, ordered by id
+     * @return The versions, as text
+     */
+    private static String join(List<MemberVersion> memberVersions) {
+        return memberVersions.stream()
+                .map(memberVersion -> memberVersion.getId() + "v" + memberVersion.getVersion())
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * Compute a quoted tag by hashing the versions it is derived from
+     *
+     * @param versions Versions identifying the representation, as text
+     * @return The quoted tag
+     */
+    private static String tagOf(String versions) {
+        return "\"" + DigestUtils.md5DigestAsHex(versions.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+}
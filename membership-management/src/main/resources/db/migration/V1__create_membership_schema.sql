@@ -0,0 +1,31 @@
+-- Schema of the membership management API
+--
+-- The sequences match the pooled id generators of the entities, hence their increment of 50
+
+CREATE SEQUENCE team_seq AS BIGINT START WITH 1 INCREMENT BY 50;
+
+CREATE SEQUENCE users_seq AS BIGINT START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE team (
+    team_id       BIGINT       NOT NULL,
+    creation_date TIMESTAMP,
+    is_complete   BOOLEAN      NOT NULL,
+    name          VARCHAR(255),
+    CONSTRAINT team_pk PRIMARY KEY (team_id)
+);
+
+CREATE TABLE users (
+    id        BIGINT       NOT NULL,
+    age       INTEGER,
+    firstname VARCHAR(255),
+    name      VARCHAR(255),
+    team_id   BIGINT,
+    CONSTRAINT users_pk PRIMARY KEY (id),
+    CONSTRAINT users_team_fk FOREIGN KEY (team_id) REFERENCES team (team_id)
+);
+
+-- Filtering of the users on their membership, paginated on their id (GET /api/users?hasTeam=)
+CREATE INDEX users_team_id_idx ON users (team_id, id);
+
+-- Filtering of the teams on their completeness, paginated on their id (GET /api/teams?isComplete=)
+CREATE INDEX team_is_complete_idx ON team (is_complete, team_id);
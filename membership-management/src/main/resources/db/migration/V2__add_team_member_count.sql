@@ -0,0 +1,9 @@
+-- Number of members of each team, kept up to date along with the membership of the users so that checking whether a
+-- team has room left does not require to read its roster
+
+ALTER TABLE team ADD COLUMN member_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE team SET member_count = (SELECT COUNT(*) FROM users WHERE users.team_id = team.team_id);
+
+-- The completeness of a team is derived from its number of members
+UPDATE team SET is_complete = CASE WHEN member_count = 8 THEN TRUE ELSE FALSE END;
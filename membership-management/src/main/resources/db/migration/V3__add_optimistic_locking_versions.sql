@@ -0,0 +1,6 @@
+-- Versions of the teams and of the users, checked by each update so that concurrent changes of the membership can't
+-- overwrite each other
+
+ALTER TABLE team ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
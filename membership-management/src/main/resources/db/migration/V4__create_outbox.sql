@@ -0,0 +1,16 @@
+-- Outbox of the messages notifying the changes of the content of the API
+--
+-- A message is written in the same transaction as the change it notifies, then published on RabbitMQ and marked as
+-- sent by the relay of the outbox. The sent messages are deleted once their retention is over
+
+CREATE TABLE outbox_message (
+    id          BIGINT       NOT NULL GENERATED ALWAYS AS IDENTITY,
+    routing_key VARCHAR(255) NOT NULL,
+    payload     CLOB         NOT NULL,
+    created_at  TIMESTAMP    NOT NULL,
+    sent_at     TIMESTAMP,
+    CONSTRAINT outbox_message_pk PRIMARY KEY (id)
+);
+
+-- Polling of the unsent messages in their order of creation, and deletion of the sent ones
+CREATE INDEX outbox_message_sent_at_idx ON outbox_message (sent_at, id);
@@ -0,0 +1,41 @@
+-- Snapshot of the number of teams and users, for the consumers counting them from the events
+--
+-- Each message of the outbox records the changes of the counts it notifies. Once committed, the messages are
+-- positioned by the relay of the outbox, which adds their changes to the counts of the snapshot in the same
+-- transaction: the events up to the last position of the snapshot are reflected by its counts, the later ones are
+-- not. The writers of the outbox never access the snapshot, the relays lock its single row while positioning
+-- messages so that each message is positioned once. A message keeps its position when it is published again. The
+-- stream identifies this database, the positions of another one being unrelated
+
+ALTER TABLE outbox_message ADD COLUMN stream_position BIGINT;
+
+ALTER TABLE outbox_message ADD COLUMN team_count_delta INTEGER NOT NULL DEFAULT 0;
+
+ALTER TABLE outbox_message ADD COLUMN user_count_delta INTEGER NOT NULL DEFAULT 0;
+
+-- The messages written so far are reflected by the counts below, and positioned by their id
+UPDATE outbox_message SET stream_position = id;
+
+-- Positioning of the committed messages in their order of creation, and polling of the unsent ones by position
+CREATE INDEX outbox_message_stream_position_idx ON outbox_message (stream_position, id);
+
+DROP INDEX outbox_message_sent_at_idx;
+
+CREATE INDEX outbox_message_sent_at_idx ON outbox_message (sent_at, stream_position);
+
+CREATE TABLE content_snapshot (
+    id            SMALLINT     NOT NULL,
+    stream_id     VARCHAR(64)  NOT NULL,
+    team_count    BIGINT       NOT NULL,
+    user_count    BIGINT       NOT NULL,
+    last_position BIGINT       NOT NULL,
+    CONSTRAINT content_snapshot_pk PRIMARY KEY (id)
+);
+
+INSERT INTO content_snapshot (id, stream_id, team_count, user_count, last_position)
+SELECT 1,
+       CAST(CURRENT_TIMESTAMP AS VARCHAR(64)),
+       (SELECT COUNT(*) FROM team),
+       (SELECT COUNT(*) FROM users),
+       COALESCE((SELECT MAX(id) FROM outbox_message), 0)
+FROM SYSIBM.SYSDUMMY1;
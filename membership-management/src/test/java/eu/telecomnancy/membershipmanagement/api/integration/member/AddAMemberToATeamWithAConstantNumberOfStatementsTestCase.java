@@ -0,0 +1,94 @@
+package eu.telecomnancy.membershipmanagement.api.integration.member;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.team.TeamWriteRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamMemberCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDetailsDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.integration.IntegrationTest;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Case :
+ *     (Write operations)
+ *     Test that adding a member to a team issues the same number of SQL statements whatever its number of members,
+ *     and that the number of members of the team is served along with it
+ *
+ * @see TeamWriteRestController
+ */
+public class AddAMemberToATeamWithAConstantNumberOfStatementsTestCase extends IntegrationTest {
+
+    /**
+     * Factory from which retrieving the Hibernate statistics
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Ensure that adding the second member and the last member of a team both issue the same number of statements,
+     * and that the team is then complete
+     *
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    @Test
+    public void addAMemberToATeamWithAConstantNumberOfStatements() throws URISyntaxException {
+        URI teamCreationUri = getUrlForRoute("/api/teams");
+        TeamDto team = extractPayload(
+                restTemplate.postForEntity(teamCreationUri, new CreateTeamCommand("Ghost"), TeamDto.class));
+
+        long secondMemberStatementsCount = 0;
+        long lastMemberStatementsCount = 0;
+
+        for (int memberCount = 1; memberCount <= Team.MAX_MEMBERS; ++memberCount) {
+            long statementsCount = countStatementsOfAddition(team.getId());
+
+            if (memberCount == 2) {
+                secondMemberStatementsCount = statementsCount;
+            } else if (memberCount == Team.MAX_MEMBERS) {
+                lastMemberStatementsCount = statementsCount;
+            }
+        }
+
+        assertEquals(secondMemberStatementsCount, lastMemberStatementsCount);
+
+        TeamDetailsDto completeTeam = extractPayload(
+                restTemplate.getForEntity(getUrlForRoute("/api/teams/" + team.getId()), TeamDetailsDto.class));
+
+        assertEquals(Team.MAX_MEMBERS, completeTeam.getMemberCount());
+        assertTrue(completeTeam.isComplete());
+    }
+
+    /**
+     * Create a user, then add it to a team and count the statements prepared during the addition
+     *
+     * @param teamId Id of the team joined by the user
+     * @return The number of statements prepared
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    private long countStatementsOfAddition(long teamId) throws URISyntaxException {
+        UserDto user = extractPayload(restTemplate.postForEntity(
+                getUrlForRoute("/api/users"), new CreateUserCommand(25, "Hera", "Syndulla"), UserDto.class));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        restTemplate.postForEntity(getUrlForRoute("/api/teams/" + teamId + "/members"),
+                new CreateTeamMemberCommand(user.getId()), Object.class);
+
+        return statistics.getPrepareStatementCount();
+    }
+
+}
@@ -0,0 +1,149 @@
+package eu.telecomnancy.membershipmanagement.api.integration.member;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.team.TeamWriteRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamMemberCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDetailsDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.integration.IntegrationTest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Case :
+ *     (Write operations)
+ *     Test that many users concurrently joining the same team can't exceed its capacity, the conflicting additions
+ *     being retried rather than serialized
+ *
+ * @see TeamWriteRestController
+ */
+public class AddMembersToATeamConcurrentlyTestCase extends IntegrationTest {
+
+    /**
+     * Logger reporting the throughput of the additions
+     */
+    private static final Logger log = LogManager.getLogger(AddMembersToATeamConcurrentlyTestCase.class);
+
+    /**
+     * Number of users concurrently joining the team
+     */
+    private static final int THREADS_COUNT = 64;
+
+    /**
+     * Maximum duration of all the additions, far above the one of serialized additions
+     */
+    private static final long MAX_DURATION_SECONDS = 30;
+
+    /**
+     * Ensure that exactly {@link Team#MAX_MEMBERS} of the users concurrently joining a team succeed, the other ones
+     * being told that the team is full or, at worst, that they kept conflicting with the other additions
+     *
+     * @throws Exception Throws exception when the URI is invalid or when a thread is interrupted
+     */
+    @Test
+    public void addMembersToATeamConcurrently() throws Exception {
+        TeamDto team = extractPayload(restTemplate.postForEntity(
+                getUrlForRoute("/api/teams"), new CreateTeamCommand("Phoenix"), TeamDto.class));
+
+        URI addMembershipUri = getUrlForRoute("/api/teams/" + team.getId() + "/members");
+        List<Long> userIds = createUsers();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS_COUNT);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<HttpStatus>> responses = new ArrayList<>();
+
+        for (long userId : userIds) {
+            responses.add(executor.submit(() -> {
+                start.await();
+                return addMember(addMembershipUri, userId);
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+
+        List<HttpStatus> statuses = new ArrayList<>();
+
+        for (Future<HttpStatus> response : responses) {
+            statuses.add(response.get(MAX_DURATION_SECONDS, TimeUnit.SECONDS));
+        }
+
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        executor.shutdown();
+
+        Map<HttpStatus, Long> statusesCount = statuses.stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+
+        log.info("{} concurrent additions to a team handled in {} ms ({} requests/s): {}", THREADS_COUNT,
+                durationMillis, THREADS_COUNT * 1_000L / Math.max(durationMillis, 1), statusesCount);
+
+        // Only the additions that fit in the team succeeded, the other ones have been rejected without any error
+        assertEquals(Team.MAX_MEMBERS, statusesCount.getOrDefault(HttpStatus.CREATED, 0L));
+        assertTrue(statuses.stream().allMatch(status -> status == HttpStatus.CREATED
+                || status == HttpStatus.BAD_REQUEST
+                || status == HttpStatus.CONFLICT), statusesCount.toString());
+        assertTrue(durationMillis < TimeUnit.SECONDS.toMillis(MAX_DURATION_SECONDS));
+
+        // The stored team matches the additions that succeeded
+        TeamDetailsDto fullTeam = extractPayload(
+                restTemplate.getForEntity(getUrlForRoute("/api/teams/" + team.getId()), TeamDetailsDto.class));
+
+        assertEquals(Team.MAX_MEMBERS, fullTeam.getMembers().size());
+        assertEquals(Team.MAX_MEMBERS, fullTeam.getMemberCount());
+        assertTrue(fullTeam.isComplete());
+    }
+
+    /**
+     * Add a user to a team
+     *
+     * @param addMembershipUri URI of the members of the team
+     * @param userId Id of the user to add
+     * @return The status of the response
+     */
+    private HttpStatus addMember(URI addMembershipUri, long userId) {
+        try {
+            return restTemplate.postForEntity(addMembershipUri, new CreateTeamMemberCommand(userId), Object.class)
+                    .getStatusCode();
+        } catch (HttpStatusCodeException e) {
+            return e.getStatusCode();
+        }
+    }
+
+    /**
+     * Create a user for each thread
+     *
+     * @return The ids of the users
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    private List<Long> createUsers() throws URISyntaxException {
+        URI userCreationUri = getUrlForRoute("/api/users");
+        List<Long> userIds = new ArrayList<>();
+
+        for (int i = 0; i < THREADS_COUNT; ++i) {
+            UserDto user = extractPayload(restTemplate.postForEntity(
+                    userCreationUri, new CreateUserCommand(30, "Kanan", "Jarrus"), UserDto.class));
+            userIds.add(user.getId());
+        }
+
+        return userIds;
+    }
+
+}
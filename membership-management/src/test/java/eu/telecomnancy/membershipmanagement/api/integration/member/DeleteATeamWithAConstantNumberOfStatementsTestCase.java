@@ -0,0 +1,100 @@
+package eu.telecomnancy.membershipmanagement.api.integration.member;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.team.TeamWriteRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamMemberCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.integration.IntegrationTest;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Case :
+ *     (Write operations)
+ *     Test that deleting a team issues the same number of SQL statements whatever its number of members
+ *
+ * @see TeamWriteRestController
+ */
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class DeleteATeamWithAConstantNumberOfStatementsTestCase extends IntegrationTest {
+
+    /**
+     * Number of statements expected for a deletion: one bulk UPDATE on the users and one DELETE on the team
+     */
+    private static final long EXPECTED_STATEMENTS_COUNT = 2;
+
+    /**
+     * Factory from which retrieving the Hibernate statistics
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Ensure that deleting a team with a single member and deleting a full team both issue the same number of
+     * statements
+     *
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    @Test
+    public void deleteATeamWithAConstantNumberOfStatements() throws URISyntaxException {
+        long singleMemberTeamId = createTeamWithMembers(1);
+        long fullTeamId = createTeamWithMembers(Team.MAX_MEMBERS);
+
+        assertEquals(EXPECTED_STATEMENTS_COUNT, countStatementsOfDeletion(singleMemberTeamId));
+        assertEquals(EXPECTED_STATEMENTS_COUNT, countStatementsOfDeletion(fullTeamId));
+    }
+
+    /**
+     * Delete a team and count the statements prepared during its deletion
+     *
+     * @param teamId Id of the team to delete
+     * @return The number of statements prepared
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    private long countStatementsOfDeletion(long teamId) throws URISyntaxException {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        restTemplate.delete(getUrlForRoute("/api/teams/" + teamId));
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Create a team and fill it with new users
+     *
+     * @param membersCount Number of users to add to the team
+     * @return The id of the created team
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    private long createTeamWithMembers(int membersCount) throws URISyntaxException {
+        URI teamCreationUri = getUrlForRoute("/api/teams");
+        TeamDto team = extractPayload(
+                restTemplate.postForEntity(teamCreationUri, new CreateTeamCommand("Rebels"), TeamDto.class));
+
+        URI userCreationUri = getUrlForRoute("/api/users");
+        URI addMembershipUri = getUrlForRoute("/api/teams/" + team.getId() + "/members");
+
+        for (int i = 0; i < membersCount; ++i) {
+            UserDto user = extractPayload(restTemplate.postForEntity(
+                    userCreationUri, new CreateUserCommand(19, "Jyn", "Erso"), UserDto.class));
+
+            restTemplate.postForEntity(addMembershipUri, new CreateTeamMemberCommand(user.getId()), Object.class);
+        }
+
+        return team.getId();
+    }
+
+}
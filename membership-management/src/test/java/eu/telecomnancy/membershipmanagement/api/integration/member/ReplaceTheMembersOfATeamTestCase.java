@@ -0,0 +1,103 @@
+package eu.telecomnancy.membershipmanagement.api.integration.member;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.team.TeamReadRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.team.TeamWriteRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.ReplaceTeamMembersCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUsersCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDetailsDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.integration.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Case :
+ *     (Read & Write operations)
+ *     Test that all the members of a team can be replaced at once
+ *
+ * @see TeamReadRestController
+ * @see TeamWriteRestController
+ */
+public class ReplaceTheMembersOfATeamTestCase extends IntegrationTest {
+
+    /**
+     * Ensure that replacing the roster of a team makes the missing members leave it and the new ones join it
+     *
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    @Test
+    public void replaceTheMembersOfATeam() throws URISyntaxException {
+        // Create a new team
+        ResponseEntity<TeamDto> createdTeamResponse = restTemplate.postForEntity(
+                getUrlForRoute("/api/teams"), new CreateTeamCommand("RosTeam"), TeamDto.class);
+
+        assertEquals(HttpStatus.CREATED, createdTeamResponse.getStatusCode());
+        TeamDto createdTeam = extractPayload(createdTeamResponse);
+
+        // Create three new users
+        CreateUsersCommand createUsersCommand = new CreateUsersCommand(List.of(
+                new CreateUserCommand(21, "Jane", "Doe"),
+                new CreateUserCommand(22, "John", "Doe"),
+                new CreateUserCommand(23, "Jack", "Doe")));
+
+        ResponseEntity<List<UserDto>> createdUsersResponse = restTemplate.exchange(
+                getUrlForRoute("/api/users/batch"), HttpMethod.POST, new HttpEntity<>(createUsersCommand),
+                new ParameterizedTypeReference<>() { });
+
+        assertEquals(HttpStatus.CREATED, createdUsersResponse.getStatusCode());
+        List<UserDto> createdUsers = extractPayload(createdUsersResponse);
+
+        UserDto firstUser = createdUsers.get(0);
+        UserDto secondUser = createdUsers.get(1);
+        UserDto thirdUser = createdUsers.get(2);
+
+        URI membersUri = getUrlForRoute("/api/teams/" + createdTeam.getId() + "/members");
+
+        // Set the first roster, then replace it with an overlapping one
+        ResponseEntity<List<UserDto>> firstRosterResponse = restTemplate.exchange(
+                membersUri, HttpMethod.PUT,
+                new HttpEntity<>(new ReplaceTeamMembersCommand(Set.of(firstUser.getId(), secondUser.getId()))),
+                new ParameterizedTypeReference<>() { });
+
+        assertEquals(HttpStatus.OK, firstRosterResponse.getStatusCode());
+        assertEquals(List.of(firstUser, secondUser), extractPayload(firstRosterResponse));
+
+        ResponseEntity<List<UserDto>> secondRosterResponse = restTemplate.exchange(
+                membersUri, HttpMethod.PUT,
+                new HttpEntity<>(new ReplaceTeamMembersCommand(Set.of(secondUser.getId(), thirdUser.getId()))),
+                new ParameterizedTypeReference<>() { });
+
+        assertEquals(HttpStatus.OK, secondRosterResponse.getStatusCode());
+
+        // Ensure that the team members are the ones of the last roster
+        ResponseEntity<List<UserDto>> membersResponse
+                = restTemplate.exchange(membersUri, HttpMethod.GET, null, new ParameterizedTypeReference<>() { });
+
+        assertEquals(HttpStatus.OK, membersResponse.getStatusCode());
+        List<UserDto> members = extractPayload(membersResponse);
+
+        assertEquals(2, members.size());
+        assertTrue(members.containsAll(List.of(secondUser, thirdUser)));
+
+        // Ensure that the user missing from the last roster left the team
+        ResponseEntity<UserDetailsDto> firstUserResponse = restTemplate.getForEntity(
+                getUrlForRoute("/api/users/" + firstUser.getId()), UserDetailsDto.class);
+
+        assertNull(extractPayload(firstUserResponse).getTeam());
+    }
+
+}
@@ -0,0 +1,140 @@
+package eu.telecomnancy.membershipmanagement.api.integration.member;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.team.TeamReadRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.user.UserReadRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamMemberCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDetailsDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.integration.IntegrationTest;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Case :
+ *     (Read operations)
+ *     Test that reading a page of teams with their members, or a page of users, issues the same number of SQL
+ *     statements whatever the size of the page
+ *
+ * @see TeamReadRestController
+ * @see UserReadRestController
+ */
+public class RetrievePagesWithAConstantNumberOfStatementsTestCase extends IntegrationTest {
+
+    /**
+     * Number of statements expected for a page of teams with their members: one for the page, one for the rosters
+     */
+    private static final long EXPECTED_TEAMS_STATEMENTS_COUNT = 2;
+
+    /**
+     * Number of statements expected for a page of users: the one of the projection
+     */
+    private static final long EXPECTED_USERS_STATEMENTS_COUNT = 1;
+
+    /**
+     * Factory from which retrieving the Hibernate statistics
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Ensure that reading a single team with its members and several full teams with theirs both issue the same
+     * number of statements, and that the members are retrieved
+     *
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    @Test
+    public void retrieveTeamsWithTheirMembersWithAConstantNumberOfStatements() throws URISyntaxException {
+        long firstTeamId = createTeamWithMembers(1);
+        createTeamWithMembers(Team.MAX_MEMBERS);
+        createTeamWithMembers(Team.MAX_MEMBERS);
+
+        String pageRoute = "/api/teams?include=" + TeamReadRestController.INCLUDE_MEMBERS + "&after="
+                + (firstTeamId - 1) + "&limit=";
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        TeamDetailsDto[] singleTeam = extractPayload(
+                restTemplate.getForEntity(getUrlForRoute(pageRoute + 1), TeamDetailsDto[].class));
+
+        assertEquals(EXPECTED_TEAMS_STATEMENTS_COUNT, statistics.getPrepareStatementCount());
+        assertEquals(1, singleTeam[0].getMembers().size());
+
+        statistics.clear();
+        TeamDetailsDto[] threeTeams = extractPayload(
+                restTemplate.getForEntity(getUrlForRoute(pageRoute + 3), TeamDetailsDto[].class));
+
+        assertEquals(EXPECTED_TEAMS_STATEMENTS_COUNT, statistics.getPrepareStatementCount());
+        assertEquals(3, threeTeams.length);
+        assertEquals(Team.MAX_MEMBERS, threeTeams[2].getMembers().size());
+    }
+
+    /**
+     * Ensure that reading a single user and reading several users members of teams both issue the same number of
+     * statements
+     *
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    @Test
+    public void retrieveUsersWithAConstantNumberOfStatements() throws URISyntaxException {
+        long firstTeamId = createTeamWithMembers(Team.MAX_MEMBERS);
+
+        TeamDetailsDto team = extractPayload(
+                restTemplate.getForEntity(getUrlForRoute("/api/teams/" + firstTeamId), TeamDetailsDto.class));
+        long firstUserId = team.getMembers().stream().mapToLong(UserDto::getId).min().orElseThrow();
+
+        String pageRoute = "/api/users?after=" + (firstUserId - 1) + "&limit=";
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        restTemplate.getForEntity(getUrlForRoute(pageRoute + 1), UserDto[].class);
+
+        assertEquals(EXPECTED_USERS_STATEMENTS_COUNT, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        UserDto[] users = extractPayload(
+                restTemplate.getForEntity(getUrlForRoute(pageRoute + Team.MAX_MEMBERS), UserDto[].class));
+
+        assertEquals(EXPECTED_USERS_STATEMENTS_COUNT, statistics.getPrepareStatementCount());
+        assertEquals(Team.MAX_MEMBERS, users.length);
+    }
+
+    /**
+     * Create a team and fill it with new users
+     *
+     * @param membersCount Number of users to add to the team
+     * @return The id of the created team
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    private long createTeamWithMembers(int membersCount) throws URISyntaxException {
+        URI teamCreationUri = getUrlForRoute("/api/teams");
+        TeamDto team = extractPayload(
+                restTemplate.postForEntity(teamCreationUri, new CreateTeamCommand("Rogue One"), TeamDto.class));
+
+        URI userCreationUri = getUrlForRoute("/api/users");
+        URI addMembershipUri = getUrlForRoute("/api/teams/" + team.getId() + "/members");
+
+        for (int i = 0; i < membersCount; ++i) {
+            UserDto user = extractPayload(restTemplate.postForEntity(
+                    userCreationUri, new CreateUserCommand(26, "Bodhi", "Rook"), UserDto.class));
+
+            restTemplate.postForEntity(addMembershipUri, new CreateTeamMemberCommand(user.getId()), Object.class);
+        }
+
+        return team.getId();
+    }
+
+}
@@ -0,0 +1,195 @@
+package eu.telecomnancy.membershipmanagement.api.integration.team;
+
+import eu.telecomnancy.membershipmanagement.api.ApiApplication;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamMemberCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDetailsDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.integration.IntegrationTest;
+import eu.telecomnancy.membershipmanagement.api.integration.utils.EmbeddedBroker;
+import eu.telecomnancy.membershipmanagement.api.receivers.CacheInvalidationReceiver;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.client.RestTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Case :
+ *     (Read & Write operations)
+ *     Test that a change made through an instance of the API evicts the changed entities from the cache of the other
+ *     instances, two instances sharing the same database and an embedded AMQP broker
+ *
+ * @see CacheInvalidationReceiver
+ */
+public class InvalidateTheCacheOfTheOtherInstancesTestCase {
+
+    /**
+     * Maximum duration waited for an invalidation to be received
+     */
+    private static final long MAX_DELIVERY_SECONDS = 10;
+
+    /**
+     * Broker shared by the instances
+     */
+    private static EmbeddedBroker broker;
+
+    /**
+     * Instance of the API through which the changes are made
+     */
+    private static ConfigurableApplicationContext writingInstance;
+
+    /**
+     * Instance of the API caching the entities changed by the other one
+     */
+    private static ConfigurableApplicationContext readingInstance;
+
+    /**
+     * Template used to call the instances
+     */
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    @BeforeAll
+    public static void startInstances() throws Exception {
+        broker = EmbeddedBroker.start();
+        writingInstance = startInstance();
+        readingInstance = startInstance();
+    }
+
+    @AfterAll
+    public static void stopInstances() {
+        readingInstance.close();
+        writingInstance.close();
+        broker.close();
+    }
+
+    /**
+     * Ensure that a member added through an instance is seen by another instance which had cached the team before,
+     * and that the instance making the change ignores its own invalidations
+     *
+     * @throws Exception Throws exception when the URI is invalid or when the thread is interrupted
+     */
+    @Test
+    public void invalidateTheCacheOfTheOtherInstances() throws Exception {
+        TeamDto team = restTemplate.postForEntity(
+                getUrlForRoute(writingInstance, "/api/teams"), new CreateTeamCommand("Bad Batch"), TeamDto.class)
+                .getBody();
+        UserDto user = restTemplate.postForEntity(
+                getUrlForRoute(writingInstance, "/api/users"), new CreateUserCommand(12, "Omega", "Clone"),
+                UserDto.class)
+                .getBody();
+
+        assertTrue(team != null && user != null);
+
+        // The reading instance caches the team, still without members
+        URI readTeamUri = getUrlForRoute(readingInstance, "/api/teams/" + team.getId());
+        TeamDetailsDto cachedTeam = restTemplate.getForEntity(readTeamUri, TeamDetailsDto.class).getBody();
+
+        assertTrue(cachedTeam != null && cachedTeam.getMembers().isEmpty());
+        assertTrue(isTeamCached(readingInstance, team.getId()));
+
+        // The writing instance adds the member, which evicts the team from the cache of the reading instance
+        restTemplate.postForEntity(getUrlForRoute(writingInstance, "/api/teams/" + team.getId() + "/members"),
+                new CreateTeamMemberCommand(user.getId()), Object.class);
+
+        // Both invalidations are fully applied once counted, the cached details of the team included
+        awaitUntil(() -> !isTeamCached(readingInstance, team.getId())
+                && countInvalidations(readingInstance, "applied") >= 2);
+
+        TeamDetailsDto updatedTeam = restTemplate.getForEntity(readTeamUri, TeamDetailsDto.class).getBody();
+
+        assertTrue(updatedTeam != null);
+        assertEquals(1, updatedTeam.getMemberCount());
+        assertEquals(user.getId(), updatedTeam.getMembers().get(0).getId());
+
+        // The invalidations of the team and of the user reached the writing instance too, which ignored them
+        awaitUntil(() -> countInvalidations(writingInstance, "ignored") >= 2);
+
+        assertEquals(0, countInvalidations(writingInstance, "applied"));
+        assertTrue(countInvalidations(readingInstance, "applied") >= 2);
+    }
+
+    /**
+     * Start an instance of the API on a random port, connected to the embedded broker and to the database shared by
+     * all the instances
+     *
+     * @return The application context of the instance
+     */
+    private static ConfigurableApplicationContext startInstance() {
+        return new SpringApplicationBuilder(ApiApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:derby:memory:shared-by-the-instances;create=true",
+                        "spring.rabbitmq.port=" + broker.getPort(),
+                        "spring.rabbitmq.virtual-host=" + EmbeddedBroker.VIRTUAL_HOST)
+                .run();
+    }
+
+    /**
+     * Get the full URI of a route of an instance
+     *
+     * @param instance Instance of the API
+     * @param route API endpoint route
+     * @return The full URI for the route
+     * @throws URISyntaxException When the URI is invalid
+     */
+    private static URI getUrlForRoute(ConfigurableApplicationContext instance, String route)
+            throws URISyntaxException {
+        int port = ((WebServerApplicationContext) instance).getWebServer().getPort();
+
+        return new URI(IntegrationTest.DEFAULT_URL + ":" + port + route);
+    }
+
+    /**
+     * Check whether a team is held by the second-level cache of an instance
+     *
+     * @param instance Instance of the API
+     * @param teamId Id of the team
+     * @return True if the team is cached by the instance
+     */
+    private static boolean isTeamCached(ConfigurableApplicationContext instance, long teamId) {
+        return instance.getBean(EntityManagerFactory.class).getCache().contains(Team.class, teamId);
+    }
+
+    /**
+     * Count the invalidations received by an instance
+     *
+     * @param instance Instance of the API
+     * @param outcome Outcome of the invalidations, either applied or ignored
+     * @return The number of invalidations received with this outcome
+     */
+    private static double countInvalidations(ConfigurableApplicationContext instance, String outcome) {
+        return instance.getBean(MeterRegistry.class).counter("cache.invalidations", "outcome", outcome).count();
+    }
+
+    /**
+     * Wait until a condition holds, failing once the delivery of the invalidations should be over
+     *
+     * @param condition Condition to wait for
+     * @throws InterruptedException Throws exception when the thread is interrupted
+     */
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(MAX_DELIVERY_SECONDS);
+
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "The invalidation has not been received in time");
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+    }
+
+}
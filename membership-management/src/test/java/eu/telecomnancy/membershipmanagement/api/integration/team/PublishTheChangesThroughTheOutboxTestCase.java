@@ -0,0 +1,98 @@
+package eu.telecomnancy.membershipmanagement.api.integration.team;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamMemberCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
+import eu.telecomnancy.membershipmanagement.api.dal.outbox.OutboxRepository;
+import eu.telecomnancy.membershipmanagement.api.integration.IntegrationTest;
+import eu.telecomnancy.membershipmanagement.api.services.notification.OutboxRelay;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Case :
+ *     (Write operations)
+ *     Test that the messages notifying a change are written to the outbox along with the change, then relayed to
+ *     RabbitMQ
+ *
+ * @see OutboxRelay
+ */
+public class PublishTheChangesThroughTheOutboxTestCase extends IntegrationTest {
+
+    /**
+     * Maximum duration waited for the messages to be relayed
+     */
+    private static final long MAX_RELAY_SECONDS = 10;
+
+    /**
+     * Outbox of the messages awaiting publication
+     */
+    @Autowired
+    private OutboxRepository outbox;
+
+    /**
+     * Template used to count the messages of the outbox
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Ensure that the creation of a team writes its notification to the outbox, which is then marked as sent
+     *
+     * @throws Exception Throws exception when the URI is invalid or when the thread is interrupted
+     */
+    @Test
+    public void publishTheCreationOfATeamThroughTheOutbox() throws Exception {
+        long countBefore = countMessages();
+
+        extractPayload(restTemplate.postForEntity(
+                getUrlForRoute("/api/teams"), new CreateTeamCommand("Jedi Order"), TeamDto.class));
+
+        assertEquals(countBefore + 1, countMessages());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(MAX_RELAY_SECONDS);
+
+        while (outbox.countUnsent() > 0) {
+            assertTrue(System.nanoTime() < deadline, "The messages of the outbox have not been relayed in time");
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+    }
+
+    /**
+     * Ensure that a command failing writes nothing to the outbox
+     *
+     * @throws Exception Throws exception when the URI is invalid
+     */
+    @Test
+    public void writeNothingToTheOutboxWhenTheCommandFails() throws Exception {
+        long countBefore = countMessages();
+
+        HttpStatusCodeException exception = assertThrows(HttpStatusCodeException.class,
+                () -> restTemplate.postForEntity(getUrlForRoute("/api/teams/" + Long.MAX_VALUE + "/members"),
+                        new CreateTeamMemberCommand(Long.MAX_VALUE), Object.class));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        assertEquals(countBefore, countMessages());
+    }
+
+    /**
+     * Count the messages of the outbox, sent or not
+     *
+     * @return The number of messages of the outbox
+     */
+    private long countMessages() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_message", Long.class);
+
+        return count == null ? 0 : count;
+    }
+
+}
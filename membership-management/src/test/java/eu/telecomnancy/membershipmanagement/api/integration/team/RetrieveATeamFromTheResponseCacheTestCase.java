@@ -0,0 +1,109 @@
+package eu.telecomnancy.membershipmanagement.api.integration.team;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.team.TeamReadRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.caching.TeamDetailsResponseCache;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamMemberCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.UpdateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDetailsDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.integration.IntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Case :
+ *     (Read & Write operations)
+ *     Test that the details of a team read again are written from the cache of the serialized responses, and that
+ *     they are invalidated by a change of the team or of one of its members
+ *
+ * @see TeamReadRestController
+ * @see TeamDetailsResponseCache
+ */
+public class RetrieveATeamFromTheResponseCacheTestCase extends IntegrationTest {
+
+    /**
+     * Factory from which retrieving the Hibernate statistics
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Registry of the metrics of the cache
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Ensure that reading a team twice neither queries the database nor the second-level cache the second time, and
+     * that the changes of its members are seen afterwards
+     *
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    @Test
+    public void retrieveATeamFromTheResponseCache() throws URISyntaxException {
+        TeamDto team = extractPayload(restTemplate.postForEntity(
+                getUrlForRoute("/api/teams"), new CreateTeamCommand("Twilight Company"), TeamDto.class));
+        UserDto user = extractPayload(restTemplate.postForEntity(
+                getUrlForRoute("/api/users"), new CreateUserCommand(29, "Hazram", "Namir"), UserDto.class));
+
+        restTemplate.postForEntity(getUrlForRoute("/api/teams/" + team.getId() + "/members"),
+                new CreateTeamMemberCommand(user.getId()), Object.class);
+
+        URI retrieveTeamUri = getUrlForRoute("/api/teams/" + team.getId());
+
+        // The first read fills the cache
+        ResponseEntity<TeamDetailsDto> firstResponse
+                = restTemplate.getForEntity(retrieveTeamUri, TeamDetailsDto.class);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        double hits = countGets("hit");
+
+        // The second read is served from the serialized details
+        ResponseEntity<TeamDetailsDto> cachedResponse
+                = restTemplate.getForEntity(retrieveTeamUri, TeamDetailsDto.class);
+
+        assertEquals(HttpStatus.OK, cachedResponse.getStatusCode());
+        assertEquals(extractPayload(firstResponse).getName(), extractPayload(cachedResponse).getName());
+        assertEquals(1, extractPayload(cachedResponse).getMembers().size());
+        assertEquals(firstResponse.getHeaders().getETag(), cachedResponse.getHeaders().getETag());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getSecondLevelCacheHitCount());
+        assertEquals(hits + 1, countGets("hit"));
+
+        // Renaming the member invalidates the details of its team
+        restTemplate.put(getUrlForRoute("/api/users/" + user.getId()),
+                new UpdateUserCommand(29, "Gadren", "Namir"));
+
+        TeamDetailsDto updatedTeam = extractPayload(restTemplate.getForEntity(retrieveTeamUri, TeamDetailsDto.class));
+
+        assertEquals("Gadren", updatedTeam.getMembers().get(0).getFirstname());
+        assertTrue(meterRegistry.get("cache.memory.used").tag("cache", "teamDetails").gauge().value() > 0);
+    }
+
+    /**
+     * Count the reads of the cached details of the teams
+     *
+     * @param result Result of the reads, either hit or miss
+     * @return The number of reads with this result
+     */
+    private double countGets(String result) {
+        return meterRegistry.get("cache.gets").tags("cache", "teamDetails", "result", result).counter().count();
+    }
+
+}
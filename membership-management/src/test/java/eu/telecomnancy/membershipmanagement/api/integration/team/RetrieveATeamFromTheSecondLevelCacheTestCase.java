@@ -0,0 +1,99 @@
+package eu.telecomnancy.membershipmanagement.api.integration.team;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.team.TeamReadRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.team.TeamWriteRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.caching.TeamDetailsResponseCache;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamMemberCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDetailsDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.integration.IntegrationTest;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Case :
+ *     (Read & Write operations)
+ *     Test that a team read again is served by the second-level cache, and that its members are refreshed on change
+ *
+ * @see TeamReadRestController
+ * @see TeamWriteRestController
+ */
+public class RetrieveATeamFromTheSecondLevelCacheTestCase extends IntegrationTest {
+
+    /**
+     * Factory from which retrieving the Hibernate statistics
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Cache of the serialized details of the teams, bypassed by this test
+     */
+    @Autowired
+    private TeamDetailsResponseCache teamDetailsCache;
+
+    /**
+     * Ensure that reading a team twice does not query the database the second time, and that adding a member evicts
+     * the cached members of the team
+     *
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    @Test
+    public void retrieveATeamFromTheSecondLevelCache() throws URISyntaxException {
+        URI teamCreationUri = getUrlForRoute("/api/teams");
+        TeamDto team = extractPayload(
+                restTemplate.postForEntity(teamCreationUri, new CreateTeamCommand("CachedTeam"), TeamDto.class));
+
+        URI retrieveTeamUri = getUrlForRoute("/api/teams/" + team.getId());
+        addNewMember(team.getId());
+
+        // The first read fills the cache
+        restTemplate.getForEntity(retrieveTeamUri, TeamDetailsDto.class);
+
+        // Drop the serialized details of the team, so that the second read goes through the second-level cache
+        teamDetailsCache.invalidateAll();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        TeamDetailsDto cachedTeam = extractPayload(restTemplate.getForEntity(retrieveTeamUri, TeamDetailsDto.class));
+
+        assertEquals(1, cachedTeam.getMembers().size());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+
+        // Adding a member must not leave the former members in the cache
+        addNewMember(team.getId());
+
+        TeamDetailsDto updatedTeam = extractPayload(restTemplate.getForEntity(retrieveTeamUri, TeamDetailsDto.class));
+
+        assertEquals(2, updatedTeam.getMembers().size());
+    }
+
+    /**
+     * Create a user and add it to a team
+     *
+     * @param teamId Id of the team joined by the user
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    private void addNewMember(long teamId) throws URISyntaxException {
+        UserDto user = extractPayload(restTemplate.postForEntity(
+                getUrlForRoute("/api/users"), new CreateUserCommand(30, "Cassian", "Andor"), UserDto.class));
+
+        restTemplate.postForEntity(getUrlForRoute("/api/teams/" + teamId + "/members"),
+                new CreateTeamMemberCommand(user.getId()), Object.class);
+    }
+
+}
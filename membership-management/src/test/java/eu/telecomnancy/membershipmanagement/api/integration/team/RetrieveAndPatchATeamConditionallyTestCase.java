@@ -0,0 +1,153 @@
+package eu.telecomnancy.membershipmanagement.api.integration.team;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.team.TeamReadRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.team.TeamWriteRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamMemberCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.PatchTeamCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDetailsDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.integration.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Case :
+ *     (Read & Write operations)
+ *     Test that a team is served with an entity tag, that a client holding its current version gets a 304, and that
+ *     a patch based on a former version is rejected
+ *
+ * @see TeamReadRestController
+ * @see TeamWriteRestController
+ */
+public class RetrieveAndPatchATeamConditionallyTestCase extends IntegrationTest {
+
+    /**
+     * Template supporting the PATCH requests
+     */
+    private final RestTemplate patchingRestTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory());
+
+    /**
+     * Ensure that the entity tag of a team follows its changes, those of its members included
+     *
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    @Test
+    public void retrieveATeamConditionally() throws URISyntaxException {
+        TeamDto team = extractPayload(restTemplate.postForEntity(
+                getUrlForRoute("/api/teams"), new CreateTeamCommand("Rogue Squadron"), TeamDto.class));
+        UserDto user = extractPayload(restTemplate.postForEntity(
+                getUrlForRoute("/api/users"), new CreateUserCommand(24, "Wedge", "Antilles"), UserDto.class));
+
+        URI teamUri = getUrlForRoute("/api/teams/" + team.getId());
+
+        // The team is served with its entity tag
+        ResponseEntity<TeamDetailsDto> retrievedResponse = restTemplate.getForEntity(teamUri, TeamDetailsDto.class);
+
+        String entityTag = retrievedResponse.getHeaders().getETag();
+
+        assertEquals(HttpStatus.OK, retrievedResponse.getStatusCode());
+        assertNotNull(entityTag);
+
+        // A client already holding this version is told so, without any payload
+        ResponseEntity<TeamDetailsDto> notModifiedResponse = getIfNoneMatch(teamUri, entityTag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, notModifiedResponse.getStatusCode());
+        assertEquals(entityTag, notModifiedResponse.getHeaders().getETag());
+
+        // Adding a member changes the representation of the team, and so its tag
+        restTemplate.postForEntity(getUrlForRoute("/api/teams/" + team.getId() + "/members"),
+                new CreateTeamMemberCommand(user.getId()), Object.class);
+
+        ResponseEntity<TeamDetailsDto> modifiedResponse = getIfNoneMatch(teamUri, entityTag);
+
+        assertEquals(HttpStatus.OK, modifiedResponse.getStatusCode());
+        assertEquals(1, extractPayload(modifiedResponse).getMemberCount());
+        assertNotEquals(entityTag, modifiedResponse.getHeaders().getETag());
+    }
+
+    /**
+     * Ensure that a patch based on a former version of a team is rejected, and that one based on its current version
+     * is performed
+     *
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    @Test
+    public void patchATeamConditionally() throws URISyntaxException {
+        TeamDto team = extractPayload(restTemplate.postForEntity(
+                getUrlForRoute("/api/teams"), new CreateTeamCommand("Wraith Squadron"), TeamDto.class));
+
+        URI teamUri = getUrlForRoute("/api/teams/" + team.getId());
+
+        String staleEntityTag = restTemplate.getForEntity(teamUri, TeamDetailsDto.class).getHeaders().getETag();
+
+        // Another client renames the team
+        String currentEntityTag = patchIfMatch(teamUri, new PatchTeamCommand("Phantom Squadron"), staleEntityTag)
+                .getHeaders()
+                .getETag();
+
+        assertNotEquals(staleEntityTag, currentEntityTag);
+
+        // The client still holding the former version can't overwrite this change
+        HttpStatusCodeException exception = assertThrows(
+                HttpStatusCodeException.class,
+                () -> patchIfMatch(teamUri, new PatchTeamCommand("Wraith Squadron"), staleEntityTag));
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, exception.getStatusCode());
+
+        // Once it holds the current version, its patch is performed
+        ResponseEntity<TeamDto> patchedResponse
+                = patchIfMatch(teamUri, new PatchTeamCommand("Wraith Squadron"), currentEntityTag);
+
+        assertEquals(HttpStatus.OK, patchedResponse.getStatusCode());
+        assertEquals("Wraith Squadron", extractPayload(patchedResponse).getName());
+    }
+
+    /**
+     * Retrieve a team, providing the tag of the version held by the client
+     *
+     * @param teamUri URI of the team
+     * @param entityTag Tag of the version held by the client
+     * @return The response of the API
+     */
+    private ResponseEntity<TeamDetailsDto> getIfNoneMatch(URI teamUri, String entityTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(entityTag);
+
+        return restTemplate.exchange(teamUri, HttpMethod.GET, new HttpEntity<>(headers), TeamDetailsDto.class);
+    }
+
+    /**
+     * Patch a team, providing the tag of the version on which the patch is based
+     *
+     * @param teamUri URI of the team
+     * @param command Patch to apply
+     * @param entityTag Tag of the version on which the patch is based
+     * @return The response of the API
+     */
+    private ResponseEntity<TeamDto> patchIfMatch(URI teamUri, PatchTeamCommand command, String entityTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch(entityTag);
+
+        return patchingRestTemplate.exchange(teamUri, HttpMethod.PATCH, new HttpEntity<>(command, headers),
+                TeamDto.class);
+    }
+
+}
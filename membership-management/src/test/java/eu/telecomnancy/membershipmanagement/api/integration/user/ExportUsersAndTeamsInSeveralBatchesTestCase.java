@@ -0,0 +1,118 @@
+package eu.telecomnancy.membershipmanagement.api.integration.user;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.team.TeamReadRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.user.UserReadRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.DetachingRepository;
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.StreamingHints;
+import eu.telecomnancy.membershipmanagement.api.integration.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Case :
+ *     (Read-only operation)
+ *     Test exporting more users and teams than a batch of the stream with the JPA engine, so that the already
+ *     exported entities are detached from the persistence context along the way
+ *
+ * The context uses its own database, dropped after the test, so that the seeded rows do not show in the other cases
+ *
+ * @see DetachingRepository
+ * @see TeamReadRestController
+ * @see UserReadRestController
+ */
+@DirtiesContext
+@TestPropertySource(properties = {
+        "persistence.engine=jpa",
+        "spring.datasource.generate-unique-name=true"
+})
+public class ExportUsersAndTeamsInSeveralBatchesTestCase extends IntegrationTest {
+
+    /**
+     * Number of users and of teams seeded, spanning several batches of the stream
+     */
+    private static final int SEEDED_COUNT = 2 * StreamingHints.BATCH_SIZE + 1;
+
+    /**
+     * First id of the seeded rows, far from the ones handed out by the sequences
+     */
+    private static final long SEEDED_IDS_OFFSET = 1_000_000_000L;
+
+    /**
+     * Template used to seed the database without going through the API
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Ensure that when we perform a GET /users/export and a GET /teams/export over several batches, all the seeded
+     * users and teams are exported once
+     *
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    @Test
+    public void exportUsersAndTeamsInSeveralBatches() throws URISyntaxException {
+        List<Object[]> rows = new ArrayList<>(SEEDED_COUNT);
+        LongStream.range(SEEDED_IDS_OFFSET, SEEDED_IDS_OFFSET + SEEDED_COUNT)
+                .forEach(id -> rows.add(new Object[] { id, "Team" }));
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO team (team_id, creation_date, is_complete, name) VALUES (?, CURRENT_TIMESTAMP, false, ?)",
+                rows);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (id, age, firstname, name, team_id) VALUES (?, 22, 'Jane', ?, NULL)",
+                rows);
+
+        Set<Long> seededIds = LongStream.range(SEEDED_IDS_OFFSET, SEEDED_IDS_OFFSET + SEEDED_COUNT)
+                .boxed()
+                .collect(Collectors.toSet());
+
+        // Export all the users
+        URI usersUri = getUrlForRoute("/api/users/export");
+        ResponseEntity<List<UserDto>> usersResponse
+                = restTemplate.exchange(usersUri, HttpMethod.GET, null, new ParameterizedTypeReference<>() { });
+
+        assertEquals(HttpStatus.OK, usersResponse.getStatusCode());
+        List<Long> exportedUserIds = extractPayload(usersResponse).stream()
+                .map(UserDto::getId)
+                .filter(seededIds::contains)
+                .collect(Collectors.toList());
+
+        assertEquals(SEEDED_COUNT, exportedUserIds.size());
+        assertTrue(exportedUserIds.containsAll(seededIds));
+
+        // Export all the teams
+        URI teamsUri = getUrlForRoute("/api/teams/export");
+        ResponseEntity<List<TeamDto>> teamsResponse
+                = restTemplate.exchange(teamsUri, HttpMethod.GET, null, new ParameterizedTypeReference<>() { });
+
+        assertEquals(HttpStatus.OK, teamsResponse.getStatusCode());
+        List<Long> exportedTeamIds = extractPayload(teamsResponse).stream()
+                .map(TeamDto::getId)
+                .filter(seededIds::contains)
+                .collect(Collectors.toList());
+
+        assertEquals(SEEDED_COUNT, exportedTeamIds.size());
+        assertTrue(exportedTeamIds.containsAll(seededIds));
+    }
+
+}
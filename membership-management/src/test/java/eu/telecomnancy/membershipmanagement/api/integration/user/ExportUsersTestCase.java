@@ -0,0 +1,77 @@
+package eu.telecomnancy.membershipmanagement.api.integration.user;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.user.UserReadRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.integration.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Case :
+ *     (Read-only operation)
+ *     Test exporting all users at once when multiple users had been created
+ *
+ * @see UserReadRestController
+ */
+public class ExportUsersTestCase extends IntegrationTest {
+
+    /**
+     * Ensure that when we perform a GET /users/export, we retrieve a JSON array containing all the users, and only
+     * the ones without team when filtering on it
+     *
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    @Test
+    public void exportUsers() throws URISyntaxException {
+        List<CreateUserCommand> usersToCreate = Arrays.asList(
+                new CreateUserCommand(53, "Jango", "Fett"),
+                new CreateUserCommand(41, "Boba", "Fett"));
+
+        URI createUserUri = getUrlForRoute("/api/users");
+
+        List<Long> createdUsersIds = usersToCreate.stream()
+                .map(userToCreate
+                        -> restTemplate.postForEntity(createUserUri, userToCreate, UserDto.class))
+                .map(this::extractPayload)
+                .map(UserDto::getId)
+                .collect(Collectors.toList());
+
+        // Export all the users
+        URI uri = getUrlForRoute("/api/users/export");
+
+        ResponseEntity<List<UserDto>> exportResponse
+                = restTemplate.exchange(uri, HttpMethod.GET, null, new ParameterizedTypeReference<>() { });
+
+        assertEquals(exportResponse.getStatusCode(), HttpStatus.OK);
+        List<Long> exportedUsersIds = extractPayload(exportResponse).stream()
+                .map(UserDto::getId)
+                .collect(Collectors.toList());
+
+        assertTrue(exportedUsersIds.containsAll(createdUsersIds));
+
+        // Export only the users without team, which should include the newly created ones
+        URI filteredUri = getUrlForRoute("/api/users/export?hasTeam=false");
+
+        ResponseEntity<List<UserDto>> filteredExportResponse
+                = restTemplate.exchange(filteredUri, HttpMethod.GET, null, new ParameterizedTypeReference<>() { });
+
+        List<Long> filteredUsersIds = extractPayload(filteredExportResponse).stream()
+                .map(UserDto::getId)
+                .collect(Collectors.toList());
+
+        assertTrue(filteredUsersIds.containsAll(createdUsersIds));
+    }
+
+}
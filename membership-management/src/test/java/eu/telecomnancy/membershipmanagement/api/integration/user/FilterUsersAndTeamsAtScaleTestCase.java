@@ -0,0 +1,219 @@
+package eu.telecomnancy.membershipmanagement.api.integration.user;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.team.TeamReadRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.user.UserReadRestController;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.integration.IntegrationTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Case :
+ *     (Read operations)
+ *     Test that the users filtered on their team and the teams filtered on their completeness are retrieved in a time
+ *     that does not grow with the number of stored users
+ *
+ * The context uses its own database, dropped after the test, so that the seeded rows do not slow the other cases down
+ *
+ * Seeding a million users takes a while and the measures depend on the load of the machine: the case is tagged as a
+ * performance test, left out of the `test` task and run by the `performanceTest` one
+ *
+ * @see TeamReadRestController
+ * @see UserReadRestController
+ */
+@Tag("performance")
+@DirtiesContext
+@TestPropertySource(properties = "spring.datasource.generate-unique-name=true")
+public class FilterUsersAndTeamsAtScaleTestCase extends IntegrationTest {
+
+    /**
+     * Number of users stored for the first measures
+     */
+    private static final int SMALL_USERS_COUNT = 10_000;
+
+    /**
+     * Number of users stored for the last measures
+     */
+    private static final int LARGE_USERS_COUNT = 1_000_000;
+
+    /**
+     * Number of users without team and of incomplete teams, the only ones matched by the filters
+     */
+    private static final int FILTERED_ROWS_COUNT = 10;
+
+    /**
+     * Number of rows inserted per JDBC batch while seeding
+     */
+    private static final int INSERT_BATCH_SIZE = 10_000;
+
+    /**
+     * Number of requests performed to warm up the endpoint, then to measure it
+     */
+    private static final int MEASURES_COUNT = 20;
+
+    /**
+     * Maximum accepted slowdown between the small and the large scale, while the number of users grows 100 times
+     */
+    private static final long MAX_SLOWDOWN = 10;
+
+    /**
+     * First id of the seeded rows, far from the ones handed out by the sequences
+     */
+    private static final long SEEDED_IDS_OFFSET = 1_000_000_000L;
+
+    /**
+     * Template used to seed the database without going through the API
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Next id of a seeded team
+     */
+    private long nextTeamId = SEEDED_IDS_OFFSET;
+
+    /**
+     * Next id of a seeded user
+     */
+    private long nextUserId = SEEDED_IDS_OFFSET;
+
+    /**
+     * Ensure that the filtered retrievals stay sub-linear when the number of users grows from ten thousands to a
+     * million
+     *
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    @Test
+    public void filterUsersAndTeamsAtScale() throws URISyntaxException {
+        URI teamlessUsersUri = getUrlForRoute("/api/users?hasTeam=false");
+        URI incompleteTeamsUri = getUrlForRoute("/api/teams?isComplete=false");
+
+        // The filtered rows are created first, so that they are not found at the end of a scan on the ids
+        seedFilteredRows();
+        seedCompleteTeams(SMALL_USERS_COUNT / Team.MAX_MEMBERS);
+
+        long smallScaleUsersNanos = measureRetrieval(teamlessUsersUri);
+        long smallScaleTeamsNanos = measureRetrieval(incompleteTeamsUri);
+
+        seedCompleteTeams((LARGE_USERS_COUNT - SMALL_USERS_COUNT) / Team.MAX_MEMBERS);
+
+        long largeScaleUsersNanos = measureRetrieval(teamlessUsersUri);
+        long largeScaleTeamsNanos = measureRetrieval(incompleteTeamsUri);
+
+        assertTrue(largeScaleUsersNanos < MAX_SLOWDOWN * smallScaleUsersNanos,
+                String.format("Users retrieval went from %d ns to %d ns", smallScaleUsersNanos, largeScaleUsersNanos));
+        assertTrue(largeScaleTeamsNanos < MAX_SLOWDOWN * smallScaleTeamsNanos,
+                String.format("Teams retrieval went from %d ns to %d ns", smallScaleTeamsNanos, largeScaleTeamsNanos));
+    }
+
+    /**
+     * Retrieve the resources of the URI several times and compute the median duration of the retrievals
+     *
+     * @param uri URI of the resources to retrieve
+     * @return The median duration of a retrieval, in nanoseconds
+     */
+    private long measureRetrieval(URI uri) {
+        long[] durations = new long[MEASURES_COUNT];
+
+        // Warm up the endpoint before measuring it
+        for (int i = 0; i < MEASURES_COUNT; ++i) {
+            restTemplate.getForEntity(uri, Object[].class);
+        }
+
+        for (int i = 0; i < MEASURES_COUNT; ++i) {
+            long start = System.nanoTime();
+            ResponseEntity<Object[]> response = restTemplate.getForEntity(uri, Object[].class);
+            durations[i] = System.nanoTime() - start;
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(FILTERED_ROWS_COUNT, extractPayload(response).length);
+        }
+
+        Arrays.sort(durations);
+
+        return durations[MEASURES_COUNT / 2];
+    }
+
+    /**
+     * Store the complete teams and their members
+     *
+     * @param teamsCount Number of complete teams to store
+     */
+    private void seedCompleteTeams(int teamsCount) {
+        List<Object[]> teams = new ArrayList<>(INSERT_BATCH_SIZE);
+        List<Object[]> users = new ArrayList<>(INSERT_BATCH_SIZE);
+
+        for (int i = 0; i < teamsCount; ++i) {
+            long teamId = nextTeamId++;
+            teams.add(new Object[] { teamId, true });
+
+            for (int j = 0; j < Team.MAX_MEMBERS; ++j) {
+                users.add(new Object[] { nextUserId++, teamId });
+            }
+
+            if (users.size() >= INSERT_BATCH_SIZE) {
+                insertTeams(teams);
+                insertUsers(users);
+            }
+        }
+
+        insertTeams(teams);
+        insertUsers(users);
+    }
+
+    /**
+     * Store the users without team and the incomplete teams
+     */
+    private void seedFilteredRows() {
+        List<Object[]> teams = new ArrayList<>(FILTERED_ROWS_COUNT);
+        List<Object[]> users = new ArrayList<>(FILTERED_ROWS_COUNT);
+
+        for (int i = 0; i < FILTERED_ROWS_COUNT; ++i) {
+            teams.add(new Object[] { nextTeamId++, false });
+            users.add(new Object[] { nextUserId++, null });
+        }
+
+        insertTeams(teams);
+        insertUsers(users);
+    }
+
+    /**
+     * Insert the teams in a single batch, then clear the list
+     *
+     * @param teams Id and completeness of each team to insert
+     */
+    private void insertTeams(List<Object[]> teams) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO team (team_id, creation_date, is_complete, name) VALUES (?, CURRENT_TIMESTAMP, ?, 'Team')",
+                teams);
+        teams.clear();
+    }
+
+    /**
+     * Insert the users in a single batch, then clear the list
+     *
+     * @param users Id and team id of each user to insert
+     */
+    private void insertUsers(List<Object[]> users) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (id, age, firstname, name, team_id) VALUES (?, 22, 'Jane', 'Doe', ?)",
+                users);
+        users.clear();
+    }
+
+}
@@ -0,0 +1,133 @@
+package eu.telecomnancy.membershipmanagement.api.integration.user;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.snapshot.ContentSnapshotRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.snapshot.ContentSnapshotDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.dal.outbox.OutboxRepository;
+import eu.telecomnancy.membershipmanagement.api.integration.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URISyntaxException;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Case :
+ *     (Read & Write operations)
+ *     Test that the snapshot of the content follows the changes once their events are positioned, along with the
+ *     position of these events, whether their messages are still in the outbox or deleted
+ *
+ * @see ContentSnapshotRestController
+ */
+public class RetrieveTheContentSnapshotTestCase extends IntegrationTest {
+
+    /**
+     * Template used to count the entities and the messages of the outbox
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Outbox of the events, holding the snapshot
+     */
+    @Autowired
+    private OutboxRepository outbox;
+
+    /**
+     * Manager of the transactions positioning the messages of the outbox
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Ensure that the snapshot counts the created entities, and is positioned on the event of the last one
+     *
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    @Test
+    public void retrieveTheSnapshotOfTheContent() throws URISyntaxException {
+        positionTheMessages();
+
+        ContentSnapshotDto before = extractPayload(
+                restTemplate.getForEntity(getUrlForRoute("/api/snapshot"), ContentSnapshotDto.class));
+
+        extractPayload(restTemplate.postForEntity(
+                getUrlForRoute("/api/teams"), new CreateTeamCommand("Rogue Squadron"), TeamDto.class));
+        extractPayload(restTemplate.postForEntity(
+                getUrlForRoute("/api/users"), new CreateUserCommand(21, "Wedge", "Antilles"), UserDto.class));
+
+        positionTheMessages();
+
+        ContentSnapshotDto after = extractPayload(
+                restTemplate.getForEntity(getUrlForRoute("/api/snapshot"), ContentSnapshotDto.class));
+
+        assertEquals(before.getStream(), after.getStream());
+        assertEquals(before.getTeamCount() + 1, after.getTeamCount());
+        assertEquals(before.getUserCount() + 1, after.getUserCount());
+        assertTrue(after.getPosition() > before.getPosition());
+
+        // The snapshot matches the content, and is positioned on the event of the creation of the user
+        assertEquals(count("SELECT COUNT(*) FROM team"), after.getTeamCount());
+        assertEquals(count("SELECT COUNT(*) FROM users"), after.getUserCount());
+        assertEquals(count("SELECT MAX(stream_position) FROM outbox_message"), after.getPosition());
+    }
+
+    /**
+     * Ensure that deleting the sent messages of the outbox, once positioned, does not change the snapshot
+     *
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    @Test
+    public void deleteThePositionedMessages() throws URISyntaxException {
+        extractPayload(restTemplate.postForEntity(
+                getUrlForRoute("/api/users"), new CreateUserCommand(19, "Jyn", "Erso"), UserDto.class));
+
+        positionTheMessages();
+
+        ContentSnapshotDto before = extractPayload(
+                restTemplate.getForEntity(getUrlForRoute("/api/snapshot"), ContentSnapshotDto.class));
+
+        jdbcTemplate.update("UPDATE outbox_message SET sent_at = CURRENT_TIMESTAMP WHERE sent_at IS NULL");
+        outbox.deleteSentBefore(Instant.now().plusSeconds(1));
+
+        ContentSnapshotDto after = extractPayload(
+                restTemplate.getForEntity(getUrlForRoute("/api/snapshot"), ContentSnapshotDto.class));
+
+        assertEquals(before, after);
+        assertEquals(count("SELECT COUNT(*) FROM users"), after.getUserCount());
+    }
+
+    /**
+     * Position all the committed messages of the outbox, as the relay does
+     */
+    private void positionTheMessages() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Integer positionedCount;
+
+        do {
+            positionedCount = transactionTemplate.execute(status -> outbox.assignPositions(100));
+        } while (positionedCount != null && positionedCount > 0);
+    }
+
+    /**
+     * Run a query counting rows
+     *
+     * @param query Query returning a single number
+     * @return The number returned by the query
+     */
+    private long count(String query) {
+        Long count = jdbcTemplate.queryForObject(query, Long.class);
+
+        return count == null ? 0 : count;
+    }
+
+}
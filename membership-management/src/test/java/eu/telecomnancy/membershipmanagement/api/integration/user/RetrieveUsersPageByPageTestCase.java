@@ -0,0 +1,80 @@
+package eu.telecomnancy.membershipmanagement.api.integration.user;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.user.UserReadRestController;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.pagination.CursorPageResponse;
+import eu.telecomnancy.membershipmanagement.api.integration.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Case :
+ *     (Read-only operation)
+ *     Test getting all users page by page by following the next cursor
+ *
+ * @see UserReadRestController
+ */
+public class RetrieveUsersPageByPageTestCase extends IntegrationTest {
+
+    /**
+     * Ensure that when we perform successive GET /users with a limit, following the next cursor, we retrieve all
+     * the users ordered by their id and each of them only once
+     *
+     * @throws URISyntaxException Throws exception when the URI is invalid
+     */
+    @Test
+    public void getUsersPageByPage() throws URISyntaxException {
+        List<CreateUserCommand> usersToCreate = Arrays.asList(
+                new CreateUserCommand(30, "Bo-Katan", "Kryze"),
+                new CreateUserCommand(31, "Ahsoka", "Tano"),
+                new CreateUserCommand(32, "Cara", "Dune"));
+
+        URI createUserUri = getUrlForRoute("/api/users");
+
+        List<Long> createdUsersIds = usersToCreate.stream()
+                .map(userToCreate
+                        -> restTemplate.postForEntity(createUserUri, userToCreate, UserDto.class))
+                .map(this::extractPayload)
+                .map(UserDto::getId)
+                .collect(Collectors.toList());
+
+        // Retrieve the users two by two, until there is no next page
+        List<Long> retrievedUsersIds = new ArrayList<>();
+        String nextCursor = "0";
+
+        while (nextCursor != null) {
+            URI uri = getUrlForRoute("/api/users?limit=2&after=" + nextCursor);
+
+            ResponseEntity<List<UserDto>> pageResponse
+                    = restTemplate.exchange(uri, HttpMethod.GET, null, new ParameterizedTypeReference<>() { });
+
+            assertEquals(pageResponse.getStatusCode(), HttpStatus.OK);
+            List<UserDto> page = extractPayload(pageResponse);
+            assertTrue(page.size() <= 2);
+
+            page.stream()
+                    .map(UserDto::getId)
+                    .forEach(retrievedUsersIds::add);
+
+            nextCursor = pageResponse.getHeaders().getFirst(CursorPageResponse.NEXT_CURSOR_HEADER);
+        }
+
+        // Ensure that all users have been retrieved once, in order
+        assertTrue(retrievedUsersIds.containsAll(createdUsersIds));
+        assertEquals(retrievedUsersIds, retrievedUsersIds.stream().sorted().distinct().collect(Collectors.toList()));
+    }
+
+}
@@ -0,0 +1,218 @@
+package eu.telecomnancy.membershipmanagement.api.integration.user;
+
+import com.sun.management.ThreadMXBean;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.GetUsersQuery;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.mappings.UserMapper;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.domain.User;
+import eu.telecomnancy.membershipmanagement.api.integration.IntegrationTest;
+import eu.telecomnancy.membershipmanagement.api.services.pagination.CursorPage;
+import eu.telecomnancy.membershipmanagement.api.services.user.IUserQueryService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Case :
+ *     (Read operations)
+ *     Benchmark a page of users read through the DTO projection against the same page read as managed entities
+ *     then mapped, the way the users were listed before
+ *
+ * The context uses its own database, dropped after the test, so that the seeded rows do not slow the other cases down
+ *
+ * @see IUserQueryService#getUsers(GetUsersQuery)
+ */
+@DirtiesContext
+@TestPropertySource(properties = "spring.datasource.generate-unique-name=true")
+public class RetrieveUsersThroughProjectionsTestCase extends IntegrationTest {
+
+    /**
+     * Logger reporting the measures of both read paths
+     */
+    private static final Logger log = LogManager.getLogger(RetrieveUsersThroughProjectionsTestCase.class);
+
+    /**
+     * Number of users in a page, the largest one allowed
+     */
+    private static final int PAGE_SIZE = CursorPage.MAX_LIMIT;
+
+    /**
+     * Number of retrievals performed to warm up each read path, then to measure it
+     */
+    private static final int MEASURES_COUNT = 30;
+
+    /**
+     * First id of the seeded rows, far from the ones handed out by the sequences
+     */
+    private static final long SEEDED_IDS_OFFSET = 1_000_000_000L;
+
+    /**
+     * Previous read path: the page of users loaded as managed entities, along with their team
+     */
+    private static final String ENTITY_PAGE_QUERY = "SELECT u FROM users u WHERE u.id > :after ORDER BY u.id";
+
+    /**
+     * Entity manager of the previous read path
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Template used to seed the database without going through the API
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Template of the read-write transaction of the previous read path
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * UserDto mapper utility of the previous read path
+     */
+    @Autowired
+    private UserMapper userMapper;
+
+    /**
+     * User service reading the pages through the projection
+     */
+    @Autowired
+    private IUserQueryService userService;
+
+    /**
+     * Ensure that reading a page of users through the projection allocates less than loading and mapping the
+     * entities, and report the latency of both read paths
+     */
+    @Test
+    public void retrieveUsersThroughProjections() {
+        seedUsersInTeams();
+
+        Measure entities = measure(() -> transactionTemplate.execute(status -> userMapper.toDtoList(
+                entityManager.createQuery(ENTITY_PAGE_QUERY, User.class)
+                        .setParameter("after", SEEDED_IDS_OFFSET - 1)
+                        .setMaxResults(PAGE_SIZE)
+                        .getResultList())));
+
+        Measure projections = measure(() -> userService.getUsers(
+                new GetUsersQuery(Optional.empty(), SEEDED_IDS_OFFSET - 1, PAGE_SIZE)).getContent());
+
+        log.info("Page of {} users as entities: {} µs, {} KB allocated", PAGE_SIZE,
+                entities.medianNanos / 1_000, entities.medianAllocatedBytes / 1_024);
+        log.info("Page of {} users as projections: {} µs, {} KB allocated", PAGE_SIZE,
+                projections.medianNanos / 1_000, projections.medianAllocatedBytes / 1_024);
+
+        assertTrue(projections.medianAllocatedBytes < entities.medianAllocatedBytes,
+                String.format("The projection allocated %d bytes, against %d bytes for the entities",
+                        projections.medianAllocatedBytes, entities.medianAllocatedBytes));
+    }
+
+    /**
+     * Read a page several times and compute the median duration and allocation of the reads
+     *
+     * @param pageRetrieval Retrieval of the page of users
+     * @return The median measures of a retrieval
+     */
+    private Measure measure(Supplier<List<UserDto>> pageRetrieval) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long[] durations = new long[MEASURES_COUNT];
+        long[] allocations = new long[MEASURES_COUNT];
+
+        // Warm up the read path before measuring it
+        for (int i = 0; i < MEASURES_COUNT; ++i) {
+            pageRetrieval.get();
+        }
+
+        for (int i = 0; i < MEASURES_COUNT; ++i) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+
+            List<UserDto> page = pageRetrieval.get();
+
+            durations[i] = System.nanoTime() - start;
+            allocations[i] = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            assertEquals(PAGE_SIZE, page.size());
+        }
+
+        Arrays.sort(durations);
+        Arrays.sort(allocations);
+
+        return new Measure(durations[MEASURES_COUNT / 2], allocations[MEASURES_COUNT / 2]);
+    }
+
+    /**
+     * Store a page of users, all of them being members of a team
+     */
+    private void seedUsersInTeams() {
+        List<Object[]> teams = new ArrayList<>();
+        List<Object[]> users = new ArrayList<>();
+
+        for (int i = 0; i < PAGE_SIZE; ++i) {
+            long teamId = SEEDED_IDS_OFFSET + i / Team.MAX_MEMBERS;
+
+            if (i % Team.MAX_MEMBERS == 0) {
+                teams.add(new Object[] { teamId, true });
+            }
+
+            users.add(new Object[] { SEEDED_IDS_OFFSET + i, teamId });
+        }
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO team (team_id, creation_date, is_complete, name) VALUES (?, CURRENT_TIMESTAMP, ?, 'Team')",
+                teams);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (id, age, firstname, name, team_id) VALUES (?, 22, 'Jane', 'Doe', ?)",
+                users);
+    }
+
+    /**
+     * Median measures of a read path
+     */
+    private static final class Measure {
+
+        /**
+         * Median duration of a retrieval, in nanoseconds
+         */
+        private final long medianNanos;
+
+        /**
+         * Median number of bytes allocated by a retrieval
+         */
+        private final long medianAllocatedBytes;
+
+        /**
+         * Create the measures
+         *
+         * @param medianNanos Median duration of a retrieval, in nanoseconds
+         * @param medianAllocatedBytes Median number of bytes allocated by a retrieval
+         */
+        private Measure(long medianNanos, long medianAllocatedBytes) {
+            this.medianNanos = medianNanos;
+            this.medianAllocatedBytes = medianAllocatedBytes;
+        }
+
+    }
+
+}
@@ -0,0 +1,100 @@
+package eu.telecomnancy.membershipmanagement.api.integration.utils;
+
+import org.apache.qpid.server.SystemLauncher;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * AMQP broker running in the JVM of the tests, so that several instances of the API can exchange messages without
+ * any external RabbitMQ server
+ */
+public final class EmbeddedBroker implements AutoCloseable {
+
+    /**
+     * Initial configuration of the broker, with a single in-memory virtual host and the default RabbitMQ credentials
+     */
+    private static final String INITIAL_CONFIGURATION = "qpid-config.json";
+
+    /**
+     * Name of the virtual host of the broker
+     */
+    public static final String VIRTUAL_HOST = "default";
+
+    /**
+     * Launcher of the broker
+     */
+    private final SystemLauncher launcher;
+
+    /**
+     * Port on which the broker accepts AMQP connections
+     */
+    private final int port;
+
+    /**
+     * Create a started broker
+     *
+     * @param launcher Launcher of the broker
+     * @param port Port on which the broker accepts AMQP connections
+     */
+    private EmbeddedBroker(SystemLauncher launcher, int port) {
+        this.launcher = launcher;
+        this.port = port;
+    }
+
+    /**
+     * Start a broker on a free port, storing everything in memory
+     *
+     * @return The started broker
+     * @throws Exception Throws exception when the broker can't be started
+     */
+    public static EmbeddedBroker start() throws Exception {
+        int port = findFreePort();
+
+        SystemLauncher launcher = new SystemLauncher();
+        launcher.startup(Map.of(
+                "type", "Memory",
+                "initialConfigurationLocation", Objects.requireNonNull(
+                        EmbeddedBroker.class.getClassLoader().getResource(INITIAL_CONFIGURATION)).toExternalForm(),
+                "startupLoggedToSystemOut", false,
+                "context", Map.of(
+                        "qpid.amqp_port", String.valueOf(port),
+                        "qpid.work_dir", Files.createTempDirectory("qpid").toString(),
+                        "qpid.broker.defaultPreferencesStoreAttributes", "{\"type\": \"Noop\"}")));
+
+        return new EmbeddedBroker(launcher, port);
+    }
+
+    /**
+     * Find a port on which no one listens
+     *
+     * @return A free port
+     * @throws IOException Throws exception when no port can be bound
+     */
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Get the port on which the broker accepts AMQP connections
+     *
+     * @return The port of the broker
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Stop the broker, dropping all of its messages
+     */
+    @Override
+    public void close() {
+        launcher.shutdown();
+    }
+
+}
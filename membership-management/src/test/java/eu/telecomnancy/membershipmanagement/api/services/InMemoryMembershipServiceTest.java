@@ -0,0 +1,290 @@
+package eu.telecomnancy.membershipmanagement.api.services;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.*;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUsersCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.GetUserQuery;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.mappings.TeamMapper;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.mappings.UserMapper;
+import eu.telecomnancy.membershipmanagement.api.dal.memory.InMemoryTeamRepository;
+import eu.telecomnancy.membershipmanagement.api.dal.memory.InMemoryUserRepository;
+import eu.telecomnancy.membershipmanagement.api.dal.memory.MembershipStore;
+import eu.telecomnancy.membershipmanagement.api.dal.memory.journal.MembershipJournal;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.domain.User;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.team.TeamAlreadyCompleteException;
+import eu.telecomnancy.membershipmanagement.api.services.notification.MessagingService;
+import eu.telecomnancy.membershipmanagement.api.services.notification.events.EventSequencer;
+import eu.telecomnancy.membershipmanagement.api.services.team.TeamService;
+import eu.telecomnancy.membershipmanagement.api.services.user.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test suite for the UserService and the TeamService backed by the in-memory store
+ *
+ * @see MembershipStore
+ * @see TeamService
+ * @see UserService
+ */
+@ExtendWith(MockitoExtension.class)
+public class InMemoryMembershipServiceTest {
+
+    /**
+     * Mocked messaging service to be injected for the unit tests
+     */
+    @Mock
+    MessagingService messagingService;
+
+    /**
+     * Team service backed by the in-memory store
+     */
+    TeamService teamService;
+
+    /**
+     * User service backed by the in-memory store
+     */
+    UserService userService;
+
+    @BeforeEach
+    public void setUp() {
+        useStore(new MembershipStore());
+    }
+
+    @Test
+    public void givenATeam_WhenAddingMembersUntilItIsFull_ThenItShouldBeComplete() {
+        // Arrange
+        long teamId = teamService.createTeam(new CreateTeamCommand("InMemoTeam")).getId();
+        List<Long> userIds = createUsers(Team.MAX_MEMBERS + 1);
+
+        // Act
+        for (int i = 0; i < Team.MAX_MEMBERS; ++i) {
+            Team team = teamService.addTeamMember(teamId, new CreateTeamMemberCommand(userIds.get(i)));
+
+            assertEquals(i + 1, team.getMembers().size());
+        }
+
+        // Assert
+        Team team = teamService.getTeam(new GetTeamQuery(teamId));
+
+        assertTrue(team.isComplete());
+        assertEquals(Team.MAX_MEMBERS, team.getMemberCount());
+        assertEquals(userIds.subList(0, Team.MAX_MEMBERS), idsOf(team.getMembers()));
+        assertThrows(
+                TeamAlreadyCompleteException.class,
+                () -> teamService.addTeamMember(teamId, new CreateTeamMemberCommand(userIds.get(Team.MAX_MEMBERS))));
+    }
+
+    @Test
+    public void givenACompleteTeam_WhenRemovingAMember_ThenItShouldNoLongerBeCompleteNorHaveThisMember() {
+        // Arrange
+        long teamId = teamService.createTeam(new CreateTeamCommand("InMemoTeam")).getId();
+        List<Long> userIds = createUsers(Team.MAX_MEMBERS);
+
+        teamService.replaceTeamMembers(teamId, new ReplaceTeamMembersCommand(new HashSet<>(userIds)));
+
+        // Act
+        teamService.removeMemberFromTeam(new DeleteTeamMemberCommand(userIds.get(0), teamId));
+
+        // Assert
+        Team team = teamService.getTeam(new GetTeamQuery(teamId));
+
+        assertFalse(team.isComplete());
+        assertEquals(Team.MAX_MEMBERS - 1, team.getMemberCount());
+        assertEquals(userIds.subList(1, Team.MAX_MEMBERS), idsOf(team.getMembers()));
+        assertNull(userService.getUser(new GetUserQuery(userIds.get(0))).getTeam());
+    }
+
+    @Test
+    public void givenATeamWithMembers_WhenReplacingItsMembers_ThenOnlyTheNewMembersShouldBelongToIt() {
+        // Arrange
+        long teamId = teamService.createTeam(new CreateTeamCommand("InMemoTeam")).getId();
+        List<Long> userIds = createUsers(3);
+
+        teamService.replaceTeamMembers(teamId, new ReplaceTeamMembersCommand(Set.of(userIds.get(0), userIds.get(1))));
+
+        // Act
+        teamService.replaceTeamMembers(teamId, new ReplaceTeamMembersCommand(Set.of(userIds.get(1), userIds.get(2))));
+
+        // Assert
+        Team team = teamService.getTeam(new GetTeamQuery(teamId));
+
+        assertEquals(userIds.subList(1, 3), idsOf(team.getMembers()));
+        assertNull(userService.getUser(new GetUserQuery(userIds.get(0))).getTeam());
+        assertEquals(teamId, userService.getUser(new GetUserQuery(userIds.get(2))).getTeam().getId());
+    }
+
+    @Test
+    public void givenATeamWithMembers_WhenDeletingIt_ThenItsMembersShouldNoLongerHaveATeam() {
+        // Arrange
+        long teamId = teamService.createTeam(new CreateTeamCommand("InMemoTeam")).getId();
+        List<Long> userIds = createUsers(2);
+
+        teamService.replaceTeamMembers(teamId, new ReplaceTeamMembersCommand(new HashSet<>(userIds)));
+
+        // Act
+        teamService.deleteTeam(new DeleteTeamCommand(teamId));
+
+        // Assert
+        for (long userId : userIds) {
+            assertNull(userService.getUser(new GetUserQuery(userId)).getTeam());
+        }
+    }
+
+    @Test
+    public void givenAJournaledStore_WhenRestartingIt_ThenItsContentShouldBeRestored(@TempDir Path directory) {
+        // Arrange
+        MembershipJournal journal = openJournal(directory);
+        MembershipStore store = new MembershipStore(Optional.of(journal));
+        useStore(store);
+
+        long teamId = teamService.createTeam(new CreateTeamCommand("InMemoTeam")).getId();
+        List<Long> userIds = createUsers(3);
+
+        teamService.replaceTeamMembers(teamId, new ReplaceTeamMembersCommand(Set.of(userIds.get(0), userIds.get(1))));
+        store.close();
+
+        // The mutations after the snapshot are only in the log
+        teamService.replaceTeamMembers(teamId, new ReplaceTeamMembersCommand(Set.of(userIds.get(1), userIds.get(2))));
+        journal.close();
+
+        // Act
+        MembershipJournal restartedJournal = openJournal(directory);
+        useStore(new MembershipStore(Optional.of(restartedJournal)));
+
+        // Assert
+        try {
+            Team team = teamService.getTeam(new GetTeamQuery(teamId));
+
+            assertEquals("InMemoTeam", team.getName());
+            assertEquals(userIds.subList(1, 3), idsOf(team.getMembers()));
+            assertNull(userService.getUser(new GetUserQuery(userIds.get(0))).getTeam());
+            assertTrue(createUsers(1).get(0) > userIds.get(2));
+        } finally {
+            restartedJournal.close();
+        }
+    }
+
+    @Test
+    public void givenSnapshotsTakenInTheBackground_WhenClosingTheStore_ThenItsContentShouldBeRestored(
+            @TempDir Path directory) {
+        // Arrange
+        // A snapshot is taken in the background after each mutation, along with the one taken on shutdown
+        MembershipJournal journal = new MembershipJournal(directory, 1 << 20, 1, Duration.ofMinutes(1));
+        MembershipStore store = new MembershipStore(Optional.of(journal));
+        useStore(store);
+
+        long teamId = teamService.createTeam(new CreateTeamCommand("InMemoTeam")).getId();
+        List<Long> userIds = createUsers(50);
+
+        teamService.replaceTeamMembers(teamId, new ReplaceTeamMembersCommand(Set.of(userIds.get(0), userIds.get(1))));
+
+        // Act
+        store.close();
+        journal.close();
+
+        MembershipJournal restartedJournal = openJournal(directory);
+        useStore(new MembershipStore(Optional.of(restartedJournal)));
+
+        // Assert
+        try {
+            Team team = teamService.getTeam(new GetTeamQuery(teamId));
+
+            assertEquals(userIds.subList(0, 2), idsOf(team.getMembers()));
+            assertEquals(userIds.get(49), userService.getUser(new GetUserQuery(userIds.get(49))).getId());
+        } finally {
+            restartedJournal.close();
+        }
+    }
+
+    @Test
+    public void givenASequencedStore_WhenCreatingUsersAtOnce_ThenTheSequenceOfTheirEventShouldBeReservedWithThem() {
+        // Arrange
+        EventSequencer sequencer = new EventSequencer();
+        MembershipStore store = new MembershipStore(Optional.empty(), Optional.of(sequencer));
+        useStore(store);
+
+        long teamId = teamService.createTeam(new CreateTeamCommand("InMemoTeam")).getId();
+        sequencer.takeReservedForChange();
+
+        // Act
+        userService.createUsers(new CreateUsersCommand(List.of(
+                new CreateUserCommand(22, "Jane", "Doe"), new CreateUserCommand(23, "John", "Doe"))));
+        teamService.patchTeam(teamId, new PatchTeamCommand("RenamedTeam"), Optional.empty());
+
+        // Assert
+        // The counts read along with the last sequence reflect the creations, and a single sequence notifies them
+        long position = store.readCounts((teamCount, userCount) -> {
+            assertEquals(1, teamCount);
+            assertEquals(2, userCount);
+
+            return sequencer.getLastSequence();
+        });
+
+        assertEquals(2, position);
+        assertEquals(OptionalLong.of(2), sequencer.takeReservedForChange());
+    }
+
+    /**
+     * Create some users without team
+     *
+     * @param count Number of users to create
+     * @return The ids of the created users, in the order of their creation
+     */
+    private List<Long> createUsers(int count) {
+        List<Long> userIds = new ArrayList<>();
+
+        for (int i = 0; i < count; ++i) {
+            userIds.add(userService.createUser(new CreateUserCommand(22, "Jane", "Doe")).getId());
+        }
+
+        return userIds;
+    }
+
+    /**
+     * Open a journal taking no snapshot on its own, so that only the explicit ones are taken
+     *
+     * @param directory Directory of the journal
+     * @return The journal, to be recovered by a store
+     */
+    private static MembershipJournal openJournal(Path directory) {
+        return new MembershipJournal(directory, 1 << 20, Long.MAX_VALUE, Duration.ofMinutes(1));
+    }
+
+    /**
+     * Back the services under test by a store
+     *
+     * @param store Store backing the services
+     */
+    private void useStore(MembershipStore store) {
+        userService = new UserService(
+                messagingService, new InMemoryUserRepository(store), Mappers.getMapper(UserMapper.class));
+        teamService = new TeamService(
+                messagingService, new InMemoryTeamRepository(store), userService, Mappers.getMapper(TeamMapper.class));
+    }
+
+    /**
+     * Extract the ids of some users
+     *
+     * @param users Users from which extracting the ids
+     * @return The ids of the users, in the same order
+     */
+    private static List<Long> idsOf(List<User> users) {
+        return users.stream()
+                .map(User::getId)
+                .collect(Collectors.toList());
+    }
+
+}
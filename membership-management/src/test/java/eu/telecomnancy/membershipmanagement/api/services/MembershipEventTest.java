@@ -0,0 +1,67 @@
+package eu.telecomnancy.membershipmanagement.api.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.telecomnancy.membershipmanagement.api.services.notification.events.MembershipEvent;
+import eu.telecomnancy.membershipmanagement.api.services.notification.events.MembershipEventType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit test suite for the encoding of the MembershipEvent
+ *
+ * @see MembershipEvent
+ */
+public class MembershipEventTest {
+
+    /**
+     * JSON mapper serializing the events
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void givenAMemberAddition_WhenSerialized_ThenOnlyTheVersionAndTheIdsShouldBeWritten() throws Exception {
+        // Arrange
+        MembershipEvent event = MembershipEvent.teamMemberAdded(3L, 7L);
+
+        // Act
+        String payload = objectMapper.writeValueAsString(event);
+
+        // Assert
+        assertEquals("{\"v\":1,\"teamId\":3,\"userId\":7}", payload);
+        assertEquals("team.member.added", event.getType().getRoutingKey());
+    }
+
+    @Test
+    public void givenABatchCreation_WhenSerialized_ThenOnlyTheVersionAndTheCountShouldBeWritten() throws Exception {
+        // Arrange
+        MembershipEvent event = MembershipEvent.usersCreated(42);
+
+        // Act
+        String payload = objectMapper.writeValueAsString(event);
+
+        // Assert
+        assertEquals("{\"v\":1,\"count\":42}", payload);
+        assertEquals(MembershipEventType.USERS_CREATED, event.getType());
+    }
+
+    @Test
+    public void givenTheEventsOfTheChanges_WhenReadingTheirCountDeltas_ThenOnlyCreationsAndDeletionsShouldCount() {
+        // Arrange
+        MembershipEvent teamsCreated = MembershipEvent.teamsCreated(5);
+        MembershipEvent userDeleted = MembershipEvent.userDeleted(7L, 3L);
+        MembershipEvent memberAdded = MembershipEvent.teamMemberAdded(3L, 7L);
+
+        // Act
+        int[] teamCountDeltas = { teamsCreated.getTeamCountDelta(), userDeleted.getTeamCountDelta(),
+                memberAdded.getTeamCountDelta() };
+        int[] userCountDeltas = { teamsCreated.getUserCountDelta(), userDeleted.getUserCountDelta(),
+                memberAdded.getUserCountDelta() };
+
+        // Assert
+        assertArrayEquals(new int[] { 5, 0, 0 }, teamCountDeltas);
+        assertArrayEquals(new int[] { 0, -1, 0 }, userCountDeltas);
+    }
+
+}
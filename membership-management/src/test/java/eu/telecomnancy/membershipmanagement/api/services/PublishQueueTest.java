@@ -0,0 +1,196 @@
+package eu.telecomnancy.membershipmanagement.api.services;
+
+import eu.telecomnancy.membershipmanagement.api.services.notification.BackpressureStrategy;
+import eu.telecomnancy.membershipmanagement.api.services.notification.PublishQueue;
+import eu.telecomnancy.membershipmanagement.api.services.notification.PublishQueueFullException;
+import eu.telecomnancy.membershipmanagement.api.services.notification.PublisherConfirmTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+/**
+ * Unit test suite for the PublishQueue
+ *
+ * @see PublishQueue
+ */
+@ExtendWith(MockitoExtension.class)
+public class PublishQueueTest {
+
+    /**
+     * Capacity of the queue in the unit tests
+     */
+    private static final int CAPACITY = 2;
+
+    /**
+     * Name of the exchange on which the messages are published
+     */
+    private static final String EXCHANGE = "membership-management.api";
+
+    /**
+     * Mocked RabbitMQ template publishing the batches
+     */
+    @Mock
+    RabbitTemplate template;
+
+    /**
+     * Mocked tracker of the confirms of the published messages
+     */
+    @Mock
+    PublisherConfirmTracker confirms;
+
+    /**
+     * Mocked operations of the channel of a batch
+     */
+    @Mock
+    RabbitOperations operations;
+
+    /**
+     * Queue under test, whose publisher is not started unless required
+     */
+    PublishQueue publishQueue;
+
+    @BeforeEach
+    public void setUp() {
+        publishQueue = new PublishQueue(template, confirms, new SimpleMeterRegistry());
+
+        ReflectionTestUtils.setField(publishQueue, "capacity", CAPACITY);
+        ReflectionTestUtils.setField(publishQueue, "maxBatchSize", 100);
+        ReflectionTestUtils.setField(publishQueue, "maxBlock", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(publishQueue, "shutdownTimeout", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(publishQueue, "retryBackoff", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(publishQueue, "maxRetryBackoff", Duration.ofMillis(10));
+    }
+
+    @Test
+    public void givenAFullQueueDroppingTheOldestMessages_WhenPublishing_ThenOnlyTheNewestShouldBePublished()
+            throws InterruptedException {
+        // Arrange
+        ReflectionTestUtils.setField(publishQueue, "backpressure", BackpressureStrategy.DROP_OLDEST);
+
+        Mockito.when(template.invoke(Mockito.<RabbitOperations.OperationsCallback<Object>>any()))
+                .thenAnswer(invocation -> invocation.<RabbitOperations.OperationsCallback<Object>>getArgument(0)
+                        .doInRabbit(operations));
+
+        Message first = messageOf("first");
+        Message second = messageOf("second");
+        Message third = messageOf("third");
+
+        // Act
+        publishQueue.publish(EXCHANGE, "", first);
+        publishQueue.publish(EXCHANGE, "", second);
+        assertDoesNotThrow(() -> publishQueue.publish(EXCHANGE, "", third));
+
+        publishQueue.start();
+        publishQueue.stop();
+
+        // Assert
+        assertEquals(0, publishQueue.getDepth());
+
+        InOrder inOrder = Mockito.inOrder(operations);
+        inOrder.verify(operations).send(eq(EXCHANGE), eq(""), eq(second), any());
+        inOrder.verify(operations).send(eq(EXCHANGE), eq(""), eq(third), any());
+        Mockito.verify(operations, Mockito.never()).send(eq(EXCHANGE), eq(""), eq(first), any());
+
+        // The confirms of the published messages are tracked
+        Mockito.verify(confirms).track(EXCHANGE, "", second, null);
+        Mockito.verify(confirms).track(EXCHANGE, "", third, null);
+
+        // The messages queued before the start are published on a single channel
+        Mockito.verify(template).invoke(Mockito.<RabbitOperations.OperationsCallback<Object>>any());
+    }
+
+    @Test
+    public void givenAnUnreachableBroker_WhenPublishing_ThenTheBatchShouldBePublishedAgain()
+            throws InterruptedException {
+        // Arrange
+        ReflectionTestUtils.setField(publishQueue, "backpressure", BackpressureStrategy.BLOCK);
+
+        Mockito.when(template.invoke(Mockito.<RabbitOperations.OperationsCallback<Object>>any()))
+                .thenThrow(new AmqpException("Broker unreachable"))
+                .thenAnswer(invocation -> invocation.<RabbitOperations.OperationsCallback<Object>>getArgument(0)
+                        .doInRabbit(operations));
+
+        Message first = messageOf("first");
+        Message second = messageOf("second");
+
+        // Act
+        publishQueue.publish(EXCHANGE, "", first);
+        publishQueue.publish(EXCHANGE, "", second);
+
+        publishQueue.start();
+        publishQueue.stop();
+
+        // Assert
+        assertEquals(0, publishQueue.getDepth());
+        Mockito.verify(template, Mockito.times(2)).invoke(Mockito.<RabbitOperations.OperationsCallback<Object>>any());
+
+        InOrder inOrder = Mockito.inOrder(operations);
+        inOrder.verify(operations).send(eq(EXCHANGE), eq(""), eq(first), any());
+        inOrder.verify(operations).send(eq(EXCHANGE), eq(""), eq(second), any());
+    }
+
+    @Test
+    public void givenAFullFailFastQueue_WhenPublishing_ThenTheMessageShouldBeRejected() {
+        // Arrange
+        ReflectionTestUtils.setField(publishQueue, "backpressure", BackpressureStrategy.FAIL_FAST);
+
+        publishQueue.publish(EXCHANGE, "", messageOf("first"));
+        publishQueue.publish(EXCHANGE, "", messageOf("second"));
+
+        // Act + Assert
+        assertThrows(
+                PublishQueueFullException.class,
+                () -> publishQueue.publish(EXCHANGE, "", messageOf("third")));
+        assertEquals(CAPACITY, publishQueue.getDepth());
+        Mockito.verify(operations, Mockito.never())
+                .send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    public void givenAFullBlockingQueue_WhenNoRoomIsMadeInTime_ThenTheMessageShouldBeRejected() {
+        // Arrange
+        ReflectionTestUtils.setField(publishQueue, "backpressure", BackpressureStrategy.BLOCK);
+
+        publishQueue.publish(EXCHANGE, "", messageOf("first"));
+        publishQueue.publish(EXCHANGE, "", messageOf("second"));
+
+        // Act + Assert
+        assertThrows(
+                PublishQueueFullException.class,
+                () -> publishQueue.publish(EXCHANGE, "", messageOf("third")));
+        assertEquals(CAPACITY, publishQueue.getDepth());
+    }
+
+    /**
+     * Create a text message
+     *
+     * @param body Body of the message
+     * @return The message
+     */
+    private static Message messageOf(String body) {
+        return new Message(body.getBytes(StandardCharsets.UTF_8), new MessageProperties());
+    }
+
+}
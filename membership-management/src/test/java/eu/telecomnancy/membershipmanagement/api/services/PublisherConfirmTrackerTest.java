@@ -0,0 +1,198 @@
+package eu.telecomnancy.membershipmanagement.api.services;
+
+import eu.telecomnancy.membershipmanagement.api.services.notification.PublisherConfirmTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.connection.PublisherCallbackChannel;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+/**
+ * Unit test suite for the PublisherConfirmTracker
+ *
+ * @see PublisherConfirmTracker
+ */
+@ExtendWith(MockitoExtension.class)
+public class PublisherConfirmTrackerTest {
+
+    /**
+     * Maximum number of times a message is published in the unit tests
+     */
+    private static final int MAX_ATTEMPTS = 2;
+
+    /**
+     * Maximum duration waited for a message to be published again
+     */
+    private static final long RETRY_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * Name of the exchange on which the messages are published
+     */
+    private static final String EXCHANGE = "membership-management.api";
+
+    /**
+     * Mocked RabbitMQ template publishing the messages again
+     */
+    @Mock
+    RabbitTemplate template;
+
+    /**
+     * Registry of the metrics of the confirms
+     */
+    MeterRegistry meterRegistry;
+
+    /**
+     * Tracker under test
+     */
+    PublisherConfirmTracker tracker;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tracker = new PublisherConfirmTracker(template, meterRegistry);
+
+        ReflectionTestUtils.setField(tracker, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(tracker, "retryCapacity", 10);
+        ReflectionTestUtils.setField(tracker, "retryBackoff", Duration.ofMillis(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        tracker.stop();
+    }
+
+    @Test
+    public void givenAnAckedMessage_WhenConfirmed_ThenItShouldNoLongerBeInFlight() {
+        // Arrange
+        CorrelationData correlationData = tracker.track(EXCHANGE, "content", messageOf("CreateTeamCommand"), null);
+
+        // Act
+        tracker.confirm(correlationData, true, null);
+
+        // Assert
+        assertEquals(0, tracker.getInFlightCount());
+        assertEquals(1, countConfirms("acked"));
+        Mockito.verify(template, Mockito.never()).send(any(), any(), any(Message.class), any());
+    }
+
+    @Test
+    public void givenANackedMessage_WhenConfirmed_ThenItShouldBePublishedAgain() {
+        // Arrange
+        Message message = messageOf("CreateTeamCommand");
+        CorrelationData correlationData = tracker.track(EXCHANGE, "content", message, null);
+
+        // Act
+        tracker.confirm(correlationData, false, "overloaded");
+
+        // Assert
+        ArgumentCaptor<CorrelationData> retryCorrelation = ArgumentCaptor.forClass(CorrelationData.class);
+        Mockito.verify(template, Mockito.timeout(RETRY_TIMEOUT_MILLIS))
+                .send(eq(EXCHANGE), eq("content"), eq(message), retryCorrelation.capture());
+
+        tracker.confirm(retryCorrelation.getValue(), true, null);
+
+        assertEquals(0, tracker.getInFlightCount());
+        assertEquals(1, countConfirms("nacked"));
+        assertEquals(1, countConfirms("acked"));
+    }
+
+    @Test
+    public void givenAMessageAlwaysNacked_WhenConfirmed_ThenItShouldBeAbandonedAfterTheLastAttempt()
+            throws InterruptedException {
+        // Arrange
+        Message message = messageOf("DeleteTeamCommand");
+        CountDownLatch abandoned = new CountDownLatch(1);
+        CorrelationData correlationData = tracker.track(EXCHANGE, "content", message, abandoned::countDown);
+
+        tracker.confirm(correlationData, false, "overloaded");
+
+        ArgumentCaptor<CorrelationData> retryCorrelation = ArgumentCaptor.forClass(CorrelationData.class);
+        Mockito.verify(template, Mockito.timeout(RETRY_TIMEOUT_MILLIS))
+                .send(eq(EXCHANGE), eq("content"), eq(message), retryCorrelation.capture());
+
+        // Act
+        tracker.confirm(retryCorrelation.getValue(), false, "overloaded");
+
+        // Assert
+        assertTrue(abandoned.await(RETRY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(0, tracker.getInFlightCount());
+        assertEquals(1, countConfirms("abandoned"));
+        Mockito.verify(template, Mockito.times(MAX_ATTEMPTS - 1)).send(any(), any(), any(Message.class), any());
+    }
+
+    @Test
+    public void givenAReturnedMessage_WhenConfirmed_ThenItShouldBeCountedWithoutBeingPublishedAgain() {
+        // Arrange
+        Message message = messageOf("PatchUserCommand");
+        Runnable onAbandon = Mockito.mock(Runnable.class);
+
+        CorrelationData correlationData = tracker.track(EXCHANGE, "content", message, onAbandon);
+
+        // Act
+        tracker.returned(returnedMessageOf(correlationData), 312, "NO_ROUTE", EXCHANGE, "content");
+        tracker.confirm(correlationData, true, null);
+
+        // Assert
+        assertEquals(1, countConfirms("returned"));
+        assertEquals(0, countConfirms("abandoned"));
+        assertEquals(0, tracker.getInFlightCount());
+        Mockito.verify(template, Mockito.never()).send(any(), any(), any(Message.class), any());
+        Mockito.verifyNoInteractions(onAbandon);
+    }
+
+    /**
+     * Create a text message
+     *
+     * @param body Body of the message
+     * @return The message
+     */
+    private static Message messageOf(String body) {
+        return new Message(body.getBytes(StandardCharsets.UTF_8), new MessageProperties());
+    }
+
+    /**
+     * Create a message returned by the broker, carrying the id of its correlation data
+     *
+     * @param correlationData Correlation data of the message when published
+     * @return The returned message
+     */
+    private static Message returnedMessageOf(CorrelationData correlationData) {
+        Message message = messageOf("returned");
+        message.getMessageProperties()
+                .setHeader(PublisherCallbackChannel.RETURNED_MESSAGE_CORRELATION_KEY, correlationData.getId());
+
+        return message;
+    }
+
+    /**
+     * Count the confirms with a given outcome
+     *
+     * @param outcome Outcome of the confirms
+     * @return The number of confirms with this outcome
+     */
+    private double countConfirms(String outcome) {
+        return meterRegistry.counter("amqp.publish.confirms", "outcome", outcome).count();
+    }
+
+}
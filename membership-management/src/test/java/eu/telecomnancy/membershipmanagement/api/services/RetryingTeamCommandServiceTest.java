@@ -0,0 +1,101 @@
+package eu.telecomnancy.membershipmanagement.api.services;
+
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.CreateTeamMemberCommand;
+import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.team.TeamAlreadyCompleteException;
+import eu.telecomnancy.membershipmanagement.api.services.team.RetryingTeamCommandService;
+import eu.telecomnancy.membershipmanagement.api.services.team.TeamService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+/**
+ * Unit test suite for the RetryingTeamCommandService
+ *
+ * @see RetryingTeamCommandService
+ */
+@ExtendWith(MockitoExtension.class)
+public class RetryingTeamCommandServiceTest {
+
+    /**
+     * Maximum number of attempts of a command in the unit tests
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Mocked team service performing the commands
+     */
+    @Mock
+    TeamService teamService;
+
+    /**
+     * Service under test
+     */
+    RetryingTeamCommandService retryingService;
+
+    @BeforeEach
+    public void setUp() {
+        retryingService = new RetryingTeamCommandService(teamService);
+
+        ReflectionTestUtils.setField(retryingService, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(retryingService, "initialBackoff", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(retryingService, "maxBackoff", Duration.ofMillis(2));
+    }
+
+    @Test
+    public void givenAConflictingAddition_WhenAddingAMember_ThenItShouldBeRetriedUntilItSucceeds() {
+        // Arrange
+        Team team = new Team("Spectres");
+
+        Mockito.when(teamService.addTeamMember(anyLong(), any(CreateTeamMemberCommand.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Team.class, 1L))
+                .thenReturn(team);
+
+        // Act
+        Team updatedTeam = retryingService.addTeamMember(1L, new CreateTeamMemberCommand(2L));
+
+        // Assert
+        assertSame(team, updatedTeam);
+        Mockito.verify(teamService, Mockito.times(2)).addTeamMember(anyLong(), any(CreateTeamMemberCommand.class));
+    }
+
+    @Test
+    public void givenAlwaysConflictingAdditions_WhenAddingAMember_ThenTheConflictShouldBeThrownAfterTheLastAttempt() {
+        // Arrange
+        Mockito.when(teamService.addTeamMember(anyLong(), any(CreateTeamMemberCommand.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Team.class, 1L));
+
+        // Act / Assert
+        assertThrows(
+                ObjectOptimisticLockingFailureException.class,
+                () -> retryingService.addTeamMember(1L, new CreateTeamMemberCommand(2L)));
+        Mockito.verify(teamService, Mockito.times(MAX_ATTEMPTS))
+                .addTeamMember(anyLong(), any(CreateTeamMemberCommand.class));
+    }
+
+    @Test
+    public void givenAFullTeam_WhenAddingAMember_ThenTheFailureShouldNotBeRetried() {
+        // Arrange
+        Mockito.when(teamService.addTeamMember(anyLong(), any(CreateTeamMemberCommand.class)))
+                .thenThrow(new TeamAlreadyCompleteException());
+
+        // Act / Assert
+        assertThrows(
+                TeamAlreadyCompleteException.class,
+                () -> retryingService.addTeamMember(1L, new CreateTeamMemberCommand(2L)));
+        Mockito.verify(teamService).addTeamMember(anyLong(), any(CreateTeamMemberCommand.class));
+    }
+
+}
@@ -4,13 +4,20 @@ import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.Crea
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.DeleteTeamCommand;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.DeleteTeamMemberCommand;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.GetTeamsQuery;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.team.ReplaceTeamMembersCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDetailsDto;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.team.TeamDto;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.mappings.TeamMapper;
 import eu.telecomnancy.membershipmanagement.api.dal.repositories.TeamRepository;
 import eu.telecomnancy.membershipmanagement.api.domain.Team;
+import eu.telecomnancy.membershipmanagement.api.domain.User;
 import eu.telecomnancy.membershipmanagement.api.services.exceptions.team.TeamAlreadyCompleteException;
 import eu.telecomnancy.membershipmanagement.api.services.exceptions.team.UnknownTeamException;
 import eu.telecomnancy.membershipmanagement.api.services.exceptions.team.UserNotAMemberOfTheTeamException;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.user.UserAlreadyInATeamException;
+import eu.telecomnancy.membershipmanagement.api.services.notification.CacheInvalidation;
 import eu.telecomnancy.membershipmanagement.api.services.notification.MessagingService;
+import eu.telecomnancy.membershipmanagement.api.services.pagination.CursorPage;
 import eu.telecomnancy.membershipmanagement.api.services.team.TeamService;
 import eu.telecomnancy.membershipmanagement.api.services.user.UserService;
 import org.junit.jupiter.api.Test;
@@ -19,12 +26,16 @@ import org.mapstruct.factory.Mappers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 
+import java.time.Instant;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 
 /**
  * Unit test suite for the TeamService
@@ -86,15 +97,12 @@ public class TeamServiceTest {
     @Test
     public void givenACompleteAndIncompleteTeam_WhenQueryingAllOfThem_BothShouldBeRetrieved() {
         // Arrange
-        Team complete = new Team("Jedi");
-        complete.setComplete(true);
+        TeamDto complete = new TeamDto(Instant.now(), 1L, "Jedi", true, Team.MAX_MEMBERS);
+        TeamDto incomplete = new TeamDto(Instant.now(), 2L, "Sith", false, 0);
 
-        Team incomplete = new Team("Sith");
-        complete.setComplete(false);
+        List<TeamDto> teams = Arrays.asList(complete, incomplete);
 
-        List<Team> teams = Arrays.asList(complete, incomplete);
-
-        Mockito.when(teamRepository.findAll())
+        Mockito.when(teamRepository.findDtosByIdGreaterThan(anyLong(), any(Pageable.class)))
                 .thenReturn(teams);
 
         GetTeamsQuery getTeamsQuery = new GetTeamsQuery(Optional.empty());
@@ -102,7 +110,7 @@ public class TeamServiceTest {
         TeamService teamService = new TeamService(messagingService, teamRepository, userService, mapper);
 
         // Act
-        List<Team> retrievedTeams = teamService.getTeams(getTeamsQuery);
+        List<TeamDto> retrievedTeams = teamService.getTeams(getTeamsQuery).getContent();
 
         // Assert
         assertEquals(retrievedTeams.size(), teams.size());
@@ -111,10 +119,10 @@ public class TeamServiceTest {
     @Test
     public void givenACompleteAndIncompleteTeam_WhenQueryingTheCompleteOnes_OnlyTheCompleteShouldBeRetrieved() {
         // Arrange
-        Team complete = new Team("Jedi");
-        complete.setComplete(true);
+        TeamDto complete = new TeamDto(Instant.now(), 1L, "Jedi", true, Team.MAX_MEMBERS);
 
-        Mockito.when(teamRepository.getTeamByIsComplete(true))
+        Mockito.when(teamRepository.findDtosByIsCompleteAndIdGreaterThan(
+                eq(true), anyLong(), any(Pageable.class)))
                 .thenReturn(List.of(complete));
 
         GetTeamsQuery getTeamsQuery = new GetTeamsQuery(Optional.of(true));
@@ -122,7 +130,7 @@ public class TeamServiceTest {
         TeamService teamService = new TeamService(messagingService, teamRepository, userService, mapper);
 
         // Act
-        List<Team> retrievedTeams = teamService.getTeams(getTeamsQuery);
+        List<TeamDto> retrievedTeams = teamService.getTeams(getTeamsQuery).getContent();
 
         // Assert
         assertEquals(retrievedTeams, List.of(complete));
@@ -131,10 +139,10 @@ public class TeamServiceTest {
     @Test
     public void givenACompleteAndIncompleteTeam_WhenQueryingTheIncompleteOnes_OnlyTheIncompleteShouldBeRetrieved() {
         // Arrange
-        Team incomplete = new Team("Sith");
-        incomplete.setComplete(false);
+        TeamDto incomplete = new TeamDto(Instant.now(), 2L, "Sith", false, 0);
 
-        Mockito.when(teamRepository.getTeamByIsComplete(false))
+        Mockito.when(teamRepository.findDtosByIsCompleteAndIdGreaterThan(
+                eq(false), anyLong(), any(Pageable.class)))
                 .thenReturn(List.of(incomplete));
 
         GetTeamsQuery getTeamsQuery = new GetTeamsQuery(Optional.of(false));
@@ -142,17 +150,45 @@ public class TeamServiceTest {
         TeamService teamService = new TeamService(messagingService, teamRepository, userService, mapper);
 
         // Act
-        List<Team> retrievedTeams = teamService.getTeams(getTeamsQuery);
+        List<TeamDto> retrievedTeams = teamService.getTeams(getTeamsQuery).getContent();
 
         // Assert
         assertEquals(retrievedTeams, List.of(incomplete));
     }
 
+    @Test
+    public void givenTeamsWithMembers_WhenQueryingThemWithTheirMembers_ThenAllRostersShouldBeRetrievedAtOnce() {
+        // Arrange
+        Team jedi = new Team("Jedi");
+        jedi.setId(1L);
+        jedi.getMembers().add(new User(22, "Luke", "Skywalker"));
+
+        Team sith = new Team("Sith");
+        sith.setId(2L);
+
+        Mockito.when(teamRepository.findDtosByIdGreaterThan(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(mapper.toDto(jedi), mapper.toDto(sith)));
+        Mockito.when(teamRepository.findWithMembersByIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(jedi, sith));
+
+        GetTeamsQuery getTeamsQuery = new GetTeamsQuery(Optional.empty(), 0, CursorPage.DEFAULT_LIMIT, true);
+
+        TeamService teamService = new TeamService(messagingService, teamRepository, userService, mapper);
+
+        // Act
+        List<TeamDto> retrievedTeams = teamService.getTeams(getTeamsQuery).getContent();
+
+        // Assert
+        assertEquals(1, ((TeamDetailsDto) retrievedTeams.get(0)).getMembers().size());
+        assertEquals(0, ((TeamDetailsDto) retrievedTeams.get(1)).getMembers().size());
+        Mockito.verify(teamRepository).findWithMembersByIdIn(List.of(1L, 2L));
+    }
+
     @Test
     public void givenANonExistingTeam_WhenAttemptingToDeleteATeam_ThenAnExceptionShouldBeThrown() {
         // Arrange
-        Mockito.when(teamRepository.findById(anyLong()))
-                .thenReturn(Optional.empty());
+        Mockito.when(teamRepository.deleteTeamById(anyLong()))
+                .thenReturn(0);
 
         // Create the id (will not affect the test outcome)
         long teamId = 1;
@@ -229,4 +265,79 @@ public class TeamServiceTest {
                 () -> teamService.removeMemberFromTeam(deleteTeamMemberCommand));
     }
 
+    @Test
+    public void givenMoreMembersThanATeamCanHave_WhenReplacingTheMembers_ThenAnExceptionShouldBeThrown() {
+        // Arrange
+        Set<Long> memberIds = new HashSet<>();
+        for (long userId = 0; userId <= Team.MAX_MEMBERS; ++userId) {
+            memberIds.add(userId);
+        }
+
+        ReplaceTeamMembersCommand replaceTeamMembersCommand = new ReplaceTeamMembersCommand(memberIds);
+
+        TeamService teamService = new TeamService(messagingService, teamRepository, userService, mapper);
+
+        // Act + Assert
+        assertThrows(
+                TeamAlreadyCompleteException.class,
+                () -> teamService.replaceTeamMembers(0, replaceTeamMembersCommand));
+    }
+
+    @Test
+    public void givenAUserOfAnotherTeam_WhenReplacingTheMembers_ThenAnExceptionShouldBeThrown() {
+        // Arrange
+        Team team = new Team();
+        team.setId(1L);
+
+        Team otherTeam = new Team();
+        otherTeam.setId(2L);
+
+        User userOfAnotherTeam = new User();
+        userOfAnotherTeam.setId(0L);
+        userOfAnotherTeam.setTeam(otherTeam);
+
+        Mockito.when(teamRepository.findById(team.getId()))
+                .thenReturn(Optional.of(team));
+        Mockito.when(userService.retrieveUsersByIds(Set.of(userOfAnotherTeam.getId())))
+                .thenReturn(List.of(userOfAnotherTeam));
+
+        ReplaceTeamMembersCommand replaceTeamMembersCommand
+                = new ReplaceTeamMembersCommand(Set.of(userOfAnotherTeam.getId()));
+
+        TeamService teamService = new TeamService(messagingService, teamRepository, userService, mapper);
+
+        // Act + Assert
+        assertThrows(
+                UserAlreadyInATeamException.class,
+                () -> teamService.replaceTeamMembers(team.getId(), replaceTeamMembersCommand));
+
+        Mockito.verifyNoInteractions(messagingService);
+    }
+
+    @Test
+    public void givenAnUnknownId_WhenAnotherInstanceCreatesTheTeam_ThenItShouldBeQueriedAgain() {
+        // Arrange
+        Team created = new Team("Rogue One");
+        created.setId(42L);
+
+        Mockito.when(teamRepository.findById(anyLong()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(created));
+
+        TeamService teamService = new TeamService(messagingService, teamRepository, userService, mapper);
+
+        assertThrows(
+                UnknownTeamException.class,
+                () -> teamService.retrieveTeamById(42L));
+
+        // Act
+        // The invalidation of the team created by the other instance is received once committed
+        teamService.onCacheInvalidation(CacheInvalidation.ofTeam(42L));
+        Team retrieved = teamService.retrieveTeamById(42L);
+
+        // Assert
+        assertEquals(created, retrieved);
+        Mockito.verify(teamRepository, Mockito.times(2)).findById(42L);
+    }
+
 }
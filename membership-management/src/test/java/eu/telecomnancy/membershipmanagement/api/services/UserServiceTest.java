@@ -1,27 +1,44 @@
 package eu.telecomnancy.membershipmanagement.api.services;
 
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.CreateUsersCommand;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.DeleteUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.ExportUsersQuery;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.GetUserQuery;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.GetUsersQuery;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.PatchUserCommand;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.cqrs.user.UpdateUserCommand;
+import eu.telecomnancy.membershipmanagement.api.controllers.utils.dto.user.UserDto;
 import eu.telecomnancy.membershipmanagement.api.controllers.utils.mappings.UserMapper;
 import eu.telecomnancy.membershipmanagement.api.dal.repositories.UserRepository;
+import eu.telecomnancy.membershipmanagement.api.dal.repositories.UserVersion;
 import eu.telecomnancy.membershipmanagement.api.domain.Team;
 import eu.telecomnancy.membershipmanagement.api.domain.User;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.EntityChangedException;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.team.TeamAlreadyCompleteException;
 import eu.telecomnancy.membershipmanagement.api.services.exceptions.user.UnknownUserException;
+import eu.telecomnancy.membershipmanagement.api.services.exceptions.user.UserAlreadyInATeamException;
+import eu.telecomnancy.membershipmanagement.api.services.notification.CacheInvalidation;
 import eu.telecomnancy.membershipmanagement.api.services.notification.MessagingService;
+import eu.telecomnancy.membershipmanagement.api.services.notification.events.MembershipEvent;
+import eu.telecomnancy.membershipmanagement.api.services.pagination.CursorPage;
 import eu.telecomnancy.membershipmanagement.api.services.user.UserService;
+import eu.telecomnancy.membershipmanagement.api.services.versioning.EntityTags;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mapstruct.factory.Mappers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -55,7 +72,7 @@ public class UserServiceTest {
     @Test
     public void givenAnEmptyDatabase_WhenQueryingAllUsers_ThenNoneShouldBeRetrieved() {
         // Arrange
-        Mockito.when(userRepository.findAll())
+        Mockito.when(userRepository.findDtosByIdGreaterThan(anyLong(), any(Pageable.class)))
                 .thenReturn(new ArrayList<>());
 
         UserService userService = new UserService(messagingService, userRepository, mapper);
@@ -63,7 +80,7 @@ public class UserServiceTest {
         GetUsersQuery getUsersQuery = new GetUsersQuery(Optional.empty());
 
         // Act
-        List<User> users = userService.getUsers(getUsersQuery);
+        List<UserDto> users = userService.getUsers(getUsersQuery).getContent();
 
         // Assert
         assertTrue(users.isEmpty());
@@ -121,6 +138,115 @@ public class UserServiceTest {
                 () -> userService.patchUser(targetUserId, command));
     }
 
+    @Test
+    void givenAnUnknownId_WhenRetrievingItTwice_ThenTheRepositoryShouldBeQueriedOnce() {
+        // Arrange
+        Mockito.when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.empty());
+
+        UserService userService = new UserService(messagingService, userRepository, mapper);
+
+        GetUserQuery query = new GetUserQuery(42);
+
+        // Act
+        UnknownUserException firstException = assertThrows(
+                UnknownUserException.class,
+                () -> userService.getUser(query));
+        assertThrows(
+                UnknownUserException.class,
+                () -> userService.getUser(query));
+
+        // Assert
+        Mockito.verify(userRepository).findById(42L);
+        assertEquals(0, firstException.getStackTrace().length);
+    }
+
+    @Test
+    void givenAnUnknownIdThenCreated_WhenTheCreationIsCommitted_ThenItShouldBeQueriedAgain() {
+        // Arrange
+        User created = new User();
+        ReflectionTestUtils.setField(created, "id", 42L);
+
+        Mockito.when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(created));
+
+        Mockito.when(userRepository.save(any(User.class)))
+                .thenReturn(created);
+
+        UserService userService = new UserService(messagingService, userRepository, mapper);
+
+        GetUserQuery query = new GetUserQuery(42);
+
+        assertThrows(
+                UnknownUserException.class,
+                () -> userService.getUser(query));
+
+        userService.createUser(new CreateUserCommand(22, "Jyn", "Erso"));
+
+        // The id is still answered as unknown until the creation is committed
+        assertThrows(
+                UnknownUserException.class,
+                () -> userService.getUser(query));
+
+        // Act
+        // The invalidation of the created user is published once committed
+        userService.onCacheInvalidation(CacheInvalidation.ofUser(42L));
+        User retrieved = userService.getUser(query);
+
+        // Assert
+        assertSame(created, retrieved);
+        Mockito.verify(userRepository, Mockito.times(2)).findById(42L);
+        Mockito.verify(messagingService, Mockito.times(1))
+                .sendCacheInvalidationMessage(CacheInvalidation.ofUser(42L));
+    }
+
+    @Test
+    void givenAStaleEntityTag_WhenPatchingAnExistingUser_ThenAnEntityChangedExceptionShouldBeThrown() {
+        // Arrange
+        User user = new User();
+        ReflectionTestUtils.setField(user, "version", 2L);
+
+        Mockito.when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(user));
+
+        UserService userService = new UserService(messagingService, userRepository, mapper);
+
+        long targetUserId = 0;
+        PatchUserCommand command = new PatchUserCommand();
+        String staleEntityTag = EntityTags.ofUser(new UserVersion(1L, null));
+
+        // Act + Assert
+        assertThrows(
+                EntityChangedException.class,
+                () -> userService.patchUser(targetUserId, command, Optional.of(staleEntityTag)));
+        Mockito.verify(userRepository, Mockito.never()).save(any(User.class));
+    }
+
+    @Test
+    void givenTheCurrentEntityTag_WhenPatchingAnExistingUser_ThenTheUserShouldBeSaved() {
+        // Arrange
+        User user = new User();
+        ReflectionTestUtils.setField(user, "version", 2L);
+
+        Mockito.when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(user));
+
+        Mockito.when(userRepository.save(any(User.class)))
+                .thenReturn(user);
+
+        UserService userService = new UserService(messagingService, userRepository, mapper);
+
+        long targetUserId = 0;
+        PatchUserCommand command = new PatchUserCommand();
+        String currentEntityTag = EntityTags.ofUser(new UserVersion(2L, null));
+
+        // Act + Assert
+        assertDoesNotThrow(
+                () -> userService.patchUser(targetUserId, command, Optional.of(currentEntityTag)));
+        Mockito.verify(userRepository).save(user);
+    }
+
     @Test
     void givenAnyId_WhenUpdatingAnExistingUser_ThenNoExceptionShouldBeThrown() {
         // Arrange
@@ -160,12 +286,12 @@ public class UserServiceTest {
     @Test
     public void givenAPopulatedDatabase_WhenQueryingAllUsers_ThenAllShouldBeRetrieved() {
         // Arrange
-        List<User> storedUsers = Arrays.asList(
-                new User(23, "Pierre", "Bouillon"),
-                new User(23, "Victor", "Varnier")
+        List<UserDto> storedUsers = Arrays.asList(
+                new UserDto(1L, 23, "Pierre", "Bouillon"),
+                new UserDto(2L, 23, "Victor", "Varnier")
         );
 
-        Mockito.when(userRepository.findAll())
+        Mockito.when(userRepository.findDtosByIdGreaterThan(anyLong(), any(Pageable.class)))
                 .thenReturn(storedUsers);
 
         UserService userService = new UserService(messagingService, userRepository, mapper);
@@ -173,7 +299,7 @@ public class UserServiceTest {
         GetUsersQuery getUsersQuery = new GetUsersQuery(Optional.empty());
 
         // Act
-        List<User> users = userService.getUsers(getUsersQuery);
+        List<UserDto> users = userService.getUsers(getUsersQuery).getContent();
 
         // Assert
         assertEquals(users, storedUsers);
@@ -182,14 +308,12 @@ public class UserServiceTest {
     @Test
     public void givenUsersWithOrWithoutTeam_WhenQueryingAllOfThem_BothShouldBeRetrieved() {
         // Arrange
-        User userWithTeam = new User(100, "Sheev", "Palpatine");
-        userWithTeam.setTeam(new Team("Apprenteam"));
-
-        User userWithoutTeam = new User(25,"Luke","Skywalker");
+        UserDto userWithTeam = new UserDto(1L, 100, "Sheev", "Palpatine");
+        UserDto userWithoutTeam = new UserDto(2L, 25,"Luke","Skywalker");
 
-        List<User> users = Arrays.asList(userWithTeam, userWithoutTeam);
+        List<UserDto> users = Arrays.asList(userWithTeam, userWithoutTeam);
 
-        Mockito.when(userRepository.findAll())
+        Mockito.when(userRepository.findDtosByIdGreaterThan(anyLong(), any(Pageable.class)))
                 .thenReturn(users);
 
         GetUsersQuery getUsersQuery = new GetUsersQuery(Optional.empty());
@@ -197,7 +321,7 @@ public class UserServiceTest {
         UserService userService = new UserService(messagingService, userRepository, mapper);
 
         // Act
-        List<User> retrievedUsers = userService.getUsers(getUsersQuery);
+        List<UserDto> retrievedUsers = userService.getUsers(getUsersQuery).getContent();
 
         // Assert
         assertEquals(retrievedUsers.size(), users.size());
@@ -206,10 +330,9 @@ public class UserServiceTest {
     @Test
     public void givenUsersWithOrWithoutTeam_WhenQueryingTheOnesWithoutTeam_OnlyTheWithoutTeamUsersShouldBeRetrieved() {
         // Arrange
-        User userWithTeam = new User(100, "Sheev", "Palpatine");
-        userWithTeam.setTeam(new Team("Apprenteam"));
+        UserDto userWithTeam = new UserDto(1L, 100, "Sheev", "Palpatine");
 
-        Mockito.when(userRepository.findByTeamNotNull())
+        Mockito.when(userRepository.findDtosByTeamNotNullAndIdGreaterThan(anyLong(), any(Pageable.class)))
                 .thenReturn(List.of(userWithTeam));
 
         GetUsersQuery getUsersQuery = new GetUsersQuery(Optional.of(true));
@@ -217,7 +340,7 @@ public class UserServiceTest {
         UserService userService = new UserService(messagingService, userRepository, mapper);
 
         // Act
-        List<User> retrievedUsers = userService.getUsers(getUsersQuery);
+        List<UserDto> retrievedUsers = userService.getUsers(getUsersQuery).getContent();
 
         // Assert
         assertEquals(retrievedUsers, List.of(userWithTeam));
@@ -226,9 +349,9 @@ public class UserServiceTest {
     @Test
     public void givenUsersWithOrWithoutTeam_WhenQueryingTheOnesWithTeam_OnlyTheWithoutTeamUsersShouldBeRetrieved() {
         // Arrange
-        User userWithoutTeam = new User(23, "Cal", "Kestis");
+        UserDto userWithoutTeam = new UserDto(1L, 23, "Cal", "Kestis");
 
-        Mockito.when(userRepository.findByTeamNull())
+        Mockito.when(userRepository.findDtosByTeamNullAndIdGreaterThan(anyLong(), any(Pageable.class)))
                 .thenReturn(List.of(userWithoutTeam));
 
         GetUsersQuery getUsersQuery = new GetUsersQuery(Optional.of(false));
@@ -236,10 +359,174 @@ public class UserServiceTest {
         UserService userService = new UserService(messagingService, userRepository, mapper);
 
         // Act
-        List<User> retrievedUsers = userService.getUsers(getUsersQuery);
+        List<UserDto> retrievedUsers = userService.getUsers(getUsersQuery).getContent();
 
         // Assert
         assertEquals(retrievedUsers, List.of(userWithoutTeam));
     }
 
+    @Test
+    public void givenMoreUsersThanTheLimit_WhenQueryingAPage_ThenTheNextCursorShouldBeTheLastIdOfThePage() {
+        // Arrange
+        List<UserDto> storedUsers = new ArrayList<>();
+
+        for (long id = 1; id <= 3; ++id) {
+            storedUsers.add(new UserDto(id, 23, "Din", "Djarin"));
+        }
+
+        Mockito.when(userRepository.findDtosByIdGreaterThan(anyLong(), any(Pageable.class)))
+                .thenReturn(storedUsers);
+
+        GetUsersQuery getUsersQuery = new GetUsersQuery(Optional.empty(), 0, 2);
+
+        UserService userService = new UserService(messagingService, userRepository, mapper);
+
+        // Act
+        CursorPage<UserDto> page = userService.getUsers(getUsersQuery);
+
+        // Assert
+        assertEquals(page.getContent(), storedUsers.subList(0, 2));
+        assertEquals(page.getNextCursor(), Optional.of(2L));
+    }
+
+    @Test
+    public void givenUsersWithATeam_WhenExportingTheOnesWithTeam_ThenAllOfThemShouldBeConsumed() {
+        // Arrange
+        User firstUserWithTeam = new User(100, "Sheev", "Palpatine");
+        firstUserWithTeam.setTeam(new Team("Apprenteam"));
+
+        User secondUserWithTeam = new User(45, "Anakin", "Skywalker");
+        secondUserWithTeam.setTeam(new Team("Apprenteam"));
+
+        Mockito.when(userRepository.streamByTeamNotNull())
+                .thenReturn(Stream.of(firstUserWithTeam, secondUserWithTeam));
+
+        ExportUsersQuery exportUsersQuery = new ExportUsersQuery(Optional.of(true));
+
+        UserService userService = new UserService(messagingService, userRepository, mapper);
+
+        List<User> exportedUsers = new ArrayList<>();
+
+        // Act
+        userService.exportUsers(exportUsersQuery, exportedUsers::add);
+
+        // Assert
+        assertEquals(exportedUsers, List.of(firstUserWithTeam, secondUserWithTeam));
+    }
+
+    @Test
+    public void givenSeveralUsersToCreate_WhenCreatingThemAtOnce_ThenASingleNotificationShouldBeSent() {
+        // Arrange
+        CreateUsersCommand createUsersCommand = new CreateUsersCommand(List.of(
+                new CreateUserCommand(19, "Rey", "Skywalker"),
+                new CreateUserCommand(24, "Finn", "Trooper")));
+
+        Mockito.when(userRepository.saveAll(Mockito.<List<User>>any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        UserService userService = new UserService(messagingService, userRepository, mapper);
+
+        // Act
+        List<User> created = userService.createUsers(createUsersCommand);
+
+        // Assert
+        assertEquals(created.size(), 2);
+        Mockito.verify(messagingService, Mockito.times(1))
+                .publishEvent(MembershipEvent.usersCreated(2));
+    }
+
+    @Test
+    void givenAUserWithAnotherTeam_WhenAddingItToATeam_ThenAUserAlreadyInATeamExceptionShouldBeThrown() {
+        // Arrange
+        Team team = teamOfId(1, "Jedi Council");
+        User freeUser = userOfId(1, new User(19, "Rey", "Skywalker"));
+        User memberOfAnotherTeam = userOfId(2, new User(24, "Finn", "Trooper"));
+        memberOfAnotherTeam.setTeam(teamOfId(2, "Resistance"));
+
+        Set<Long> userIds = Set.of(1L, 2L);
+
+        Mockito.when(userRepository.joinTeam(team, userIds))
+                .thenReturn(1);
+        Mockito.when(userRepository.findAllById(userIds))
+                .thenReturn(List.of(freeUser, memberOfAnotherTeam));
+
+        UserService userService = new UserService(messagingService, userRepository, mapper);
+
+        // Act + Assert
+        assertThrows(
+                UserAlreadyInATeamException.class,
+                () -> userService.addAllToTeam(userIds, team));
+    }
+
+    @Test
+    void givenAFullTeam_WhenAddingUsersWithoutTeamToIt_ThenATeamAlreadyCompleteExceptionShouldBeThrown() {
+        // Arrange
+        Team team = teamOfId(1, "Jedi Council");
+        User joinedUser = userOfId(1, new User(19, "Rey", "Skywalker"));
+        joinedUser.setTeam(team);
+        User userLeftWithoutTeam = userOfId(2, new User(24, "Finn", "Trooper"));
+
+        Set<Long> userIds = Set.of(1L, 2L);
+
+        Mockito.when(userRepository.joinTeam(team, userIds))
+                .thenReturn(1);
+        Mockito.when(userRepository.findAllById(userIds))
+                .thenReturn(List.of(joinedUser, userLeftWithoutTeam));
+
+        UserService userService = new UserService(messagingService, userRepository, mapper);
+
+        // Act + Assert
+        assertThrows(
+                TeamAlreadyCompleteException.class,
+                () -> userService.addAllToTeam(userIds, team));
+    }
+
+    @Test
+    void givenADeletedUser_WhenAddingItToATeam_ThenAnUnknownUserExceptionShouldBeThrown() {
+        // Arrange
+        Team team = teamOfId(1, "Jedi Council");
+        User joinedUser = userOfId(1, new User(19, "Rey", "Skywalker"));
+        joinedUser.setTeam(team);
+
+        Set<Long> userIds = Set.of(1L, 2L);
+
+        Mockito.when(userRepository.joinTeam(team, userIds))
+                .thenReturn(1);
+        Mockito.when(userRepository.findAllById(userIds))
+                .thenReturn(List.of(joinedUser));
+
+        UserService userService = new UserService(messagingService, userRepository, mapper);
+
+        // Act + Assert
+        UnknownUserException exception = assertThrows(
+                UnknownUserException.class,
+                () -> userService.addAllToTeam(userIds, team));
+        assertTrue(exception.getMessage().contains("2"));
+    }
+
+    /**
+     * Give an id to a team
+     *
+     * @param id Id of the team
+     * @param name Name of the team
+     * @return The team with its id
+     */
+    private static Team teamOfId(long id, String name) {
+        Team team = new Team(name);
+        team.setId(id);
+        return team;
+    }
+
+    /**
+     * Give an id to a user
+     *
+     * @param id Id of the user
+     * @param user User without id
+     * @return The user with its id
+     */
+    private static User userOfId(long id, User user) {
+        user.setId(id);
+        return user;
+    }
+
 }
@@ -1,24 +1,73 @@
 package eu.telecomnancy.receivers.client.logger;
 
+import com.rabbitmq.client.Channel;
+import eu.telecomnancy.receivers.client.logger.offsets.StreamOffsetStore;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
 /**
  * Logging service, recording all the executed API operations
+ *
+ * Each operation is recorded with the routing key of its message, which is the type of the event for the changes of
+ * the content of the API. An operation is acknowledged once logged, so that it is delivered again if the logger stops
+ * before. Read from a stream, its offset is committed as well, the operations read again after a recovery of the
+ * consumer being skipped up to the last committed offset
  */
 @Log4j2
 @Service
 public class LogReceiver {
 
+    /**
+     * Name of the header holding the offset of a message read from a stream
+     */
+    private static final String STREAM_OFFSET_HEADER = "x-stream-offset";
+
+    /**
+     * Store of the offset of the stream, present in the `stream` mode only
+     */
+    private final Optional<StreamOffsetStore> offsetStore;
+
+    /**
+     * Create the logging service
+     *
+     * @param offsetStore Store of the offset of the stream, present in the `stream` mode only
+     */
+    public LogReceiver(Optional<StreamOffsetStore> offsetStore) {
+        this.offsetStore = offsetStore;
+    }
+
     /**
      * Entry point to all received messages from the RabbitMQ queue
      *
-     * @param dequeuedMessage The message extracted from the queue
+     * @param message The message extracted from the queue
+     * @param channel Channel on which the message has been delivered, and is acknowledged
+     * @param deliveryTag Tag of the delivery of the message on its channel
+     * @throws IOException If the message can't be acknowledged
      */
-    @RabbitListener(queues = "#{autoDeleteQueue.name}")
-    public void RabbitListener(String dequeuedMessage) {
-        log.info(dequeuedMessage);
+    @RabbitListener(queues = "#{loggerQueue.name}", containerFactory = "loggerContainerFactory")
+    public void receive(Message message, Channel channel, @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag)
+            throws IOException {
+        Object offset = message.getMessageProperties().getHeader(STREAM_OFFSET_HEADER);
+        Long streamOffset = offsetStore.isPresent() && offset instanceof Number ? ((Number) offset).longValue() : null;
+
+        if (streamOffset == null || !offsetStore.get().isCommitted(streamOffset)) {
+            log.info("{} {}", message.getMessageProperties().getReceivedRoutingKey(),
+                    new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+
+        channel.basicAck(deliveryTag, false);
+
+        if (streamOffset != null) {
+            offsetStore.get().commit(streamOffset);
+        }
     }
 
 }
@@ -0,0 +1,25 @@
+package eu.telecomnancy.receivers.client.logger.configuration;
+
+/**
+ * Modes of the queue from which the logger receives the operations
+ */
+public enum LoggerQueueMode {
+
+    /**
+     * Anonymous queue deleted with the connection of the logger: the operations published while it is down are lost
+     */
+    TRANSIENT,
+
+    /**
+     * Named durable queue kept on disk: the operations published while the logger is down are received once it is
+     * back, the ones not acknowledged being delivered again
+     */
+    DURABLE,
+
+    /**
+     * Named append-only stream: the logger resumes reading after the last offset it committed, the operations being
+     * kept for the retention of the stream whether they have been read or not
+     */
+    STREAM
+
+}
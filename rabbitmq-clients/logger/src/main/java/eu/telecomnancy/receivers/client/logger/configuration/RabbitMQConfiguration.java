@@ -1,13 +1,28 @@
 package eu.telecomnancy.receivers.client.logger.configuration;
 
+import eu.telecomnancy.receivers.client.logger.offsets.StreamOffsetStore;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 
 /**
  * RabbitMQ components configuration
  *
+ * The queue of the logger is transient by default. In the `durable` and `stream` modes, it is named and kept by the
+ * broker while the logger is down, on disk and bounded in size: a durable queue drops its oldest operations once
+ * full, a stream deletes its oldest segments. The operations are acknowledged manually once logged, the prefetch
+ * bounding the number of operations in flight
+ *
  * See: https://www.rabbitmq.com/tutorials/tutorial-three-spring-amqp.html
  */
 @Configuration
@@ -20,6 +35,11 @@ public class RabbitMQConfiguration {
      */
     private final static String HASH_WILDCARD = "#";
 
+    /**
+     * Consumer argument of a stream telling from which offset to read it
+     */
+    private final static String STREAM_OFFSET_ARGUMENT = "x-stream-offset";
+
     /**
      * RabbitMQ topic name
      */
@@ -27,29 +47,118 @@ public class RabbitMQConfiguration {
     private String topicName;
 
     /**
-     * Bean to create the RabbitMQ queue
+     * Mode of the queue, either `transient`, `durable` or `stream`
+     */
+    @Value("${logger.queue.mode:transient}")
+    private String queueMode;
+
+    /**
+     * Name of the queue in the `durable` and `stream` modes
+     */
+    @Value("${logger.queue.name:membership-management.logger}")
+    private String queueName;
+
+    /**
+     * Maximum size of the operations kept by the queue in the `durable` and `stream` modes
+     */
+    @Value("${logger.queue.max-length:1GB}")
+    private DataSize maxLength;
+
+    /**
+     * Size of the segments of the stream, deleted as a whole once the stream exceeds its maximum size
+     */
+    @Value("${logger.queue.stream.max-segment-size:100MB}")
+    private DataSize maxSegmentSize;
+
+    /**
+     * Offset from which to read the stream when no offset has been committed yet: `first`, `last` or `next`
+     */
+    @Value("${logger.queue.stream.initial-offset:next}")
+    private String initialOffset;
+
+    /**
+     * Maximum number of operations delivered and not acknowledged yet
+     */
+    @Value("${logger.consumer.prefetch:250}")
+    private int prefetch;
+
+    /**
+     * Get the mode of the queue
+     *
+     * @return The configured mode of the queue
+     */
+    public LoggerQueueMode getQueueMode() {
+        return LoggerQueueMode.valueOf(queueMode.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Bean to create the RabbitMQ queue, according to its mode
      *
      * @return An initialized queue
      */
     @Bean
-    public Queue autoDeleteQueue() {
-        return new AnonymousQueue();
+    public Queue loggerQueue() {
+        return switch (getQueueMode()) {
+            case TRANSIENT -> new AnonymousQueue();
+            case DURABLE -> QueueBuilder.durable(queueName)
+                    .lazy()
+                    .overflow(QueueBuilder.Overflow.dropHead)
+                    .withArgument("x-max-length-bytes", maxLength.toBytes())
+                    .build();
+            case STREAM -> QueueBuilder.durable(queueName)
+                    .withArgument("x-queue-type", "stream")
+                    .withArgument("x-max-length-bytes", maxLength.toBytes())
+                    .withArgument("x-stream-max-segment-size-bytes", maxSegmentSize.toBytes())
+                    .build();
+        };
     }
 
     /**
      * Bean to bind a RabbitMQ topic exchange and a queue
      *
      * @param topicExchange The topic exchange to bind with a queue
-     * @param autoDeleteQueue The queue to bind
+     * @param loggerQueue The queue to bind
      * @return A binding between a topic exchange and a queue
      */
     @Bean
-    public Binding binding(TopicExchange topicExchange, Queue autoDeleteQueue) {
-        return BindingBuilder.bind(autoDeleteQueue)
+    public Binding binding(TopicExchange topicExchange, Queue loggerQueue) {
+        return BindingBuilder.bind(loggerQueue)
                 .to(topicExchange)
                 .with(HASH_WILDCARD);
     }
 
+    /**
+     * Bean to create the listener containers of the logger, acknowledging the operations manually and reading a
+     * stream from the offset following the last committed one
+     *
+     * @param configurer Configurer applying the Spring Boot properties of the listeners
+     * @param connectionFactory Factory of the connections to the broker
+     * @param offsetStore Store of the offset of the stream, present in the `stream` mode only
+     * @return The factory of the listener containers
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory loggerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            Optional<StreamOffsetStore> offsetStore) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setPrefetchCount(prefetch);
+
+        if (getQueueMode() == LoggerQueueMode.STREAM) {
+            Object offset = offsetStore
+                    .map(StreamOffsetStore::getResumeOffset)
+                    .filter(OptionalLong::isPresent)
+                    .<Object>map(OptionalLong::getAsLong)
+                    .orElse(initialOffset);
+
+            factory.setContainerCustomizer(container ->
+                    container.setConsumerArguments(Map.of(STREAM_OFFSET_ARGUMENT, offset)));
+        }
+
+        return factory;
+    }
+
     /**
      * Bean to create the RabbitMQ topic exchange
      *
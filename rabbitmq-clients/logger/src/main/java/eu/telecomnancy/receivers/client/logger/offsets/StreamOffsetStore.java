@@ -0,0 +1,136 @@
+package eu.telecomnancy.receivers.client.logger.offsets;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Store of the offset of the last operation logged from the stream, from which the logger resumes after a restart
+ *
+ * The offsets are committed in memory as the operations are logged, and written to the file by batches: at most once
+ * per commit interval, and on shutdown. The file is replaced atomically, so that it always holds a committed offset.
+ * After a crash, the operations logged since the last write are received again
+ */
+@Log4j2
+@Service
+@ConditionalOnProperty(name = "logger.queue.mode", havingValue = "stream")
+public class StreamOffsetStore {
+
+    /**
+     * File holding the last committed offset
+     */
+    private final Path file;
+
+    /**
+     * Minimum interval between two writes of the file, in nanoseconds
+     */
+    private final long commitIntervalNanos;
+
+    /**
+     * Offset of the last logged operation, -1 before the first one
+     */
+    private long committedOffset;
+
+    /**
+     * Offset last written to the file
+     */
+    private long writtenOffset;
+
+    /**
+     * Time of the last write of the file, in nanoseconds
+     */
+    private long writtenAt = System.nanoTime();
+
+    /**
+     * Create the store, reading the offset committed before the last shutdown
+     *
+     * @param file File holding the last committed offset
+     * @param commitInterval Minimum interval between two writes of the file
+     * @throws IOException If the file exists but can't be read
+     */
+    public StreamOffsetStore(@Value("${logger.queue.stream.offset-file:./offsets/stream-offset}") Path file,
+                             @Value("${logger.queue.stream.commit-interval:1s}") Duration commitInterval)
+            throws IOException {
+        this.file = file;
+        this.commitIntervalNanos = commitInterval.toNanos();
+        this.committedOffset = Files.exists(file)
+                ? Long.parseLong(Files.readString(file, StandardCharsets.UTF_8).trim())
+                : -1;
+        this.writtenOffset = committedOffset;
+    }
+
+    /**
+     * Get the offset from which to resume reading the stream
+     *
+     * @return The offset following the last committed one, empty if none has been committed yet
+     */
+    public synchronized OptionalLong getResumeOffset() {
+        return committedOffset < 0 ? OptionalLong.empty() : OptionalLong.of(committedOffset + 1);
+    }
+
+    /**
+     * Tell whether an operation of the stream has already been logged, when it is read again after a recovery
+     *
+     * @param offset Offset of the operation in the stream
+     * @return True if the operation is at or before the last committed offset
+     */
+    public synchronized boolean isCommitted(long offset) {
+        return offset <= committedOffset;
+    }
+
+    /**
+     * Commit the offset of a logged operation, writing it to the file once the commit interval is over
+     *
+     * @param offset Offset of the operation in the stream
+     */
+    public synchronized void commit(long offset) {
+        committedOffset = Math.max(committedOffset, offset);
+
+        if (System.nanoTime() - writtenAt >= commitIntervalNanos) {
+            write();
+        }
+    }
+
+    /**
+     * Write the last committed offset on shutdown
+     */
+    @PreDestroy
+    public synchronized void flush() {
+        if (committedOffset != writtenOffset) {
+            write();
+        }
+    }
+
+    /**
+     * Write the last committed offset to the file, replacing it atomically
+     */
+    private void write() {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+
+            Path temporary = Files.createTempFile(parent, "offset", ".tmp");
+            Files.writeString(temporary, Long.toString(committedOffset), StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            writtenOffset = committedOffset;
+        } catch (IOException e) {
+            // Keep logging and retry after the interval, the operations since the last write being received again
+            // after a restart
+            log.error("Unable to write the offset {} to {}", committedOffset, file, e);
+        }
+
+        writtenAt = System.nanoTime();
+    }
+
+}
@@ -3,9 +3,11 @@ package eu.telecomnancy.receivers.client.monitoring;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Log4j2
 @SpringBootApplication
+@EnableScheduling
 public class MonitoringApplication {
 
 	public static void main(String[] args) {
@@ -5,6 +5,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Arrays;
+
 /**
  * RabbitMQ components configuration
  *
@@ -14,9 +16,12 @@ import org.springframework.context.annotation.Configuration;
 public class RabbitMQConfiguration {
 
     /**
-     * RabbitMQ routing key for messages related to the content of the API
+     * RabbitMQ binding keys of all the events of the teams and of the users
+     *
+     * The events which do not change the counts are received as well: each instance of the API sequences all of its
+     * events, so that the sequences of the counted ones alone would be seen as full of lost events
      */
-    private final static String CONTENT_KEY = "content";
+    private final static String[] EVENTS_KEYS = {"team.#", "user.#"};
 
     /**
      * RabbitMQ topic name
@@ -35,17 +40,19 @@ public class RabbitMQConfiguration {
     }
 
     /**
-     * Bean to bind a RabbitMQ topic exchange and a queue
+     * Bean to bind a RabbitMQ topic exchange and a queue, for all the events of the teams and of the users
      *
      * @param topicExchange The topic exchange to bind with a queue
      * @param autoDeleteQueue The queue to bind
-     * @return A binding between a topic exchange and a queue
+     * @return The bindings between a topic exchange and a queue
      */
     @Bean
-    public Binding binding(TopicExchange topicExchange, Queue autoDeleteQueue) {
-        return BindingBuilder.bind(autoDeleteQueue)
-                .to(topicExchange)
-                .with(CONTENT_KEY);
+    public Declarables bindings(TopicExchange topicExchange, Queue autoDeleteQueue) {
+        return new Declarables(Arrays.stream(EVENTS_KEYS)
+                .map(key -> BindingBuilder.bind(autoDeleteQueue)
+                        .to(topicExchange)
+                        .with(key))
+                .toArray(Declarable[]::new));
     }
 
     /**
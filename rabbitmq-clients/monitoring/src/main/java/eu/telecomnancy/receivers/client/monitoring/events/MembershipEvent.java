@@ -0,0 +1,41 @@
+package eu.telecomnancy.receivers.client.monitoring.events;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Event notifying a change of the content of the API
+ *
+ * Its type is carried by the AMQP type of the message, the absent fields are omitted by the API
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MembershipEvent {
+
+    /**
+     * Version of the format of the event
+     */
+    @JsonProperty("v")
+    private int version;
+
+    /**
+     * Id of the team concerned by the event, if any
+     */
+    private Long teamId;
+
+    /**
+     * Id of the user concerned by the event, if any
+     */
+    private Long userId;
+
+    /**
+     * Number of entities concerned by a batch event
+     */
+    private Integer count;
+
+}
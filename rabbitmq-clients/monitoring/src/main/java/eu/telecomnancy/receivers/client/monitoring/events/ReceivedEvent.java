@@ -0,0 +1,41 @@
+package eu.telecomnancy.receivers.client.monitoring.events;
+
+import lombok.Value;
+
+/**
+ * Event received from the API, along with the properties of its message telling it apart from the other ones
+ */
+@Value
+public class ReceivedEvent {
+
+    /**
+     * Type of the event
+     */
+    String type;
+
+    /**
+     * Content of the event
+     */
+    MembershipEvent event;
+
+    /**
+     * Id of the instance of the API which published the event, if any
+     */
+    String source;
+
+    /**
+     * Sequence of the event for its instance, if any
+     */
+    Long sequence;
+
+    /**
+     * Id of the stream of the position of the event, if any
+     */
+    String stream;
+
+    /**
+     * Position of the event within its stream, if any
+     */
+    Long position;
+
+}
@@ -1,43 +1,122 @@
 package eu.telecomnancy.receivers.client.monitoring.receivers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.telecomnancy.receivers.client.monitoring.events.MembershipEvent;
+import eu.telecomnancy.receivers.client.monitoring.events.ReceivedEvent;
 import eu.telecomnancy.receivers.client.monitoring.services.MonitoringService;
+import eu.telecomnancy.receivers.client.monitoring.services.snapshot.CountSynchronizer;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+
 /**
  * Custom service listening to the RabbitMQ messages in order to keep track of the number of users and teams
- * in tha API based on the received messages
+ * in tha API based on the received events
+ *
+ * The type of an event is read from the AMQP type of its message, only its ids and its count are read from its body.
+ * The events redelivered by the broker are recognized from the sequence of their instance, and the ones published
+ * again by the API under a new sequence from their position in its outbox: both are applied once only. The events
+ * already reflected by the snapshot of the API are recognized from their position as well
+ *
+ * All the events are received, the ones which do not change the counts included: they are only tracked, so that their
+ * sequences are not seen as lost
+ *
+ * The messages are consumed by several listeners at once, their number being configurable, the counts being updated
+ * without contention
+ *
+ * @see CountSynchronizer
  */
 @Log4j2
 @Service
 public class ContentOperationReceiver {
 
+    /**
+     * Name of the header holding the sequence of an event for the instance of the API which published it
+     */
+    public static final String SEQUENCE_HEADER = "x-sequence";
+
+    /**
+     * Name of the header holding the id of the stream of the position of an event
+     */
+    public static final String STREAM_HEADER = "x-stream";
+
+    /**
+     * Name of the header holding the position of an event within its stream
+     */
+    public static final String POSITION_HEADER = "x-position";
+
     /**
      * Monitoring service to track the API resources count
      */
     private final MonitoringService monitoringService;
 
+    /**
+     * JSON mapper used to deserialize the events
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Synchronizer of the counts with the snapshot of the API, through which the events are applied
+     */
+    private final CountSynchronizer countSynchronizer;
+
     /**
      * Create the queue listener
      *
      * @param monitoringService Monitoring service to track the API resources count
+     * @param objectMapper JSON mapper used to deserialize the events
+     * @param countSynchronizer Synchronizer of the counts, through which the events are applied
      */
-    public ContentOperationReceiver(MonitoringService monitoringService) {
+    public ContentOperationReceiver(MonitoringService monitoringService, ObjectMapper objectMapper,
+                                    CountSynchronizer countSynchronizer) {
         this.monitoringService = monitoringService;
+        this.objectMapper = objectMapper;
+        this.countSynchronizer = countSynchronizer;
     }
 
     /**
      * Entry point to all received messages from the RabbitMQ queue
      *
-     * @param dequeuedMessage The message extracted from the queue
+     * @param message The message extracted from the queue
      */
-    @RabbitListener(queues = "#{autoDeleteQueue.name}")
-    public void RabbitListener(String dequeuedMessage) {
-        // Update the current count of each resources
-        monitoringService.alterCountFromOperation(dequeuedMessage);
+    @RabbitListener(queues = "#{autoDeleteQueue.name}", concurrency = "${monitoring.listener.concurrency:4}")
+    public void receive(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        MembershipEvent event;
+
+        try {
+            event = objectMapper.readValue(message.getBody(), MembershipEvent.class);
+        } catch (IOException e) {
+            log.error("Unable to read the event {}", message, e);
+            return;
+        }
+
+        ReceivedEvent receivedEvent = new ReceivedEvent(
+                properties.getType(),
+                event,
+                properties.getAppId(),
+                toLong(properties.getHeader(SEQUENCE_HEADER)),
+                properties.getHeader(STREAM_HEADER) == null ? null : properties.getHeader(STREAM_HEADER).toString(),
+                toLong(properties.getHeader(POSITION_HEADER)));
 
-        log.info("Counts updated - {}", monitoringService);
+        // Update the current count of each resources, unless the counts are being synchronized
+        if (countSynchronizer.receive(receivedEvent) && monitoringService.isCounted(receivedEvent.getType())) {
+            log.info("Counts updated - {}", monitoringService);
+        }
+    }
+
+    /**
+     * Read a numeric header
+     *
+     * @param header Value of the header, if any
+     * @return The value of the header, null if it is absent or not a number
+     */
+    private static Long toLong(Object header) {
+        return header instanceof Number ? ((Number) header).longValue() : null;
     }
 
 }
@@ -1,5 +1,6 @@
 package eu.telecomnancy.receivers.client.monitoring.services;
 
+import eu.telecomnancy.receivers.client.monitoring.events.MembershipEvent;
 import eu.telecomnancy.receivers.client.monitoring.services.counters.Counter;
 import eu.telecomnancy.receivers.client.monitoring.services.counters.TeamCounterService;
 import eu.telecomnancy.receivers.client.monitoring.services.counters.UserCounterService;
@@ -8,10 +9,13 @@ import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Orchestrator to manage the count of the various resources of the API
  *
+ * The counts are updated concurrently by the listeners of the events, the actions being read-only once created
+ *
  * By default Service annotation creates a singleton scoped bean
  * Therefore, we do not need to implement the singleton pattern in addition to the service's definition
  */
@@ -29,9 +33,9 @@ public class MonitoringService {
     private final Counter userCounterService;
 
     /**
-     * Map the actions to perform on the counter based on the operation name
+     * Map the actions to perform on the counter based on the type of the event
      */
-    private final Map<String, Runnable> actionMap = new HashMap<>();
+    private final Map<String, Consumer<MembershipEvent>> actionMap = new HashMap<>();
 
     /**
      * Create the service
@@ -44,26 +48,50 @@ public class MonitoringService {
         this.teamCounterService = teamCounterService;
         this.userCounterService = userCounterService;
 
-        // Team count operations
-        actionMap.put(TeamCounterService.DECREMENT_COUNT_OPERATION_NAME, teamCounterService::decrement);
-        actionMap.put(TeamCounterService.INCREMENT_COUNT_OPERATION_NAME, teamCounterService::increment);
+        // Team count events
+        actionMap.put(TeamCounterService.BATCH_CREATED_EVENT_TYPE, event -> teamCounterService.add(event.getCount()));
+        actionMap.put(TeamCounterService.CREATED_EVENT_TYPE, event -> teamCounterService.increment());
+        actionMap.put(TeamCounterService.DELETED_EVENT_TYPE, event -> teamCounterService.decrement());
 
-        // User count operations
-        actionMap.put(UserCounterService.DECREMENT_COUNT_OPERATION_NAME, userCounterService::decrement);
-        actionMap.put(UserCounterService.INCREMENT_COUNT_OPERATION_NAME, userCounterService::increment);
+        // User count events
+        actionMap.put(UserCounterService.BATCH_CREATED_EVENT_TYPE, event -> userCounterService.add(event.getCount()));
+        actionMap.put(UserCounterService.CREATED_EVENT_TYPE, event -> userCounterService.increment());
+        actionMap.put(UserCounterService.DELETED_EVENT_TYPE, event -> userCounterService.decrement());
     }
 
     /**
      * Alter the count held by the dedicated counter
      *
-     * @param operationPayload Name of the operation performed by the API
+     * @param eventType Type of the event published by the API
+     * @param event Event published by the API
+     */
+    public void alterCountFromEvent(String eventType, MembershipEvent event) {
+        Consumer<MembershipEvent> action = actionMap.get(eventType);
+
+        if (action != null) {
+            action.accept(event);
+        }
+    }
+
+    /**
+     * Check whether an event changes a count
+     *
+     * @param eventType Type of the event published by the API
+     * @return True if the events of this type alter a count
+     */
+    public boolean isCounted(String eventType) {
+        return actionMap.containsKey(eventType);
+    }
+
+    /**
+     * Replace the counts held by the counters, from a snapshot of the API
+     *
+     * @param teamCount Number of teams
+     * @param userCount Number of users
      */
-    public void alterCountFromOperation(String operationPayload) {
-        actionMap.keySet()
-                .stream()
-                .filter(operationPayload::contains)
-                .findFirst()
-                .ifPresent(key -> actionMap.get(key).run());
+    public void restoreCounts(long teamCount, long userCount) {
+        teamCounterService.set(teamCount);
+        userCounterService.set(userCount);
     }
 
     @Override
@@ -2,9 +2,18 @@ package eu.telecomnancy.receivers.client.monitoring.services.counters;
 
 /**
  * Represent a class that can count a resource or an entity
+ *
+ * A counter is updated concurrently by the listeners of the events
  */
 public interface Counter {
 
+    /**
+     * Add a given amount to the count of the resource
+     *
+     * @param delta Amount to add, negative to subtract
+     */
+    void add(long delta);
+
     /**
      * Decrement the count of the resource
      */
@@ -15,11 +24,18 @@ public interface Counter {
      *
      * @return The current count of the resource
      */
-    int getCount();
+    long getCount();
 
     /**
      * Increment the count of the resource
      */
     void increment();
 
+    /**
+     * Replace the count of the resource, while it is not updated
+     *
+     * @param count New count of the resource
+     */
+    void set(long count);
+
 }
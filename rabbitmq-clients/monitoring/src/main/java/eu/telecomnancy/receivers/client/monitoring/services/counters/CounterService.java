@@ -1,29 +1,42 @@
 package eu.telecomnancy.receivers.client.monitoring.services.counters;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Base class for a counter, implementing its core logic
+ *
+ * The count is striped over several cells, so that the listeners updating it concurrently do not contend on a single
+ * one: an update touches the cell of its thread only, a read sums the cells
  */
 public abstract class CounterService implements Counter {
 
     /**
      * Inner-count of the resource
      */
-    private int count = 0;
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void add(long delta) {
+        count.add(delta);
+    }
 
     /**
      * {@inheritDoc}
      */
     @Override
     public void decrement() {
-        --count;
+        count.decrement();
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public int getCount() {
-        return count;
+    public long getCount() {
+        return count.sum();
     }
 
     /**
@@ -31,7 +44,18 @@ public abstract class CounterService implements Counter {
      */
     @Override
     public void increment() {
-        ++count;
+        count.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Only exact while no other thread updates the count
+     */
+    @Override
+    public void set(long count) {
+        this.count.reset();
+        this.count.add(count);
     }
 
 }
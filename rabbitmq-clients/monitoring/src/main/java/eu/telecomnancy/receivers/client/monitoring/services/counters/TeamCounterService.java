@@ -9,13 +9,18 @@ import org.springframework.stereotype.Service;
 public class TeamCounterService extends CounterService {
 
     /**
-     * Name of the API operation that should decrement the teams count
+     * Type of the event of the creation of several teams at once, incrementing the count by their number
      */
-    public static final String DECREMENT_COUNT_OPERATION_NAME = "DeleteTeamCommand";
+    public static final String BATCH_CREATED_EVENT_TYPE = "team.created.batch";
 
     /**
-     * Name of the API operation that should increment the teams count
+     * Type of the event of the creation of a team, incrementing the count
      */
-    public static final String INCREMENT_COUNT_OPERATION_NAME = "CreateTeamCommand";
+    public static final String CREATED_EVENT_TYPE = "team.created";
+
+    /**
+     * Type of the event of the deletion of a team, decrementing the count
+     */
+    public static final String DELETED_EVENT_TYPE = "team.deleted";
 
 }
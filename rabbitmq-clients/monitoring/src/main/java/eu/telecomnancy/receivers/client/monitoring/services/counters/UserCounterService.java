@@ -9,13 +9,18 @@ import org.springframework.stereotype.Service;
 public class UserCounterService extends CounterService {
 
     /**
-     * Name of the API operation that should decrement the users count
+     * Type of the event of the creation of several users at once, incrementing the count by their number
      */
-    public static final String DECREMENT_COUNT_OPERATION_NAME = "DeleteUserCommand";
+    public static final String BATCH_CREATED_EVENT_TYPE = "user.created.batch";
 
     /**
-     * Name of the API operation that should increment the users count
+     * Type of the event of the creation of a user, incrementing the count
      */
-    public static final String INCREMENT_COUNT_OPERATION_NAME = "CreateUserCommand";
+    public static final String CREATED_EVENT_TYPE = "user.created";
+
+    /**
+     * Type of the event of the deletion of a user, decrementing the count
+     */
+    public static final String DELETED_EVENT_TYPE = "user.deleted";
 
 }
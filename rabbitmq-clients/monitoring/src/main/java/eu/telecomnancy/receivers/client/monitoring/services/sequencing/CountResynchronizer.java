@@ -0,0 +1,65 @@
+package eu.telecomnancy.receivers.client.monitoring.services.sequencing;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coordinator of the resynchronizations of the counts with the API, requested once events are known to be lost
+ *
+ * A single resynchronization is requested at a time: the gaps detected while one is pending are part of it
+ */
+@Log4j2
+@Service
+public class CountResynchronizer {
+
+    /**
+     * Publisher of the requests to the component reloading the counts
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Whether a resynchronization has been requested and not completed yet
+     */
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    /**
+     * Create the coordinator
+     *
+     * @param eventPublisher Publisher of the requests to the component reloading the counts
+     */
+    public CountResynchronizer(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Request a resynchronization of the counts, unless one is already pending
+     *
+     * @param reason Reason of the resynchronization, for the logs
+     */
+    public void requestResynchronization(String reason) {
+        if (pending.compareAndSet(false, true)) {
+            log.warn("The counts are out of sync ({}), a resynchronization is requested", reason);
+            eventPublisher.publishEvent(new ResynchronizationRequestedEvent(reason));
+        }
+    }
+
+    /**
+     * Mark the pending resynchronization as completed, the counts being trusted again
+     */
+    public void resynchronizationCompleted() {
+        pending.set(false);
+    }
+
+    /**
+     * Tell whether the counts are waiting for a resynchronization
+     *
+     * @return True if a resynchronization is pending
+     */
+    public boolean isResynchronizationPending() {
+        return pending.get();
+    }
+
+}
@@ -0,0 +1,127 @@
+package eu.telecomnancy.receivers.client.monitoring.services.sequencing;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracker of the sequences of the events of each instance of the API, in order to ignore the redelivered events and
+ * to detect the lost ones
+ *
+ * Each instance numbers its events from its own sequence, and is identified by the application id of its messages.
+ * A lost event requests a resynchronization of the counts instead of letting them drift. An event published again by
+ * the API comes under a new sequence: it is recognized from its position in the outbox, which is kept
+ */
+@Log4j2
+@Service
+public class EventSequenceTracker {
+
+    /**
+     * Resynchronizer of the counts, called once events are lost
+     */
+    private final CountResynchronizer resynchronizer;
+
+    /**
+     * Number of sequences remembered for each instance
+     */
+    private final int windowSize;
+
+    /**
+     * Number of positions remembered for each stream
+     */
+    private final int historySize;
+
+    /**
+     * Duration a missing event is waited for before being considered lost, in nanoseconds
+     */
+    private final long gapGracePeriodNanos;
+
+    /**
+     * Windows of the sequences received, per instance of the API
+     */
+    private final Map<String, SequenceWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Histories of the positions received, per stream
+     */
+    private final Map<String, PositionHistory> histories = new ConcurrentHashMap<>();
+
+    /**
+     * Create the tracker
+     *
+     * @param resynchronizer Resynchronizer of the counts, called once events are lost
+     * @param windowSize Number of sequences remembered for each instance
+     * @param historySize Number of positions remembered for each stream
+     * @param gapGracePeriod Duration a missing event is waited for before being considered lost
+     */
+    public EventSequenceTracker(CountResynchronizer resynchronizer,
+                                @Value("${monitoring.sequencing.window-size:4096}") int windowSize,
+                                @Value("${monitoring.sequencing.position-history-size:65536}") int historySize,
+                                @Value("${monitoring.sequencing.gap-grace-period:5s}") Duration gapGracePeriod) {
+        this.resynchronizer = resynchronizer;
+        this.windowSize = windowSize;
+        this.historySize = historySize;
+        this.gapGracePeriodNanos = gapGracePeriod.toNanos();
+    }
+
+    /**
+     * Receive an event of an instance of the API
+     *
+     * @param source Id of the instance which published the event
+     * @param sequence Sequence of the event for its instance
+     * @return Whether the event is new or a duplicate
+     */
+    public SequenceWindow.Outcome receive(String source, long sequence) {
+        SequenceWindow window = windows.computeIfAbsent(source, ignored -> new SequenceWindow(windowSize));
+        long now = System.nanoTime();
+
+        SequenceWindow.Outcome outcome = window.receive(sequence, now);
+
+        if (window.hasGap(now, gapGracePeriodNanos)) {
+            resynchronizer.requestResynchronization("events lost from the instance " + source);
+        }
+
+        return outcome;
+    }
+
+    /**
+     * Receive an event positioned in the outbox of the API
+     *
+     * @param stream Id of the stream of the position of the event
+     * @param position Position of the event within its stream
+     * @return Whether the event is new or a duplicate, published again under another sequence
+     */
+    public SequenceWindow.Outcome receivePosition(String stream, long position) {
+        return histories.computeIfAbsent(stream, ignored -> new PositionHistory(historySize)).receive(position);
+    }
+
+    /**
+     * Check the instances whose missing events have not been received within the grace period, when no other event
+     * comes to reveal it
+     */
+    @Scheduled(fixedDelayString = "${monitoring.sequencing.gap-check-interval:1000}")
+    public void checkGaps() {
+        long now = System.nanoTime();
+
+        windows.forEach((source, window) -> {
+            if (window.hasGap(now, gapGracePeriodNanos)) {
+                resynchronizer.requestResynchronization("events missing from the instance " + source);
+            }
+        });
+    }
+
+    /**
+     * Forget the sequences and the positions received, once the counts have been resynchronized
+     */
+    public void reset() {
+        windows.values().forEach(SequenceWindow::reset);
+        histories.values().forEach(PositionHistory::reset);
+        log.debug("Sequences of {} instances reset", windows.size());
+    }
+
+}
@@ -0,0 +1,64 @@
+package eu.telecomnancy.receivers.client.monitoring.services.sequencing;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Bounded history of the positions of the events of a stream, telling the events published again by the API from the
+ * new ones
+ *
+ * The position of an event is its id in the outbox of the API, which is kept when the event is published again under
+ * a new sequence, after a failed publication of its batch. Such an event is published again shortly after, so the
+ * positions are remembered in their order of reception, the oldest being forgotten first. The positions are not
+ * contiguous, the ones of the rolled back changes being skipped: a missing position is not a lost event
+ */
+public class PositionHistory {
+
+    /**
+     * Number of positions remembered
+     */
+    private final int size;
+
+    /**
+     * Positions received, from the oldest to the newest
+     */
+    private final Set<Long> received = new LinkedHashSet<>();
+
+    /**
+     * Create an empty history
+     *
+     * @param size Number of positions remembered
+     */
+    public PositionHistory(int size) {
+        this.size = Math.max(1, size);
+    }
+
+    /**
+     * Receive an event
+     *
+     * @param position Position of the event within its stream
+     * @return Whether the event is new or a duplicate
+     */
+    public synchronized SequenceWindow.Outcome receive(long position) {
+        if (!received.add(position)) {
+            return SequenceWindow.Outcome.DUPLICATE;
+        }
+
+        if (received.size() > size) {
+            Iterator<Long> oldest = received.iterator();
+            oldest.next();
+            oldest.remove();
+        }
+
+        return SequenceWindow.Outcome.ACCEPTED;
+    }
+
+    /**
+     * Forget all the received positions, once the counts have been resynchronized
+     */
+    public synchronized void reset() {
+        received.clear();
+    }
+
+}
@@ -0,0 +1,16 @@
+package eu.telecomnancy.receivers.client.monitoring.services.sequencing;
+
+import lombok.Value;
+
+/**
+ * Application event published when the counts can no longer be trusted, events having been lost
+ */
+@Value
+public class ResynchronizationRequestedEvent {
+
+    /**
+     * Reason of the resynchronization, for the logs
+     */
+    String reason;
+
+}
@@ -0,0 +1,217 @@
+package eu.telecomnancy.receivers.client.monitoring.services.sequencing;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window over the sequences of the events of a publisher, telling the duplicates from the new events and
+ * keeping track of the missing ones
+ *
+ * The window remembers the last sequences up to the highest one received in a bitmap, one bit per sequence, so that
+ * each event costs a few bit operations. A missing sequence is a hole until it is received: the events may be
+ * delivered out of order, when the publisher retries some of them. A hole sliding out of the window without having
+ * been received is lost
+ */
+public class SequenceWindow {
+
+    /**
+     * Outcomes of the reception of an event
+     */
+    public enum Outcome {
+
+        /**
+         * The event is new, and is to be applied
+         */
+        ACCEPTED,
+
+        /**
+         * The event has already been received, or is too old to tell, and is to be ignored
+         */
+        DUPLICATE
+
+    }
+
+    /**
+     * Number of sequences remembered, a multiple of 64
+     */
+    private final int size;
+
+    /**
+     * Bitmap of the received sequences of the window, the sequence `s` being at the bit `s % size`
+     */
+    private final long[] received;
+
+    /**
+     * Lowest sequence received, the sequences below it are not holes
+     */
+    private long lowest;
+
+    /**
+     * Highest sequence received, 0 before the first event
+     */
+    private long highest;
+
+    /**
+     * Number of holes within the window
+     */
+    private int holeCount;
+
+    /**
+     * Time at which the window started having holes, in nanoseconds
+     */
+    private long holesSince;
+
+    /**
+     * Number of sequences lost so far
+     */
+    private long lostCount;
+
+    /**
+     * Create an empty window
+     *
+     * @param size Number of sequences remembered, rounded up to a multiple of 64
+     */
+    public SequenceWindow(int size) {
+        this.size = Math.max(64, (size + 63) & ~63);
+        this.received = new long[this.size / 64];
+    }
+
+    /**
+     * Receive an event
+     *
+     * @param sequence Sequence of the event
+     * @param now Current time, in nanoseconds
+     * @return Whether the event is new or a duplicate
+     */
+    public synchronized Outcome receive(long sequence, long now) {
+        if (highest == 0) {
+            lowest = sequence;
+            highest = sequence;
+            set(sequence);
+            return Outcome.ACCEPTED;
+        }
+
+        if (sequence > highest) {
+            slideTo(sequence, now);
+            return Outcome.ACCEPTED;
+        }
+
+        if (sequence <= highest - size || isSet(sequence)) {
+            return Outcome.DUPLICATE;
+        }
+
+        set(sequence);
+
+        if (sequence < lowest) {
+            // An event older than the first one received, which was not counted as a hole
+            lowest = sequence;
+        } else if (--holeCount == 0) {
+            holesSince = 0;
+        }
+
+        return Outcome.ACCEPTED;
+    }
+
+    /**
+     * Tell whether events have been lost, either because a hole slid out of the window or because a hole has not been
+     * filled for longer than the grace period
+     *
+     * @param now Current time, in nanoseconds
+     * @param gracePeriodNanos Duration a hole is waited for, in nanoseconds
+     * @return True if events have been lost
+     */
+    public synchronized boolean hasGap(long now, long gracePeriodNanos) {
+        return lostCount > 0 || (holeCount > 0 && now - holesSince > gracePeriodNanos);
+    }
+
+    /**
+     * Forget all the received sequences, once the counts have been resynchronized
+     */
+    public synchronized void reset() {
+        Arrays.fill(received, 0);
+        lowest = 0;
+        highest = 0;
+        holeCount = 0;
+        holesSince = 0;
+        lostCount = 0;
+    }
+
+    /**
+     * Get the number of sequences lost so far
+     *
+     * @return The number of lost sequences
+     */
+    public synchronized long getLostCount() {
+        return lostCount;
+    }
+
+    /**
+     * Move the window up to a new highest sequence, the sequences skipped becoming holes
+     *
+     * @param sequence New highest sequence
+     * @param now Current time, in nanoseconds
+     */
+    private void slideTo(long sequence, long now) {
+        long distance = sequence - highest;
+
+        if (distance >= size) {
+            // The whole window slides out: its holes, and the sequences skipped below the new window, are lost
+            lostCount += holeCount + Math.max(0, sequence - size - highest);
+            Arrays.fill(received, 0);
+            holeCount = 0;
+        } else {
+            for (long skipped = highest + 1; skipped <= sequence; ++skipped) {
+                // The bit of the sequence was the one of the sequence sliding out of the window
+                long slidingOut = skipped - size;
+
+                if (slidingOut >= lowest && !isSet(slidingOut)) {
+                    ++lostCount;
+                    --holeCount;
+                }
+
+                clear(skipped);
+            }
+        }
+
+        int newHoles = (int) Math.min(distance - 1, size - 1);
+
+        if (holeCount == 0 && newHoles > 0) {
+            holesSince = now;
+        }
+
+        holeCount += newHoles;
+        highest = sequence;
+        set(sequence);
+    }
+
+    /**
+     * Tell whether a sequence of the window has been received
+     *
+     * @param sequence Sequence of the window
+     * @return True if the sequence has been received
+     */
+    private boolean isSet(long sequence) {
+        int bit = (int) Math.floorMod(sequence, (long) size);
+        return (received[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Mark a sequence of the window as received
+     *
+     * @param sequence Sequence of the window
+     */
+    private void set(long sequence) {
+        int bit = (int) Math.floorMod(sequence, (long) size);
+        received[bit >>> 6] |= 1L << bit;
+    }
+
+    /**
+     * Mark a sequence of the window as not received
+     *
+     * @param sequence Sequence of the window
+     */
+    private void clear(long sequence) {
+        int bit = (int) Math.floorMod(sequence, (long) size);
+        received[bit >>> 6] &= ~(1L << bit);
+    }
+
+}
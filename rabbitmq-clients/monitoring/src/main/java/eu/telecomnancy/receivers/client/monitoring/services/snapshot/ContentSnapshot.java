@@ -0,0 +1,39 @@
+package eu.telecomnancy.receivers.client.monitoring.services.snapshot;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Snapshot of the number of teams and users served by the API
+ *
+ * The counts reflect the events of the stream up to the position, and none of the later ones
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ContentSnapshot {
+
+    /**
+     * Number of teams
+     */
+    private long teamCount;
+
+    /**
+     * Number of users
+     */
+    private long userCount;
+
+    /**
+     * Id of the stream of the positions of the events
+     */
+    private String stream;
+
+    /**
+     * Position of the last event reflected by the counts, within its stream
+     */
+    private long position;
+
+}
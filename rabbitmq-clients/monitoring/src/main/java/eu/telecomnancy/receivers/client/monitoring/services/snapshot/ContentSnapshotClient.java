@@ -0,0 +1,86 @@
+package eu.telecomnancy.receivers.client.monitoring.services.snapshot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Client of the snapshot endpoint of the API
+ */
+@Service
+public class ContentSnapshotClient {
+
+    /**
+     * Route of the snapshot endpoint
+     */
+    private static final String SNAPSHOT_ROUTE = "/api/snapshot";
+
+    /**
+     * JSON mapper used to deserialize the snapshots
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * URI of the snapshot endpoint
+     */
+    private final URI snapshotUri;
+
+    /**
+     * Maximum duration of a request
+     */
+    private final Duration timeout;
+
+    /**
+     * HTTP client sending the requests
+     */
+    private final HttpClient httpClient;
+
+    /**
+     * Create the client
+     *
+     * @param objectMapper JSON mapper used to deserialize the snapshots
+     * @param apiUrl Base URL of the API
+     * @param timeout Maximum duration of a request
+     */
+    public ContentSnapshotClient(ObjectMapper objectMapper,
+                                 @Value("${monitoring.api.url:http://localhost:8080}") String apiUrl,
+                                 @Value("${monitoring.snapshot.timeout:5s}") Duration timeout) {
+        this.objectMapper = objectMapper;
+        this.snapshotUri = URI.create(apiUrl + SNAPSHOT_ROUTE);
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    /**
+     * Retrieve the current snapshot of the API
+     *
+     * @return The number of teams and users, with the position of the last event they reflect
+     * @throws IOException If the API can't be reached or answers with an error
+     * @throws InterruptedException If the thread is interrupted while waiting for the API
+     */
+    public ContentSnapshot fetch() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(snapshotUri)
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+        if (response.statusCode() != 200) {
+            throw new IOException("Unexpected status " + response.statusCode() + " for " + snapshotUri);
+        }
+
+        return objectMapper.readValue(response.body(), ContentSnapshot.class);
+    }
+
+}
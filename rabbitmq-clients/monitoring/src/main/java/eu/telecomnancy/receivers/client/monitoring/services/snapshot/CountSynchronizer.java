@@ -0,0 +1,347 @@
+package eu.telecomnancy.receivers.client.monitoring.services.snapshot;
+
+import eu.telecomnancy.receivers.client.monitoring.events.ReceivedEvent;
+import eu.telecomnancy.receivers.client.monitoring.services.MonitoringService;
+import eu.telecomnancy.receivers.client.monitoring.services.sequencing.CountResynchronizer;
+import eu.telecomnancy.receivers.client.monitoring.services.sequencing.EventSequenceTracker;
+import eu.telecomnancy.receivers.client.monitoring.services.sequencing.ResynchronizationRequestedEvent;
+import eu.telecomnancy.receivers.client.monitoring.services.sequencing.SequenceWindow;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Synchronizer of the counts with the snapshot of the API, on startup and whenever events are lost
+ *
+ * While a snapshot is being loaded, the received events are buffered. Once loaded, the counts are replaced by the
+ * ones of the snapshot and the buffered events are applied, but the ones the snapshot already reflects: the events of
+ * the same stream up to its position. The events are then applied as they are received, the duplicates aside
+ *
+ * The buffer is bounded: when it is full, its events are dropped and the snapshot is loaded again, the events
+ * received before a snapshot is requested being reflected by it
+ *
+ * The events are received concurrently by the listeners: they are applied in parallel, sharing the counts lock,
+ * while a loaded snapshot replaces the counts and drains the buffer holding it exclusively. The state of the loads
+ * is guarded by the synchronizer itself, so that a gap detected while applying an event can request another load
+ */
+@Log4j2
+@Service
+public class CountSynchronizer {
+
+    /**
+     * Monitoring service holding the counts
+     */
+    private final MonitoringService monitoringService;
+
+    /**
+     * Client of the snapshot endpoint of the API
+     */
+    private final ContentSnapshotClient snapshotClient;
+
+    /**
+     * Tracker of the sequences of the events, telling the duplicates apart
+     */
+    private final EventSequenceTracker sequenceTracker;
+
+    /**
+     * Resynchronizer of the counts, told once the counts are trusted again
+     */
+    private final CountResynchronizer resynchronizer;
+
+    /**
+     * Maximum number of events buffered while a snapshot is loaded
+     */
+    private final int bufferCapacity;
+
+    /**
+     * Interval before loading the snapshot again after a first failure
+     */
+    private final long retryIntervalMillis;
+
+    /**
+     * Maximum interval between two attempts to load the snapshot
+     */
+    private final long maxBackoffMillis;
+
+    /**
+     * Executor loading the snapshots
+     */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "count-synchronizer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Events received while a snapshot is loaded
+     */
+    private final List<ReceivedEvent> buffer = new ArrayList<>();
+
+    /**
+     * Lock shared by the events being applied, and held exclusively while the counts are replaced by a snapshot
+     */
+    private final ReadWriteLock countsLock = new ReentrantReadWriteLock();
+
+    /**
+     * Whether the counts are waiting for a snapshot, the events being buffered meanwhile
+     */
+    private volatile boolean synchronizing = true;
+
+    /**
+     * Whether a load of the snapshot is scheduled or running
+     */
+    private boolean loading;
+
+    /**
+     * Whether the snapshot being loaded may not reflect all the events it misses, buffered events having been dropped
+     * or events having been lost since it was requested
+     */
+    private boolean reloadNeeded;
+
+    /**
+     * Number of failed attempts of the current load
+     */
+    private int failedAttempts;
+
+    /**
+     * Stream of the position of the last loaded snapshot
+     */
+    private String snapshotStream;
+
+    /**
+     * Position of the last event reflected by the last loaded snapshot
+     */
+    private long snapshotPosition;
+
+    /**
+     * Create the synchronizer, buffering the events until the first snapshot is loaded
+     *
+     * @param monitoringService Monitoring service holding the counts
+     * @param snapshotClient Client of the snapshot endpoint of the API
+     * @param sequenceTracker Tracker of the sequences of the events, telling the duplicates apart
+     * @param resynchronizer Resynchronizer of the counts, told once the counts are trusted again
+     * @param bufferCapacity Maximum number of events buffered while a snapshot is loaded
+     * @param retryInterval Interval before loading the snapshot again after a first failure
+     * @param maxBackoff Maximum interval between two attempts to load the snapshot
+     */
+    public CountSynchronizer(MonitoringService monitoringService, ContentSnapshotClient snapshotClient,
+                             EventSequenceTracker sequenceTracker, CountResynchronizer resynchronizer,
+                             @Value("${monitoring.snapshot.buffer-capacity:100000}") int bufferCapacity,
+                             @Value("${monitoring.snapshot.retry-interval:1s}") Duration retryInterval,
+                             @Value("${monitoring.snapshot.max-backoff:30s}") Duration maxBackoff) {
+        this.monitoringService = monitoringService;
+        this.snapshotClient = snapshotClient;
+        this.sequenceTracker = sequenceTracker;
+        this.resynchronizer = resynchronizer;
+        this.bufferCapacity = bufferCapacity;
+        this.retryIntervalMillis = retryInterval.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+    }
+
+    /**
+     * Load the first snapshot once the application is started, the queue receiving the events already
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        scheduleLoad(0);
+    }
+
+    /**
+     * Load the snapshot again once events are lost, buffering the events meanwhile
+     *
+     * @param request Request of the resynchronization
+     */
+    @EventListener
+    public synchronized void onResynchronizationRequested(ResynchronizationRequestedEvent request) {
+        synchronizing = true;
+        reloadNeeded = loading;
+        scheduleLoad(0);
+    }
+
+    /**
+     * Receive an event, applied unless it is a duplicate or already reflected by the snapshot, or buffered while a
+     * snapshot is loaded
+     *
+     * @param receivedEvent The received event
+     * @return True if the event has been applied, even one which does not change the counts
+     */
+    public boolean receive(ReceivedEvent receivedEvent) {
+        Lock lock = countsLock.readLock();
+        lock.lock();
+
+        try {
+            if (!synchronizing) {
+                return apply(receivedEvent);
+            }
+
+            synchronized (buffer) {
+                if (buffer.size() >= bufferCapacity) {
+                    log.warn("{} events buffered while loading the snapshot, dropped to load it again", buffer.size());
+                    buffer.clear();
+                    requestReload();
+                }
+
+                buffer.add(receivedEvent);
+            }
+
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop loading the snapshots
+     */
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Apply an event to the counts, unless it is a duplicate or already reflected by the snapshot
+     *
+     * @param receivedEvent The received event
+     * @return True if the event has been applied, even one which does not change the counts
+     */
+    private boolean apply(ReceivedEvent receivedEvent) {
+        // Track the sequence of every event, so that the ones reflected by the snapshot are not seen as missing
+        boolean redelivered = receivedEvent.getSource() != null && receivedEvent.getSequence() != null
+                && sequenceTracker.receive(receivedEvent.getSource(), receivedEvent.getSequence())
+                == SequenceWindow.Outcome.DUPLICATE;
+
+        // An event published again by the API comes under a new sequence, which is tracked, but keeps its position
+        boolean republished = receivedEvent.getStream() != null && receivedEvent.getPosition() != null
+                && sequenceTracker.receivePosition(receivedEvent.getStream(), receivedEvent.getPosition())
+                == SequenceWindow.Outcome.DUPLICATE;
+
+        if (redelivered || republished) {
+            log.debug("Duplicated event ignored: {}", receivedEvent);
+            return false;
+        }
+
+        if (receivedEvent.getPosition() != null && receivedEvent.getStream() != null
+                && receivedEvent.getStream().equals(snapshotStream)
+                && receivedEvent.getPosition() <= snapshotPosition) {
+            log.debug("Event already reflected by the snapshot ignored: {}", receivedEvent);
+            return false;
+        }
+
+        monitoringService.alterCountFromEvent(receivedEvent.getType(), receivedEvent.getEvent());
+        return true;
+    }
+
+    /**
+     * Flag the snapshot being loaded as not reflecting all the events it misses
+     */
+    private synchronized void requestReload() {
+        reloadNeeded = true;
+    }
+
+    /**
+     * Schedule a load of the snapshot, unless one is already scheduled or running
+     *
+     * @param delayMillis Delay before the load, in milliseconds
+     */
+    private void scheduleLoad(long delayMillis) {
+        if (!loading) {
+            loading = true;
+            executor.schedule(this::load, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Load the snapshot, then apply the events buffered meanwhile
+     */
+    private void load() {
+        synchronized (this) {
+            reloadNeeded = false;
+        }
+
+        ContentSnapshot snapshot;
+
+        try {
+            snapshot = snapshotClient.fetch();
+        } catch (IOException e) {
+            retryLater(e);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        // No event is applied nor buffered while the counts are replaced, so that none is counted twice or missed
+        Lock lock = countsLock.writeLock();
+        lock.lock();
+
+        try {
+            synchronized (this) {
+                loading = false;
+
+                if (reloadNeeded) {
+                    // Events newer than the snapshot may have been dropped or lost, the next snapshot reflects them
+                    scheduleLoad(0);
+                    return;
+                }
+
+                monitoringService.restoreCounts(snapshot.getTeamCount(), snapshot.getUserCount());
+                sequenceTracker.reset();
+                snapshotStream = snapshot.getStream();
+                snapshotPosition = snapshot.getPosition();
+                failedAttempts = 0;
+
+                // Trusted from now on, so that a gap among the buffered events requests another resynchronization
+                synchronizing = false;
+                resynchronizer.resynchronizationCompleted();
+            }
+
+            List<ReceivedEvent> buffered;
+
+            synchronized (buffer) {
+                buffered = new ArrayList<>(buffer);
+                buffer.clear();
+            }
+
+            int applied = 0;
+
+            for (ReceivedEvent receivedEvent : buffered) {
+                applied += apply(receivedEvent) ? 1 : 0;
+            }
+
+            log.info("Counts loaded from the snapshot at position {}, {} of the {} buffered events applied - {}",
+                    snapshotPosition, applied, buffered.size(), monitoringService);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Schedule the next attempt to load the snapshot, backing off exponentially
+     *
+     * @param cause Failure of the last attempt
+     */
+    private synchronized void retryLater(IOException cause) {
+        long delay = Math.min(maxBackoffMillis, retryIntervalMillis << Math.min(failedAttempts, 20));
+        ++failedAttempts;
+
+        log.warn("Unable to load the snapshot of the API, retrying in {} ms: {}", delay, cause.getMessage());
+
+        loading = false;
+        scheduleLoad(delay);
+    }
+
+}
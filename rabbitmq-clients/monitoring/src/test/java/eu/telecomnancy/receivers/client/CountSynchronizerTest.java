@@ -0,0 +1,234 @@
+package eu.telecomnancy.receivers.client;
+
+import eu.telecomnancy.receivers.client.monitoring.events.MembershipEvent;
+import eu.telecomnancy.receivers.client.monitoring.events.ReceivedEvent;
+import eu.telecomnancy.receivers.client.monitoring.services.MonitoringService;
+import eu.telecomnancy.receivers.client.monitoring.services.counters.TeamCounterService;
+import eu.telecomnancy.receivers.client.monitoring.services.counters.UserCounterService;
+import eu.telecomnancy.receivers.client.monitoring.services.sequencing.CountResynchronizer;
+import eu.telecomnancy.receivers.client.monitoring.services.sequencing.EventSequenceTracker;
+import eu.telecomnancy.receivers.client.monitoring.services.snapshot.ContentSnapshot;
+import eu.telecomnancy.receivers.client.monitoring.services.snapshot.ContentSnapshotClient;
+import eu.telecomnancy.receivers.client.monitoring.services.snapshot.CountSynchronizer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test suite for the CountSynchronizer
+ *
+ * @see CountSynchronizer
+ */
+@ExtendWith(MockitoExtension.class)
+public class CountSynchronizerTest {
+
+    /**
+     * Stream of the positions of the events of the tests
+     */
+    private static final String STREAM = "stream";
+
+    /**
+     * Id of the instance of the API publishing the events of the tests
+     */
+    private static final String SOURCE = "instance";
+
+    /**
+     * Mocked monitoring service to be injected for the unit tests
+     */
+    @Mock
+    MonitoringService monitoringService;
+
+    /**
+     * Mocked snapshot client to be injected for the unit tests
+     */
+    @Mock
+    ContentSnapshotClient snapshotClient;
+
+    /**
+     * Mocked resynchronizer to be injected for the unit tests
+     */
+    @Mock
+    CountResynchronizer resynchronizer;
+
+    /**
+     * Tested synchronizer
+     */
+    private CountSynchronizer countSynchronizer;
+
+    @BeforeEach
+    public void createSynchronizer() {
+        EventSequenceTracker sequenceTracker = new EventSequenceTracker(resynchronizer, 64, 64, Duration.ofMinutes(1));
+
+        // Long retry intervals, so that no load is scheduled during the tests
+        countSynchronizer = new CountSynchronizer(monitoringService, snapshotClient, sequenceTracker, resynchronizer,
+                100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    public void stopSynchronizer() {
+        countSynchronizer.stop();
+    }
+
+    @Test
+    public void givenEventsReceivedWhileLoading_WhenTheSnapshotIsLoaded_ThenOnlyTheNewerEventsShouldBeApplied()
+            throws Exception {
+        // Arrange
+        when(snapshotClient.fetch())
+                .thenReturn(new ContentSnapshot(3, 5, STREAM, 10));
+
+        ReceivedEvent reflectedEvent = userCreated(1, 9);
+        ReceivedEvent newerEvent = userCreated(2, 11);
+
+        boolean reflectedEventApplied = countSynchronizer.receive(reflectedEvent);
+        boolean newerEventApplied = countSynchronizer.receive(newerEvent);
+
+        // Act
+        ReflectionTestUtils.invokeMethod(countSynchronizer, "load");
+
+        // Assert
+        assertFalse(reflectedEventApplied);
+        assertFalse(newerEventApplied);
+
+        verify(monitoringService, times(1))
+                .restoreCounts(3, 5);
+        verify(monitoringService, times(1))
+                .alterCountFromEvent(UserCounterService.CREATED_EVENT_TYPE, newerEvent.getEvent());
+        verify(monitoringService, never())
+                .alterCountFromEvent(UserCounterService.CREATED_EVENT_TYPE, reflectedEvent.getEvent());
+        verify(resynchronizer, times(1))
+                .resynchronizationCompleted();
+    }
+
+    @Test
+    public void givenALoadedSnapshot_WhenAnEventIsRedelivered_ThenItShouldBeAppliedOnce() throws Exception {
+        // Arrange
+        when(snapshotClient.fetch())
+                .thenReturn(new ContentSnapshot(0, 0, STREAM, 0));
+
+        ReflectionTestUtils.invokeMethod(countSynchronizer, "load");
+
+        ReceivedEvent event = userCreated(1, 1);
+
+        // Act
+        boolean firstDeliveryApplied = countSynchronizer.receive(event);
+        boolean redeliveryApplied = countSynchronizer.receive(event);
+
+        // Assert
+        assertTrue(firstDeliveryApplied);
+        assertFalse(redeliveryApplied);
+
+        verify(monitoringService, times(1))
+                .alterCountFromEvent(UserCounterService.CREATED_EVENT_TYPE, event.getEvent());
+    }
+
+    @Test
+    public void givenALoadedSnapshot_WhenAnEventIsPublishedAgainUnderANewSequence_ThenItShouldBeAppliedOnce()
+            throws Exception {
+        // Arrange
+        when(snapshotClient.fetch())
+                .thenReturn(new ContentSnapshot(0, 0, STREAM, 0));
+
+        ReflectionTestUtils.invokeMethod(countSynchronizer, "load");
+
+        ReceivedEvent event = userCreated(1, 1);
+        ReceivedEvent republishedEvent = new ReceivedEvent(event.getType(), event.getEvent(), SOURCE, 2L, STREAM, 1L);
+
+        // Act
+        boolean firstPublicationApplied = countSynchronizer.receive(event);
+        boolean republicationApplied = countSynchronizer.receive(republishedEvent);
+
+        // Assert
+        assertTrue(firstPublicationApplied);
+        assertFalse(republicationApplied);
+
+        verify(monitoringService, times(1))
+                .alterCountFromEvent(UserCounterService.CREATED_EVENT_TYPE, event.getEvent());
+        verify(resynchronizer, never())
+                .requestResynchronization(anyString());
+    }
+
+    @Test
+    public void givenAnUnreachableApi_WhenLoadingTheSnapshot_ThenTheEventsShouldRemainBuffered() throws Exception {
+        // Arrange
+        when(snapshotClient.fetch())
+                .thenThrow(new IOException("Connection refused"));
+
+        // Act
+        ReflectionTestUtils.invokeMethod(countSynchronizer, "load");
+        boolean applied = countSynchronizer.receive(userCreated(1, 1));
+
+        // Assert
+        assertFalse(applied);
+
+        verify(monitoringService, never())
+                .restoreCounts(anyLong(), anyLong());
+        verifyNoMoreInteractions(monitoringService);
+    }
+
+    @Test
+    public void givenInterleavedUncountedEvents_WhenTheGapsAreChecked_ThenNoResynchronizationShouldBeRequested()
+            throws Exception {
+        // Arrange
+        when(snapshotClient.fetch())
+                .thenReturn(new ContentSnapshot(0, 0, STREAM, 0));
+
+        // No grace period, so that any missing sequence is seen as lost right away
+        EventSequenceTracker sequenceTracker = new EventSequenceTracker(resynchronizer, 64, 64, Duration.ZERO);
+        CountSynchronizer synchronizer = new CountSynchronizer(monitoringService, snapshotClient, sequenceTracker,
+                resynchronizer, 100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        ReceivedEvent userCreated = userCreated(1, 1);
+        ReceivedEvent userUpdated = new ReceivedEvent("user.updated", new MembershipEvent(1, null, 1L, null),
+                SOURCE, 2L, STREAM, 2L);
+        ReceivedEvent memberAdded = new ReceivedEvent("team.member.added", new MembershipEvent(1, 1L, 1L, null),
+                SOURCE, 3L, STREAM, 3L);
+        ReceivedEvent teamCreated = new ReceivedEvent(TeamCounterService.CREATED_EVENT_TYPE,
+                new MembershipEvent(1, 1L, null, null), SOURCE, 4L, STREAM, 4L);
+
+        // Act
+        try {
+            ReflectionTestUtils.invokeMethod(synchronizer, "load");
+
+            synchronizer.receive(userCreated);
+            synchronizer.receive(userUpdated);
+            synchronizer.receive(memberAdded);
+            synchronizer.receive(teamCreated);
+
+            sequenceTracker.checkGaps();
+        } finally {
+            synchronizer.stop();
+        }
+
+        // Assert
+        verify(resynchronizer, never())
+                .requestResynchronization(anyString());
+        verify(monitoringService, times(1))
+                .alterCountFromEvent(UserCounterService.CREATED_EVENT_TYPE, userCreated.getEvent());
+        verify(monitoringService, times(1))
+                .alterCountFromEvent(TeamCounterService.CREATED_EVENT_TYPE, teamCreated.getEvent());
+    }
+
+    /**
+     * Create a received event of the creation of a user
+     *
+     * @param sequence Sequence of the event for its instance
+     * @param position Position of the event within its stream
+     * @return The received event
+     */
+    private static ReceivedEvent userCreated(long sequence, long position) {
+        return new ReceivedEvent(UserCounterService.CREATED_EVENT_TYPE, new MembershipEvent(1, null, sequence, null),
+                SOURCE, sequence, STREAM, position);
+    }
+
+}
@@ -0,0 +1,223 @@
+package eu.telecomnancy.receivers.client;
+
+import eu.telecomnancy.receivers.client.monitoring.events.MembershipEvent;
+import eu.telecomnancy.receivers.client.monitoring.events.ReceivedEvent;
+import eu.telecomnancy.receivers.client.monitoring.services.MonitoringService;
+import eu.telecomnancy.receivers.client.monitoring.services.counters.TeamCounterService;
+import eu.telecomnancy.receivers.client.monitoring.services.counters.UserCounterService;
+import eu.telecomnancy.receivers.client.monitoring.services.sequencing.CountResynchronizer;
+import eu.telecomnancy.receivers.client.monitoring.services.sequencing.EventSequenceTracker;
+import eu.telecomnancy.receivers.client.monitoring.services.snapshot.ContentSnapshot;
+import eu.telecomnancy.receivers.client.monitoring.services.snapshot.ContentSnapshotClient;
+import eu.telecomnancy.receivers.client.monitoring.services.snapshot.CountSynchronizer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Stress test suite for the MonitoringService, updating the counts from several listeners at once
+ *
+ * @see MonitoringService
+ * @see CountSynchronizer
+ */
+@ExtendWith(MockitoExtension.class)
+public class MonitoringServiceStressTest {
+
+    /**
+     * Number of listeners receiving the events concurrently
+     */
+    private static final int LISTENERS = 8;
+
+    /**
+     * Number of events received by each listener
+     */
+    private static final int EVENTS_PER_LISTENER = 20_000;
+
+    /**
+     * Maximum duration of the reception of all the events
+     */
+    private static final long TIMEOUT_SECONDS = 60;
+
+    /**
+     * Id of the instance of the API publishing the events of the tests
+     */
+    private static final String SOURCE = "instance";
+
+    /**
+     * Mocked snapshot client to be injected for the unit tests
+     */
+    @Mock
+    ContentSnapshotClient snapshotClient;
+
+    /**
+     * Mocked resynchronizer to be injected for the unit tests
+     */
+    @Mock
+    CountResynchronizer resynchronizer;
+
+    /**
+     * Tested monitoring service, backed by real counters
+     */
+    private MonitoringService monitoringService;
+
+    /**
+     * Executor running the listeners
+     */
+    private ExecutorService listeners;
+
+    @BeforeEach
+    public void createService() {
+        monitoringService = new MonitoringService(new TeamCounterService(), new UserCounterService());
+        listeners = Executors.newFixedThreadPool(LISTENERS);
+    }
+
+    @AfterEach
+    public void stopListeners() {
+        listeners.shutdownNow();
+    }
+
+    @Test
+    public void givenConcurrentListeners_WhenUpdatingTheCounters_ThenTheCountsShouldBeExact() throws Exception {
+        // Arrange
+        MembershipEvent singleEvent = new MembershipEvent(1, 1L, 1L, null);
+        MembershipEvent batchEvent = new MembershipEvent(1, null, null, 3);
+
+        // Act
+        runListeners(listener -> {
+            for (int i = 0; i < EVENTS_PER_LISTENER; ++i) {
+                monitoringService.alterCountFromEvent(TeamCounterService.CREATED_EVENT_TYPE, singleEvent);
+                monitoringService.alterCountFromEvent(UserCounterService.BATCH_CREATED_EVENT_TYPE, batchEvent);
+
+                if (i % 2 == 0) {
+                    monitoringService.alterCountFromEvent(TeamCounterService.DELETED_EVENT_TYPE, singleEvent);
+                    monitoringService.alterCountFromEvent(UserCounterService.DELETED_EVENT_TYPE, singleEvent);
+                }
+            }
+        });
+
+        // Assert
+        long teamCount = (long) LISTENERS * EVENTS_PER_LISTENER / 2;
+        long userCount = (long) LISTENERS * EVENTS_PER_LISTENER * 3 - (long) LISTENERS * EVENTS_PER_LISTENER / 2;
+
+        assertEquals("teams: " + teamCount + "\t|\tusers: " + userCount, monitoringService.toString());
+    }
+
+    @Test
+    public void givenConcurrentRedeliveries_WhenReceivingTheEvents_ThenEachEventShouldBeAppliedOnce()
+            throws Exception {
+        // Arrange
+        int eventCount = LISTENERS * EVENTS_PER_LISTENER;
+
+        when(snapshotClient.fetch())
+                .thenReturn(new ContentSnapshot(0, 0, SOURCE, 0));
+
+        EventSequenceTracker sequenceTracker = new EventSequenceTracker(
+                resynchronizer, eventCount, eventCount, Duration.ofMinutes(1));
+        CountSynchronizer countSynchronizer = new CountSynchronizer(monitoringService, snapshotClient,
+                sequenceTracker, resynchronizer, 100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        ReflectionTestUtils.invokeMethod(countSynchronizer, "load");
+
+        AtomicInteger applied = new AtomicInteger();
+
+        // Act
+        try {
+            // Each event is received by two listeners, as when the broker redelivers it to another consumer
+            runListeners(listener -> {
+                for (int i = 0; i < EVENTS_PER_LISTENER; ++i) {
+                    for (int offset = 0; offset < 2; ++offset) {
+                        long sequence = 1 + (long) i * LISTENERS + (listener + offset) % LISTENERS;
+
+                        if (countSynchronizer.receive(userCreated(sequence))) {
+                            applied.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        } finally {
+            countSynchronizer.stop();
+        }
+
+        // Assert
+        assertEquals(eventCount, applied.get());
+        assertEquals("teams: 0\t|\tusers: " + eventCount, monitoringService.toString());
+
+        verify(resynchronizer, never())
+                .requestResynchronization(anyString());
+    }
+
+    /**
+     * Run the listeners together, and wait for all of them to be over
+     *
+     * @param listener Work of a listener, given its index
+     * @throws Exception Throws exception when a listener fails or does not finish in time
+     */
+    private void runListeners(Listener listener) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int i = 0; i < LISTENERS; ++i) {
+            int index = i;
+
+            results.add(listeners.submit(() -> {
+                start.await();
+                listener.receive(index);
+                return null;
+            }));
+        }
+
+        start.countDown();
+
+        for (Future<?> result : results) {
+            result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        listeners.shutdown();
+        assertTrue(listeners.awaitTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Create an event notifying the creation of a user
+     *
+     * @param sequence Sequence of the event for its instance
+     * @return The received event
+     */
+    private static ReceivedEvent userCreated(long sequence) {
+        return new ReceivedEvent(UserCounterService.CREATED_EVENT_TYPE, new MembershipEvent(1, null, sequence, null),
+                SOURCE, sequence, SOURCE, sequence);
+    }
+
+    /**
+     * Work of a listener receiving events
+     */
+    @FunctionalInterface
+    private interface Listener {
+
+        /**
+         * Receive the events of the listener
+         *
+         * @param index Index of the listener
+         */
+        void receive(int index);
+
+    }
+
+}
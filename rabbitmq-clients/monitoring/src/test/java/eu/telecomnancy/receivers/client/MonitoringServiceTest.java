@@ -1,5 +1,6 @@
 package eu.telecomnancy.receivers.client;
 
+import eu.telecomnancy.receivers.client.monitoring.events.MembershipEvent;
 import eu.telecomnancy.receivers.client.monitoring.services.MonitoringService;
 import eu.telecomnancy.receivers.client.monitoring.services.counters.TeamCounterService;
 import eu.telecomnancy.receivers.client.monitoring.services.counters.UserCounterService;
@@ -31,18 +32,19 @@ public class MonitoringServiceTest {
     UserCounterService userCounterService;
 
     @Test
-    public void givenTheCreateTeamCommand_WhenUpdatingTheCounter_ThenTheTeamCountShouldBeIncremented() {
+    public void givenTheTeamCreatedEvent_WhenUpdatingTheCounter_ThenTheTeamCountShouldBeIncremented() {
         // Arrange
         doNothing()
                 .when(teamCounterService)
                 .increment();
 
-        String receivedCommand = TeamCounterService.INCREMENT_COUNT_OPERATION_NAME;
+        String receivedEventType = TeamCounterService.CREATED_EVENT_TYPE;
+        MembershipEvent receivedEvent = new MembershipEvent(1, 1L, null, null);
 
         MonitoringService monitoringService = new MonitoringService(teamCounterService, userCounterService);
 
         // Act
-        monitoringService.alterCountFromOperation(receivedCommand);
+        monitoringService.alterCountFromEvent(receivedEventType, receivedEvent);
 
         // Assert
         verify(teamCounterService, times(1))
@@ -50,18 +52,19 @@ public class MonitoringServiceTest {
     }
 
     @Test
-    public void givenTheCreateUserCommand_WhenUpdatingTheCounter_ThenTheUserCountShouldBeIncremented() {
+    public void givenTheUserCreatedEvent_WhenUpdatingTheCounter_ThenTheUserCountShouldBeIncremented() {
         // Arrange
         doNothing()
                 .when(userCounterService)
                 .increment();
 
-        String receivedCommand = UserCounterService.INCREMENT_COUNT_OPERATION_NAME;
+        String receivedEventType = UserCounterService.CREATED_EVENT_TYPE;
+        MembershipEvent receivedEvent = new MembershipEvent(1, null, 1L, null);
 
         MonitoringService monitoringService = new MonitoringService(teamCounterService, userCounterService);
 
         // Act
-        monitoringService.alterCountFromOperation(receivedCommand);
+        monitoringService.alterCountFromEvent(receivedEventType, receivedEvent);
 
         // Assert
         verify(userCounterService, times(1))
@@ -69,18 +72,19 @@ public class MonitoringServiceTest {
     }
 
     @Test
-    public void givenTheDeleteTeamCommand_WhenUpdatingTheCounter_ThenTheTeamCountShouldBeDecremented() {
+    public void givenTheTeamDeletedEvent_WhenUpdatingTheCounter_ThenTheTeamCountShouldBeDecremented() {
         // Arrange
         doNothing()
                 .when(teamCounterService)
                 .decrement();
 
-        String receivedCommand = TeamCounterService.DECREMENT_COUNT_OPERATION_NAME;
+        String receivedEventType = TeamCounterService.DELETED_EVENT_TYPE;
+        MembershipEvent receivedEvent = new MembershipEvent(1, 1L, null, null);
 
         MonitoringService monitoringService = new MonitoringService(teamCounterService, userCounterService);
 
         // Act
-        monitoringService.alterCountFromOperation(receivedCommand);
+        monitoringService.alterCountFromEvent(receivedEventType, receivedEvent);
 
         // Assert
         verify(teamCounterService, times(1))
@@ -88,22 +92,45 @@ public class MonitoringServiceTest {
     }
 
     @Test
-    public void givenTheDeleteUserCommand_WhenUpdatingTheCounter_ThenTheUserCountShouldBeDecremented() {
+    public void givenTheUserDeletedEvent_WhenUpdatingTheCounter_ThenTheUserCountShouldBeDecremented() {
         // Arrange
         doNothing()
                 .when(userCounterService)
                 .decrement();
 
-        String receivedCommand = UserCounterService.DECREMENT_COUNT_OPERATION_NAME;
+        String receivedEventType = UserCounterService.DELETED_EVENT_TYPE;
+        MembershipEvent receivedEvent = new MembershipEvent(1, null, 1L, null);
 
         MonitoringService monitoringService = new MonitoringService(teamCounterService, userCounterService);
 
         // Act
-        monitoringService.alterCountFromOperation(receivedCommand);
+        monitoringService.alterCountFromEvent(receivedEventType, receivedEvent);
 
         // Assert
         verify(userCounterService, times(1))
                 .decrement();
     }
 
+    @Test
+    public void givenTheUsersCreatedEvent_WhenUpdatingTheCounter_ThenTheUserCountShouldBeIncreasedByItsCount() {
+        // Arrange
+        doNothing()
+                .when(userCounterService)
+                .add(3);
+
+        String receivedEventType = UserCounterService.BATCH_CREATED_EVENT_TYPE;
+        MembershipEvent receivedEvent = new MembershipEvent(1, null, null, 3);
+
+        MonitoringService monitoringService = new MonitoringService(teamCounterService, userCounterService);
+
+        // Act
+        monitoringService.alterCountFromEvent(receivedEventType, receivedEvent);
+
+        // Assert
+        verify(userCounterService, times(1))
+                .add(3);
+        verify(userCounterService, never())
+                .increment();
+    }
+
 }
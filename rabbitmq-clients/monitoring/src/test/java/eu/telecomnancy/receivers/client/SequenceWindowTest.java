@@ -0,0 +1,127 @@
+package eu.telecomnancy.receivers.client;
+
+import eu.telecomnancy.receivers.client.monitoring.services.sequencing.SequenceWindow;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test suite for the SequenceWindow
+ *
+ * @see SequenceWindow
+ */
+public class SequenceWindowTest {
+
+    /**
+     * Number of sequences remembered by the tested windows
+     */
+    private static final int WINDOW_SIZE = 64;
+
+    /**
+     * Duration a missing event is waited for, in nanoseconds
+     */
+    private static final long GRACE_PERIOD = 5;
+
+    @Test
+    public void givenAReceivedSequence_WhenReceivingItAgain_ThenItShouldBeADuplicate() {
+        // Arrange
+        SequenceWindow window = new SequenceWindow(WINDOW_SIZE);
+
+        window.receive(1, 0);
+        window.receive(2, 0);
+        window.receive(3, 0);
+
+        // Act
+        SequenceWindow.Outcome outcome = window.receive(2, 0);
+
+        // Assert
+        assertEquals(SequenceWindow.Outcome.DUPLICATE, outcome);
+        assertFalse(window.hasGap(GRACE_PERIOD * 2, GRACE_PERIOD));
+    }
+
+    @Test
+    public void givenAMissingSequence_WhenReceivingItLate_ThenItShouldBeAcceptedWithoutGap() {
+        // Arrange
+        SequenceWindow window = new SequenceWindow(WINDOW_SIZE);
+
+        window.receive(1, 0);
+        window.receive(3, 0);
+
+        // Act
+        SequenceWindow.Outcome outcome = window.receive(2, 1);
+
+        // Assert
+        assertEquals(SequenceWindow.Outcome.ACCEPTED, outcome);
+        assertFalse(window.hasGap(GRACE_PERIOD * 2, GRACE_PERIOD));
+    }
+
+    @Test
+    public void givenAMissingSequence_WhenTheGracePeriodIsOver_ThenAGapShouldBeDetected() {
+        // Arrange
+        SequenceWindow window = new SequenceWindow(WINDOW_SIZE);
+
+        window.receive(1, 0);
+        window.receive(3, 0);
+
+        // Act
+        boolean gapWithinGracePeriod = window.hasGap(GRACE_PERIOD, GRACE_PERIOD);
+        boolean gapAfterGracePeriod = window.hasGap(GRACE_PERIOD + 1, GRACE_PERIOD);
+
+        // Assert
+        assertFalse(gapWithinGracePeriod);
+        assertTrue(gapAfterGracePeriod);
+    }
+
+    @Test
+    public void givenAMissingSequence_WhenItSlidesOutOfTheWindow_ThenItShouldBeLost() {
+        // Arrange
+        SequenceWindow window = new SequenceWindow(WINDOW_SIZE);
+
+        window.receive(1, 0);
+
+        // Act
+        for (long sequence = 3; sequence <= WINDOW_SIZE + 2; ++sequence) {
+            window.receive(sequence, 0);
+        }
+
+        // Assert
+        assertEquals(1, window.getLostCount());
+        assertTrue(window.hasGap(0, GRACE_PERIOD));
+        assertEquals(SequenceWindow.Outcome.DUPLICATE, window.receive(2, 0));
+    }
+
+    @Test
+    public void givenAWindow_WhenSkippingMoreSequencesThanItsSize_ThenTheSkippedSequencesBelowItShouldBeLost() {
+        // Arrange
+        SequenceWindow window = new SequenceWindow(WINDOW_SIZE);
+
+        window.receive(1, 0);
+
+        // Act
+        window.receive(WINDOW_SIZE * 3, 0);
+
+        // Assert
+        assertEquals(WINDOW_SIZE * 2 - 1, window.getLostCount());
+        assertTrue(window.hasGap(0, GRACE_PERIOD));
+    }
+
+    @Test
+    public void givenAWindowWithAGap_WhenResettingIt_ThenTheNextSequenceShouldStartItAgain() {
+        // Arrange
+        SequenceWindow window = new SequenceWindow(WINDOW_SIZE);
+
+        window.receive(1, 0);
+        window.receive(WINDOW_SIZE * 2, 0);
+
+        // Act
+        window.reset();
+        SequenceWindow.Outcome outcome = window.receive(WINDOW_SIZE * 4, 0);
+
+        // Assert
+        assertEquals(SequenceWindow.Outcome.ACCEPTED, outcome);
+        assertFalse(window.hasGap(GRACE_PERIOD * 2, GRACE_PERIOD));
+    }
+
+}